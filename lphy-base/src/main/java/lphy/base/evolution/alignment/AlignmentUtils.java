@@ -100,15 +100,35 @@ public final class AlignmentUtils {
     /**
      * @return a {@link SimpleAlignment} partition with sequences
      * split from the parent alignment by list of {@link CharSetBlock}.
+     * The partition is a view of the parent alignment without copying the states,
+     * see {@link SimpleAlignment#SimpleAlignment(int[], SimpleAlignment)}.
      */
     public static SimpleAlignment getCharSetAlignment(List<CharSetBlock> charSetBlocks,
                                                       final SimpleAlignment parentAlignment) {
-        int partNChar = getNCharFromCharSet(charSetBlocks, parentAlignment.nchar());
-        // copy parentAlignment except of nchar
-        SimpleAlignment part = new SimpleAlignment(partNChar, parentAlignment);
-        // fill in sequences
-        fillSeqsToPartition(charSetBlocks, part, parentAlignment);
-        return part;
+        int[] siteIndices = getSiteIndicesFromCharSet(charSetBlocks, parentAlignment.nchar());
+        return new SimpleAlignment(siteIndices, parentAlignment);
+    }
+
+    /**
+     * @return  the site indices (start from 0) of the parent alignment defined by
+     *          the list of {@link CharSetBlock}, in the order of blocks.
+     */
+    public static int[] getSiteIndicesFromCharSet(List<CharSetBlock> charSetBlocks, int nchar) {
+        int[] siteIndices = new int[getNCharFromCharSet(charSetBlocks, nchar)];
+        int pos = 0;
+        for (CharSetBlock block : charSetBlocks) {
+            int toSite = block.getTo();
+            if (toSite <= 0)
+                toSite = nchar;
+
+            for (int i = block.getFrom(); i <= toSite; i += block.getEvery()) {
+                // the -1 comes from the fact that charsets are indexed from 1 whereas strings are indexed from 0
+                siteIndices[pos] = i - 1;
+                pos++;
+            }
+        }
+        assert pos == siteIndices.length;
+        return siteIndices;
     }
 
     private static int getNCharFromCharSet(List<CharSetBlock> charSetBlocks, int nchar) {
@@ -124,26 +144,4 @@ public final class AlignmentUtils {
         return s;
     }
 
-    private static void fillSeqsToPartition(List<CharSetBlock> charSetBlocks, SimpleAlignment partAlignment,
-                                            final SimpleAlignment parentAlignment) {
-        // partAlignment has the same taxa ordering of parentAlignment
-        for (int t = 0; t < parentAlignment.ntaxa(); t++) {
-            int pos = 0;
-            for (CharSetBlock block : charSetBlocks) {
-                int toSite = block.getTo();
-                if (toSite <= 0)
-                    toSite = parentAlignment.nchar();
-
-                for (int i = block.getFrom(); i <= toSite; i += block.getEvery()) {
-                    // the -1 comes from the fact that charsets are indexed from 1 whereas strings are indexed from 0
-                    int state = parentAlignment.getState(t, (i - 1));
-                    partAlignment.setState(t, pos, state);
-                    pos++;
-                }
-            }
-            assert pos == partAlignment.nchar();
-        }
-    }
-
-
 }
@@ -14,6 +14,6 @@ public class ErrorAlignment extends SimpleAlignment {
     }
 
     public boolean isError(int i, int j) {
-        return alignment[i][j] != parent.getState(i,j);
+        return getState(i, j) != parent.getState(i,j);
     }
 }
@@ -18,10 +18,19 @@ public class SimpleAlignment extends AbstractAlignment implements NarrativeName
     public static final int VAR_SITE_STATE = -1;
     int[][] alignment;
 
+    // if not null, this alignment is a view of the storage shared with its parent alignment,
+    // where index is the site of this alignment, and value is the site in the storage.
+    private int[] siteIndices;
+    // true if the storage is shared with any view, so that it is copied before it is modified
+    private boolean shared = false;
+
     // index is the site index, if constant site, the value is the constant state,
     // otherwise -1 for variable site. if all -1 then set constantSitesMark = new int[0]
     int[] constantSitesMark;
 
+    // index is the integer state, value is the code of that state, e.g. 0 -> "A"
+    private String[] stateCodes;
+
     /**
      * for simulated alignment
      * @see AbstractAlignment
@@ -41,6 +50,64 @@ public class SimpleAlignment extends AbstractAlignment implements NarrativeName
         alignment = new int[ntaxa()][nchar];
     }
 
+    /**
+     * Create a view of the given sites in the source alignment without copying the states.
+     * The storage is copied only if either this view or the source is modified later (copy-on-write).
+     * @param siteIndices  the site indices (start from 0) of the source alignment, which can be duplicated.
+     * @param source       the source alignment, which can be a view as well.
+     */
+    public SimpleAlignment(int[] siteIndices, SimpleAlignment source) {
+        super(siteIndices.length, source);
+        for (int site : siteIndices) {
+            if (site < 0 || site >= source.nchar())
+                throw new IllegalArgumentException("Site index " + site + " is out of the range [0, " +
+                        source.nchar() + ") !");
+        }
+        if (source.siteIndices == null) {
+            this.siteIndices = siteIndices.clone();
+        } else {
+            // view of a view uses the same storage
+            this.siteIndices = new int[siteIndices.length];
+            for (int j = 0; j < siteIndices.length; j++)
+                this.siteIndices[j] = source.siteIndices[siteIndices[j]];
+        }
+        this.alignment = source.alignment;
+        source.shared = true;
+        this.shared = true;
+    }
+
+    /**
+     * @return  true if this alignment is a view of the sites in another alignment,
+     *          which has not been modified since then.
+     * @see #SimpleAlignment(int[], SimpleAlignment)
+     */
+    public boolean isView() {
+        return siteIndices != null;
+    }
+
+    // copy-on-write, where a view only copies its own sites
+    private void ensureWritable() {
+        if (siteIndices != null) {
+            int[][] states = new int[ntaxa()][nchar];
+            for (int i = 0; i < states.length; i++)
+                for (int j = 0; j < nchar; j++)
+                    states[i][j] = alignment[i][siteIndices[j]];
+            alignment = states;
+            siteIndices = null;
+        } else if (shared) {
+            int[][] states = new int[alignment.length][];
+            for (int i = 0; i < states.length; i++)
+                states[i] = alignment[i].clone();
+            alignment = states;
+        }
+        shared = false;
+    }
+
+    // the site in the storage
+    private int site(int position) {
+        return siteIndices == null ? position : siteIndices[position];
+    }
+
     /**
      * Set states to {@link #alignment}.
      * @param taxon      the index of taxon in the 1st dimension of {@link #alignment}.
@@ -54,6 +121,8 @@ public class SimpleAlignment extends AbstractAlignment implements NarrativeName
         if ( state < 0 ||  state > getStateCount() )
             throw new IllegalArgumentException("Illegal to set a " + sequenceType.getName() +
                     " state outside of the range [0, " + (sequenceType.getStateCount()-1) + "] ! state = " + state);
+        if (shared)
+            ensureWritable();
         alignment[taxon][position] = state;
     }
 
@@ -63,7 +132,7 @@ public class SimpleAlignment extends AbstractAlignment implements NarrativeName
 
     @Override
     public int getState(int taxon, int position) {
-        return alignment[taxon][position];
+        return alignment[taxon][site(position)];
     }
 
     @Override
@@ -72,7 +141,7 @@ public class SimpleAlignment extends AbstractAlignment implements NarrativeName
         builder.append("{\n");
         for (int i = 0; i < ntaxa(); i++) {
             builder.append("  ").append(getTaxonName(i));
-            builder.append(" = ").append(Arrays.toString(alignment[i]));
+            builder.append(" = ").append(Arrays.toString(getStates(i)));
 //            if (i < n()-1)
             builder.append(",");
             builder.append("\n");
@@ -90,22 +159,47 @@ public class SimpleAlignment extends AbstractAlignment implements NarrativeName
      * @return  The string of sequence of taxon at taxonIndex
      */
     public String getSequence(int taxonIndex) {
-        StringBuilder builder = new StringBuilder();
-        State state;
-        for (int j = 0; j < alignment[taxonIndex].length; j++) {
-//            if (Objects.requireNonNull(sequenceType).getName().equals(Binary.NAME))
-//                builder.append(getBinaryChar(alignment[taxonIndex][j]));
-//            else if (sequenceType.getName().equals(Standard.NAME)) {
-//                Standard standard = (Standard) sequenceType;
-//                builder.append(standard.getStateName(alignment[taxonIndex][j]));
-//            } else
+        String[] codes = getStateCodes();
+        int[] states = alignment[taxonIndex];
+        StringBuilder builder = new StringBuilder(nchar);
+        for (int j = 0; j < nchar; j++) {
             // convert int state into letters
-            state = sequenceType.getState(alignment[taxonIndex][j]);
-            builder.append(Objects.requireNonNull(state));
+            builder.append(codes[states[site(j)]]);
         }
         return builder.toString();
     }
 
+    /**
+     * @param taxonIndex
+     * @return  a copy of the integer states of taxon at taxonIndex
+     */
+    public int[] getStates(int taxonIndex) {
+        if (siteIndices == null)
+            return alignment[taxonIndex].clone();
+        int[] states = new int[nchar];
+        for (int j = 0; j < nchar; j++)
+            states[j] = alignment[taxonIndex][siteIndices[j]];
+        return states;
+    }
+
+    /**
+     * The lookup table is computed once per alignment, so that converting sequences into
+     * letters does not require to look up a jebl {@link State} per site.
+     * @return  the array where index is the integer state,
+     *          and the value is the code of that state in {@link SequenceType}.
+     */
+    public String[] getStateCodes() {
+        if (stateCodes == null) {
+            String[] codes = new String[getStateCount()];
+            for (int s = 0; s < codes.length; s++) {
+                State state = sequenceType.getState(s);
+                codes[s] = String.valueOf(Objects.requireNonNull(state));
+            }
+            stateCodes = codes;
+        }
+        return stateCodes;
+    }
+
     /**
      * Mark the constant sites.
      * @return int[], where index is the site index, if constant site,
@@ -115,9 +209,10 @@ public class SimpleAlignment extends AbstractAlignment implements NarrativeName
     public int[] getConstantSitesMark() {
         if (constantSitesMark != null)
             return constantSitesMark; // cached
-        if (alignment.length != ntaxa() && alignment[0].length != nchar)
+        int storedNChar = siteIndices == null ? alignment[0].length : siteIndices.length;
+        if (alignment.length != ntaxa() && storedNChar != nchar)
             throw new IllegalArgumentException("Illegal alignment : " +
-                    alignment.length + " != " + ntaxa() + ", " + alignment[0].length + " != " + nchar);
+                    alignment.length + " != " + ntaxa() + ", " + storedNChar + " != " + nchar);
 
         constantSitesMark = new int[nchar];
         boolean isConstant;
@@ -156,13 +251,11 @@ public class SimpleAlignment extends AbstractAlignment implements NarrativeName
 
         StringBuilder builder = new StringBuilder();
         int[] mark = getConstantSitesMark();
-        State state;
-        for (int j = 0; j < alignment[taxonIndex].length; j++) {
+        String[] codes = getStateCodes();
+        for (int j = 0; j < nchar; j++) {
             // if mark[j] > -1, it is constant site
-            if (mark[j] == VAR_SITE_STATE) {
-                state = sequenceType.getState(alignment[taxonIndex][j]);
-                builder.append(Objects.requireNonNull(state));
-            }
+            if (mark[j] == VAR_SITE_STATE)
+                builder.append(codes[getState(taxonIndex, j)]);
         }
         return builder.toString();
     }
@@ -0,0 +1,162 @@
+package lphy.base.evolution.alignment;
+
+import jebl.evolution.sequences.SequenceType;
+import org.apache.commons.math3.random.MersenneTwister;
+import org.apache.commons.math3.random.RandomGenerator;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+
+/**
+ * An alignment which does not hold its states. They are simulated in blocks of columns
+ * only when the alignment is written, so that the peak memory is bounded by the block size
+ * rather than taxa &times; sites. The blocks are simulated from a random number generator
+ * created by the seed, so writing the alignment again gives the same states, as long as
+ * the generator has not been sampled again, otherwise the simulator throws an
+ * {@link IllegalStateException}. The states are only held in memory after they are accessed
+ * by {@link #getState(int, int)}, {@link #setState(int, int, int)} or {@link #toJSON()},
+ * which materialize the whole alignment once.
+ * @see lphy.core.model.SinkStreamable
+ */
+public class StreamedAlignment extends AbstractAlignment {
+
+    public static final int DEFAULT_BLOCK_SIZE = 1 << 16;
+
+    /**
+     * Simulate the sites from firstSite into all columns of a block.
+     */
+    @FunctionalInterface
+    public interface BlockSimulator {
+        void simulate(SimpleAlignment block, int firstSite, RandomGenerator random);
+    }
+
+    /**
+     * Process a block of columns, e.g. write it to the file, before the next block is simulated.
+     */
+    @FunctionalInterface
+    public interface BlockConsumer {
+        void accept(SimpleAlignment block, int firstSite) throws IOException;
+    }
+
+    private final BlockSimulator simulator;
+    private final long seed;
+    private final int blockSize;
+    // all states, only after they are accessed
+    private SimpleAlignment materialized = null;
+
+    /**
+     * @param idMap         the map of taxa names to their indices, same as the simulated {@link SimpleAlignment}.
+     * @param nchar         the number of sites.
+     * @param sequenceType  {@link SequenceType}
+     * @param seed          the seed to simulate the blocks.
+     * @param simulator     the simulation of a block.
+     */
+    public StreamedAlignment(Map<String, Integer> idMap, int nchar, SequenceType sequenceType,
+                             long seed, BlockSimulator simulator) {
+        this(idMap, nchar, sequenceType, seed, simulator, DEFAULT_BLOCK_SIZE);
+    }
+
+    public StreamedAlignment(Map<String, Integer> idMap, int nchar, SequenceType sequenceType,
+                             long seed, BlockSimulator simulator, int blockSize) {
+        super(idMap, nchar, sequenceType);
+        if (blockSize < 1)
+            throw new IllegalArgumentException("Block size must > 0 ! blockSize = " + blockSize);
+        this.simulator = simulator;
+        this.seed = seed;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Simulate the blocks in the order of sites, and pass each of them to the consumer.
+     * The same block is reused, so the consumer must not keep it.
+     * If the alignment has been materialized, the blocks are copied from its states instead.
+     * @param consumer  {@link BlockConsumer}
+     * @throws IOException  if the consumer fails.
+     */
+    public void forEachBlock(BlockConsumer consumer) throws IOException {
+        final SimpleAlignment states = getMaterialized();
+        RandomGenerator random = new MersenneTwister(seed);
+        SimpleAlignment block = null;
+        for (int firstSite = 0; firstSite < nchar; firstSite += blockSize) {
+            int columnCount = Math.min(blockSize, nchar - firstSite);
+            if (block == null || block.nchar() != columnCount)
+                block = new SimpleAlignment(getTaxa(), columnCount, getSequenceType());
+            if (states == null)
+                simulator.simulate(block, firstSite, random);
+            else
+                copySites(states, firstSite, block);
+            consumer.accept(block, firstSite);
+        }
+    }
+
+    /**
+     * Simulate all blocks into a {@link SimpleAlignment} once, which holds taxa &times; sites states.
+     * @return  the alignment of all states.
+     */
+    public synchronized SimpleAlignment materialize() {
+        if (materialized == null) {
+            SimpleAlignment states = new SimpleAlignment(getTaxa(), nchar, getSequenceType());
+            try {
+                forEachBlock((block, firstSite) -> {
+                    for (int i = 0; i < block.ntaxa(); i++) {
+                        for (int j = 0; j < block.nchar(); j++)
+                            states.setState(i, firstSite + j, block.getState(i, j));
+                    }
+                });
+            } catch (IOException e) {
+                // copying the blocks does not perform any I/O
+                throw new UncheckedIOException(e);
+            }
+            materialized = states;
+        }
+        return materialized;
+    }
+
+    /**
+     * @return  true, if the states are held in memory after {@link #materialize()}.
+     */
+    public synchronized boolean isMaterialized() {
+        return materialized != null;
+    }
+
+    private synchronized SimpleAlignment getMaterialized() {
+        return materialized;
+    }
+
+    private static void copySites(SimpleAlignment states, int firstSite, SimpleAlignment block) {
+        for (int i = 0; i < block.ntaxa(); i++) {
+            for (int j = 0; j < block.nchar(); j++)
+                block.setState(i, j, states.getState(i, firstSite + j));
+        }
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    @Override
+    public void setState(int taxon, int position, int state) {
+        materialize().setState(taxon, position, state);
+    }
+
+    @Override
+    public int getState(int taxon, int position) {
+        return materialize().getState(taxon, position);
+    }
+
+    @Override
+    public Class getComponentType() {
+        return Integer.class;
+    }
+
+    @Override
+    public String toJSON() {
+        return materialize().toJSON();
+    }
+
+    @Override
+    public String toString() {
+        return super.toString() + " (streamed)";
+    }
+}
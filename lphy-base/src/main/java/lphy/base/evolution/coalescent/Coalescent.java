@@ -2,6 +2,7 @@ package lphy.base.evolution.coalescent;
 
 import lphy.base.distribution.DistributionConstants;
 import lphy.base.distribution.Exp;
+import lphy.base.evolution.tree.CompactTimeTree;
 import lphy.base.evolution.tree.TaxaConditionedTreeGenerator;
 import lphy.base.evolution.tree.TimeTree;
 import lphy.base.evolution.tree.TimeTreeNode;
@@ -12,7 +13,6 @@ import lphy.core.model.annotation.GeneratorInfo;
 import lphy.core.model.annotation.ParameterInfo;
 
 import java.util.Arrays;
-import java.util.List;
 import java.util.Map;
 
 import static lphy.base.evolution.coalescent.CoalescentConstants.thetaParamName;
@@ -46,30 +46,31 @@ public class Coalescent extends TaxaConditionedTreeGenerator {
             description="The Kingman coalescent distribution over tip-labelled time trees.")
     public RandomVariable<TimeTree> sample() {
 
-        TimeTree tree = new TimeTree();
+        // build the arrays directly, nodes are only created if required
+        CompactTimeTree compactTree = createCompactLeafTaxa();
 
-        List<TimeTreeNode> activeNodes = createLeafTaxa(tree);
+        int k = compactTree.getLeafCount();
+        int[] activeNodes = new int[k];
+        for (int i = 0; i < k; i++)
+            activeNodes[i] = i;
 
         double time = 0.0;
         double theta = this.theta.value();
 
-        while (activeNodes.size() > 1) {
-            int k = activeNodes.size();
-
-            TimeTreeNode a = drawRandomNode(activeNodes);
-            TimeTreeNode b = drawRandomNode(activeNodes);
-
+        while (k > 1) {
             double rate = (k * (k - 1.0))/(theta * 2.0);
 
+            int a = drawRandomNode(activeNodes, k--);
+            int b = drawRandomNode(activeNodes, k--);
+
             // random exponential variate
             double x = - Math.log(random.nextDouble()) / rate;
             time += x;
 
-            TimeTreeNode parent = new TimeTreeNode(time, new TimeTreeNode[] {a, b});
-            activeNodes.add(parent);
+            activeNodes[k++] = compactTree.addInternalNode(time, a, b);
         }
 
-        tree.setRoot(activeNodes.get(0));
+        TimeTree tree = new TimeTree(compactTree);
 
         return new RandomVariable<>("\u03C8", tree, this);
     }
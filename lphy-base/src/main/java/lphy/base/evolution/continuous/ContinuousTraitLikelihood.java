@@ -0,0 +1,170 @@
+package lphy.base.evolution.continuous;
+
+import lphy.base.evolution.alignment.ContinuousCharacterData;
+import lphy.base.evolution.tree.TimeTree;
+import lphy.base.evolution.tree.TimeTreeNode;
+import org.apache.commons.lang3.ArrayUtils;
+import org.apache.commons.math3.linear.CholeskyDecomposition;
+import org.apache.commons.math3.linear.MatrixUtils;
+import org.apache.commons.math3.linear.NonPositiveDefiniteMatrixException;
+import org.apache.commons.math3.linear.NonSymmetricMatrixException;
+
+/**
+ * The log density of continuous traits at the leaves of a tree, where the traits of a child
+ * given its parent are Gaussian: N(weight * parent + shift, variance * covariance).
+ * The Gaussian partial likelihoods are pruned from leaves to the root, like independent contrasts,
+ * so it takes O(n k<sup>2</sup>) for n taxa and k traits instead of the O(n<sup>3</sup>)
+ * multivariate normal over all taxa. The traits at the root are fixed.
+ * If the variance between two subtrees is zero, e.g. sibling leaves on zero-length branches,
+ * their traits must be identical and are then counted once, otherwise the log density is -Infinity.
+ * The covariance matrix must be positive definite, although a singular one can be sampled,
+ * because the density of the traits is not defined in all dimensions.
+ * @see PhyloBrownian#logDensity(ContinuousCharacterData)
+ * @see PhyloMultivariateBrownian#logDensity(ContinuousCharacterData)
+ */
+final class ContinuousTraitLikelihood {
+
+    private static final double LOG_2PI = Math.log(2.0 * Math.PI);
+
+    /**
+     * The Gaussian transition along the branch above a child node.
+     */
+    interface BranchTransition {
+        double getWeight(TimeTreeNode parent, TimeTreeNode child);
+
+        double getShift(TimeTreeNode parent, TimeTreeNode child);
+
+        // the multiplier of the covariance matrix
+        double getVariance(TimeTreeNode parent, TimeTreeNode child);
+    }
+
+    private final int traitCount;
+    private final double[][] precision;
+    private final double logDetCovariance;
+
+    // the partial likelihood of the subtree below each node as the function of its traits x,
+    // which is exp(logScale) * N(means; x, variances * covariance), where index is node index
+    private final double[][] means;
+    private final double[] variances;
+    private final double[] logScales;
+
+    private ContinuousTraitLikelihood(int nodeCount, Double[][] covariance) {
+        traitCount = covariance.length;
+        double[][] matrix = new double[traitCount][];
+        for (int i = 0; i < traitCount; i++)
+            matrix[i] = ArrayUtils.toPrimitive(covariance[i]);
+        CholeskyDecomposition cholesky;
+        try {
+            cholesky = new CholeskyDecomposition(MatrixUtils.createRealMatrix(matrix));
+        } catch (NonSymmetricMatrixException | NonPositiveDefiniteMatrixException e) {
+            throw new IllegalArgumentException("The log density requires a symmetric positive-definite " +
+                    "diffusion matrix ! " + e.getMessage());
+        }
+        precision = cholesky.getSolver().getInverse().getData();
+        logDetCovariance = Math.log(cholesky.getDeterminant());
+
+        means = new double[nodeCount][traitCount];
+        variances = new double[nodeCount];
+        logScales = new double[nodeCount];
+    }
+
+    /**
+     * @param tree        the time tree, whose leaf ids are the taxa names in the data.
+     * @param data        the traits of leaves.
+     * @param rootValues  the traits at the root.
+     * @param covariance  the covariance matrix shared by all branches, e.g. the diffusion matrix.
+     * @param transition  {@link BranchTransition}
+     * @return  the log density of the traits of leaves.
+     */
+    static double logDensity(TimeTree tree, ContinuousCharacterData data, double[] rootValues,
+                             Double[][] covariance, BranchTransition transition) {
+        if (rootValues.length != covariance.length)
+            throw new IllegalArgumentException("The number of traits at the root (" + rootValues.length +
+                    ") must match the dimension of covariance (" + covariance.length + ") !");
+        if (data.nchar() != rootValues.length)
+            throw new IllegalArgumentException("The number of traits in the data (" + data.nchar() +
+                    ") must match the number of traits at the root (" + rootValues.length + ") !");
+
+        ContinuousTraitLikelihood likelihood = new ContinuousTraitLikelihood(tree.getNodeCount(), covariance);
+        TimeTreeNode root = tree.getRoot();
+        likelihood.prune(root, data, transition);
+
+        int r = root.getIndex();
+        double[] diff = new double[rootValues.length];
+        for (int i = 0; i < diff.length; i++)
+            diff[i] = rootValues[i] - likelihood.means[r][i];
+        return likelihood.logScales[r] + likelihood.logContrast(diff, likelihood.variances[r]);
+    }
+
+    // postorder, computes the partial likelihood of node from its children
+    private void prune(TimeTreeNode node, ContinuousCharacterData data, BranchTransition transition) {
+        final int n = node.getIndex();
+        if (node.isLeaf()) {
+            int taxonIndex = data.getTaxa().indexOfTaxon(node.getId());
+            if (taxonIndex < 0)
+                throw new IllegalArgumentException("Cannot find the traits of taxon " + node.getId() + " in the data !");
+            for (int i = 0; i < traitCount; i++)
+                means[n][i] = data.getState(taxonIndex, i);
+            variances[n] = 0.0;
+            logScales[n] = 0.0;
+            return;
+        }
+
+        boolean first = true;
+        double[] diff = new double[traitCount];
+        for (TimeTreeNode child : node.getChildren()) {
+            prune(child, data, transition);
+
+            // move the partial likelihood of child to the top of its branch
+            final int c = child.getIndex();
+            double weight = transition.getWeight(node, child);
+            double shift = transition.getShift(node, child);
+            for (int i = 0; i < traitCount; i++)
+                means[c][i] = (means[c][i] - shift) / weight;
+            variances[c] = (variances[c] + transition.getVariance(node, child)) / (weight * weight);
+            logScales[c] -= traitCount * Math.log(Math.abs(weight));
+
+            if (first) {
+                System.arraycopy(means[c], 0, means[n], 0, traitCount);
+                variances[n] = variances[c];
+                logScales[n] = logScales[c];
+                first = false;
+            } else {
+                // the product of two Gaussians is the contrast density times a Gaussian
+                double variance = variances[n] + variances[c];
+                for (int i = 0; i < traitCount; i++) {
+                    diff[i] = means[n][i] - means[c][i];
+                    // two point masses are at the same traits, or the density is 0
+                    if (variance > 0.0)
+                        means[n][i] = (means[n][i] * variances[c] + means[c][i] * variances[n]) / variance;
+                }
+                logScales[n] += logScales[c] + logContrast(diff, variance);
+                variances[n] = variance > 0.0 ? variances[n] * variances[c] / variance : 0.0;
+            }
+        }
+    }
+
+    // log N(diff; 0, variance * covariance), where zero variance is a point mass at 0
+    private double logContrast(double[] diff, double variance) {
+        if (variance > 0.0)
+            return logNormal(diff, variance);
+        for (double d : diff) {
+            if (d != 0.0)
+                return Double.NEGATIVE_INFINITY;
+        }
+        return 0.0;
+    }
+
+    // log N(diff; 0, variance * covariance)
+    private double logNormal(double[] diff, double variance) {
+        double quadratic = 0.0;
+        for (int i = 0; i < traitCount; i++) {
+            double row = 0.0;
+            for (int j = 0; j < traitCount; j++)
+                row += precision[i][j] * diff[j];
+            quadratic += diff[i] * row;
+        }
+        return -0.5 * (traitCount * (LOG_2PI + Math.log(variance)) + logDetCovariance + quadratic / variance);
+    }
+
+}
@@ -11,9 +11,7 @@ import lphy.core.model.annotation.Citation;
 import lphy.core.model.annotation.GeneratorCategory;
 import lphy.core.model.annotation.GeneratorInfo;
 import lphy.core.model.annotation.ParameterInfo;
-import lphy.core.model.datatype.DoubleValue;
 import lphy.core.simulator.RandomUtils;
-import org.apache.commons.math3.distribution.NormalDistribution;
 import org.apache.commons.math3.random.RandomGenerator;
 
 import java.util.Map;
@@ -42,7 +40,7 @@ public class PhyloBrownian implements GenerativeDistribution<ContinuousCharacter
     public static final String y0ParamName = "y0";
 
     public PhyloBrownian(@ParameterInfo(name = treeParamName, description = "the time tree.") Value<TimeTree> tree,
-                         @ParameterInfo(name = diffRateParamName, narrativeName = "evolutionary rate", description = "the diffusion rate.") Value<Double> diffusionRate,
+                         @ParameterInfo(name = diffRateParamName, narrativeName = "evolutionary rate", description = "the diffusion rate, which scales the branch lengths, so the variance of a branch is diffRate^2 * branch length.") Value<Double> diffusionRate,
                          @ParameterInfo(name = y0ParamName, narrativeName = "root value", description = "the value of continuous trait at the root.") Value<Double> y0) {
         this.tree = tree;
         this.diffusionRate = diffusionRate;
@@ -92,7 +90,7 @@ public class PhyloBrownian implements GenerativeDistribution<ContinuousCharacter
 
         Map<String, Double> tipValues = new TreeMap<>();
 
-        traverseTree(tree.value().getRoot(), y0, tipValues, diffusionRate.value(), idMap);
+        traverseTree(tree.value().getRoot(), y0.value(), tipValues, diffusionRate.value(), idMap);
 
         Taxa taxa = Taxa.createTaxa(tipValues.keySet().toArray());
         Double[][] values = new Double[taxa.ntaxa()][1];
@@ -106,6 +104,32 @@ public class PhyloBrownian implements GenerativeDistribution<ContinuousCharacter
         return new RandomVariable<>(null, continuousCharacterData, this);
     }
 
+    /**
+     * The traits at the leaves are pruned to the root, which takes linear time in the number of taxa.
+     * @param data  the continuous traits of the leaves.
+     * @return  the log density of the traits given the tree and the trait at the root.
+     */
+    @Override
+    public double logDensity(ContinuousCharacterData data) {
+        return ContinuousTraitLikelihood.logDensity(tree.value(), data, new double[]{y0.value()},
+                new Double[][]{{1.0}}, new ContinuousTraitLikelihood.BranchTransition() {
+                    @Override
+                    public double getWeight(TimeTreeNode parent, TimeTreeNode child) {
+                        return PhyloBrownian.this.getWeight(getTime(parent, child), child.getIndex());
+                    }
+
+                    @Override
+                    public double getShift(TimeTreeNode parent, TimeTreeNode child) {
+                        return PhyloBrownian.this.getShift(getTime(parent, child), child.getIndex());
+                    }
+
+                    @Override
+                    public double getVariance(TimeTreeNode parent, TimeTreeNode child) {
+                        return PhyloBrownian.this.getVariance(getTime(parent, child), child.getIndex());
+                    }
+                });
+    }
+
     public String getTypeName() {
         return "Continuous Character Data";
     }
@@ -127,27 +151,50 @@ public class PhyloBrownian implements GenerativeDistribution<ContinuousCharacter
         }
     }
 
-    private void traverseTree(TimeTreeNode node, Value<Double> nodeState, Map<String, Double> tipValues, double diffusionRate, Map<String, Integer> idMap) {
+    private void traverseTree(TimeTreeNode node, double nodeState, Map<String, Double> tipValues, double diffusionRate, Map<String, Integer> idMap) {
         if (node.isLeaf()) {
-            tipValues.put(node.getId(), nodeState.value());
+            tipValues.put(node.getId(), nodeState);
         } else {
             for (TimeTreeNode child : node.getChildren()) {
 
-                double variance = diffusionRate * (node.getAge() - child.getAge());
-
-                double newState = sampleNewState(nodeState.value(), variance, child.getIndex());
+                double newState = sampleNewState(nodeState, getTime(node, child), child.getIndex());
 
-                traverseTree(child, new DoubleValue("x", newState), tipValues, diffusionRate, idMap);
+                traverseTree(child, newState, tipValues, diffusionRate, idMap);
             }
         }
     }
 
+    private double getTime(TimeTreeNode node, TimeTreeNode child) {
+        return diffusionRate.value() * (node.getAge() - child.getAge());
+    }
+
     protected double sampleNewState(double initialState, double time, int nodeIndex) {
-        // use code available since apache math 3.1, see #215
-        NormalDistribution distribution = new
-                NormalDistribution(random, initialState, Math.sqrt(time * diffusionRate.value()),
-                NormalDistribution.DEFAULT_INVERSE_ABSOLUTE_ACCURACY);
-        return handleBoundaries(distribution.sample());
+        double mean = getWeight(time, nodeIndex) * initialState + getShift(time, nodeIndex);
+        // same as NormalDistribution#sample() without creating it per branch
+        return handleBoundaries(mean + Math.sqrt(getVariance(time, nodeIndex)) * random.nextGaussian());
+    }
+
+    /*
+     * The trait of a child given its parent is N(weight * parent + shift, variance),
+     * which is shared by sampleNewState and logDensity.
+     */
+
+    protected double getWeight(double time, int nodeIndex) {
+        return 1.0;
+    }
+
+    protected double getShift(double time, int nodeIndex) {
+        return 0.0;
+    }
+
+    /*
+     * The time is already scaled by the diffusion rate, so the variance is
+     * diffRate^2 * branch length, which is kept from the previous versions,
+     * so that the traits simulated from a seed do not change.
+     * PhyloOU has the same variance when the branch is short.
+     */
+    protected double getVariance(double time, int nodeIndex) {
+        return time * diffusionRate.value();
     }
 
     protected double handleBoundaries(double rawValue) {
@@ -1,6 +1,5 @@
 package lphy.base.evolution.continuous;
 
-import lphy.base.array.StringDoubleArrayMap;
 import lphy.base.evolution.alignment.ContinuousCharacterData;
 import lphy.base.evolution.tree.TimeTree;
 import lphy.base.evolution.tree.TimeTreeNode;
@@ -10,14 +9,17 @@ import lphy.core.model.Value;
 import lphy.core.model.annotation.GeneratorCategory;
 import lphy.core.model.annotation.GeneratorInfo;
 import lphy.core.model.annotation.ParameterInfo;
-import lphy.core.model.datatype.DoubleArrayValue;
 import lphy.core.simulator.RandomUtils;
 import org.apache.commons.lang3.ArrayUtils;
-import org.apache.commons.math3.distribution.MultivariateNormalDistribution;
+import org.apache.commons.math3.linear.CholeskyDecomposition;
+import org.apache.commons.math3.linear.EigenDecomposition;
+import org.apache.commons.math3.linear.MatrixUtils;
+import org.apache.commons.math3.linear.NonPositiveDefiniteMatrixException;
+import org.apache.commons.math3.linear.NonSymmetricMatrixException;
+import org.apache.commons.math3.linear.RealMatrix;
 import org.apache.commons.math3.random.RandomGenerator;
 
 import java.util.Map;
-import java.util.SortedMap;
 import java.util.TreeMap;
 
 /**
@@ -34,6 +36,9 @@ public class PhyloMultivariateBrownian implements GenerativeDistribution<Continu
     public static final String diffusionMatrixParamName = "diffusionMatrix";
     public static final String y0ParamName = "y0";
 
+    // relative to the largest eigenvalue of diffusion matrix
+    static final double EIGEN_VALUE_TOLERANCE = 1e-10;
+
     public PhyloMultivariateBrownian(@ParameterInfo(name = treeParamName, description = "the time tree.") Value<TimeTree> tree,
                                      @ParameterInfo(name = diffusionMatrixParamName, description = "the multivariate diffusion rates.") Value<Double[][]> diffusionRate,
                                      @ParameterInfo(name = y0ParamName, description = "the value of multivariate traits at the root.") Value<Double[]> y0) {
@@ -50,71 +55,70 @@ public class PhyloMultivariateBrownian implements GenerativeDistribution<Continu
             description = "The phylogenetic multivariate Brownian motion distribution.")
     public RandomVariable<ContinuousCharacterData> sample() {
 
-        SortedMap<String, Integer> idMap = new TreeMap<>();
-        fillIdMap(tree.value().getRoot(), idMap); // populate idMap in place
-
-        // populate tipValues (key = species name, value = trait values)
-        Map<String, Double[]> tipValues = new StringDoubleArrayMap(); // StringDoubleArrayMap extends Java API's TreeMap
-        fillValuesTraversingTree(tree.value().getRoot(), y0, tipValues, diffusionMatrix.value(), idMap);
-
-        // put tipValues inside contData
-        Double[][] contData = new Double[tree.value().n()][y0.value().length];
-        for (Map.Entry<String, Double[]> entry : tipValues.entrySet()) {
-            contData[tree.value().getTaxa().indexOfTaxon(entry.getKey())] = entry.getValue();
+        TimeTree timeTree = tree.value();
+        double[][] choleskyFactor = getCholeskyFactor(diffusionMatrix.value());
+        Double[] rootValues = y0.value();
+        if (rootValues.length != choleskyFactor.length)
+            throw new IllegalArgumentException("The number of traits in y0 (" + rootValues.length +
+                    ") must match the dimension of diffusion matrix (" + choleskyFactor.length + ") !");
+
+        // the trait values of every node, where index is the node index
+        double[][] nodeStates = new double[timeTree.getNodeCount()][choleskyFactor.length];
+        double[] standardNormals = new double[choleskyFactor.length];
+        TimeTreeNode root = timeTree.getRoot();
+        for (int i = 0; i < rootValues.length; i++)
+            nodeStates[root.getIndex()][i] = rootValues[i];
+        fillValuesTraversingTree(root, nodeStates, choleskyFactor, standardNormals);
+
+        // put the values of leaves inside contData
+        Double[][] contData = new Double[timeTree.n()][rootValues.length];
+        for (TimeTreeNode leaf : timeTree.getNodes()) {
+            if (leaf.isLeaf())
+                contData[timeTree.getTaxa().indexOfTaxon(leaf.getId())] = handleBoundaries(nodeStates[leaf.getIndex()]);
         }
 
-        return new RandomVariable<>("x", new ContinuousCharacterData(tree.value().getTaxa(), contData), this);
+        return new RandomVariable<>("x", new ContinuousCharacterData(timeTree.getTaxa(), contData), this);
     }
 
-    /*
-     * Side-effect: populates idMap in place
-     *
-     * key = the (String) name of a species
-     * value = an integer associated to that species
+    /**
+     * The traits at the leaves are pruned to the root, which takes O(n k^2) for n taxa and k traits.
+     * @param data  the continuous traits of the leaves.
+     * @return  the log density of the traits given the tree and the traits at the root.
      */
-    private void fillIdMap(TimeTreeNode node, SortedMap<String, Integer> idMap) {
-        if (node.isLeaf()) {
-            Integer i = idMap.get(node.getId()); // will be null the first time this is done because idMap is empty!
-
-            if (i == null) {
-                int nextValue = 0; // if looking at first leaf, it's mapped to value 0
-
-                for (Integer j : idMap.values()) {
-                    if (j >= nextValue)
-                        nextValue = j + 1; // if looking at second or later species, we add +1 to integer that will be its value
-                }
-
-                idMap.put(node.getId(), nextValue);
-            }
-        }
-
-        // recur
-        else {
-            for (TimeTreeNode child : node.getChildren()) {
-                fillIdMap(child, idMap);
-            }
-        }
+    @Override
+    public double logDensity(ContinuousCharacterData data) {
+        return ContinuousTraitLikelihood.logDensity(tree.value(), data, ArrayUtils.toPrimitive(y0.value()),
+                diffusionMatrix.value(), new ContinuousTraitLikelihood.BranchTransition() {
+                    @Override
+                    public double getWeight(TimeTreeNode parent, TimeTreeNode child) {
+                        return 1.0;
+                    }
+
+                    @Override
+                    public double getShift(TimeTreeNode parent, TimeTreeNode child) {
+                        return 0.0;
+                    }
+
+                    @Override
+                    public double getVariance(TimeTreeNode parent, TimeTreeNode child) {
+                        return parent.getAge() - child.getAge();
+                    }
+                });
     }
 
     /*
-     * Side-effect: populates tipValues in place
+     * Side-effect: populates nodeStates of the descendants of node in place
      *
-     * tipValues is a map (key = species name, value = trait values)
+     * nodeStates[i] is the trait values of the node having index i
      */
-    private void fillValuesTraversingTree(TimeTreeNode node, Value<Double[]> nodeState, Map<String, Double[]> tipValues, Double[][] diffusionMatrix, Map<String, Integer> idMap) {
-        if (node.isLeaf()) {
-            tipValues.put(node.getId(), nodeState.value()); // finished traversing tree, we have our tip values
-        }
-
+    private void fillValuesTraversingTree(TimeTreeNode node, double[][] nodeStates, double[][] choleskyFactor, double[] standardNormals) {
         // recur
-        else {
-            for (TimeTreeNode child : node.getChildren()) {
-                double branchLength = node.getAge() - child.getAge();
-                Double[] newIntNodeState = getSampleFromNewMVN(nodeState.value(), diffusionMatrix, branchLength); // MVN sampling here
-                DoubleArrayValue newIntNodeStateValue = new DoubleArrayValue(null, newIntNodeState);
-
-                fillValuesTraversingTree(child, newIntNodeStateValue, tipValues, diffusionMatrix, idMap);
-            }
+        for (TimeTreeNode child : node.getChildren()) {
+            double branchLength = node.getAge() - child.getAge();
+            // MVN sampling here
+            sampleNewState(nodeStates[node.getIndex()], choleskyFactor, branchLength, standardNormals, nodeStates[child.getIndex()]);
+
+            fillValuesTraversingTree(child, nodeStates, choleskyFactor, standardNormals);
         }
     }
 
@@ -133,34 +137,72 @@ public class PhyloMultivariateBrownian implements GenerativeDistribution<Continu
      */
 
     /*
-     * Returns a random sample from a (new) MVN distribution
+     * Returns the factor L where L * L^T = diffusionMatrix,
+     * which is computed once per sample instead of decomposing
+     * the var-cov of every branch.
+     * It is the lower triangular Cholesky factor if the matrix is positive definite,
+     * otherwise the symmetric square root from the eigen decomposition,
+     * which allows the positive semi-definite (singular) matrices, e.g. perfectly correlated traits.
+     */
+    static double[][] getCholeskyFactor(Double[][] diffusionMatrix) {
+        double[][] matrix = new double[diffusionMatrix.length][];
+        for (int i = 0; i < diffusionMatrix.length; i++)
+            matrix[i] = ArrayUtils.toPrimitive(diffusionMatrix[i]);
+        RealMatrix realMatrix = MatrixUtils.createRealMatrix(matrix);
+        try {
+            return new CholeskyDecomposition(realMatrix).getL().getData();
+        } catch (NonSymmetricMatrixException e) {
+            throw new IllegalArgumentException("The diffusion matrix must be symmetric ! " + e.getMessage());
+        } catch (NonPositiveDefiniteMatrixException e) {
+            return getEigenFactor(realMatrix);
+        }
+    }
+
+    // V * sqrt(D) * V^T, same as the sampling matrix of MultivariateNormalDistribution
+    private static double[][] getEigenFactor(RealMatrix matrix) {
+        EigenDecomposition eigen = new EigenDecomposition(matrix);
+        double[] eigenValues = eigen.getRealEigenvalues();
+        double maxEigenValue = 0;
+        for (double eigenValue : eigenValues)
+            maxEigenValue = Math.max(maxEigenValue, Math.abs(eigenValue));
+
+        RealMatrix v = eigen.getV();
+        RealMatrix vSqrtD = v.copy();
+        for (int j = 0; j < eigenValues.length; j++) {
+            double eigenValue = eigenValues[j];
+            // the rounding error of a zero eigenvalue
+            if (eigenValue < -EIGEN_VALUE_TOLERANCE * maxEigenValue)
+                throw new IllegalArgumentException("The diffusion matrix must be positive semi-definite, " +
+                        "but it has a negative eigenvalue " + eigenValue + " !");
+            double sqrt = Math.sqrt(Math.max(eigenValue, 0));
+            for (int i = 0; i < eigenValues.length; i++)
+                vSqrtD.multiplyEntry(i, j, sqrt);
+        }
+        return vSqrtD.multiply(v.transpose()).getData();
+    }
+
+    /*
+     * Draws a random sample from a (new) MVN distribution into newValue
      * defined from:
      * (1) a previous (MVN) mean and var-cov, and
      * (2) some waiting time during which diffusion happens (branchLength);
-     * at the end of this waiting time, we draw
+     * at the end of this waiting time, we draw.
+     *
+     * Mean remains the same under BM, and the var-cov is diffusionMatrix * branchLength,
+     * whose Cholesky factor is choleskyFactor * sqrt(branchLength).
      */
-    Double[] getSampleFromNewMVN(Double[] oldValue, Double[][] diffusionMatrix, double branchLength) {
-        // initializing moment containers of MVN
-        double[] means = new double[oldValue.length];
-        double[][] covariances = new double[diffusionMatrix.length][diffusionMatrix[0].length];
-
-        // populating moment containers
-        for (int i = 0; i < covariances.length; i++) {
-            means[i] = oldValue[i]; // mean remains the same under BM
-
-            /*
-             * variances and co-variances must be updated (they increase with time
-             * as diffusion is happening), which is done here by multiplying
-             * previous var-covars by branchLength
-             */
-            for (int j = 0; j < covariances.length; j++) {
-                covariances[i][j] = diffusionMatrix[i][j] * branchLength;
-            }
+    void sampleNewState(double[] oldValue, double[][] choleskyFactor, double branchLength,
+                        double[] standardNormals, double[] newValue) {
+        final double scale = Math.sqrt(branchLength);
+        for (int i = 0; i < standardNormals.length; i++)
+            standardNormals[i] = random.nextGaussian();
+
+        for (int i = 0; i < newValue.length; i++) {
+            double diffusion = 0;
+            for (int j = 0; j < standardNormals.length; j++)
+                diffusion += choleskyFactor[i][j] * standardNormals[j];
+            newValue[i] = oldValue[i] + scale * diffusion;
         }
-
-        MultivariateNormalDistribution mvn = new MultivariateNormalDistribution(random, means, covariances);
-
-        return handleBoundaries(mvn.sample());
     }
 
     // getParams is in the Generator interface
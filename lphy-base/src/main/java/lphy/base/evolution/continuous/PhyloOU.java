@@ -7,7 +7,6 @@ import lphy.core.model.Value;
 import lphy.core.model.annotation.GeneratorCategory;
 import lphy.core.model.annotation.GeneratorInfo;
 import lphy.core.model.annotation.ParameterInfo;
-import org.apache.commons.math3.distribution.NormalDistribution;
 
 import java.util.SortedMap;
 import java.util.TreeMap;
@@ -63,29 +62,31 @@ public class PhyloOU extends PhyloBrownian {
         else throw new RuntimeException("Unrecognised parameter name: " + paramName);
     }
 
-    protected double sampleNewState(double initialState, double time, int nodeIndex) {
-
-        double th;
+    private double getTheta(int nodeIndex) {
         if (theta != null) {
-            th = theta.value();
+            return theta.value();
         } else {
-            th = branchThetas.value()[nodeIndex];
+            return branchThetas.value()[nodeIndex];
         }
+    }
 
-        double a = alpha.value();
-
-        double v = diffusionRate.value() / (2 * a);
+    @Override
+    protected double getWeight(double time, int nodeIndex) {
+        return Math.exp(-alpha.value() * time);
+    }
 
-        double weight = Math.exp(-a * time);
+    @Override
+    protected double getShift(double time, int nodeIndex) {
+        return (1.0 - getWeight(time, nodeIndex)) * getTheta(nodeIndex);
+    }
 
-        double mean = (1.0 - weight) * th + weight * initialState;
+    @Override
+    protected double getVariance(double time, int nodeIndex) {
+        double a = alpha.value();
 
-        double variance = v * (1.0 - Math.exp(-2.0 * a * time));
+        double v = diffusionRate.value() / (2 * a);
 
-        // use code available since apache math 3.1, see #215
-        NormalDistribution distribution = new NormalDistribution(random, mean, Math.sqrt(variance),
-                NormalDistribution.DEFAULT_INVERSE_ABSOLUTE_ACCURACY);
-        return handleBoundaries(distribution.sample());
+        return v * (1.0 - Math.exp(-2.0 * a * time));
     }
 
     @GeneratorInfo(name = "PhyloOU", verbClause = "is assumed to have evolved under",
@@ -2,21 +2,30 @@ package lphy.base.evolution.likelihood;
 
 import jebl.evolution.sequences.SequenceType;
 import lphy.base.evolution.alignment.Alignment;
+import lphy.base.distribution.Categorical;
 import lphy.base.evolution.alignment.SimpleAlignment;
+import lphy.base.evolution.substitutionmodel.RateMatrix;
+import lphy.base.evolution.substitutionmodel.TransitionProbabilityKernel;
 import lphy.base.evolution.tree.TimeTree;
 import lphy.base.evolution.tree.TimeTreeNode;
 import lphy.core.model.GenerativeDistribution;
 import lphy.core.model.Value;
 import lphy.core.simulator.RandomUtils;
+import lphy.core.simulator.SimulationThreads;
 import org.apache.commons.math3.linear.Array2DRowRealMatrix;
 import org.apache.commons.math3.linear.EigenDecomposition;
 import org.apache.commons.math3.linear.RealVector;
+import org.apache.commons.math3.random.MersenneTwister;
 import org.apache.commons.math3.random.RandomGenerator;
 import org.apache.commons.math3.util.FastMath;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.SortedMap;
 import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
 
 /**
  * Extract Alexei's code shared by {@link PhyloCTMC} and {@link PhyloCTMCSiteModel}
@@ -33,8 +42,42 @@ public abstract class AbstractPhyloCTMC implements GenerativeDistribution<Alignm
     public static final String LParamName = "L";
     public static final String dataTypeParamName = "dataType";
     public static final String rootSeqParamName = "root";
+    public static final String simulationParamName = "simulation";
+
+    /**
+     * If {@link SimulationThreads#isChunked()}, the sites are simulated in chunks of this size,
+     * each from its own random number generator,
+     * so that the alignment simulated from a seed does not depend on the number of threads.
+     */
+    public static final int SITES_PER_CHUNK = 1024;
+
+    /**
+     * How to simulate the states along a branch.
+     * <ul>
+     * <li>MATRIX draws the child state from P(t) = e^{Qt}.</li>
+     * <li>JUMP simulates the substitutions along the branch
+     *     using {@link JumpChainSimulator}, which avoids the dense P(t).</li>
+     * <li>AUTO chooses by the state count and the expected substitutions per branch.</li>
+     * </ul>
+     * The default is MATRIX, so that the alignment simulated from a seed does not change,
+     * since the other methods draw different random numbers.
+     */
+    public enum SimulationMethod {
+        AUTO, MATRIX, JUMP;
+
+        public static SimulationMethod parse(String method) {
+            if (method == null) return MATRIX;
+            for (SimulationMethod m : values()) {
+                if (m.name().equalsIgnoreCase(method.trim())) return m;
+            }
+            throw new IllegalArgumentException("Unknown " + simulationParamName + " method " + method +
+                    ", which must be one of " + Arrays.toString(values()) + " !");
+        }
+    }
 
     protected Value<TimeTree> tree;
+    // incremented by each setup()
+    private int setupCount = 0;
     protected Value<Number> clockRate;
     // root freqs input
     protected Value<Double[]> freq;
@@ -47,11 +90,16 @@ public abstract class AbstractPhyloCTMC implements GenerativeDistribution<Alignm
     protected Value<Double[]> rootFreqs;
     protected SortedMap<String, Integer> idMap = new TreeMap<>();
     protected double[][] transProb;
+    // the analytic P(t) of Q if available, otherwise use the eigen decomposition
+    private TransitionProbabilityKernel kernel;
     private EigenDecomposition decomposition;
     private double[][] Ievc;
     private double[][] Evec;
-    private double[][] iexp;
     private double[] Eval;
+    // not null if the substitutions are simulated along the branches
+    private JumpChainSimulator jumpChain;
+    // the number of substitutions summed over sites, indexed by the child node index of a branch
+    private int[] substitutionCounts;
 
 
     public AbstractPhyloCTMC(Value<TimeTree> tree, Value<Number> clockRate, Value<Double[]> freq,
@@ -79,14 +127,39 @@ public abstract class AbstractPhyloCTMC implements GenerativeDistribution<Alignm
     // return Q matrix
     protected abstract Double[][] getQ();
 
+    /**
+     * @param Q  the Q matrix from {@link #getQ()}
+     * @return the analytic transition probabilities of Q, or null to use the eigen decomposition.
+     * @see RateMatrix#getTransitionProbabilityKernel(Double[][])
+     */
+    protected TransitionProbabilityKernel getTransitionProbabilityKernel(Double[][] Q) {
+        return null;
+    }
+
+    /**
+     * @return the simulation method given by the user, default to {@link SimulationMethod#MATRIX}.
+     */
+    protected SimulationMethod getSimulationMethod() {
+        return SimulationMethod.MATRIX;
+    }
+
     // setup() before sample()
     protected void setup() {
         // overwrite the default if more setup
         computePAndRootFreqs();
     }
 
+    /**
+     * @return  the number of times {@link #setup()} has run, e.g. to detect a streamed alignment
+     *          whose simulation setup has been replaced by the next sample.
+     */
+    protected int getSetupCount() {
+        return setupCount;
+    }
+
     // shared code in setup()
     protected void computePAndRootFreqs() {
+        setupCount++;
         idMap.clear();
         fillIdMap(tree.value().getRoot(), idMap);
 
@@ -97,7 +170,31 @@ public abstract class AbstractPhyloCTMC implements GenerativeDistribution<Alignm
         final int numStates = Qm.length;
 
         transProb = new double[numStates][numStates];
-        iexp = new double[numStates][numStates];
+
+        kernel = getTransitionProbabilityKernel(Qm);
+        if (kernel != null && kernel.getStateCount() != numStates)
+            kernel = null;
+
+        jumpChain = null;
+        substitutionCounts = null;
+        SimulationMethod method = getSimulationMethod();
+        // the analytic P(t) is as cheap as a jump, so only use the jump chain if asked
+        if (method == SimulationMethod.JUMP || (method == SimulationMethod.AUTO && kernel == null)) {
+            JumpChainSimulator simulator = new JumpChainSimulator(Qm);
+            if (method == SimulationMethod.JUMP || isJumpChainFaster(simulator)) {
+                jumpChain = simulator;
+                substitutionCounts = new int[tree.value().getNodeCount()];
+            }
+        }
+
+        // P(t) is still required to compute the equilibrium frequencies
+        if (kernel != null || (jumpChain != null && freq != null)) {
+            rootFreqs = freq;
+            if (rootFreqs == null) {
+                rootFreqs = computeEquilibrium(transProb);
+            }
+            return;
+        }
 
         double[][] primitive = new double[numStates][numStates];
         for (int i = 0; i < numStates; i++) {
@@ -128,8 +225,99 @@ public abstract class AbstractPhyloCTMC implements GenerativeDistribution<Alignm
         }
     }
 
-    protected void traverseTree(TimeTreeNode node, int nodeState, SimpleAlignment alignment,
-                                int pos, double[][] transProb, double clockRate, double siteRate) {
+    /**
+     * @param site  the site index in the alignment.
+     * @param random  the random number generator of the chunk containing this site.
+     * @return  the state at the root, default to be drawn from the root frequencies.
+     */
+    protected int getRootState(int site, RandomGenerator random) {
+        return Categorical.sample(rootFreqs.value(), random);
+    }
+
+    /**
+     * @param site  the site index in the alignment.
+     * @return  the rate of this site, default to 1.0.
+     */
+    protected double getSiteRate(int site) {
+        return 1.0;
+    }
+
+    /**
+     * Simulate the states of every site into the alignment after {@link #setup()}.
+     * By default, or if the sites fit in one chunk, the sites are sequentially simulated from {@link #random}.
+     * If {@link SimulationThreads#isChunked()}, the chunks of {@link #SITES_PER_CHUNK} sites
+     * are simulated into the disjoint columns of the alignment, concurrently if there is a pool.
+     * Each chunk has its own random number generator, whose seed is drawn in the order of chunks
+     * from {@link #random}, so the alignment is different to the sequential simulation given the same seed,
+     * but it is same for any number of threads including 1.
+     * @param alignment  the alignment to fill.
+     * @param siteCount  the number of sites.
+     * @param clockRate  the clock rate.
+     */
+    protected void simulateSites(SimpleAlignment alignment, int siteCount, double clockRate) {
+        if (siteCount <= SITES_PER_CHUNK || !SimulationThreads.isChunked()) {
+            SiteSimulation simulation = new SiteSimulation(random, transProb, substitutionCounts);
+            simulateSites(alignment, 0, 0, siteCount, clockRate, simulation);
+        } else {
+            simulateSites(alignment, 0, clockRate, random);
+        }
+    }
+
+    /**
+     * Simulate the sites from firstSite into all columns of the block after {@link #setup()},
+     * where the chunks of {@link #SITES_PER_CHUNK} sites are simulated concurrently
+     * in {@link SimulationThreads#getPool()}, or one after another if it is null.
+     * The seed of each chunk is drawn in the order of chunks from the given random number generator.
+     * @param block      the alignment to fill, whose column 0 is the site firstSite.
+     * @param firstSite  the index of the first site of this block in the whole alignment.
+     * @param clockRate  the clock rate.
+     * @param random     the random number generator to draw the seeds of chunks.
+     */
+    protected void simulateSites(SimpleAlignment block, int firstSite, double clockRate, RandomGenerator random) {
+        final int numStates = transProb.length;
+        final int columnCount = block.nchar();
+        final int chunkCount = (columnCount + SITES_PER_CHUNK - 1) / SITES_PER_CHUNK;
+        final long[] seeds = new long[chunkCount];
+        for (int c = 0; c < chunkCount; c++)
+            seeds[c] = random.nextLong();
+
+        final int[][] chunkCounts = new int[chunkCount][];
+        IntConsumer simulateChunk = c -> {
+            if (substitutionCounts != null)
+                chunkCounts[c] = new int[substitutionCounts.length];
+            SiteSimulation simulation = new SiteSimulation(new MersenneTwister(seeds[c]),
+                    new double[numStates][numStates], chunkCounts[c]);
+            int start = c * SITES_PER_CHUNK;
+            simulateSites(block, firstSite, start, Math.min(columnCount, start + SITES_PER_CHUNK),
+                    clockRate, simulation);
+        };
+        ForkJoinPool pool = SimulationThreads.getPool();
+        if (pool == null || chunkCount == 1)
+            IntStream.range(0, chunkCount).forEach(simulateChunk);
+        else
+            pool.submit(() -> IntStream.range(0, chunkCount).parallel().forEach(simulateChunk)).join();
+
+        if (substitutionCounts != null) {
+            for (int[] counts : chunkCounts) {
+                for (int i = 0; i < counts.length; i++)
+                    substitutionCounts[i] += counts[i];
+            }
+        }
+    }
+
+    // simulate the columns [start, end) of the block
+    private void simulateSites(SimpleAlignment block, int firstSite, int start, int end, double clockRate,
+                               SiteSimulation simulation) {
+        final TimeTreeNode root = tree.value().getRoot();
+        for (int j = start; j < end; j++) {
+            int site = firstSite + j;
+            int rootState = getRootState(site, simulation.random);
+            traverseTree(root, rootState, block, j, clockRate, getSiteRate(site), simulation);
+        }
+    }
+
+    private void traverseTree(TimeTreeNode node, int nodeState, SimpleAlignment alignment, int pos,
+                              double clockRate, double siteRate, SiteSimulation simulation) {
 
         if (node.isLeaf() || (node.isSingleChildNonOrigin() && node.getId() != null)) {
             alignment.setState(node.getLeafIndex(), pos, nodeState); // no ambiguous state
@@ -142,16 +330,38 @@ public abstract class AbstractPhyloCTMC implements GenerativeDistribution<Alignm
                 branchLength *= branchRates.value()[child.getIndex()];
             }
 
-            getTransitionProbabilities(branchLength, transProb);
-            // draw state from Q
-            int state = drawState(transProb[nodeState]);
+            int state;
+            if (jumpChain != null) {
+                state = jumpChain.simulate(nodeState, branchLength, simulation.random,
+                        simulation.substitutionCounts, child.getIndex());
+            } else {
+                getTransitionProbabilities(branchLength, simulation.transProb, simulation.iexp);
+                // draw state from Q
+                state = drawState(simulation.transProb[nodeState], simulation.random);
+            }
 
-            traverseTree(child, state, alignment, pos, transProb, clockRate, siteRate);
+            traverseTree(child, state, alignment, pos, clockRate, siteRate, simulation);
         }
     }
 
     //+++ getter +++//
 
+    /**
+     * @return  the number of substitutions summed over all sites on the branch above each node,
+     *          indexed by {@link TimeTreeNode#getIndex()}, from the last sample;
+     *          or null if the states were not simulated by the jump chain.
+     */
+    public int[] getSubstitutionCounts() {
+        return substitutionCounts == null ? null : substitutionCounts.clone();
+    }
+
+    /**
+     * @return  true if the states of the last sample were simulated by {@link JumpChainSimulator}.
+     */
+    public boolean isJumpChainSimulation() {
+        return jumpChain != null;
+    }
+
     public Value<Double[]> getBranchRates() {
         return branchRates;
     }
@@ -171,8 +381,36 @@ public abstract class AbstractPhyloCTMC implements GenerativeDistribution<Alignm
 
     //+++ private methods +++//
 
+    /**
+     * Compare the cost per branch: computing P(t) takes O(S^3) by the eigen decomposition,
+     * and the jump chain takes O(log S) per substitution,
+     * where the expected substitutions is bounded by the max exit rate times the mean branch length.
+     */
+    private boolean isJumpChainFaster(JumpChainSimulator simulator) {
+        final int numStates = simulator.getStateCount();
+        final double matrixCost = Math.pow(numStates, 3);
+
+        double totalLength = 0;
+        int branchCount = 0;
+        for (TimeTreeNode node : tree.value().getNodes()) {
+            if (!node.isRoot()) {
+                double branchLength = node.getParent().getAge() - node.getAge();
+                if (branchRates != null)
+                    branchLength *= branchRates.value()[node.getIndex()];
+                totalLength += branchLength;
+                branchCount++;
+            }
+        }
+        if (branchCount == 0) return false;
+
+        double mu = clockRate == null ? 1.0 : clockRate.value().doubleValue();
+        double expectedSubstitutions = simulator.getMaxExitRate() * mu * totalLength / branchCount;
+        double jumpCost = (1 + expectedSubstitutions) * (2 + Math.log(numStates) / Math.log(2));
+        return jumpCost < matrixCost;
+    }
+
     private Value<Double[]> computeEquilibrium(double[][] transProb) {
-        getTransitionProbabilities(100, transProb);
+        getTransitionProbabilities(100, transProb, new double[transProb.length][transProb.length]);
         Double[] freqs = new Double[transProb.length];
         for (int i = 0; i < freqs.length; i++) {
             freqs[i] = transProb[0][i];
@@ -207,7 +445,7 @@ public abstract class AbstractPhyloCTMC implements GenerativeDistribution<Alignm
 
     }
 
-    private int drawState(double[] p) {
+    private int drawState(double[] p, RandomGenerator random) {
         double U = random.nextDouble();
         double totalP = p[0];
         if (U <= totalP) return 0;
@@ -219,7 +457,12 @@ public abstract class AbstractPhyloCTMC implements GenerativeDistribution<Alignm
         throw new RuntimeException("p vector should add to 1.0 but adds to " + totalP +  " instead.");
     }
 
-    private void getTransitionProbabilities(double branchLength, double[][] transProbs) {
+    private void getTransitionProbabilities(double branchLength, double[][] transProbs, double[][] iexp) {
+
+        if (kernel != null) {
+            kernel.getTransitionProbabilities(branchLength, transProbs);
+            return;
+        }
 
         int i, j, k;
         double temp;
@@ -245,6 +488,22 @@ public abstract class AbstractPhyloCTMC implements GenerativeDistribution<Alignm
         }
     }
 
+    // the random number generator and buffers used by the sites of a chunk
+    private static final class SiteSimulation {
+        final RandomGenerator random;
+        final double[][] transProb;
+        final double[][] iexp;
+        // null if not counting substitutions
+        final int[] substitutionCounts;
+
+        SiteSimulation(RandomGenerator random, double[][] transProb, int[] substitutionCounts) {
+            this.random = random;
+            this.transProb = transProb;
+            this.iexp = new double[transProb.length][transProb.length];
+            this.substitutionCounts = substitutionCounts;
+        }
+    }
+
     private static double EPSILON = 2.220446049250313E-16;
 
     private static void luinverse(double[][] inmat, double[][] imtrx, int size) throws IllegalArgumentException {
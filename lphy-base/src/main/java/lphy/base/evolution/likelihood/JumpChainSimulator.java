@@ -0,0 +1,116 @@
+package lphy.base.evolution.likelihood;
+
+import org.apache.commons.math3.random.RandomGenerator;
+
+/**
+ * Simulate the substitutions along a branch directly from the instantaneous rate matrix Q
+ * (Gillespie's jump chain), instead of drawing the end state from the dense P(t) = e^{Qt}.
+ * The waiting time in state i is exponential with the exit rate -Q[i][i],
+ * and the next state j is drawn with the probability Q[i][j] / -Q[i][i].
+ * The cost of a branch is proportional to its number of substitutions,
+ * so it does not depend on the cube of the state count.
+ * @see AbstractPhyloCTMC
+ */
+public class JumpChainSimulator {
+
+    // ignore the negative rates caused by the rounding errors
+    private static final double RATE_TOLERANCE = 1e-10;
+
+    private final int numStates;
+    // -Q[i][i]
+    private final double[] exitRates;
+    // the cumulative jump probabilities of each state, where [i][i] is not a target
+    private final double[][] cumulativeJumpProbs;
+
+    /**
+     * @param Q  the instantaneous rate matrix, where rows sum to 0.
+     */
+    public JumpChainSimulator(Double[][] Q) {
+        numStates = Q.length;
+        exitRates = new double[numStates];
+        cumulativeJumpProbs = new double[numStates][numStates];
+
+        for (int i = 0; i < numStates; i++) {
+            if (Q[i].length != numStates)
+                throw new IllegalArgumentException("Q matrix must be square ! Row " + i +
+                        " has " + Q[i].length + " columns.");
+            double rate = 0;
+            for (int j = 0; j < numStates; j++) {
+                if (j != i) {
+                    if (Q[i][j] < -RATE_TOLERANCE)
+                        throw new IllegalArgumentException("Off-diagonal rates in Q must be non-negative ! Q[" +
+                                i + "][" + j + "] = " + Q[i][j]);
+                    rate += offDiagonalRate(Q, i, j);
+                }
+            }
+            exitRates[i] = rate;
+
+            double cumulative = 0;
+            for (int j = 0; j < numStates; j++) {
+                if (j != i && rate > 0) cumulative += offDiagonalRate(Q, i, j) / rate;
+                cumulativeJumpProbs[i][j] = cumulative;
+            }
+        }
+    }
+
+    /**
+     * @param startState  the state at the top of the branch.
+     * @param branchLength  the branch length in the units of Q,
+     *                      which already includes the clock, branch and site rates.
+     * @param random  the random number generator.
+     * @param substitutionCounts  if not null, the number of substitutions is added to it.
+     * @param branchIndex  the index of the branch in substitutionCounts.
+     * @return  the state at the bottom of the branch.
+     */
+    public int simulate(int startState, double branchLength, RandomGenerator random,
+                        int[] substitutionCounts, int branchIndex) {
+        int state = startState;
+        int count = 0;
+        double remaining = branchLength;
+        while (exitRates[state] > 0) {
+            // exponential waiting time
+            remaining += Math.log(random.nextDouble()) / exitRates[state];
+            if (remaining <= 0) break;
+            state = drawJump(state, random.nextDouble());
+            count++;
+        }
+        if (substitutionCounts != null)
+            substitutionCounts[branchIndex] += count;
+        return state;
+    }
+
+    /**
+     * @return  the largest exit rate -Q[i][i].
+     */
+    public double getMaxExitRate() {
+        double max = 0;
+        for (double rate : exitRates)
+            max = Math.max(max, rate);
+        return max;
+    }
+
+    public int getStateCount() {
+        return numStates;
+    }
+
+    private static double offDiagonalRate(Double[][] Q, int i, int j) {
+        return Math.max(0, Q[i][j]);
+    }
+
+    // binary search the cumulative jump probabilities of the state
+    private int drawJump(int state, double U) {
+        final double[] cumulative = cumulativeJumpProbs[state];
+        double u = U * cumulative[numStates - 1];
+        int low = 0;
+        int high = numStates - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (u < cumulative[mid]) high = mid;
+            else low = mid + 1;
+        }
+        // u reaches the total only by rounding, so take the last state having a positive rate
+        while (u >= cumulative[low] && low > 0 && cumulative[low] == cumulative[low - 1]) low--;
+        return low;
+    }
+
+}
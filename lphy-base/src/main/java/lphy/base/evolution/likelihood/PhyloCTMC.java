@@ -1,17 +1,21 @@
 package lphy.base.evolution.likelihood;
 
 import jebl.evolution.sequences.SequenceType;
-import lphy.base.distribution.Categorical;
 import lphy.base.evolution.alignment.Alignment;
 import lphy.base.evolution.alignment.SimpleAlignment;
+import lphy.base.evolution.alignment.StreamedAlignment;
+import lphy.base.evolution.substitutionmodel.RateMatrix;
+import lphy.base.evolution.substitutionmodel.TransitionProbabilityKernel;
 import lphy.base.evolution.tree.TimeTree;
 import lphy.core.model.RandomVariable;
+import lphy.core.model.SinkStreamable;
 import lphy.core.model.Value;
 import lphy.core.model.ValueUtils;
 import lphy.core.model.annotation.Citation;
 import lphy.core.model.annotation.GeneratorCategory;
 import lphy.core.model.annotation.GeneratorInfo;
 import lphy.core.model.annotation.ParameterInfo;
+import org.apache.commons.math3.random.RandomGenerator;
 
 import java.util.Objects;
 import java.util.SortedMap;
@@ -26,10 +30,11 @@ import java.util.TreeMap;
         year = 1981,
         authors = {"Felsenstein"},
         DOI="https://doi.org/10.1007/BF01734359")
-public class PhyloCTMC extends AbstractPhyloCTMC {
+public class PhyloCTMC extends AbstractPhyloCTMC implements SinkStreamable<Alignment> {
     Value<Double[][]> Q; // to keep the input Value<Double[][]>
     Value<Double[]> siteRates;
     Value<SimpleAlignment> rootSeq;
+    Value<String> simulation;
 
     public static final String QParamName = "Q";
     public static final String siteRatesParamName = "siteRates";
@@ -45,7 +50,11 @@ public class PhyloCTMC extends AbstractPhyloCTMC {
                              description = "length of the alignment", optional = true) Value<Integer> L,
                      @ParameterInfo(name = AbstractPhyloCTMC.dataTypeParamName, description = "the data type used for simulations, default to nucleotide",
                              narrativeName = "data type used for simulations", optional = true) Value<SequenceType> dataType,
-                     @ParameterInfo(name = AbstractPhyloCTMC.rootSeqParamName, narrativeName="root sequence", description = "root sequence, defaults to root sequence generated from equilibrium frequencies.", optional = true) Value<SimpleAlignment> rootSeq) {
+                     @ParameterInfo(name = AbstractPhyloCTMC.rootSeqParamName, narrativeName="root sequence", description = "root sequence, defaults to root sequence generated from equilibrium frequencies.", optional = true) Value<SimpleAlignment> rootSeq,
+                     @ParameterInfo(name = AbstractPhyloCTMC.simulationParamName, narrativeName = "simulation method",
+                             description = "how to simulate the states along each branch: \"matrix\" draws from the transition probabilities e^{Qt}, " +
+                                     "\"jump\" simulates every substitution along the branch, which is faster for large state spaces. " +
+                                     "\"auto\" chooses by the state count and branch lengths. Default to \"matrix\".", optional = true) Value<String> simulation) {
 
         super(tree, mu, rootFreq, branchRates, L, dataType);
         this.Q = Q;
@@ -54,6 +63,7 @@ public class PhyloCTMC extends AbstractPhyloCTMC {
         if (rootSeq != null) {
             this.rootSeq = rootSeq;
         }
+        this.simulation = simulation;
 
         checkCompatibilities();
     }
@@ -73,6 +83,8 @@ public class PhyloCTMC extends AbstractPhyloCTMC {
                         " is not equal to alignment length " + AbstractPhyloCTMC.LParamName + " = " + alignmentLength);
             }
         }
+        // check the simulation method is known
+        if (simulation != null) SimulationMethod.parse(simulation.value());
     }
 
     @Override
@@ -87,6 +99,31 @@ public class PhyloCTMC extends AbstractPhyloCTMC {
         return Objects.requireNonNull(Q).value();
     }
 
+    @Override
+    protected TransitionProbabilityKernel getTransitionProbabilityKernel(Double[][] Qm) {
+        // the analytic P(t) if Q is created by a rate matrix function, e.g. hky
+        if (Q != null && Q.getGenerator() instanceof RateMatrix rateMatrix)
+            return rateMatrix.getTransitionProbabilityKernel(Qm);
+        return null;
+    }
+
+    @Override
+    protected int getRootState(int site, RandomGenerator random) {
+        // use simulated or user specified root sequence
+        if (rootSeq != null) return rootSeq.value().getState(0, site); // root taxon is 0
+        return super.getRootState(site, random);
+    }
+
+    @Override
+    protected double getSiteRate(int site) {
+        return (siteRates == null) ? 1.0 : siteRates.value()[site];
+    }
+
+    @Override
+    protected SimulationMethod getSimulationMethod() {
+        return SimulationMethod.parse(simulation == null ? null : simulation.value());
+    }
+
     @Override
     public SortedMap<String, Value> getParams() {
         SortedMap<String, Value> map = new TreeMap<>();
@@ -99,6 +136,7 @@ public class PhyloCTMC extends AbstractPhyloCTMC {
         if (L != null) map.put(AbstractPhyloCTMC.LParamName, L);
         if (dataType != null) map.put(AbstractPhyloCTMC.dataTypeParamName, dataType);
         if (rootSeq != null) map.put(AbstractPhyloCTMC.rootSeqParamName, rootSeq);
+        if (simulation != null) map.put(AbstractPhyloCTMC.simulationParamName, simulation);
         return map;
     }
 
@@ -114,6 +152,7 @@ public class PhyloCTMC extends AbstractPhyloCTMC {
 //        else if (paramName.equals(stateNamesParamName)) stateNames = value;
         else if (paramName.equals(AbstractPhyloCTMC.dataTypeParamName)) dataType = value;
         else if (paramName.equals(AbstractPhyloCTMC.rootSeqParamName)) rootSeq = value;
+        else if (paramName.equals(AbstractPhyloCTMC.simulationParamName)) simulation = value;
         else throw new RuntimeException("Unrecognised parameter name: " + paramName);
     }
 
@@ -138,19 +177,34 @@ public class PhyloCTMC extends AbstractPhyloCTMC {
 
         double mu = (this.clockRate == null) ? 1.0 : ValueUtils.doubleValue(clockRate);
 
-        for (int i = 0; i < length; i++) {
-            if (rootSeq != null) {
-                // use simulated or user specified root sequence
-                int rootState = rootSeq.value().getState(0, i); // root taxon is 0
-                traverseTree(tree.value().getRoot(), rootState, a, i, transProb, mu,
-                        (siteRates == null) ? 1.0 : siteRates.value()[i]);
-            } else {
-                int rootState = Categorical.sample(rootFreqs.value(), random);
-                traverseTree(tree.value().getRoot(), rootState, a, i, transProb, mu,
-                        (siteRates == null) ? 1.0 : siteRates.value()[i]);
-            }
+        simulateSites(a, length, mu);
 
-        }
+        return new RandomVariable<>("D", a, this);
+    }
+
+    /**
+     * Only keep the seed to simulate the alignment in blocks while it is written,
+     * where each block is simulated in the chunks of {@link #SITES_PER_CHUNK} sites.
+     * It uses the setup of this sample, so the alignment must be written before the next sample.
+     * @return  the random variable of {@link StreamedAlignment}.
+     */
+    @Override
+    public RandomVariable<Alignment> sampleStreamed() {
+        setup();
+
+        SequenceType dt = (dataType == null) ? SequenceType.NUCLEOTIDE : dataType.value();
+        int length = getSiteCount();
+        double mu = (this.clockRate == null) ? 1.0 : ValueUtils.doubleValue(clockRate);
+
+        // the blocks are simulated from the current setup, which the next sample replaces
+        final int setup = getSetupCount();
+        StreamedAlignment a = new StreamedAlignment(idMap, length, dt, random.nextLong(),
+                (block, firstSite, blockRandom) -> {
+                    if (getSetupCount() != setup)
+                        throw new IllegalStateException("The streamed alignment is outdated, " +
+                                "because " + getName() + " has been sampled again after it !");
+                    simulateSites(block, firstSite, mu, blockRandom);
+                });
 
         return new RandomVariable<>("D", a, this);
     }
@@ -1,7 +1,6 @@
 package lphy.base.evolution.likelihood;
 
 import jebl.evolution.sequences.SequenceType;
-import lphy.base.distribution.Categorical;
 import lphy.base.evolution.alignment.Alignment;
 import lphy.base.evolution.alignment.SimpleAlignment;
 import lphy.base.evolution.sitemodel.SiteModel;
@@ -121,6 +120,11 @@ public class PhyloCTMCSiteModel extends AbstractPhyloCTMC {
 
     }
 
+    @Override
+    protected double getSiteRate(int site) {
+        return finalSiteRates[site];
+    }
+
     @GeneratorInfo(name = "PhyloCTMC", verbClause = "is assumed to have evolved under",
             narrativeName = "phylogenetic continuous time Markov process",
             category = GeneratorCategory.PHYLO_LIKELIHOOD, examples = {"simpleBModelTest.lphy"},
@@ -148,12 +152,7 @@ public class PhyloCTMCSiteModel extends AbstractPhyloCTMC {
 
         double mu = (this.clockRate == null) ? 1.0 : ValueUtils.doubleValue(clockRate);
 
-        for (int i = 0; i < siteCount; i++) {
-
-            int rootState = Categorical.sample(rootFreqs.value(), random);
-            traverseTree(tree.value().getRoot(), rootState, a, i, transProb, mu,
-                    finalSiteRates[i]);
-        }
+        simulateSites(a, siteCount, mu);
 
         return new RandomVariable<>(null, a, this);
     }
@@ -63,4 +63,9 @@ public class F81 extends RateMatrix {
         return getParams().get(freqParamName);
     }
 
+    @Override
+    public TransitionProbabilityKernel getTransitionProbabilityKernel(Double[][] Q) {
+        return TN93Kernel.fromQ(Q);
+    }
+
 }
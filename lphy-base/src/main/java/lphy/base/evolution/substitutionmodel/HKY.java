@@ -93,4 +93,10 @@ public class HKY extends RateMatrix {
 
         System.out.println(Class.forName("[Ljava.lang.Double;"));
     }
+
+    @Override
+    public TransitionProbabilityKernel getTransitionProbabilityKernel(Double[][] Q) {
+        return TN93Kernel.fromQ(Q);
+    }
+
 }
@@ -32,4 +32,10 @@ public class JukesCantor extends RateMatrix {
         double rate = (rateValue != null) ? ValueUtils.doubleValue(rateValue) : 1.0;
         return new DoubleArray2DValue(LewisMK.jc(rate, 4), this);
     }
+
+    @Override
+    public TransitionProbabilityKernel getTransitionProbabilityKernel(Double[][] Q) {
+        return TN93Kernel.fromQ(Q);
+    }
+
 }
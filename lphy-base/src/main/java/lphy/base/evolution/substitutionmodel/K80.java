@@ -69,4 +69,9 @@ public class K80 extends RateMatrix {
         return getParams().get(kappaParamName);
     }
 
+    @Override
+    public TransitionProbabilityKernel getTransitionProbabilityKernel(Double[][] Q) {
+        return TN93Kernel.fromQ(Q);
+    }
+
 }
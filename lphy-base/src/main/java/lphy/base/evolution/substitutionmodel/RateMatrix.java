@@ -55,6 +55,16 @@ public abstract class RateMatrix extends DeterministicFunction<Double[][]> {
         return Qn;
     }
 
+    /**
+     * Override this to provide the analytic transition probabilities,
+     * which the CTMC engine prefers to the general eigen decomposition of Q.
+     * @param Q  the rate matrix produced by this function.
+     * @return   the kernel computing P(t) of Q, or null (as default) to use the general method.
+     */
+    public TransitionProbabilityKernel getTransitionProbabilityKernel(Double[][] Q) {
+        return null;
+    }
+
     public double totalRateDefault1() {
         Value<Double> meanRate = getMeanRate();
         if (meanRate != null) return meanRate.value();
@@ -84,4 +84,9 @@ public class TN93 extends RateMatrix {
         return getParams().get(freqParamName);
     }
 
+    @Override
+    public TransitionProbabilityKernel getTransitionProbabilityKernel(Double[][] Q) {
+        return TN93Kernel.fromQ(Q);
+    }
+
 }
@@ -0,0 +1,125 @@
+package lphy.base.evolution.substitutionmodel;
+
+/**
+ * The closed-form transition probabilities of TN93 (Tamura and Nei 1993),
+ * which also covers its special cases JC69, K80, F81 and HKY.
+ * The parameters are extracted from the nucleotide rate matrix Q in the order of A, C, G, T,
+ * where Q[i][j] = alphaR * pi[j] for A<->G, alphaY * pi[j] for C<->T,
+ * and beta * pi[j] for transversions.
+ */
+public class TN93Kernel implements TransitionProbabilityKernel {
+
+    private static final int A = 0, C = 1, G = 2, T = 3;
+    // relative tolerance of the structure of Q
+    private static final double TOLERANCE = 1e-9;
+
+    private final double[] pi;
+    private final double piR, piY;
+    private final double beta, alphaR, alphaY;
+
+    private TN93Kernel(double[] pi, double beta, double alphaR, double alphaY) {
+        this.pi = pi;
+        this.piR = pi[A] + pi[G];
+        this.piY = pi[C] + pi[T];
+        this.beta = beta;
+        this.alphaR = alphaR;
+        this.alphaY = alphaY;
+    }
+
+    /**
+     * @param Q  the instantaneous rate matrix.
+     * @return   the kernel if Q is a 4x4 rate matrix in the TN93 family,
+     *           otherwise null, so that the general method should be used.
+     */
+    public static TN93Kernel fromQ(Double[][] Q) {
+        if (Q == null || Q.length != 4)
+            return null;
+        double scale = 0;
+        for (Double[] row : Q) {
+            if (row == null || row.length != 4)
+                return null;
+            for (Double q : row) {
+                if (q == null || !Double.isFinite(q))
+                    return null;
+                scale = Math.max(scale, Math.abs(q));
+            }
+        }
+        if (scale == 0)
+            return null;
+
+        // transversions C->A, C->G, A->C, A->T are beta * pi[j], where pi sums to 1
+        double beta = Q[C][A] + Q[C][G] + Q[A][C] + Q[A][T];
+        if (!(beta > 0))
+            return null;
+        double[] pi = new double[]{Q[C][A] / beta, Q[A][C] / beta, Q[C][G] / beta, Q[A][T] / beta};
+        if (pi[A] + pi[G] <= 0 || pi[C] + pi[T] <= 0 || pi[A] <= 0 || pi[C] <= 0 || pi[G] <= 0 || pi[T] <= 0)
+            return null;
+        double alphaR = Q[A][G] / pi[G];
+        double alphaY = Q[C][T] / pi[T];
+
+        TN93Kernel kernel = new TN93Kernel(pi, beta, alphaR, alphaY);
+        // verify every rate, including the diagonal
+        final double tol = TOLERANCE * scale;
+        for (int i = 0; i < 4; i++) {
+            double rowSum = 0;
+            for (int j = 0; j < 4; j++) {
+                if (i == j) continue;
+                if (Math.abs(Q[i][j] - kernel.getRate(i, j)) > tol)
+                    return null;
+                rowSum += Q[i][j];
+            }
+            if (Math.abs(Q[i][i] + rowSum) > tol)
+                return null;
+        }
+        return kernel;
+    }
+
+    private static boolean isPurine(int state) {
+        return state == A || state == G;
+    }
+
+    private double getRate(int i, int j) {
+        if (isPurine(i) && isPurine(j))
+            return alphaR * pi[j];
+        if (!isPurine(i) && !isPurine(j))
+            return alphaY * pi[j];
+        return beta * pi[j];
+    }
+
+    @Override
+    public void getTransitionProbabilities(double t, double[][] transProbs) {
+        final double e2 = Math.exp(-beta * t);
+        final double eR = Math.exp(-(piR * alphaR + piY * beta) * t);
+        final double eY = Math.exp(-(piY * alphaY + piR * beta) * t);
+
+        for (int i = 0; i < 4; i++) {
+            final boolean iPurine = isPurine(i);
+            for (int j = 0; j < 4; j++) {
+                final boolean jPurine = isPurine(j);
+                final double delta = i == j ? 1.0 : 0.0;
+                double p;
+                if (iPurine != jPurine) {
+                    // transversion
+                    p = pi[j] * (1.0 - e2);
+                } else if (jPurine) {
+                    p = pi[j] + pi[j] * piY / piR * e2 + (delta - pi[j] / piR) * eR;
+                } else {
+                    p = pi[j] + pi[j] * piR / piY * e2 + (delta - pi[j] / piY) * eY;
+                }
+                transProbs[i][j] = Math.abs(p);
+            }
+        }
+    }
+
+    @Override
+    public int getStateCount() {
+        return 4;
+    }
+
+    /**
+     * @return the equilibrium frequencies of A, C, G, T.
+     */
+    public double[] getFrequencies() {
+        return pi.clone();
+    }
+}
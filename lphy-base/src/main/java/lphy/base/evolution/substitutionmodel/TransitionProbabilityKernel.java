@@ -0,0 +1,22 @@
+package lphy.base.evolution.substitutionmodel;
+
+/**
+ * Compute the transition probability matrix P(t) = exp(Qt) of a rate matrix Q,
+ * which is used by the CTMC engine in preference to the general eigen decomposition.
+ * @see RateMatrix#getTransitionProbabilityKernel(Double[][])
+ */
+public interface TransitionProbabilityKernel {
+
+    /**
+     * @param t           the branch length in the time unit of Q, e.g. expected substitutions.
+     * @param transProbs  the square matrix to fill in P(t), where the row is the parent state,
+     *                    and the column is the child state.
+     */
+    void getTransitionProbabilities(double t, double[][] transProbs);
+
+    /**
+     * @return the number of states.
+     */
+    int getStateCount();
+
+}
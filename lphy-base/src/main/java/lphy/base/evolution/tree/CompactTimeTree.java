@@ -0,0 +1,261 @@
+package lphy.base.evolution.tree;
+
+import lphy.base.evolution.Taxa;
+import lphy.base.evolution.Taxon;
+
+import java.util.Arrays;
+
+/**
+ * A time tree stored in primitive arrays indexed by node, where the nodes are numbered
+ * in the order they are added. Tree generators can build it directly, and wrap it in
+ * {@link TimeTree#TimeTree(CompactTimeTree)}, which only creates the {@link TimeTreeNode}s
+ * when they are required. It is not modified after being wrapped.
+ */
+public class CompactTimeTree {
+
+    public static final int NONE = -1;
+
+    private int[] parent;
+    private int[] firstChild;
+    private int[] nextSibling;
+    private int[] leafIndex;
+    private double[] age;
+    // index is the leaf index
+    private String[] leafIds;
+
+    private int nodeCount = 0;
+    private int leafCount = 0;
+
+    /**
+     * @param leafCapacity  the expected number of leaves, e.g. a binary tree has 2n-1 nodes.
+     */
+    public CompactTimeTree(int leafCapacity) {
+        int capacity = Math.max(1, 2 * leafCapacity - 1);
+        parent = new int[capacity];
+        firstChild = new int[capacity];
+        nextSibling = new int[capacity];
+        leafIndex = new int[capacity];
+        age = new double[capacity];
+        leafIds = new String[Math.max(1, leafCapacity)];
+    }
+
+    /**
+     * @param id   the taxon name.
+     * @param age  the age of the leaf.
+     * @return  the node number, where the leaf index is the number of leaves added before it.
+     */
+    public int addLeaf(String id, double age) {
+        int node = addNode(age);
+        if (leafCount == leafIds.length)
+            leafIds = Arrays.copyOf(leafIds, 2 * leafIds.length);
+        leafIds[leafCount] = id;
+        leafIndex[node] = leafCount;
+        leafCount++;
+        return node;
+    }
+
+    /**
+     * @param age       the age of the internal node.
+     * @param children  the node numbers of its children in order, which must not have a parent.
+     * @return  the node number.
+     */
+    public int addInternalNode(double age, int... children) {
+        if (children.length < 1)
+            throw new IllegalArgumentException("Internal node must have children !");
+        int node = addNode(age);
+        int previous = NONE;
+        for (int child : children) {
+            if (child < 0 || child >= node || parent[child] != NONE)
+                throw new IllegalArgumentException("Child " + child + " is not a node without parent !");
+            parent[child] = node;
+            if (previous == NONE) firstChild[node] = child;
+            else nextSibling[previous] = child;
+            previous = child;
+        }
+        return node;
+    }
+
+    private int addNode(double nodeAge) {
+        if (nodeCount == parent.length) {
+            int capacity = 2 * parent.length;
+            parent = Arrays.copyOf(parent, capacity);
+            firstChild = Arrays.copyOf(firstChild, capacity);
+            nextSibling = Arrays.copyOf(nextSibling, capacity);
+            leafIndex = Arrays.copyOf(leafIndex, capacity);
+            age = Arrays.copyOf(age, capacity);
+        }
+        int node = nodeCount++;
+        parent[node] = NONE;
+        firstChild[node] = NONE;
+        nextSibling[node] = NONE;
+        leafIndex[node] = NONE;
+        age[node] = nodeAge;
+        return node;
+    }
+
+    public void setAge(int node, double age) {
+        this.age[node] = age;
+    }
+
+    //+++ getter +++//
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    public int getLeafCount() {
+        return leafCount;
+    }
+
+    /**
+     * @return  the only node without parent.
+     */
+    public int getRoot() {
+        int root = NONE;
+        for (int node = nodeCount - 1; node >= 0; node--) {
+            if (parent[node] == NONE) {
+                if (root != NONE)
+                    throw new IllegalStateException("The tree has more than one root !");
+                root = node;
+            }
+        }
+        if (root == NONE)
+            throw new IllegalStateException("The tree is empty !");
+        return root;
+    }
+
+    public int getParent(int node) {
+        return parent[node];
+    }
+
+    public int getFirstChild(int node) {
+        return firstChild[node];
+    }
+
+    public int getNextSibling(int node) {
+        return nextSibling[node];
+    }
+
+    public boolean isLeaf(int node) {
+        return firstChild[node] == NONE;
+    }
+
+    public int getChildCount(int node) {
+        int count = 0;
+        for (int child = firstChild[node]; child != NONE; child = nextSibling[child])
+            count++;
+        return count;
+    }
+
+    public double getAge(int node) {
+        return age[node];
+    }
+
+    /**
+     * @return  the leaf index, or {@link #NONE} for an internal node.
+     */
+    public int getLeafIndex(int node) {
+        return leafIndex[node];
+    }
+
+    /**
+     * @return  the taxon name of a leaf, or null for an internal node.
+     */
+    public String getId(int node) {
+        return leafIndex[node] == NONE ? null : leafIds[leafIndex[node]];
+    }
+
+    /**
+     * @return  the branch length above the node, or 0 for the root.
+     */
+    public double getBranchLength(int node) {
+        return parent[node] == NONE ? 0.0 : age[parent[node]] - age[node];
+    }
+
+    /**
+     * @return  the sum of branch lengths, which are added in the same order as
+     *          {@link TimeTree#getNodes()}, i.e. leaves then internal nodes in postorder.
+     */
+    public double getTreeLength() {
+        double[] leafBranchLengths = new double[leafCount];
+        for (int node = 0; node < nodeCount; node++) {
+            if (isLeaf(node))
+                leafBranchLengths[leafIndex[node]] = getBranchLength(node);
+        }
+        double length = 0.0;
+        for (double branchLength : leafBranchLengths)
+            length += branchLength;
+        return addInternalBranchLengths(getRoot(), length);
+    }
+
+    private double addInternalBranchLengths(int node, double length) {
+        if (isLeaf(node)) return length;
+        for (int child = firstChild[node]; child != NONE; child = nextSibling[child])
+            length = addInternalBranchLengths(child, length);
+        return length + getBranchLength(node);
+    }
+
+    /**
+     * @return  the taxa in the order of leaf indices, same as {@link Taxa#createTaxa(TimeTreeNode)}.
+     */
+    public Taxa getTaxa() {
+        Taxon[] taxa = new Taxon[leafCount];
+        for (int node = 0; node < nodeCount; node++) {
+            if (isLeaf(node))
+                taxa[leafIndex[node]] = new Taxon(leafIds[leafIndex[node]], age[node]);
+        }
+        return new Taxa.Simple(taxa);
+    }
+
+    //+++ conversion +++//
+
+    /**
+     * Same as {@link TimeTree#toNewick(boolean)} including single child nodes.
+     * @param builder  the newick string is appended to it.
+     */
+    public void toNewick(StringBuilder builder) {
+        int root = getRoot();
+        toNewick(root, builder);
+        builder.append(":0.0;");
+    }
+
+    private void toNewick(int node, StringBuilder builder) {
+        if (isLeaf(node)) {
+            builder.append(getId(node));
+        } else {
+            builder.append("(");
+            for (int child = firstChild[node]; child != NONE; child = nextSibling[child]) {
+                if (child != firstChild[node]) builder.append(",");
+                toNewick(child, builder);
+                builder.append(":").append(getBranchLength(child));
+            }
+            builder.append(")");
+        }
+    }
+
+    /**
+     * @param tree  the tree these nodes are created for.
+     * @return  the root of the created {@link TimeTreeNode}s, where leaves keep their leaf indices.
+     */
+    public TimeTreeNode createNodes(TimeTree tree) {
+        TimeTreeNode[] nodes = new TimeTreeNode[nodeCount];
+        // children are always added before their parents
+        for (int node = 0; node < nodeCount; node++) {
+            TimeTreeNode treeNode;
+            if (isLeaf(node)) {
+                treeNode = new TimeTreeNode(getId(node), tree);
+                treeNode.setAge(age[node]);
+                treeNode.setLeafIndex(leafIndex[node]);
+            } else {
+                TimeTreeNode[] children = new TimeTreeNode[getChildCount(node)];
+                int i = 0;
+                for (int child = firstChild[node]; child != NONE; child = nextSibling[child])
+                    children[i++] = nodes[child];
+                treeNode = new TimeTreeNode(age[node], children);
+            }
+            nodes[node] = treeNode;
+        }
+        return nodes[getRoot()];
+    }
+
+}
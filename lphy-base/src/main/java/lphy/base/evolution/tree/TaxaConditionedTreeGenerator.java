@@ -139,6 +139,35 @@ public abstract class TaxaConditionedTreeGenerator implements GenerativeDistribu
         return leafNodes;
     }
 
+    /**
+     * @return  the {@link CompactTimeTree} containing only the leaves,
+     *          whose node numbers are same as their leaf indices.
+     * @see #createLeafNodes(TimeTree, List)
+     */
+    protected CompactTimeTree createCompactLeafTaxa() {
+        if (!taxaConstructed) constructTaxa();
+        String[] names = taxa.getTaxaNames();
+        Double[] ages = taxa.getAges();
+
+        CompactTimeTree compactTree = new CompactTimeTree(names.length);
+        for (int i = 0; i < names.length; i++)
+            compactTree.addLeaf(names[i], ages[i]);
+        return compactTree;
+    }
+
+    /**
+     * Same as {@link #drawRandomNode(List)} but for the node numbers of {@link CompactTimeTree}.
+     * @param nodes  the active nodes in the first size elements.
+     * @param size   the number of active nodes.
+     * @return  the removed node, where the following nodes are shifted left to keep the order.
+     */
+    protected int drawRandomNode(int[] nodes, int size) {
+        int i = random.nextInt(size);
+        int node = nodes[i];
+        System.arraycopy(nodes, i + 1, nodes, i, size - i - 1);
+        return node;
+    }
+
     protected TimeTreeNode drawRandomNode(List<TimeTreeNode> nodeList) {
         return nodeList.remove(random.nextInt(nodeList.size()));
     }
@@ -28,6 +28,11 @@ public class TimeTree implements HasTaxa, MultiDimensional {
     // number of leaves
     int n = 0;
 
+    // if not null, the nodes have not been created from it yet.
+    // It is only cleared after the nodes are built, so that the readers without the lock
+    // either use the compact tree or see the complete nodes.
+    private volatile CompactTimeTree compactTree = null;
+
     public TimeTree(Taxa taxa) {
         this.taxa = taxa;
         constructedWithTaxa = true;
@@ -38,11 +43,49 @@ public class TimeTree implements HasTaxa, MultiDimensional {
 
     public TimeTree(TimeTree treeToCopy) {
         taxa = treeToCopy.taxa;
-        setRoot(treeToCopy.getRoot().deepCopy(this));
+        CompactTimeTree compact = treeToCopy.compactTree;
+        if (compact != null) {
+            // not modified after wrapped, so it can be shared
+            this.compactTree = compact;
+            this.n = compact.getLeafCount();
+            constructedWithTaxa = true;
+        } else
+            setRoot(treeToCopy.getRoot().deepCopy(this));
+    }
+
+    /**
+     * Wrap the tree stored in arrays, whose {@link TimeTreeNode}s are only created
+     * when they are first required, e.g. {@link #getRoot()} or {@link #getNodes()}.
+     * The newick string, counts, tree length and root age do not create them.
+     * @param compactTree  {@link CompactTimeTree}, which must not be modified after this.
+     */
+    public TimeTree(CompactTimeTree compactTree) {
+        this.compactTree = Objects.requireNonNull(compactTree);
+        this.taxa = compactTree.getTaxa();
+        this.constructedWithTaxa = true;
+        this.n = compactTree.getLeafCount();
+    }
+
+    // create the nodes from the compact tree, if they have not been created
+    private void materialize() {
+        // no lock once the nodes are created, because compactTree is cleared after them by setRoot
+        if (compactTree == null)
+            return;
+        synchronized (this) {
+            // leaf indices are kept, so node indices are same as the nodes built by generators
+            if (compactTree != null)
+                setRoot(compactTree.createNodes(this));
+        }
     }
 
-    public void setRoot(TimeTreeNode root, boolean reindexLeaves) {
+    /**
+     * @return  true if the nodes have not been created from {@link CompactTimeTree} yet.
+     */
+    public boolean isCompact() {
+        return compactTree != null;
+    }
 
+    public void setRoot(TimeTreeNode root, boolean reindexLeaves) {
         rootNode = root;
         rootNode.setParent(null);
         rootNode.tree = this;
@@ -54,6 +97,8 @@ public class TimeTree implements HasTaxa, MultiDimensional {
         nodes.sort(Comparator.comparingInt(TimeTreeNode::getIndex));
 
         if (!constructedWithTaxa) taxa = Taxa.createTaxa(root);
+        // last, after the nodes are complete
+        compactTree = null;
     }
 
     public void setRoot(TimeTreeNode root) {
@@ -73,18 +118,21 @@ public class TimeTree implements HasTaxa, MultiDimensional {
     }
 
     public int getNodeCount() {
+        CompactTimeTree compact = compactTree;
+        if (compact != null) return compact.getNodeCount();
         return nodes.size();
     }
 
     public int getSingleChildNodeCount() {
         int count = 0;
-        for (TimeTreeNode node : nodes) {
+        for (TimeTreeNode node : getNodes()) {
             if (node.getChildCount() == 1) count += 1;
         }
         return count;
     }
 
     public List<TimeTreeNode> getNodes() {
+        materialize();
         return nodes;
     }
 
@@ -115,13 +163,21 @@ public class TimeTree implements HasTaxa, MultiDimensional {
     }
 
     public int n() {
+        // n is recounted while the nodes are created
+        CompactTimeTree compact = compactTree;
+        if (compact != null) return compact.getLeafCount();
         return n;
     }
 
     public String toString() {
         StringBuilder builder = new StringBuilder();
+        CompactTimeTree compact = compactTree;
+        if (compact != null) {
+            compact.toNewick(builder);
+            return builder.toString();
+        }
         //builder.append("\"");
-        toNewick(rootNode, builder, true);
+        toNewick(getRoot(), builder, true);
         //builder.append("\"");
         return builder.toString();
     }
@@ -176,6 +232,7 @@ public class TimeTree implements HasTaxa, MultiDimensional {
     }
 
     public TimeTreeNode getRoot() {
+        materialize();
         return rootNode;
     }
 
@@ -194,6 +251,13 @@ public class TimeTree implements HasTaxa, MultiDimensional {
     }
 
     public boolean isUltrametric() {
+        CompactTimeTree compact = compactTree;
+        if (compact != null) {
+            for (int node = 0; node < compact.getNodeCount(); node++) {
+                if (compact.isLeaf(node) && compact.getAge(node) != 0.0) return false;
+            }
+            return true;
+        }
         for (TimeTreeNode node : getNodes()) {
             if (node.isLeaf() && node.getAge() != 0.0) {
                 return false;
@@ -203,9 +267,11 @@ public class TimeTree implements HasTaxa, MultiDimensional {
     }
 
     public String toNewick(boolean includeSingleChildNodes) {
+        if (includeSingleChildNodes && compactTree != null)
+            return toString();
         StringBuilder builder = new StringBuilder();
         //builder.append("\"");
-        toNewick(rootNode, builder, includeSingleChildNodes);
+        toNewick(getRoot(), builder, includeSingleChildNodes);
         //builder.append("\"");
         return builder.toString();
     }
@@ -233,6 +299,9 @@ public class TimeTree implements HasTaxa, MultiDimensional {
     @MethodInfo(description = "the total length of the tree")
     public Double treeLength() {
 
+        CompactTimeTree compact = compactTree;
+        if (compact != null) return compact.getTreeLength();
+
         double TL = 0.0;
         for (TimeTreeNode node : getNodes()) {
             if (!node.isRoot()) {
@@ -246,7 +315,8 @@ public class TimeTree implements HasTaxa, MultiDimensional {
             category = GeneratorCategory.TREE,
             examples = {"simFossilsCompact.lphy","simpleBirthDeathSerial.lphy","simpleCalibratedYule.lphy"})
     public Double rootAge() {
-
+        CompactTimeTree compact = compactTree;
+        if (compact != null) return compact.getAge(compact.getRoot());
         return getRoot().age;
     }
 
@@ -264,6 +334,13 @@ public class TimeTree implements HasTaxa, MultiDimensional {
     @MethodInfo(description = "the total number of extant leaves in the tree (leaf nodes with age 0.0).")
     public Integer extantCount() {
         int count = 0;
+        CompactTimeTree compact = compactTree;
+        if (compact != null) {
+            for (int node = 0; node < compact.getNodeCount(); node++) {
+                if (compact.getAge(node) == 0.0 && compact.isLeaf(node)) count += 1;
+            }
+            return count;
+        }
         for (TimeTreeNode node : getNodes()) {
             if (node.age == 0.0 && node.isLeaf()) count += 1;
         }
@@ -295,6 +372,8 @@ public class TimeTree implements HasTaxa, MultiDimensional {
 
     @MethodInfo(description = "returns true if this tree has an origin node (defined as a root node with a single child.")
     public boolean hasOrigin() {
+        CompactTimeTree compact = compactTree;
+        if (compact != null) return compact.getChildCount(compact.getRoot()) == 1;
         return getRoot().isOrigin();
     }
 
@@ -54,14 +54,23 @@ public class CopySites extends DeterministicFunction<Alignment> {
 
         // have to know nchar before create a new alignment
         int nchar = sitesId.length;// + sitesId2.length;
-        Alignment newAlignment = new SimpleAlignment(nchar, original);
-        int tmpS;
-        int si;
-        for (int j = 0; j < sitesId.length; j++) {
-            si = sitesId[j];
-            for (int i = 0; i < original.ntaxa(); i++) {
-                tmpS = original.getState(i, si);
-                newAlignment.setState(i, j, tmpS);
+        Alignment newAlignment;
+        if (original instanceof SimpleAlignment simpleAlignment) {
+            // a view of the original alignment, states are only copied if either one is modified
+            int[] siteIndices = new int[nchar];
+            for (int j = 0; j < nchar; j++)
+                siteIndices[j] = sitesId[j];
+            newAlignment = new SimpleAlignment(siteIndices, simpleAlignment);
+        } else {
+            newAlignment = new SimpleAlignment(nchar, original);
+            int tmpS;
+            int si;
+            for (int j = 0; j < sitesId.length; j++) {
+                si = sitesId[j];
+                for (int i = 0; i < original.ntaxa(); i++) {
+                    tmpS = original.getState(i, si);
+                    newAlignment.setState(i, j, tmpS);
+                }
             }
         }
         // continue 2nd array if given
@@ -48,8 +48,9 @@ public class SelectSitesByMissingFraction extends DeterministicFunction<Integer[
         Value<Double> fracLessThan = getUnknownFracLess();
 
         List<Integer> selectedSiteIds = new ArrayList<>();
+        // reuse the buffer of a site
+        int[] aSite = new int[original.ntaxa()];
         for (int j = 0; j < original.nchar(); j++) {
-            int[] aSite = new int[original.ntaxa()];
             for (int i = 0; i < original.ntaxa(); i++) {
                 aSite[i] = original.getState(i, j);
             }
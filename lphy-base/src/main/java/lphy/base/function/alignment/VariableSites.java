@@ -43,8 +43,9 @@ public class VariableSites extends DeterministicFunction<Integer[]> {
         Value<Boolean> ignUnk = getIgnoreUnknown();
 
         List<Integer> selectedSiteIds = new ArrayList<>();
+        // reuse the buffer of a site
+        int[] aSite = new int[original.ntaxa()];
         for (int j = 0; j < original.nchar(); j++) {
-            int[] aSite = new int[original.ntaxa()];
             for (int i = 0; i < original.ntaxa(); i++) {
                 aSite[i] = original.getState(i, j);
             }
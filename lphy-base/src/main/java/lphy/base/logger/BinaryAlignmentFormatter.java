@@ -0,0 +1,47 @@
+package lphy.base.logger;
+
+import lphy.base.evolution.alignment.SimpleAlignment;
+import lphy.base.parser.binary.BinaryWriter;
+import lphy.core.logger.BinaryValueFormatter;
+import lphy.core.model.Symbols;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Write an alignment in the compact binary format.
+ * @see lphy.base.parser.binary.BinaryReader
+ */
+public class BinaryAlignmentFormatter implements BinaryValueFormatter<SimpleAlignment> {
+
+    String valueID;
+
+    public BinaryAlignmentFormatter(String valueID, SimpleAlignment simpleAlignment) {
+        this.valueID = Symbols.getCanonical(valueID);
+    }
+
+    @Override
+    public String getExtension() {
+        return BinaryWriter.EXTENSION;
+    }
+
+    @Override
+    public Class<SimpleAlignment> getDataTypeClass() {
+        return SimpleAlignment.class;
+    }
+
+    @Override
+    public String getValueID() {
+        return valueID;
+    }
+
+    @Override
+    public void write(SimpleAlignment simpleAlignment, WritableByteChannel channel) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+        BinaryWriter.writeAlignment(simpleAlignment, out);
+        out.flush();
+    }
+}
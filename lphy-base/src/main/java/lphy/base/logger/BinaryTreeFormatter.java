@@ -0,0 +1,47 @@
+package lphy.base.logger;
+
+import lphy.base.evolution.tree.TimeTree;
+import lphy.base.parser.binary.BinaryWriter;
+import lphy.core.logger.BinaryValueFormatter;
+import lphy.core.model.Symbols;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Write a tree in the compact binary format, one file per replicate.
+ * @see lphy.base.parser.binary.BinaryReader
+ */
+public class BinaryTreeFormatter implements BinaryValueFormatter<TimeTree> {
+
+    String valueID;
+
+    public BinaryTreeFormatter(String valueID, TimeTree tree) {
+        this.valueID = Symbols.getCanonical(valueID);
+    }
+
+    @Override
+    public String getExtension() {
+        return BinaryWriter.EXTENSION;
+    }
+
+    @Override
+    public Class<TimeTree> getDataTypeClass() {
+        return TimeTree.class;
+    }
+
+    @Override
+    public String getValueID() {
+        return valueID;
+    }
+
+    @Override
+    public void write(TimeTree tree, WritableByteChannel channel) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+        BinaryWriter.writeTree(tree, out);
+        out.flush();
+    }
+}
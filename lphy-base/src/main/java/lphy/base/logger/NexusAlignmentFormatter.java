@@ -1,10 +1,15 @@
 package lphy.base.logger;
 
 import lphy.base.evolution.alignment.SimpleAlignment;
+import lphy.base.parser.nexus.CharactersBlock;
+import lphy.base.parser.nexus.NexusStreamWriter;
 import lphy.base.parser.nexus.NexusUtils;
 import lphy.core.logger.ValueFormatter;
 import lphy.core.model.Symbols;
 
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+
 public class NexusAlignmentFormatter implements ValueFormatter<SimpleAlignment> {
 
     SimpleAlignment simpleAlignment;
@@ -55,6 +60,27 @@ public class NexusAlignmentFormatter implements ValueFormatter<SimpleAlignment>
         return NexusUtils.buildFooter();
     }
 
+    @Override
+    public boolean isStreamable() {
+        return true;
+    }
+
+    /**
+     * Stream the sequences from the state matrix into the channel,
+     * the output is same as the combination of {@link #header()}, {@link #format(SimpleAlignment)}
+     * and {@link #footer()}, but without building the whole alignment into a String.
+     */
+    @Override
+    public void write(SimpleAlignment simpleAlignment, WritableByteChannel channel) throws IOException {
+        NexusStreamWriter writer = new NexusStreamWriter(channel);
+        writer.println(header());
+        // getRowName returns "", and the body is followed by an empty line
+        new CharactersBlock(simpleAlignment).writeBlockLines(writer);
+        writer.println("");
+        writer.println(footer());
+        writer.flush();
+    }
+
     @Override
     public String getRowName(int rowId) {
         // not require indent here, CharactersBlock handles indents
@@ -0,0 +1,95 @@
+package lphy.base.logger;
+
+import lphy.base.evolution.alignment.StreamedAlignment;
+import lphy.base.parser.nexus.InterleavedCharactersBlock;
+import lphy.base.parser.nexus.NexusStreamWriter;
+import lphy.base.parser.nexus.NexusUtils;
+import lphy.core.logger.ValueFormatter;
+import lphy.core.model.Symbols;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Simulate a {@link StreamedAlignment} block by block straight into an interleaved Nexus file.
+ */
+public class StreamedAlignmentFormatter implements ValueFormatter<StreamedAlignment> {
+
+    StreamedAlignment streamedAlignment;
+    String valueID;
+
+    public StreamedAlignmentFormatter(String valueID, StreamedAlignment streamedAlignment) {
+        this.valueID = Symbols.getCanonical(valueID);
+        this.streamedAlignment = streamedAlignment;
+    }
+
+    @Override
+    public String getExtension() {
+        return ".nexus";
+    }
+
+    @Override
+    public Mode getMode() {
+        return Mode.VALUE_PER_FILE;
+    }
+
+    @Override
+    public Class<StreamedAlignment> getDataTypeClass() {
+        return StreamedAlignment.class;
+    }
+
+    @Override
+    public String header() {
+        return NexusUtils.buildHeader(streamedAlignment);
+    }
+
+    @Override
+    public String getValueID() {
+        return valueID;
+    }
+
+    /**
+     * Only for the small alignments, because it builds the whole Nexus into a String.
+     * Use {@link #write(StreamedAlignment, WritableByteChannel)}.
+     */
+    @Override
+    public String format(StreamedAlignment streamedAlignment) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            write(streamedAlignment, Channels.newChannel(out));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String footer() {
+        return NexusUtils.buildFooter();
+    }
+
+    @Override
+    public boolean isStreamable() {
+        return true;
+    }
+
+    @Override
+    public void write(StreamedAlignment streamedAlignment, WritableByteChannel channel) throws IOException {
+        NexusStreamWriter writer = new NexusStreamWriter(channel);
+        writer.println(NexusUtils.buildHeader(streamedAlignment));
+        new InterleavedCharactersBlock(streamedAlignment).writeBlockLines(writer);
+        writer.println("");
+        writer.println(footer());
+        writer.flush();
+    }
+
+    @Override
+    public String getRowName(int rowId) {
+        return "";
+    }
+
+}
@@ -0,0 +1,187 @@
+package lphy.base.parser.binary;
+
+import jebl.evolution.sequences.SequenceType;
+import lphy.base.evolution.Taxa;
+import lphy.base.evolution.Taxon;
+import lphy.base.evolution.alignment.SimpleAlignment;
+import lphy.base.evolution.datatype.Binary;
+import lphy.base.evolution.datatype.Standard;
+import lphy.base.evolution.tree.TimeTree;
+import lphy.base.evolution.tree.TimeTreeNode;
+import lphy.base.spi.SequenceTypeLoader;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static lphy.base.parser.binary.BinaryWriter.*;
+
+/**
+ * Read alignments and trees written by {@link BinaryWriter},
+ * so that simulation results can be used without parsing Nexus.
+ */
+public class BinaryReader {
+
+    /**
+     * @param path  the binary file of an alignment or a tree.
+     * @return  {@link SimpleAlignment} or {@link TimeTree} determined by the magic number.
+     * @throws IOException
+     */
+    public static Object read(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            int magic = in.readInt();
+            readVersion(in);
+            return switch (magic) {
+                case ALIGNMENT_MAGIC -> readAlignmentContent(in);
+                case TREE_MAGIC -> readTreeContent(in);
+                default -> throw new IOException("Not a LPhy binary file : " + path);
+            };
+        }
+    }
+
+    public static SimpleAlignment readAlignment(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            return readAlignment(in);
+        }
+    }
+
+    public static TimeTree readTree(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            return readTree(in);
+        }
+    }
+
+    public static SimpleAlignment readAlignment(DataInput in) throws IOException {
+        readHeader(in, ALIGNMENT_MAGIC);
+        return readAlignmentContent(in);
+    }
+
+    public static TimeTree readTree(DataInput in) throws IOException {
+        readHeader(in, TREE_MAGIC);
+        return readTreeContent(in);
+    }
+
+    private static SimpleAlignment readAlignmentContent(DataInput in) throws IOException {
+        SequenceType sequenceType = readSequenceType(in);
+        Taxa taxa = readTaxa(in);
+
+        final int nchar = in.readInt();
+        final int bytesPerState = in.readByte();
+        if (bytesPerState != getBytesPerState(sequenceType.getStateCount()))
+            throw new IOException("Invalid bytes per state " + bytesPerState + " for " + sequenceType.getName());
+
+        SimpleAlignment alignment = new SimpleAlignment(taxa, nchar, sequenceType);
+        byte[] row = new byte[nchar * bytesPerState];
+        for (int i = 0; i < taxa.ntaxa(); i++) {
+            in.readFully(row);
+            for (int j = 0; j < nchar; j++) {
+                int state = bytesPerState == 1 ? row[j] & 0xFF :
+                        ((row[2 * j] & 0xFF) << 8) | (row[2 * j + 1] & 0xFF);
+                alignment.setState(i, j, state);
+            }
+        }
+        return alignment;
+    }
+
+    private static TimeTree readTreeContent(DataInput in) throws IOException {
+        Taxa taxa = readTaxa(in);
+        TimeTree tree = new TimeTree(taxa);
+
+        final int nodeCount = in.readInt();
+        TimeTreeNode[] nodes = new TimeTreeNode[nodeCount];
+        int[][] childIndices = new int[nodeCount][];
+        for (int i = 0; i < nodeCount; i++) {
+            TimeTreeNode node = new TimeTreeNode(in.readDouble());
+            int leafIndex = in.readInt();
+            if (leafIndex >= 0)
+                node.setLeafIndex(leafIndex);
+            String id = readNullableString(in);
+            if (id != null)
+                node.setId(id);
+            if (in.readBoolean())
+                node.setBranchRate(in.readDouble());
+
+            int metaDataSize = in.readInt();
+            for (int m = 0; m < metaDataSize; m++)
+                node.setMetaData(in.readUTF(), in.readUTF());
+
+            childIndices[i] = new int[in.readInt()];
+            for (int c = 0; c < childIndices[i].length; c++)
+                childIndices[i][c] = in.readInt();
+            nodes[i] = node;
+        }
+
+        // link children in the original order
+        TimeTreeNode root = null;
+        boolean[] isChild = new boolean[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            for (int c : childIndices[i]) {
+                nodes[i].addChild(nodes[c]);
+                isChild[c] = true;
+            }
+        }
+        for (int i = 0; i < nodeCount; i++) {
+            if (!isChild[i]) {
+                if (root != null)
+                    throw new IOException("The tree has more than one root !");
+                root = nodes[i];
+            }
+        }
+        if (root == null)
+            throw new IOException("Cannot find the root of the tree !");
+        tree.setRoot(root);
+        return tree;
+    }
+
+    private static void readHeader(DataInput in, int expectedMagic) throws IOException {
+        int magic = in.readInt();
+        if (magic != expectedMagic)
+            throw new IOException("Invalid magic number " + Integer.toHexString(magic) +
+                    ", expecting " + Integer.toHexString(expectedMagic) + " !");
+        readVersion(in);
+    }
+
+    private static void readVersion(DataInput in) throws IOException {
+        short version = in.readShort();
+        if (version > VERSION)
+            throw new IOException("Unsupported binary format version " + version + " !");
+    }
+
+    private static SequenceType readSequenceType(DataInput in) throws IOException {
+        String name = in.readUTF();
+        if (name.equalsIgnoreCase(Standard.NAME)) {
+            List<String> stateNames = new ArrayList<>();
+            int numStates = in.readInt();
+            for (int s = 0; s < numStates; s++)
+                stateNames.add(in.readUTF());
+            return new Standard(stateNames);
+        }
+
+        SequenceType sequenceType = SequenceTypeLoader.getDataType(name);
+        if (sequenceType != null)
+            return sequenceType;
+        // SequenceTypeLoader is not loaded
+        for (SequenceType type : new SequenceType[]{SequenceType.NUCLEOTIDE, SequenceType.AMINO_ACID, Binary.getInstance()}) {
+            if (type.getName().equalsIgnoreCase(name))
+                return type;
+        }
+        throw new IOException("Cannot find the sequence type " + name + " !");
+    }
+
+    private static Taxa readTaxa(DataInput in) throws IOException {
+        Taxon[] taxa = new Taxon[in.readInt()];
+        for (int i = 0; i < taxa.length; i++) {
+            String name = in.readUTF();
+            String species = readNullableString(in);
+            taxa[i] = new Taxon(name, species, in.readDouble());
+        }
+        return Taxa.createTaxa(taxa);
+    }
+
+    private static String readNullableString(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+}
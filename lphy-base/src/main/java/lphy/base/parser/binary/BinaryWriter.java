@@ -0,0 +1,145 @@
+package lphy.base.parser.binary;
+
+import jebl.evolution.sequences.SequenceType;
+import jebl.evolution.sequences.State;
+import lphy.base.evolution.Taxa;
+import lphy.base.evolution.Taxon;
+import lphy.base.evolution.alignment.SimpleAlignment;
+import lphy.base.evolution.datatype.Standard;
+import lphy.base.evolution.tree.TimeTree;
+import lphy.base.evolution.tree.TimeTreeNode;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Write alignments and trees in the compact binary format, which is read by {@link BinaryReader}.
+ * All numbers are big-endian as {@link DataOutput}, and a file starts from a magic number and the version.
+ * <p>
+ * Alignment: the data type, taxa, nchar, the bytes per state (1 or 2),
+ * and then the integer states of each taxon in order.
+ * <p>
+ * Tree: taxa, the number of nodes, and each node in the order of {@link TimeTree#getNodes()}
+ * containing its age, leaf index, id, branch rate, meta data, and the indices of its children.
+ */
+public class BinaryWriter {
+
+    public static final int ALIGNMENT_MAGIC = 0x4C504841; // "LPHA"
+    public static final int TREE_MAGIC = 0x4C504854; // "LPHT"
+    public static final short VERSION = 1;
+
+    public static final String EXTENSION = ".bin";
+
+    public static void writeAlignment(SimpleAlignment alignment, Path path) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            writeAlignment(alignment, out);
+        }
+    }
+
+    public static void writeTree(TimeTree tree, Path path) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            writeTree(tree, out);
+        }
+    }
+
+    public static void writeAlignment(SimpleAlignment alignment, DataOutput out) throws IOException {
+        out.writeInt(ALIGNMENT_MAGIC);
+        out.writeShort(VERSION);
+
+        writeSequenceType(alignment.getSequenceType(), out);
+        writeTaxa(alignment.getTaxa(), out);
+
+        final int nchar = alignment.nchar();
+        out.writeInt(nchar);
+        final int bytesPerState = getBytesPerState(alignment.getStateCount());
+        out.writeByte(bytesPerState);
+
+        // one row buffer
+        byte[] row = new byte[nchar * bytesPerState];
+        for (int i = 0; i < alignment.ntaxa(); i++) {
+            for (int j = 0; j < nchar; j++) {
+                int state = alignment.getState(i, j);
+                if (bytesPerState == 1) {
+                    row[j] = (byte) state;
+                } else {
+                    row[2 * j] = (byte) (state >>> 8);
+                    row[2 * j + 1] = (byte) state;
+                }
+            }
+            out.write(row);
+        }
+    }
+
+    public static void writeTree(TimeTree tree, DataOutput out) throws IOException {
+        out.writeInt(TREE_MAGIC);
+        out.writeShort(VERSION);
+
+        writeTaxa(tree.getTaxa(), out);
+
+        List<TimeTreeNode> nodes = tree.getNodes();
+        out.writeInt(nodes.size());
+        for (TimeTreeNode node : nodes) {
+            out.writeDouble(node.getAge());
+            out.writeInt(node.getLeafIndex());
+            writeNullableString(node.getId(), out);
+
+            Double branchRate = node.getBranchRate();
+            out.writeBoolean(branchRate != null);
+            if (branchRate != null)
+                out.writeDouble(branchRate);
+
+            Map<String, Object> metaData = node.getMetaData();
+            out.writeInt(metaData.size());
+            for (Map.Entry<String, Object> entry : metaData.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeUTF(String.valueOf(entry.getValue()));
+            }
+
+            List<TimeTreeNode> children = node.getChildren();
+            out.writeInt(children.size());
+            // the position in getNodes() is same as the node index
+            for (TimeTreeNode child : children)
+                out.writeInt(child.getIndex());
+        }
+    }
+
+    // 1 byte is enough for all data types except large Standard
+    static int getBytesPerState(int stateCount) {
+        if (stateCount <= 256)
+            return 1;
+        if (stateCount <= 65536)
+            return 2;
+        throw new IllegalArgumentException("Too many states for the binary format : " + stateCount);
+    }
+
+    private static void writeSequenceType(SequenceType sequenceType, DataOutput out) throws IOException {
+        out.writeUTF(sequenceType.getName());
+        // Standard requires its state names to recreate
+        if (sequenceType instanceof Standard) {
+            List<? extends State> states = sequenceType.getCanonicalStates();
+            out.writeInt(states.size());
+            for (State state : states)
+                out.writeUTF(state.getCode());
+        }
+    }
+
+    private static void writeTaxa(Taxa taxa, DataOutput out) throws IOException {
+        Taxon[] taxonArray = taxa.getTaxonArray();
+        out.writeInt(taxonArray.length);
+        for (Taxon taxon : taxonArray) {
+            out.writeUTF(taxon.getName());
+            writeNullableString(taxon.getSpecies(), out);
+            out.writeDouble(taxon.getAge());
+        }
+    }
+
+    private static void writeNullableString(String str, DataOutput out) throws IOException {
+        out.writeBoolean(str != null);
+        if (str != null)
+            out.writeUTF(str);
+    }
+
+}
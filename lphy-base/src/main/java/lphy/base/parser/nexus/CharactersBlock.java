@@ -19,6 +19,7 @@ package lphy.base.parser.nexus;
 
 import lphy.base.evolution.alignment.SimpleAlignment;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.logging.Level;
@@ -67,5 +68,26 @@ public class CharactersBlock extends NexusBlock {
         
         return lines;
     }
+
+    /**
+     * Stream the sequences from the state matrix, instead of creating them as Strings.
+     * The output is same as {@link #getBlockLines()}.
+     * @param writer  {@link NexusStreamWriter}
+     * @throws IOException
+     */
+    @Override
+    public void writeBlockLines(NexusStreamWriter writer) throws IOException {
+        writer.print("\t").print("dimensions nchar=" + alignment.nchar()).println(";");
+        writer.print("\t").print("format datatype=" + alignment.getSequenceTypeStr()).println(";");
+
+        writer.print("\t").print("matrix ");
+        final String[] taxaNames = alignment.getTaxaNames();
+        final byte[][] stateBytes = NexusStreamWriter.getStateBytes(alignment);
+        for (int i=0; i<alignment.ntaxa(); i++) {
+            writer.print("\n\t\t").print(taxaNames[i]).print(" ");
+            writer.printSequence(alignment, i, stateBytes);
+        }
+        writer.println(";");
+    }
     
 }
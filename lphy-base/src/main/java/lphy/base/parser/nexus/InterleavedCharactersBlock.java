@@ -0,0 +1,74 @@
+package lphy.base.parser.nexus;
+
+import lphy.base.evolution.alignment.StreamedAlignment;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A characters block written in the interleaved matrix, where each block of
+ * {@link StreamedAlignment} is written for all taxa before the next block is simulated.
+ * @see CharactersBlock
+ */
+public class InterleavedCharactersBlock extends NexusBlock {
+
+    private final StreamedAlignment alignment;
+
+    public InterleavedCharactersBlock(StreamedAlignment alignment) {
+        this.alignment = alignment;
+    }
+
+    @Override
+    public String getBlockName() {
+        return "characters";
+    }
+
+    /**
+     * Only for the small alignments, because it builds all lines in memory.
+     * Use {@link #writeBlockLines(NexusStreamWriter)}.
+     */
+    @Override
+    public List<String> getBlockLines() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (NexusStreamWriter writer = new NexusStreamWriter(Channels.newChannel(out))) {
+            writeBlockLines(writer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        // each streamed line is indented and ends with ";", but the matrix spans many rows
+        List<String> lines = new ArrayList<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).split(";\n")) {
+            if (!line.isEmpty())
+                lines.add(line.substring(1));
+        }
+        return lines;
+    }
+
+    @Override
+    public void writeBlockLines(NexusStreamWriter writer) throws IOException {
+        writer.print("\t").print("dimensions nchar=" + alignment.nchar()).println(";");
+        writer.print("\t").print("format datatype=" + alignment.getSequenceTypeStr() + " interleave").println(";");
+
+        writer.print("\t").print("matrix ");
+        final String[] taxaNames = alignment.getTaxaNames();
+        final byte[][][] stateBytes = new byte[1][][];
+        alignment.forEachBlock((block, firstSite) -> {
+            if (stateBytes[0] == null)
+                stateBytes[0] = NexusStreamWriter.getStateBytes(block);
+            // blocks are separated by an empty line
+            if (firstSite > 0)
+                writer.print("\n");
+            for (int i = 0; i < block.ntaxa(); i++) {
+                writer.print("\n\t\t").print(taxaNames[i]).print(" ");
+                writer.printSequence(block, i, stateBytes[0]);
+            }
+        });
+        writer.println(";");
+    }
+
+}
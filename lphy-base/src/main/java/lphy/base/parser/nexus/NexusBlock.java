@@ -17,6 +17,7 @@
 
 package lphy.base.parser.nexus;
 
+import java.io.IOException;
 import java.util.List;
 
 /**
@@ -33,6 +34,28 @@ public abstract class NexusBlock {
      * @return list of strings containing lines in block
      */
     public abstract List<String> getBlockLines();
+
+    /**
+     * Stream the whole block into the writer, which is same as {@link #toString()}.
+     * @param writer  {@link NexusStreamWriter}
+     * @throws IOException
+     */
+    public void write(NexusStreamWriter writer) throws IOException {
+        writer.print("begin ").print(getBlockName()).println(";");
+        writeBlockLines(writer);
+        writer.println("end;");
+    }
+
+    /**
+     * Stream the lines in block, where each line is indented and ends with ";".
+     * Override it, if the lines are too large to create by {@link #getBlockLines()}.
+     * @param writer  {@link NexusStreamWriter}
+     * @throws IOException
+     */
+    public void writeBlockLines(NexusStreamWriter writer) throws IOException {
+        for (String line : getBlockLines())
+            writer.print("\t").print(line).println(";");
+    }
     
     @Override
     public String toString() {
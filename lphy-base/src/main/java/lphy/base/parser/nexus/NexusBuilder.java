@@ -17,7 +17,11 @@
 
 package lphy.base.parser.nexus;
 
+import java.io.IOException;
 import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -57,9 +61,35 @@ public class NexusBuilder {
      * @param pstream 
      */
     public void write(PrintStream pstream) {
-        pstream.println("#NEXUS");
-        
-        for (NexusBlock block : blocks)
-            pstream.print("\n" + block);
+        // pstream is not closed here
+        NexusStreamWriter writer = new NexusStreamWriter(Channels.newChannel(pstream));
+        try {
+            write(writer);
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        pstream.flush();
+    }
+
+    /**
+     * Stream the assembled Nexus file into a file.
+     *
+     * @param path  the output file
+     * @throws IOException
+     */
+    public void write(Path path) throws IOException {
+        try (NexusStreamWriter writer = NexusStreamWriter.open(path)) {
+            write(writer);
+        }
+    }
+
+    private void write(NexusStreamWriter writer) throws IOException {
+        writer.println(NexusUtils.KEY_WORD);
+
+        for (NexusBlock block : blocks) {
+            writer.print("\n");
+            block.write(writer);
+        }
     }
 }
@@ -0,0 +1,136 @@
+package lphy.base.parser.nexus;
+
+import lphy.base.evolution.alignment.SimpleAlignment;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Write Nexus content into a {@link WritableByteChannel} through a fixed-size buffer.
+ * The sequences of an alignment are streamed row by row from its state matrix
+ * using a precomputed state-to-bytes table, so that neither the sequence
+ * nor the whole block is built into a String in memory.
+ * @see NexusBlock#write(NexusStreamWriter)
+ */
+public class NexusStreamWriter implements Flushable, Closeable {
+
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+    private static final byte[] NEW_LINE = "\n".getBytes(StandardCharsets.UTF_8);
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+
+    public NexusStreamWriter(WritableByteChannel channel) {
+        this(channel, DEFAULT_BUFFER_SIZE);
+    }
+
+    public NexusStreamWriter(WritableByteChannel channel, int bufferSize) {
+        if (bufferSize < 1)
+            throw new IllegalArgumentException("Buffer size must > 0 ! bufferSize = " + bufferSize);
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    /**
+     * @param path  the output file, which will be overwritten if it exists.
+     * @return  the writer to a {@link FileChannel} of this file.
+     * @throws IOException
+     */
+    public static NexusStreamWriter open(Path path) throws IOException {
+        FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        return new NexusStreamWriter(fileChannel);
+    }
+
+    public NexusStreamWriter print(String str) throws IOException {
+        put(str.getBytes(StandardCharsets.UTF_8));
+        return this;
+    }
+
+    public NexusStreamWriter println(String str) throws IOException {
+        print(str);
+        put(NEW_LINE);
+        return this;
+    }
+
+    /**
+     * Write the sequence of a taxon without any separators.
+     * @param alignment   the alignment providing the integer states.
+     * @param taxonIndex  the index of taxon.
+     * @param stateBytes  the table created by {@link #getStateBytes(SimpleAlignment)}.
+     * @throws IOException
+     */
+    public NexusStreamWriter printSequence(SimpleAlignment alignment, int taxonIndex,
+                                           byte[][] stateBytes) throws IOException {
+        final int nchar = alignment.nchar();
+        for (int j = 0; j < nchar; j++)
+            put(stateBytes[alignment.getState(taxonIndex, j)]);
+        return this;
+    }
+
+    /**
+     * @param alignment  {@link SimpleAlignment}
+     * @return  the array where index is the integer state,
+     *          and the value is the bytes of the code of that state.
+     */
+    public static byte[][] getStateBytes(SimpleAlignment alignment) {
+        String[] codes = alignment.getStateCodes();
+        byte[][] stateBytes = new byte[codes.length][];
+        for (int s = 0; s < codes.length; s++)
+            stateBytes[s] = codes[s].getBytes(StandardCharsets.UTF_8);
+        return stateBytes;
+    }
+
+    private void put(byte[] bytes) throws IOException {
+        if (bytes.length == 1 && buffer.hasRemaining()) {
+            buffer.put(bytes[0]);
+            return;
+        }
+        if (bytes.length > buffer.remaining()) {
+            flush();
+            // larger than the buffer, write it directly
+            if (bytes.length > buffer.capacity()) {
+                writeFully(ByteBuffer.wrap(bytes));
+                return;
+            }
+        }
+        buffer.put(bytes);
+    }
+
+    /**
+     * Write the buffered bytes to the channel.
+     * @throws IOException
+     */
+    @Override
+    public void flush() throws IOException {
+        buffer.flip();
+        writeFully(buffer);
+        buffer.clear();
+    }
+
+    private void writeFully(ByteBuffer byteBuffer) throws IOException {
+        while (byteBuffer.hasRemaining())
+            channel.write(byteBuffer);
+    }
+
+    /**
+     * Flush the buffer and close the channel.
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -2,6 +2,7 @@ package lphy.base.parser.nexus;
 
 import lphy.base.evolution.HasTaxa;
 import lphy.base.evolution.alignment.SimpleAlignment;
+import lphy.base.evolution.alignment.StreamedAlignment;
 import lphy.base.evolution.tree.TimeTree;
 
 import java.util.List;
@@ -50,6 +51,8 @@ public class NexusUtils {
         NexusBlock nexusBlock;
         if (hasTaxa instanceof SimpleAlignment alignment) {
             nexusBlock = new CharactersBlock(alignment);
+        } else if (hasTaxa instanceof StreamedAlignment alignment) {
+            nexusBlock = new InterleavedCharactersBlock(alignment);
         } else if (hasTaxa instanceof TimeTree tree) {
             //TODO do not use this to build body
             nexusBlock = new TreesBlock(List.of(tree));
@@ -22,7 +22,9 @@ package lphy.base.parser.nexus;
 import lphy.base.evolution.alignment.SimpleAlignment;
 import lphy.base.evolution.tree.TimeTree;
 
+import java.io.IOException;
 import java.io.PrintStream;
+import java.nio.file.Path;
 import java.util.List;
 
 /**
@@ -44,7 +46,24 @@ public class NexusWriter {
      */
     public static void write(SimpleAlignment alignment, List<TimeTree> trees,
                              PrintStream pstream) throws Exception {
-        
+        createNexusBuilder(alignment, trees).write(pstream);
+    }
+
+    /**
+     * Stream an alignment and/or one or more trees into the file in Nexus format,
+     * through a buffered {@link java.nio.channels.FileChannel}.
+     *
+     * @param alignment Alignment to write (may be null)
+     * @param trees Zero or more trees with taxa corresponding to alignment. (May be null)
+     * @param path The output file
+     * @throws IOException
+     */
+    public static void write(SimpleAlignment alignment, List<TimeTree> trees,
+                             Path path) throws IOException {
+        createNexusBuilder(alignment, trees).write(path);
+    }
+
+    private static NexusBuilder createNexusBuilder(SimpleAlignment alignment, List<TimeTree> trees) {
         String[] taxa = null;
         if (alignment != null) {
             taxa = alignment.getTaxaNames();
@@ -65,8 +84,8 @@ public class NexusWriter {
         
         if (trees != null && !trees.isEmpty())
             nb.append(new TreesBlock(trees));
-        
-        nb.write(pstream);
+
+        return nb;
     }
 
     public static void close(PrintStream pstream) {
@@ -19,6 +19,7 @@ package lphy.base.parser.nexus;
 
 import lphy.base.evolution.tree.TimeTree;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -114,5 +115,25 @@ public class TreesBlock extends NexusBlock {
         }
         return lines;
     }
+
+    /**
+     * Stream one tree per line, instead of creating all lines in memory.
+     * The output is same as {@link #getBlockLines()}.
+     * @param writer  {@link NexusStreamWriter}
+     * @throws IOException
+     */
+    @Override
+    public void writeBlockLines(NexusStreamWriter writer) throws IOException {
+        for (int i=0; i<trees.size(); i++) {
+
+            // Remove trailing ";" if present (as it should be!)
+            String newick = getTreeString(trees.get(i));
+            if (newick.endsWith(";")) {
+                newick = newick.substring(0, newick.length() - 1);
+            }
+
+            writer.print("\t").print("tree " + names.get(i) + " = [&R] ").print(newick).println(";");
+        }
+    }
     
 }
@@ -1,7 +1,10 @@
 package lphy.base.spi;
 
+import lphy.base.logger.BinaryAlignmentFormatter;
+import lphy.base.logger.BinaryTreeFormatter;
 import lphy.base.logger.NexusAlignmentFormatter;
 import lphy.base.logger.NexusTreeFormatter;
+import lphy.base.logger.StreamedAlignmentFormatter;
 import lphy.core.logger.ValueFormatter;
 import lphy.core.spi.LPhyValueFormatter;
 
@@ -23,7 +26,11 @@ public class LPhyBaseValueFormatterImpl implements LPhyValueFormatter {
 
     @Override
     public Set<Class<? extends ValueFormatter>> getValueFormatters() {
-        return Set.of(NexusAlignmentFormatter.class, NexusTreeFormatter.class);
+        return Set.of(NexusAlignmentFormatter.class, NexusTreeFormatter.class,
+                // only used for the alignments streamed into files
+                StreamedAlignmentFormatter.class,
+                // only used for binary output
+                BinaryAlignmentFormatter.class, BinaryTreeFormatter.class);
     }
 //    public Map<Class<?>, Set<Class<? extends ValueFormatter>>> getValueFormatterMap() {
 //        return Map.of( SimpleAlignment.class, Set.of(NexusAlignmentFormatter.class),
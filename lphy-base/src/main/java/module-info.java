@@ -47,6 +47,7 @@ module lphy.base {
     exports lphy.base.parser;
     exports lphy.base.parser.nexus;
     exports lphy.base.parser.newick;
+    exports lphy.base.parser.binary;
 
     // declare service provider interface (SPI)
     exports lphy.base.spi;
@@ -0,0 +1,68 @@
+package lphy.base.evolution.alignment;
+
+import jebl.evolution.sequences.SequenceType;
+import lphy.base.evolution.Taxa;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SimpleAlignmentTest {
+
+    private SimpleAlignment createAlignment() {
+        SimpleAlignment alignment = new SimpleAlignment(Taxa.createTaxa(3), 6, SequenceType.NUCLEOTIDE);
+        for (int i = 0; i < alignment.ntaxa(); i++)
+            for (int j = 0; j < alignment.nchar(); j++)
+                alignment.setState(i, j, (i + j) % 4);
+        return alignment;
+    }
+
+    @Test
+    void testView() {
+        SimpleAlignment parent = createAlignment();
+        SimpleAlignment view = new SimpleAlignment(new int[]{5, 0, 0}, parent);
+        assertTrue(view.isView());
+        assertEquals(3, view.nchar());
+        for (int i = 0; i < parent.ntaxa(); i++) {
+            assertEquals(parent.getState(i, 5), view.getState(i, 0));
+            assertEquals(parent.getState(i, 0), view.getState(i, 2));
+        }
+        // view of a view
+        SimpleAlignment view2 = new SimpleAlignment(new int[]{0}, view);
+        assertEquals(parent.getSequence(1).substring(5), view2.getSequence(1));
+    }
+
+    @Test
+    void testCopyOnWrite() {
+        SimpleAlignment parent = createAlignment();
+        String parentSeq = parent.getSequence(0);
+        SimpleAlignment view = new SimpleAlignment(new int[]{1, 2}, parent);
+        String viewSeq = view.getSequence(0);
+
+        // modifying the view does not change the parent
+        view.setState(0, 0, 3);
+        assertFalse(view.isView());
+        assertEquals(3, view.getState(0, 0));
+        assertEquals(parentSeq, parent.getSequence(0));
+
+        // modifying the parent does not change another view
+        SimpleAlignment view2 = new SimpleAlignment(new int[]{1, 2}, parent);
+        parent.setState(0, 1, 3);
+        assertEquals(viewSeq, view2.getSequence(0));
+        assertEquals(3, parent.getState(0, 1));
+    }
+
+    @Test
+    void testCharSetAlignment() {
+        SimpleAlignment parent = createAlignment();
+        List<CharSetBlock> blocks = CharSetBlock.Utils.getCharSetBlocks("2-.\\2");
+        SimpleAlignment part = AlignmentUtils.getCharSetAlignment(blocks, parent);
+
+        assertArrayEquals(new int[]{1, 3, 5}, AlignmentUtils.getSiteIndicesFromCharSet(blocks, parent.nchar()));
+        assertEquals(3, part.nchar());
+        for (int i = 0; i < parent.ntaxa(); i++)
+            assertArrayEquals(new int[]{parent.getState(i, 1), parent.getState(i, 3), parent.getState(i, 5)},
+                    part.getStates(i));
+    }
+}
@@ -0,0 +1,108 @@
+package lphy.base.evolution.continuous;
+
+import lphy.base.evolution.Taxa;
+import lphy.base.evolution.alignment.ContinuousCharacterData;
+import lphy.base.evolution.tree.TimeTree;
+import lphy.base.evolution.tree.TimeTreeNode;
+import lphy.base.parser.newick.NewickASTVisitor;
+import lphy.base.parser.newick.NewickLexer;
+import lphy.base.parser.newick.NewickParser;
+import lphy.core.model.Value;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.apache.commons.math3.distribution.MultivariateNormalDistribution;
+import org.apache.commons.math3.distribution.NormalDistribution;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PhyloBrownianTest {
+
+    private TimeTree createTree(String newick) {
+        NewickParser parser = new NewickParser(new CommonTokenStream(new NewickLexer(CharStreams.fromString(newick))));
+        TimeTreeNode root = new NewickASTVisitor().visit(parser.tree());
+        TimeTree tree = new TimeTree();
+        tree.setRoot(root);
+        return tree;
+    }
+
+    // the leaves of a cherry are independent given the root
+    @Test
+    void logDensityOfCherry() {
+        TimeTree tree = createTree("(A:2.0,B:0.5):0.0;");
+        double y0 = 0.3;
+        Double[][] traits = new Double[][]{{1.2}, {-0.4}};
+        ContinuousCharacterData data = new ContinuousCharacterData(Taxa.createTaxa(new String[]{"A", "B"}), traits);
+
+        PhyloBrownian phyloBrownian = new PhyloBrownian(new Value<>("tree", tree),
+                new Value<>("diffRate", 1.0), new Value<>("y0", y0));
+
+        double expected = new NormalDistribution(y0, Math.sqrt(2.0)).logDensity(1.2) +
+                new NormalDistribution(y0, Math.sqrt(0.5)).logDensity(-0.4);
+        assertEquals(expected, phyloBrownian.logDensity(data), 1e-12);
+    }
+
+    // the multivariate pruning of independent traits is the sum of univariate ones
+    @Test
+    void logDensityOfIndependentTraits() {
+        TimeTree tree = createTree("((A:1.0,B:1.0):0.5,C:1.5):0.0;");
+        Taxa taxa = Taxa.createTaxa(new String[]{"A", "B", "C"});
+        Double[][] traits = new Double[][]{{1.2, 0.1}, {-0.4, 0.6}, {0.8, -1.0}};
+
+        PhyloMultivariateBrownian multivariate = new PhyloMultivariateBrownian(new Value<>("tree", tree),
+                new Value<>("diffusionMatrix", new Double[][]{{1.0, 0.0}, {0.0, 1.0}}),
+                new Value<>("y0", new Double[]{0.0, 0.5}));
+
+        double expected = 0.0;
+        for (int j = 0; j < 2; j++) {
+            Double[][] trait = new Double[traits.length][1];
+            for (int i = 0; i < traits.length; i++)
+                trait[i][0] = traits[i][j];
+            PhyloBrownian univariate = new PhyloBrownian(new Value<>("tree", tree),
+                    new Value<>("diffRate", 1.0), new Value<>("y0", j == 0 ? 0.0 : 0.5));
+            expected += univariate.logDensity(new ContinuousCharacterData(taxa, trait));
+        }
+        assertEquals(expected, multivariate.logDensity(new ContinuousCharacterData(taxa, traits)), 1e-12);
+    }
+
+    // the variance of a branch is diffRate^2 * branch length, same as sample()
+    @Test
+    void logDensityWithDiffRate() {
+        TimeTree tree = createTree("((A:1.0,B:1.0):0.5,C:1.5):0.0;");
+        double diffRate = 1.7;
+        double y0 = 0.3;
+        double[] traits = new double[]{1.2, -0.4, 0.8};
+        ContinuousCharacterData data = new ContinuousCharacterData(Taxa.createTaxa(new String[]{"A", "B", "C"}),
+                new Double[][]{{traits[0]}, {traits[1]}, {traits[2]}});
+
+        PhyloBrownian phyloBrownian = new PhyloBrownian(new Value<>("tree", tree),
+                new Value<>("diffRate", diffRate), new Value<>("y0", y0));
+
+        // the covariance of taxa is the shared path length from the root
+        double r2 = diffRate * diffRate;
+        double[][] covariance = new double[][]{
+                {r2 * 1.5, r2 * 0.5, 0.0},
+                {r2 * 0.5, r2 * 1.5, 0.0},
+                {0.0, 0.0, r2 * 1.5}};
+        double expected = new MultivariateNormalDistribution(new double[]{y0, y0, y0}, covariance).logDensity(traits);
+        assertEquals(expected, phyloBrownian.logDensity(data), 1e-12);
+    }
+
+    // sibling leaves on zero-length branches must have the same traits, which are counted once
+    @Test
+    void logDensityOfZeroLengthBranches() {
+        TimeTree tree = createTree("((A:0.0,B:0.0):1.0,C:1.0):0.0;");
+        Taxa taxa = Taxa.createTaxa(new String[]{"A", "B", "C"});
+        PhyloBrownian phyloBrownian = new PhyloBrownian(new Value<>("tree", tree),
+                new Value<>("diffRate", 1.0), new Value<>("y0", 0.3));
+
+        double expected = new NormalDistribution(0.3, 1.0).logDensity(1.2) +
+                new NormalDistribution(0.3, 1.0).logDensity(0.8);
+        double same = phyloBrownian.logDensity(new ContinuousCharacterData(taxa, new Double[][]{{1.2}, {1.2}, {0.8}}));
+        assertEquals(expected, same, 1e-12);
+
+        double different = phyloBrownian.logDensity(new ContinuousCharacterData(taxa, new Double[][]{{1.2}, {1.0}, {0.8}}));
+        assertEquals(Double.NEGATIVE_INFINITY, different);
+    }
+
+}
@@ -18,6 +18,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
@@ -190,4 +191,66 @@ public class PhyloMultivariateBrownianTest {
         assertTrue(StatUtils.mean(diffsSp3Sp1[0]) > StatUtils.mean(diffsSp3Sp2[0]) && StatUtils.mean(diffsSp3Sp2[0]) > StatUtils.mean(diffsSp3Sp4[0]));
         assertEquals(StatUtils.mean(diffsSp3Sp1[0]), StatUtils.mean(diffsSp4Sp1[0]), 0.001);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void choleskyFactorPositiveDefiniteTest() {
+        Double[][] rateMat = new Double[][] { {1.0, 0.5, 0.25}, {0.5, 1.0, 0.25}, {0.25, 0.25, 1.0} };
+        double[][] factor = PhyloMultivariateBrownian.getCholeskyFactor(rateMat);
+
+        assertFactor(rateMat, factor);
+        // lower triangular
+        assertEquals(0.0, factor[0][1]);
+        assertEquals(0.0, factor[0][2]);
+        assertEquals(0.0, factor[1][2]);
+    }
+
+    /*
+     * Perfectly correlated traits have a singular diffusion matrix,
+     * which has no Cholesky factor, so the eigen decomposition is used.
+     */
+    @Test
+    public void choleskyFactorRankDeficientTest() {
+        Double[][] rateMat = new Double[][] { {1.0, 1.0}, {1.0, 1.0} };
+        double[][] factor = PhyloMultivariateBrownian.getCholeskyFactor(rateMat);
+
+        assertFactor(rateMat, factor);
+
+        TimeTree tree = initializeTree("(sp1:200.0,(sp2:50.0,(sp3:0.01,sp4:0.01)2:49.99)1:150.0)0:0.0;");
+        PhyloMultivariateBrownian phyloMB = new PhyloMultivariateBrownian(new Value<>("tree", tree),
+                new Value<>("rate", rateMat), new Value<>("y0", new Double[] { 0.0, 0.0 }));
+        ContinuousCharacterData data = phyloMB.sample().value();
+        for (String sp : new String[] { "sp1", "sp2", "sp3", "sp4" })
+            assertEquals(data.getState(sp, 0).doubleValue(), data.getState(sp, 1).doubleValue(), 1e-8, sp);
+    }
+
+    // the singular diffusion matrix can be sampled, but has no density
+    @Test
+    public void logDensityRankDeficientTest() {
+        Double[][] rateMat = new Double[][] { {1.0, 1.0}, {1.0, 1.0} };
+        TimeTree tree = initializeTree("(sp1:200.0,(sp2:50.0,(sp3:0.01,sp4:0.01)2:49.99)1:150.0)0:0.0;");
+        PhyloMultivariateBrownian phyloMB = new PhyloMultivariateBrownian(new Value<>("tree", tree),
+                new Value<>("rate", rateMat), new Value<>("y0", new Double[] { 0.0, 0.0 }));
+        ContinuousCharacterData data = phyloMB.sample().value();
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> phyloMB.logDensity(data));
+        assertTrue(e.getMessage().contains("positive-definite"), e.getMessage());
+    }
+
+    @Test
+    public void choleskyFactorNegativeEigenvalueTest() {
+        Double[][] rateMat = new Double[][] { {1.0, 2.0}, {2.0, 1.0} };
+        assertThrows(IllegalArgumentException.class, () -> PhyloMultivariateBrownian.getCholeskyFactor(rateMat));
+    }
+
+    // factor * factor^T = matrix
+    private void assertFactor(Double[][] matrix, double[][] factor) {
+        for (int i = 0; i < matrix.length; i++) {
+            for (int j = 0; j < matrix.length; j++) {
+                double product = 0;
+                for (int k = 0; k < matrix.length; k++)
+                    product += factor[i][k] * factor[j][k];
+                assertEquals(matrix[i][j], product, 1e-12, "matrix[" + i + "][" + j + "]");
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package lphy.base.evolution.likelihood;
+
+import org.apache.commons.math3.random.MersenneTwister;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JumpChainSimulatorTest {
+
+    // Jukes-Cantor normalised to 1 substitution per unit time
+    final Double[][] Q = new Double[][]{
+            {-1.0, 1.0 / 3, 1.0 / 3, 1.0 / 3},
+            {1.0 / 3, -1.0, 1.0 / 3, 1.0 / 3},
+            {1.0 / 3, 1.0 / 3, -1.0, 1.0 / 3},
+            {1.0 / 3, 1.0 / 3, 1.0 / 3, -1.0}};
+
+    @Test
+    void testEndStateAndCounts() {
+        JumpChainSimulator simulator = new JumpChainSimulator(Q);
+        RandomGenerator random = new MersenneTwister(777);
+        final double t = 0.5;
+        final int n = 200000;
+        int same = 0;
+        int[] substitutions = new int[1];
+        for (int i = 0; i < n; i++) {
+            int state = simulator.simulate(2, t, random, substitutions, 0);
+            if (state == 2) same++;
+        }
+        // P(t)_ii = 1/4 + 3/4 e^{-4t/3}
+        double expected = 0.25 + 0.75 * Math.exp(-4.0 * t / 3.0);
+        assertEquals(expected, (double) same / n, 0.005);
+        // Poisson process with rate 1
+        assertEquals(t, (double) substitutions[0] / n, 0.01);
+    }
+
+    @Test
+    void testAbsorbingState() {
+        Double[][] Q = new Double[][]{{-2.0, 2.0}, {0.0, 0.0}};
+        JumpChainSimulator simulator = new JumpChainSimulator(Q);
+        RandomGenerator random = new MersenneTwister(1);
+        int[] substitutions = new int[2];
+        assertEquals(1, simulator.simulate(1, 10.0, random, substitutions, 1));
+        assertEquals(0, substitutions[1]);
+        assertEquals(1, simulator.simulate(0, 100.0, random, substitutions, 0));
+        assertEquals(1, substitutions[0]);
+    }
+
+    @Test
+    void testMethod() {
+        assertEquals(AbstractPhyloCTMC.SimulationMethod.MATRIX, AbstractPhyloCTMC.SimulationMethod.parse(null));
+        assertEquals(AbstractPhyloCTMC.SimulationMethod.JUMP, AbstractPhyloCTMC.SimulationMethod.parse("jump"));
+        assertThrows(IllegalArgumentException.class, () -> AbstractPhyloCTMC.SimulationMethod.parse("gillespie"));
+    }
+}
@@ -0,0 +1,111 @@
+package lphy.base.evolution.likelihood;
+
+import lphy.base.evolution.alignment.Alignment;
+import lphy.base.evolution.coalescent.Coalescent;
+import lphy.base.evolution.substitutionmodel.JukesCantor;
+import lphy.base.evolution.tree.TimeTree;
+import lphy.core.model.Value;
+import lphy.core.simulator.RandomUtils;
+import lphy.core.simulator.SimulationThreads;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PhyloCTMCTest {
+
+    final int L = 3 * AbstractPhyloCTMC.SITES_PER_CHUNK + 7;
+
+    @AfterEach
+    void sequential() {
+        SimulationThreads.setSequential();
+    }
+
+    // the same seed must simulate the same alignment regardless of the number of threads
+    @Test
+    void testChunksReproducible() {
+        TimeTree tree = createTree();
+        Value<Double[][]> Q = new JukesCantor(null).apply();
+
+        for (String method : new String[]{"matrix", "jump"}) {
+            SimulationThreads.setThreads(4);
+            RandomUtils.setSeed(777);
+            PhyloCTMC fourThreads = createPhyloCTMC(tree, Q, L, method);
+            Alignment expected = fourThreads.sample().value();
+
+            SimulationThreads.setThreads(2);
+            RandomUtils.setSeed(777);
+            PhyloCTMC twoThreads = createPhyloCTMC(tree, Q, L, method);
+            Alignment actual = twoThreads.sample().value();
+
+            assertSameSites(expected, actual, expected.nchar(), method);
+            assertArrayEquals(fourThreads.getSubstitutionCounts(), twoThreads.getSubstitutionCounts());
+        }
+    }
+
+    // one thread simulates the same chunks as many threads, but one after another
+    @Test
+    void testOneThreadSameAsFourThreads() {
+        TimeTree tree = createTree();
+        Value<Double[][]> Q = new JukesCantor(null).apply();
+
+        SimulationThreads.setThreads(4);
+        RandomUtils.setSeed(777);
+        Alignment fourThreads = createPhyloCTMC(tree, Q, L, null).sample().value();
+
+        SimulationThreads.setThreads(1);
+        assertTrue(SimulationThreads.isChunked());
+        assertNull(SimulationThreads.getPool());
+        RandomUtils.setSeed(777);
+        Alignment oneThread = createPhyloCTMC(tree, Q, L, null).sample().value();
+        assertSameSites(fourThreads, oneThread, L, "1 thread");
+    }
+
+    // without threads, the sites are drawn one after another from the generator as before,
+    // so the alignment is a prefix of a longer alignment simulated from the same seed
+    @Test
+    void testSequentialByDefault() {
+        TimeTree tree = createTree();
+        Value<Double[][]> Q = new JukesCantor(null).apply();
+        final int shortL = 10;
+
+        RandomUtils.setSeed(777);
+        Alignment longAlignment = createPhyloCTMC(tree, Q, L, null).sample().value();
+        RandomUtils.setSeed(777);
+        Alignment shortAlignment = createPhyloCTMC(tree, Q, shortL, null).sample().value();
+        assertSameSites(shortAlignment, longAlignment, shortL, "sequential");
+
+        // the chunks have their own seeds
+        SimulationThreads.setThreads(1);
+        RandomUtils.setSeed(777);
+        Alignment chunked = createPhyloCTMC(tree, Q, L, null).sample().value();
+        assertFalse(sameSites(longAlignment, chunked, L));
+    }
+
+    private TimeTree createTree() {
+        RandomUtils.setSeed(123);
+        return new Coalescent(new Value<>("Θ", 1.0), new Value<>("n", 10), null).sample().value();
+    }
+
+    private void assertSameSites(Alignment expected, Alignment actual, int nchar, String message) {
+        for (int i = 0; i < expected.ntaxa(); i++) {
+            for (int j = 0; j < nchar; j++)
+                assertEquals(expected.getState(i, j), actual.getState(i, j), message + " taxon " + i + " site " + j);
+        }
+    }
+
+    private boolean sameSites(Alignment a1, Alignment a2, int nchar) {
+        for (int i = 0; i < a1.ntaxa(); i++) {
+            for (int j = 0; j < nchar; j++) {
+                if (a1.getState(i, j) != a2.getState(i, j))
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    private PhyloCTMC createPhyloCTMC(TimeTree tree, Value<Double[][]> Q, int L, String method) {
+        return new PhyloCTMC(new Value<>(null, tree), null, null, Q, null, null,
+                new Value<>(null, L), null, null, method == null ? null : new Value<>(null, method));
+    }
+}
@@ -0,0 +1,83 @@
+package lphy.base.evolution.substitutionmodel;
+
+import lphy.core.model.Value;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TN93KernelTest {
+
+    final Double[] freqs = new Double[]{0.1, 0.2, 0.3, 0.4};
+
+    @Test
+    void testTN93() {
+        TN93 tn93 = new TN93(new Value<>(null, 5.0), new Value<>(null, 2.5), new Value<>(null, freqs), null);
+        Double[][] Q = tn93.apply().value();
+        TransitionProbabilityKernel kernel = tn93.getTransitionProbabilityKernel(Q);
+        assertNotNull(kernel);
+        assertArrayEquals(new double[]{0.1, 0.2, 0.3, 0.4}, ((TN93Kernel) kernel).getFrequencies(), 1e-12);
+        for (double t : new double[]{0.001, 0.1, 1.0, 5.0})
+            assertMatrixEquals(exp(Q, t), kernel, t);
+    }
+
+    @Test
+    void testHKY() {
+        HKY hky = new HKY(new Value<>(null, 3.0), new Value<>(null, freqs), new Value<>(null, 2.0));
+        Double[][] Q = hky.apply().value();
+        TransitionProbabilityKernel kernel = hky.getTransitionProbabilityKernel(Q);
+        assertNotNull(kernel);
+        for (double t : new double[]{0.01, 0.5, 2.0})
+            assertMatrixEquals(exp(Q, t), kernel, t);
+    }
+
+    @Test
+    void testNotTN93() {
+        Double[][] Q = new TN93(new Value<>(null, 5.0), new Value<>(null, 2.5),
+                new Value<>(null, freqs), null).apply().value();
+        // A->C != A->T relative to their frequencies
+        Q[0][1] *= 1.1;
+        Q[0][0] -= Q[0][1] / 11.0;
+        assertNull(TN93Kernel.fromQ(Q));
+        assertNull(TN93Kernel.fromQ(new Double[][]{{-1.0, 1.0}, {1.0, -1.0}}));
+    }
+
+    private void assertMatrixEquals(double[][] expected, TransitionProbabilityKernel kernel, double t) {
+        double[][] P = new double[4][4];
+        kernel.getTransitionProbabilities(t, P);
+        for (int i = 0; i < 4; i++)
+            assertArrayEquals(expected[i], P[i], 1e-10, "t = " + t + ", row " + i);
+    }
+
+    // matrix exponential by Taylor series with scaling and squaring
+    private static double[][] exp(Double[][] Q, double t) {
+        final int n = Q.length;
+        final int squarings = 10;
+        double scale = t / Math.pow(2, squarings);
+        double[][] result = new double[n][n];
+        double[][] term = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            result[i][i] = 1.0;
+            term[i][i] = 1.0;
+        }
+        for (int k = 1; k < 20; k++) {
+            double[][] next = new double[n][n];
+            for (int i = 0; i < n; i++)
+                for (int j = 0; j < n; j++) {
+                    for (int m = 0; m < n; m++)
+                        next[i][j] += term[i][m] * Q[m][j] * scale;
+                    next[i][j] /= k;
+                    result[i][j] += next[i][j];
+                }
+            term = next;
+        }
+        for (int s = 0; s < squarings; s++) {
+            double[][] squared = new double[n][n];
+            for (int i = 0; i < n; i++)
+                for (int j = 0; j < n; j++)
+                    for (int m = 0; m < n; m++)
+                        squared[i][j] += result[i][m] * result[m][j];
+            result = squared;
+        }
+        return result;
+    }
+}
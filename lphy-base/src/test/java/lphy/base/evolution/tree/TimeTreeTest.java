@@ -9,6 +9,7 @@ import java.util.List;
 import java.util.Objects;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
@@ -59,4 +60,21 @@ class TimeTreeTest {
         assertEquals(rootAge, nodes.get(nodes.size()-1).getAge(), "root age vs. the last element age");
     }
 
+    // The coalescent tree is compact until its nodes are required.
+    @Test
+    void compactTree() {
+        assertTrue(tree.isCompact());
+        String newick = tree.toString();
+        double treeLength = tree.treeLength();
+        double rootAge = tree.rootAge();
+
+        assertEquals(2*nTaxa-1, tree.getNodeCount());
+        tree.getNodes();
+
+        assertFalse(tree.isCompact());
+        assertEquals(newick, tree.toString(), "newick before vs. after creating nodes");
+        assertEquals(treeLength, tree.treeLength(), "tree length before vs. after creating nodes");
+        assertEquals(rootAge, tree.getRoot().getAge(), "root age before vs. after creating nodes");
+    }
+
 }
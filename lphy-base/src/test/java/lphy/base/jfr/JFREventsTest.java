@@ -0,0 +1,127 @@
+package lphy.base.jfr;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import lphy.core.io.FileConfig;
+import lphy.core.jfr.*;
+import lphy.core.simulator.NamedRandomValueSimulator;
+import lphy.core.simulator.Sampler;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JFREventsTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testParseAndGenerateEvents() throws IOException {
+        Path jfrFile = tempDir.resolve("lphy.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(ParseEvent.NAME);
+            recording.enable(GeneratorConstructionEvent.NAME);
+            recording.enable(GenerateEvent.NAME);
+            recording.start();
+
+            Sampler sampler = Sampler.createSampler("""
+                    Θ ~ LogNormal(meanlog=3.0, sdlog=1.0);
+                    ψ ~ Coalescent(n=16, theta=Θ);
+                    D ~ PhyloCTMC(L=200, Q=jukesCantor(), tree=ψ);
+                    """);
+            sampler.sampleReplicate(2, 7L);
+
+            recording.stop();
+            recording.dump(jfrFile);
+        }
+        List<RecordedEvent> events = RecordingFile.readAllEvents(jfrFile);
+
+        List<RecordedEvent> parseEvents = getEvents(events, ParseEvent.NAME);
+        assertEquals(List.of("Θ", "ψ", "D"), parseEvents.stream().map(e -> e.getString("valueId")).toList());
+        assertTrue(parseEvents.get(2).getString("statement").startsWith("D ~ PhyloCTMC(L=200"));
+
+        assertTrue(getEvents(events, GeneratorConstructionEvent.NAME).stream()
+                .anyMatch(e -> "PhyloCTMC".equals(e.getString("generatorName"))));
+
+        List<RecordedEvent> generateEvents = getEvents(events, GenerateEvent.NAME);
+        RecordedEvent tree = getEvent(generateEvents, "ψ");
+        assertEquals(2, tree.getInt("replicate"));
+        assertEquals(16, tree.getInt("taxa"));
+        RecordedEvent alignment = getEvent(generateEvents, "D");
+        assertEquals("PhyloCTMC", alignment.getString("generatorName"));
+        assertEquals(16, alignment.getInt("taxa"));
+        assertEquals(200, alignment.getInt("sites"));
+        // not applicable to a number
+        assertEquals(-1, getEvent(generateEvents, "Θ").getInt("sites"));
+    }
+
+    @Test
+    void testFormatAndWriteEvents() throws IOException {
+        File lphyFile = Files.writeString(tempDir.resolve("model.lphy"), """
+                Θ ~ LogNormal(meanlog=3.0, sdlog=1.0);
+                ψ ~ Coalescent(n=16, theta=Θ);
+                D ~ PhyloCTMC(L=200, Q=jukesCantor(), tree=ψ);
+                """).toFile();
+        File outDir = tempDir.resolve("out").toFile();
+        final int reps = 2;
+
+        Path jfrFile = tempDir.resolve("lphy.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(FormatEvent.NAME);
+            recording.enable(WriteEvent.NAME);
+            recording.start();
+
+            new NamedRandomValueSimulator().simulateAndSaveResults(
+                    new FileConfig(reps, lphyFile, 7L).withOutputDirectory(outDir));
+
+            recording.stop();
+            recording.dump(jfrFile);
+        }
+        List<RecordedEvent> events = RecordingFile.readAllEvents(jfrFile);
+
+        // the alignments are streamed into their files without formatting
+        List<RecordedEvent> formatEvents = getEvents(events, FormatEvent.NAME);
+        List<RecordedEvent> trees = formatEvents.stream()
+                .filter(e -> "ψ".equals(e.getString("valueId"))).toList();
+        assertEquals(List.of(0, 1), trees.stream().map(e -> e.getInt("replicate")).sorted().toList());
+        for (RecordedEvent tree : trees) {
+            assertEquals(16, tree.getInt("taxa"));
+            assertEquals(-1, tree.getInt("sites"));
+            assertTrue(tree.getLong("length") > 0);
+            assertNotNull(tree.getString("formatterClass"));
+        }
+        assertTrue(formatEvents.stream().anyMatch(e -> "Θ".equals(e.getString("valueId"))));
+
+        List<RecordedEvent> writeEvents = getEvents(events, WriteEvent.NAME);
+        // an alignment file per replicate
+        List<RecordedEvent> alignmentFiles = writeEvents.stream()
+                .filter(e -> "D".equals(e.getString("valueId"))).toList();
+        assertEquals(List.of(0, 1), alignmentFiles.stream().map(e -> e.getInt("replicate")).sorted().toList());
+        // the files shared by replicates
+        assertTrue(writeEvents.stream().anyMatch(e -> e.getString("fileName").endsWith(".trees") &&
+                e.getInt("replicate") == -1));
+        assertTrue(writeEvents.stream().anyMatch(e -> "model.log".equals(e.getString("fileName")) &&
+                e.getInt("replicate") == -1));
+        for (RecordedEvent write : writeEvents) {
+            assertEquals("TEXT", write.getString("outputFormat"));
+            assertTrue(new File(outDir, write.getString("fileName")).exists(), write.getString("fileName"));
+        }
+    }
+
+    private List<RecordedEvent> getEvents(List<RecordedEvent> events, String name) {
+        return events.stream().filter(e -> name.equals(e.getEventType().getName())).toList();
+    }
+
+    private RecordedEvent getEvent(List<RecordedEvent> events, String valueId) {
+        return events.stream().filter(e -> valueId.equals(e.getString("valueId"))).findFirst().orElseThrow();
+    }
+
+}
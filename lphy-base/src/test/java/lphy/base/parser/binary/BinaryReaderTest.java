@@ -0,0 +1,46 @@
+package lphy.base.parser.binary;
+
+import jebl.evolution.sequences.SequenceType;
+import lphy.base.evolution.Taxa;
+import lphy.base.evolution.alignment.SimpleAlignment;
+import lphy.base.evolution.coalescent.Coalescent;
+import lphy.base.evolution.tree.TimeTree;
+import lphy.core.model.Value;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BinaryReaderTest {
+
+    @Test
+    void testAlignment() throws IOException {
+        SimpleAlignment alignment = new SimpleAlignment(Taxa.createTaxa(5), 50, SequenceType.NUCLEOTIDE);
+        for (int i = 0; i < alignment.ntaxa(); i++)
+            for (int j = 0; j < alignment.nchar(); j++)
+                alignment.setState(i, j, (i * j) % 4);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BinaryWriter.writeAlignment(alignment, new DataOutputStream(bytes));
+        SimpleAlignment copy = BinaryReader.readAlignment(
+                new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertEquals(alignment.toJSON(), copy.toJSON());
+        assertEquals(alignment.getSequenceTypeStr(), copy.getSequenceTypeStr());
+    }
+
+    @Test
+    void testTree() throws IOException {
+        Coalescent simulator = new Coalescent(new Value<>("Θ", 10.0), new Value<>("n", 20), null);
+        TimeTree tree = Objects.requireNonNull(simulator.sample()).value();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BinaryWriter.writeTree(tree, new DataOutputStream(bytes));
+        TimeTree copy = BinaryReader.readTree(
+                new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertEquals(tree.toString(), copy.toString());
+    }
+}
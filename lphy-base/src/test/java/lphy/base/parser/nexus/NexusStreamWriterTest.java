@@ -0,0 +1,104 @@
+package lphy.base.parser.nexus;
+
+import jebl.evolution.sequences.SequenceType;
+import lphy.base.evolution.Taxa;
+import lphy.base.evolution.alignment.SimpleAlignment;
+import lphy.base.evolution.alignment.StreamedAlignment;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NexusStreamWriterTest {
+
+    @Test
+    void testCharactersBlock() throws IOException {
+        int nchar = 100;
+        SimpleAlignment alignment = new SimpleAlignment(Taxa.createTaxa(3), nchar, SequenceType.NUCLEOTIDE);
+        for (int i = 0; i < alignment.ntaxa(); i++)
+            for (int j = 0; j < nchar; j++)
+                alignment.setState(i, j, (i + j) % 4);
+
+        CharactersBlock block = new CharactersBlock(alignment);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        // a tiny buffer to flush many times
+        NexusStreamWriter writer = new NexusStreamWriter(Channels.newChannel(out), 7);
+        block.write(writer);
+        writer.flush();
+
+        assertEquals(block.toString(), out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testInterleavedCharactersBlock() throws IOException {
+        int nchar = 10;
+        int blockSize = 4;
+        String[] codes = new String[]{"A", "C", "G", "T"};
+        StreamedAlignment alignment = new StreamedAlignment(Map.of("a", 0, "b", 1), nchar,
+                SequenceType.NUCLEOTIDE, 1L, (block, firstSite, random) -> {
+            for (int i = 0; i < block.ntaxa(); i++)
+                for (int j = 0; j < block.nchar(); j++)
+                    block.setState(i, j, (i + firstSite + j) % 4);
+        }, blockSize);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        NexusStreamWriter writer = new NexusStreamWriter(Channels.newChannel(out), 7);
+        new InterleavedCharactersBlock(alignment).write(writer);
+        writer.flush();
+
+        String[] taxaNames = alignment.getTaxaNames();
+        StringBuilder expected = new StringBuilder("begin characters;\n");
+        expected.append("\tdimensions nchar=").append(nchar).append(";\n");
+        expected.append("\tformat datatype=").append(alignment.getSequenceTypeStr()).append(" interleave;\n");
+        expected.append("\tmatrix ");
+        for (int first = 0; first < nchar; first += blockSize) {
+            if (first > 0) expected.append("\n");
+            for (int i = 0; i < taxaNames.length; i++) {
+                expected.append("\n\t\t").append(taxaNames[i]).append(" ");
+                for (int j = first; j < Math.min(nchar, first + blockSize); j++)
+                    expected.append(codes[(i + j) % 4]);
+            }
+        }
+        expected.append(";\nend;\n");
+
+        assertEquals(expected.toString(), out.toString(StandardCharsets.UTF_8));
+        // the lines in memory are same as the streamed block
+        assertEquals(expected.toString(), new InterleavedCharactersBlock(alignment).toString());
+    }
+
+    @Test
+    void testMaterializeStreamedAlignment() throws IOException {
+        int nchar = 10;
+        StreamedAlignment alignment = new StreamedAlignment(Map.of("a", 0, "b", 1), nchar,
+                SequenceType.NUCLEOTIDE, 1L, (block, firstSite, random) -> {
+            for (int i = 0; i < block.ntaxa(); i++)
+                for (int j = 0; j < block.nchar(); j++)
+                    block.setState(i, j, random.nextInt(4));
+        }, 3);
+
+        ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+        NexusStreamWriter writer = new NexusStreamWriter(Channels.newChannel(streamed));
+        new InterleavedCharactersBlock(alignment).write(writer);
+        writer.flush();
+
+        assertFalse(alignment.isMaterialized());
+        SimpleAlignment states = alignment.materialize();
+        for (int i = 0; i < alignment.ntaxa(); i++)
+            for (int j = 0; j < nchar; j++)
+                assertEquals(states.getState(i, j), alignment.getState(i, j));
+        assertEquals(states.toJSON(), alignment.toJSON());
+
+        // the blocks are copied from the materialized states after that
+        assertEquals(streamed.toString(StandardCharsets.UTF_8), new InterleavedCharactersBlock(alignment).toString());
+        alignment.setState(0, 0, (alignment.getState(0, 0) + 1) % 4);
+        assertTrue(new InterleavedCharactersBlock(alignment).toString().contains(
+                alignment.getTaxaNames()[0] + " " + states.getSequence(0).substring(0, 3)));
+    }
+
+}
@@ -0,0 +1,125 @@
+package lphy.base.simulator;
+
+import lphy.core.io.Checkpoint;
+import lphy.core.io.FileConfig;
+import lphy.core.io.OutputFormat;
+import lphy.core.model.Generator;
+import lphy.core.simulator.NamedRandomValueSimulator;
+import lphy.core.simulator.SamplingProfiler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CheckpointResumeTest {
+
+    static final String SCRIPT = """
+            Θ ~ LogNormal(meanlog=0.0, sdlog=1.0);
+            ψ ~ Coalescent(n=4, theta=Θ);
+            """;
+    static final long SEED = 777;
+    static final int REPLICATES = 10;
+    static final int INTERVAL = 4;
+
+    @TempDir
+    Path tempDir;
+
+    File lphyFile;
+    File plainDir;
+
+    // the files of a plain run with the same seed
+    @BeforeEach
+    void simulatePlain() throws IOException {
+        lphyFile = Files.writeString(tempDir.resolve("model.lphy"), SCRIPT).toFile();
+        plainDir = tempDir.resolve("plain").toFile();
+        new NamedRandomValueSimulator().simulateAndSaveResults(
+                new FileConfig(REPLICATES, lphyFile, SEED).withOutputDirectory(plainDir));
+    }
+
+    // interrupt the simulation in the middle of a segment, then resume it from the checkpoint
+    @Test
+    void testResumeSameAsPlainRun() throws IOException {
+        for (int k = 1; k < 3; k++) {
+            File outDir = tempDir.resolve("resumed" + k).toFile();
+            FileConfig fileConfig = new FileConfig(REPLICATES, lphyFile, SEED).withOutputDirectory(outDir);
+
+            NamedRandomValueSimulator interrupted = new NamedRandomValueSimulator();
+            interrupted.setProfiler(new InterruptingProfiler(k * INTERVAL));
+            assertThrows(Interruption.class, () -> interrupted.simulateWithCheckpoints(fileConfig, INTERVAL, false));
+
+            File checkpointFile = Checkpoint.getFile(lphyFile, outDir);
+            Checkpoint checkpoint = Checkpoint.load(checkpointFile);
+            assertEquals(k, checkpoint.getCompleted());
+            assertFalse(checkpoint.isMerged());
+
+            new NamedRandomValueSimulator().simulateWithCheckpoints(fileConfig, null, true);
+            assertFalse(checkpointFile.exists());
+            assertSameFiles(plainDir, outDir);
+        }
+    }
+
+    // the merged files are kept, if the simulation is interrupted while deleting the files of segments
+    @Test
+    void testResumeAfterMerge() throws IOException {
+        File outDir = tempDir.resolve("merged").toFile();
+        FileConfig fileConfig = new FileConfig(REPLICATES, lphyFile, SEED).withOutputDirectory(outDir);
+        new NamedRandomValueSimulator().simulateWithCheckpoints(fileConfig, INTERVAL, false);
+        assertSameFiles(plainDir, outDir);
+
+        File checkpointFile = Checkpoint.getFile(lphyFile, outDir);
+        Checkpoint checkpoint = new Checkpoint(checkpointFile, SEED, REPLICATES, INTERVAL,
+                OutputFormat.TEXT, Checkpoint.getScriptHash(lphyFile));
+        for (int k = 1; k <= checkpoint.getSegmentCount(); k++)
+            checkpoint.complete();
+        checkpoint.completeMerge();
+        // the only file of segments which is not deleted yet
+        String segmentPrefix = checkpoint.getSegment(1).getFilePrefix("model");
+        File segmentLog = Files.writeString(outDir.toPath().resolve(segmentPrefix + ".log"), "Sample").toFile();
+
+        new NamedRandomValueSimulator().simulateWithCheckpoints(fileConfig, null, true);
+        assertFalse(segmentLog.exists());
+        assertFalse(checkpointFile.exists());
+        assertSameFiles(plainDir, outDir);
+    }
+
+    private void assertSameFiles(File expectedDir, File actualDir) throws IOException {
+        String[] expected = expectedDir.list();
+        String[] actual = actualDir.list();
+        assertNotNull(expected);
+        assertNotNull(actual);
+        Arrays.sort(expected);
+        Arrays.sort(actual);
+        assertArrayEquals(expected, actual);
+        assertTrue(expected.length > 1, Arrays.toString(expected));
+        for (String name : expected) {
+            assertArrayEquals(Files.readAllBytes(expectedDir.toPath().resolve(name)),
+                    Files.readAllBytes(actualDir.toPath().resolve(name)), name);
+        }
+    }
+
+    static class Interruption extends RuntimeException { }
+
+    // throw after the given number of trees are simulated, as the simulation is killed
+    static class InterruptingProfiler extends SamplingProfiler {
+        private final int trees;
+        private int count = 0;
+
+        InterruptingProfiler(int trees) {
+            this.trees = trees;
+        }
+
+        @Override
+        public void record(Generator generator, long startNanos, long startBytes) {
+            super.record(generator, startNanos, startBytes);
+            if ("Coalescent".equals(generator.getName()) && ++count > trees)
+                throw new Interruption();
+        }
+    }
+}
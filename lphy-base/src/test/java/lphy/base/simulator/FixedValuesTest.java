@@ -0,0 +1,74 @@
+package lphy.base.simulator;
+
+import lphy.core.model.Value;
+import lphy.core.simulator.Sampler;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static lphy.core.model.ValueUtils.getValueById;
+import static org.junit.jupiter.api.Assertions.*;
+
+class FixedValuesTest {
+
+    static final String SCRIPT = """
+            n = 10;
+            mu ~ Normal(mean=0.0, sd=1.0);
+            sigma ~ LogNormal(meanlog=-1.0, sdlog=0.5);
+            x ~ Normal(mean=mu, sd=sigma, replicates=n);
+            """;
+
+    @Test
+    void testFixValues() {
+        Sampler sampler = Sampler.createSampler(SCRIPT);
+        List<Value> values = sampler.sample(1L);
+        Object mu = getValueById(values, "mu").value();
+        Object sigma = getValueById(values, "sigma").value();
+        Object x = getValueById(values, "x").value();
+
+        sampler.fixValues(List.of("mu", "sigma"));
+        values = sampler.sample(2L);
+        assertEquals(mu, getValueById(values, "mu").value());
+        assertEquals(sigma, getValueById(values, "sigma").value());
+        assertNotEquals(List.of((Double[]) x), List.of((Double[]) getValueById(values, "x").value()));
+
+        sampler.releaseFixedValues();
+        values = sampler.sample(2L);
+        assertNotEquals(mu, getValueById(values, "mu").value());
+
+        assertThrows(IllegalArgumentException.class, () -> sampler.fixValues(List.of("unknown")));
+    }
+
+    @Test
+    void testClampValue() {
+        Sampler sampler = Sampler.createSampler(SCRIPT);
+        sampler.sample(1L);
+        sampler.fixValue("mu", 100.0);
+        sampler.fixValue("sigma", 0.01);
+
+        for (int i = 0; i < 3; i++) {
+            List<Value> values = sampler.sample(null);
+            assertEquals(100.0, getValueById(values, "mu").value());
+            for (Double xi : (Double[]) getValueById(values, "x").value())
+                assertEquals(100.0, xi, 1.0);
+        }
+
+        // still random after released
+        sampler.releaseFixedValues();
+        List<Value> values = sampler.sample(1L);
+        assertNotEquals(100.0, getValueById(values, "mu").value());
+    }
+
+    // the constants are not resampled, so clamping them would have no effect
+    @Test
+    void testClampConstant() {
+        Sampler sampler = Sampler.createSampler(SCRIPT);
+        sampler.sample(1L);
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> sampler.fixValue("n", 5));
+        assertTrue(e.getMessage().contains("n"));
+        assertThrows(IllegalArgumentException.class, () -> sampler.fixValue("unknown", 1.0));
+
+        assertEquals(10, ((Double[]) getValueById(sampler.sample(2L), "x").value()).length);
+    }
+
+}
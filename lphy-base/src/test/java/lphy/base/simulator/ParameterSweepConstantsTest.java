@@ -0,0 +1,84 @@
+package lphy.base.simulator;
+
+import lphy.core.io.FileConfig;
+import lphy.core.io.OutputSystem;
+import lphy.core.model.Value;
+import lphy.core.simulator.NamedRandomValueSimulator;
+import lphy.core.simulator.ParameterSweep;
+import lphy.core.simulator.Sampler;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static lphy.core.model.ValueUtils.getValueById;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParameterSweepConstantsTest {
+
+    static final String SCRIPT = """
+            data {
+              mu = 10.0;
+              n = 3;
+            }
+            model {
+              m = mu * 2;
+              x ~ Normal(mean=m, sd=0.01, replicates=n);
+            }
+            """;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testSetConstants() {
+        Sampler sampler = Sampler.createSampler(SCRIPT);
+        Double[] x = (Double[]) getValueById(sampler.sample(1L), "x").value();
+        assertEquals(3, x.length);
+        assertEquals(20.0, x[0], 0.1);
+
+        ParameterSweep sweep = ParameterSweep.fromGrid(List.of("mu=100", "n=5"));
+        Map<String, Object> constants = sweep.getConstants(0, sampler);
+        // parsed as the type of the constant
+        assertEquals(100.0, constants.get("mu"));
+        sampler.setConstants(constants);
+
+        List<Value> values = sampler.sample(1L);
+        assertEquals(200.0, getValueById(values, "m").value());
+        x = (Double[]) getValueById(values, "x").value();
+        assertEquals(5, x.length);
+        for (Double xi : x)
+            assertEquals(200.0, xi, 0.1);
+
+        assertThrows(IllegalArgumentException.class, () -> sampler.setConstants(Map.of("x", 1.0)));
+
+        // a double for the integer constant
+        ParameterSweep wrongType = ParameterSweep.fromGrid(List.of("n=2.5"));
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> wrongType.getConstants(0, sampler));
+        assertTrue(e.getMessage().contains("n"));
+    }
+
+    // the points are written into their subdirectories, without changing the saved output directory
+    @Test
+    void testSweepOutputDirectory() throws IOException {
+        File lphyFile = Files.writeString(tempDir.resolve("model.lphy"), SCRIPT).toFile();
+        File outDir = tempDir.resolve("out").toFile();
+        File savedOutDir = OutputSystem.getOutputDirectory();
+
+        FileConfig fileConfig = new FileConfig(2, lphyFile, 7L).withOutputDirectory(outDir);
+        ParameterSweep sweep = ParameterSweep.fromGrid(List.of("mu=1.0,2.0"));
+        new NamedRandomValueSimulator().simulateSweep(fileConfig, sweep);
+
+        assertTrue(new File(outDir, "model" + ParameterSweep.INDEX_FILE_POSTFIX).exists());
+        for (int k = 0; k < sweep.size(); k++)
+            assertTrue(new File(new File(outDir, sweep.getPointName("model", k)), "model.log").exists());
+        assertEquals(savedOutDir, OutputSystem.getOutputDirectory());
+    }
+
+}
@@ -0,0 +1,42 @@
+package lphy.base.simulator;
+
+import lphy.core.model.Generator;
+import lphy.core.simulator.Sampler;
+import lphy.core.simulator.SamplingProfiler;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SamplingProfilerTest {
+
+    @Test
+    void testProfile() {
+        Sampler sampler = Sampler.createSampler("""
+                rate ~ LogNormal(meanlog=0.0, sdlog=1.0);
+                a ~ Exp(mean=rate);
+                b ~ Exp(mean=rate, replicates=100);
+                """);
+        SamplingProfiler profiler = new SamplingProfiler();
+        sampler.setProfiler(profiler);
+        final int reps = 5;
+        for (int i = 0; i < reps; i++)
+            sampler.sample((long) i);
+
+        // rate, a and b
+        assertEquals(3, profiler.getStatsByNode().size());
+        double sum = 0;
+        for (Generator generator : profiler.getStatsByNode().keySet())
+            sum += profiler.getTimeFraction(generator);
+        assertEquals(1.0, sum, 1e-9);
+
+        List<SamplingProfiler.Stats> statsByName = profiler.getStatsByName();
+        SamplingProfiler.Stats exp = statsByName.stream()
+                .filter(stats -> "Exp".equals(stats.getName())).findFirst().orElseThrow();
+        // the 2 nodes of Exp, where the IID vector is one node
+        assertEquals(2 * reps, exp.getCalls());
+        assertTrue(profiler.toTable().contains("LogNormal"));
+    }
+
+}
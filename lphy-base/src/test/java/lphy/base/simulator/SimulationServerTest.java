@@ -0,0 +1,179 @@
+package lphy.base.simulator;
+
+import lphy.core.simulator.SimulationServer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SimulationServerTest {
+
+    // a rate to override, and a vector to check the lines of elements
+    static final String SCRIPT = """
+            rate ~ LogNormal(meanlog=0.0, sdlog=1.0);
+            y ~ Exp(mean=rate, replicates=3);
+            """;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testRequests() throws IOException {
+        Path lphyFile = Files.writeString(tempDir.resolve("model.lphy"), SCRIPT);
+        // same script in another file
+        Path copyFile = Files.writeString(tempDir.resolve("copy.lphy"), SCRIPT);
+
+        SimulationServer server = new SimulationServer(4);
+        List<String> lines = serve(server, lphyFile + " seed=7 replicates=2",
+                "# comment", "",
+                copyFile + " seed=7 replicates=2",
+                lphyFile + " seed=7 rate=2.0",
+                lphyFile + " seed=7 replicates=2",
+                lphyFile + " seed=7 unknown=1",
+                SimulationServer.QUIT,
+                lphyFile + " seed=7");
+        assertEquals(1, server.getCacheSize());
+
+        List<List<String>> responses = splitResponses(lines);
+        assertEquals(5, responses.size());
+        // 2 replicates of rate and 3 elements of y
+        assertEquals(8, responses.get(0).size());
+        assertTrue(responses.get(0).get(0).startsWith("0\t"));
+        // same seed gives same values
+        assertEquals(responses.get(0), responses.get(1));
+        // the override is only used in its request
+        assertTrue(responses.get(2).contains("0\trate\t2.0"));
+        assertEquals(responses.get(0), responses.get(3));
+        // error, and quit before the last request
+        assertTrue(responses.get(4).get(0).startsWith(SimulationServer.ERROR + "\t"));
+    }
+
+    @Test
+    void testLRUCache() throws IOException {
+        SimulationServer server = new SimulationServer(1);
+        Path lphyFile = Files.writeString(tempDir.resolve("model.lphy"), SCRIPT);
+        Path otherFile = Files.writeString(tempDir.resolve("other.lphy"), "y ~ Normal(mean=1.0, sd=1.0);");
+        List<String> lines = serve(server, lphyFile + " seed=1", otherFile + " seed=1", lphyFile + " seed=1");
+        assertEquals(1, server.getCacheSize());
+
+        List<List<String>> responses = splitResponses(lines);
+        assertEquals(3, responses.size());
+        // parsed again after evicted
+        assertEquals(responses.get(0), responses.get(2));
+    }
+
+    // the relative paths in the script are resolved against its directory, so the cache is per directory
+    @Test
+    void testCacheKeyWithDirectory() throws IOException {
+        Path lphyFile = Files.writeString(Files.createDirectory(tempDir.resolve("a")).resolve("model.lphy"), SCRIPT);
+        Path otherDirFile = Files.writeString(Files.createDirectory(tempDir.resolve("b")).resolve("model.lphy"), SCRIPT);
+
+        SimulationServer server = new SimulationServer(4);
+        List<String> lines = serve(server, lphyFile + " seed=3", otherDirFile + " seed=3",
+                // the same directory by another path
+                tempDir.resolve("b").resolve("..").resolve("a").resolve("model.lphy") + " seed=3");
+        assertEquals(2, server.getCacheSize());
+
+        List<List<String>> responses = splitResponses(lines);
+        assertEquals(3, responses.size());
+        assertEquals(responses.get(0), responses.get(1));
+        assertEquals(responses.get(0), responses.get(2));
+    }
+
+    /**
+     * Compare the requests answered by one <code>slphy --serve</code> process with the cold slphy invocations,
+     * each of which starts a JVM and parses the script again.
+     * It is tagged by "dev", which is excluded from the gradle test task, so run it in the IDE.
+     */
+    @Test
+    @Tag("dev")
+    void benchmarkServerVsCLI() throws IOException, InterruptedException {
+        final int numRequests = 20;
+        Path lphyFile = Files.writeString(tempDir.resolve("model.lphy"), SCRIPT);
+
+        long start = System.nanoTime();
+        Process server = startSLPhy("--serve").start();
+        try (PrintStream in = new PrintStream(server.getOutputStream(), true, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < numRequests; i++)
+                in.println(lphyFile + " seed=" + i);
+            in.println(SimulationServer.QUIT);
+        }
+        List<String> lines;
+        try (BufferedReader out = server.inputReader(StandardCharsets.UTF_8)) {
+            lines = out.lines().toList();
+        }
+        assertEquals(0, server.waitFor());
+        long serverMillis = (System.nanoTime() - start) / 1_000_000;
+        assertEquals(numRequests, lines.stream().filter(line -> line.startsWith(SimulationServer.DONE + "\t")).count());
+
+        start = System.nanoTime();
+        for (int i = 0; i < numRequests; i++) {
+            Process cli = startSLPhy(lphyFile.toString(), "-seed", String.valueOf(i))
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+            assertEquals(0, cli.waitFor());
+        }
+        long cliMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(serverMillis < cliMillis, "The server takes " + serverMillis / numRequests +
+                " ms per request, but the cold CLI takes " + cliMillis / numRequests + " ms per request !");
+    }
+
+    // slphy in a new JVM having the modules of this test, whose stderr is discarded
+    private ProcessBuilder startSLPhy(String... args) {
+        List<String> command = new ArrayList<>(List.of(
+                Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "--module-path", getModulePath(), "--add-modules", "ALL-MODULE-PATH",
+                "-m", "lphy.core/lphy.core.simulator.SLPhy"));
+        command.addAll(List.of(args));
+        return new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.DISCARD);
+    }
+
+    // the jars and modular directories from the class path and module path of this test
+    private String getModulePath() {
+        List<String> paths = new ArrayList<>();
+        for (String property : new String[]{"jdk.module.path", "java.class.path"}) {
+            String path = System.getProperty(property);
+            if (path == null)
+                continue;
+            Arrays.stream(path.split(File.pathSeparator))
+                    .filter(p -> p.endsWith(".jar") || new File(p, "module-info.class").exists())
+                    .forEach(paths::add);
+        }
+        return String.join(File.pathSeparator, paths);
+    }
+
+    private List<String> serve(SimulationServer server, String... requests) throws IOException {
+        BufferedReader in = new BufferedReader(new StringReader(String.join("\n", requests)));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        server.serve(in, new PrintStream(bytes, true));
+        return bytes.toString().lines().toList();
+    }
+
+    // the values of each request without the line of done, where the time varies
+    private List<List<String>> splitResponses(List<String> lines) {
+        List<List<String>> responses = new ArrayList<>();
+        List<String> response = new ArrayList<>();
+        for (String line : lines) {
+            if (line.startsWith(SimulationServer.DONE + "\t")) {
+                responses.add(response);
+                response = new ArrayList<>();
+            } else if (line.startsWith(SimulationServer.ERROR + "\t")) {
+                response.add(line);
+                responses.add(response);
+                response = new ArrayList<>();
+            } else
+                response.add(line);
+        }
+        return responses;
+    }
+
+}
@@ -0,0 +1,37 @@
+plugins {
+    `java-library`
+    id("io.github.linguaphylo.platforms.lphy-java") version "0.1.2"
+}
+
+//version = "1.2.0"
+
+dependencies {
+    implementation(project(":lphy"))
+    api(project(":lphy-base"))
+
+    testImplementation("org.junit.jupiter:junit-jupiter:5.9.2")
+}
+
+val developers = "LPhy developer team"
+// lphy-lightweight-$version.jar
+tasks.jar {
+    manifest {
+        // shared attr in the root build
+        attributes(
+            "Implementation-Title" to "LPhy lightweight",
+            "Implementation-Vendor" to developers,
+        )
+    }
+}
+
+// junit tests, https://docs.gradle.org/current/dsl/org.gradle.api.tasks.testing.Test.html
+tasks.test {
+    useJUnitPlatform() {
+        excludeTags("dev")
+    }
+    // set heap size for the test JVM(s)
+    minHeapSize = "256m"
+    maxHeapSize = "3G"
+    // show standard out and standard error of the test JVM(s) on the console
+    testLogging.showStandardStreams = true
+}
@@ -1,8 +1,8 @@
-package lphy.base.lightweight;
+package lphy.lightweight;
 
-import lphy.core.model.component.GenerativeDistribution;
-import lphy.core.model.component.RandomVariable;
-import lphy.core.model.component.Value;
+import lphy.core.model.GenerativeDistribution;
+import lphy.core.model.RandomVariable;
+import lphy.core.model.Value;
 
 import java.util.Map;
 
@@ -1,7 +1,7 @@
-package lphy.base.lightweight;
+package lphy.lightweight;
 
-import lphy.core.model.component.Generator;
-import lphy.core.model.component.Value;
+import lphy.core.model.Generator;
+import lphy.core.model.Value;
 
 import java.util.Map;
 import java.util.TreeMap;
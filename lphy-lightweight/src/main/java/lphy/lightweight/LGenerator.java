@@ -1,14 +1,13 @@
-package lphy.base.lightweight;
+package lphy.lightweight;
 
-import lphy.core.model.component.Argument;
-import lphy.core.model.component.ParameterInfo;
+import lphy.core.parser.argument.Argument;
+import lphy.core.model.annotation.ParameterInfo;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -117,15 +116,12 @@ public interface LGenerator<T> {
 
     static List<Argument> getArguments(Class c, int constructorIndex) {
 
-        System.out.println("Getting arguments for " + c);
-
         Constructor constructor = c.getConstructors()[constructorIndex];
 
         List<Argument> arguments = new ArrayList<>();
 
         Annotation[][] annotations = constructor.getParameterAnnotations();
         Class[] parameterTypes = constructor.getParameterTypes();
-        System.out.println("  parameter types: " + Arrays.toString(parameterTypes));
 
         // top for loop
         for (int i = 0; i < annotations.length; i++) {
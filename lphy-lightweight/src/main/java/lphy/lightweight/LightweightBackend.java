@@ -0,0 +1,208 @@
+package lphy.lightweight;
+
+import lphy.core.model.GenerativeDistribution;
+import lphy.core.model.RandomVariable;
+import lphy.core.model.Value;
+import lphy.core.simulator.SamplingBackend;
+import lphy.core.vectorization.IID;
+import lphy.core.vectorization.VectorizedDistribution;
+import lphy.core.vectorization.VectorizedRandomVariable;
+import lphy.lightweight.distributions.*;
+
+import java.lang.reflect.Array;
+import java.util.*;
+
+import static lphy.base.distribution.DistributionConstants.*;
+
+/**
+ * The {@link SamplingBackend} sampling the standard distributions in lphy.base by {@link LGenerativeDistribution}s,
+ * which take raw parameters and are reused for every sample. The vectorized and IID distributions
+ * are sampled straight into the array, without creating a {@link RandomVariable} for each element,
+ * whose component variables are only created if they are required later.
+ * The samples are same as the lphy.base distributions given the same seed,
+ * since they draw the same random numbers from {@link lphy.core.simulator.RandomUtils#getRandom()}.
+ * It is not thread-safe, as the {@link lphy.core.simulator.Sampler}.
+ */
+public class LightweightBackend implements SamplingBackend {
+
+    public static final String NAME = "lightweight";
+
+    /**
+     * The raw values of parameters of one element.
+     */
+    private interface Params {
+        // null if the optional parameter is not given
+        Object get(String name);
+    }
+
+    /**
+     * Sample one element by the lightweight distribution.
+     */
+    private interface ElementSampler {
+        Object sample(Params params);
+    }
+
+    // the key is the class of distribution in lphy.base
+    private final Map<Class<?>, ElementSampler> samplers = new HashMap<>();
+
+    // reused by all samples, the distributions inside are only created again if the parameters are changed
+    private final Normal normal = new Normal(0.0, 1.0);
+    private final LogNormal logNormal = new LogNormal(0.0, 1.0);
+    private final Exp exp = new Exp(1.0);
+    private final Uniform uniform = new Uniform(0.0, 1.0);
+    private final Gamma gamma = new Gamma(1.0, 1.0);
+    private final Beta beta = new Beta(1.0, 1.0);
+    private final Dirichlet dirichlet = new Dirichlet(new Double[]{1.0});
+    private final Bernoulli bernoulli = new Bernoulli(0.5);
+    private final Poisson poisson = new Poisson(1.0);
+
+    // Required by ServiceLoader
+    public LightweightBackend() {
+        samplers.put(lphy.base.distribution.Normal.class, p -> {
+            normal.setMean(doubleValue(p, meanParamName));
+            normal.setSd(doubleValue(p, sdParamName));
+            return normal.sample();
+        });
+        samplers.put(lphy.base.distribution.LogNormal.class, p -> {
+            logNormal.setM(doubleValue(p, lphy.base.distribution.LogNormal.meanLogParamName));
+            logNormal.setS(doubleValue(p, lphy.base.distribution.LogNormal.sdLogParamName));
+            Object offset = p.get(offsetParamName);
+            return offset == null ? logNormal.sample() : logNormal.sample() + ((Number) offset).doubleValue();
+        });
+        samplers.put(lphy.base.distribution.Exp.class, p -> {
+            exp.setMean(doubleValue(p, meanParamName));
+            return exp.sample();
+        });
+        samplers.put(lphy.base.distribution.Uniform.class, p -> {
+            uniform.setLower(doubleValue(p, lowerParamName));
+            uniform.setUpper(doubleValue(p, upperParamName));
+            return uniform.sample();
+        });
+        samplers.put(lphy.base.distribution.Gamma.class, p -> {
+            gamma.setShape(doubleValue(p, shapeParamName));
+            gamma.setScale(doubleValue(p, scaleParamName));
+            return gamma.sample();
+        });
+        samplers.put(lphy.base.distribution.Beta.class, p -> {
+            beta.setAlpha(doubleValue(p, alphaParamName));
+            beta.setBeta(doubleValue(p, betaParamName));
+            return beta.sample();
+        });
+        samplers.put(lphy.base.distribution.Dirichlet.class, p -> {
+            dirichlet.setConcentration((Number[]) p.get(concParamName));
+            return dirichlet.sample();
+        });
+        samplers.put(lphy.base.distribution.Bernoulli.class, p -> {
+            bernoulli.setP(doubleValue(p, pParamName));
+            return bernoulli.sample();
+        });
+        samplers.put(lphy.base.distribution.Poisson.class, p -> {
+            poisson.setLambda(doubleValue(p, "lambda"));
+            poisson.setOffset(intValue(p, offsetParamName, 0));
+            poisson.setMin(intValue(p, "min", 0));
+            poisson.setMax(intValue(p, "max", Integer.MAX_VALUE));
+            return poisson.sample();
+        });
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * @param distributionClass  the class of distribution in lphy.base.
+     * @return  true if the distribution, or its vectorized and IID forms, are sampled by this backend.
+     */
+    public boolean isSupported(Class<?> distributionClass) {
+        return samplers.containsKey(distributionClass);
+    }
+
+    @Override
+    public RandomVariable<?> sample(GenerativeDistribution<?> distribution) {
+        if (distribution instanceof IID<?> iid)
+            return sampleIID(iid);
+        if (distribution instanceof VectorizedDistribution<?> vectorized)
+            return sampleVectorized(vectorized);
+
+        ElementSampler sampler = samplers.get(distribution.getClass());
+        if (sampler == null) return null;
+        Map<String, Value> params = distribution.getParams();
+        Object x = sampler.sample(name -> rawValue(params.get(name)));
+        return new RandomVariable<>(null, x, (GenerativeDistribution) distribution);
+    }
+
+    private <T> RandomVariable<?> sampleIID(IID<T> iid) {
+        GenerativeDistribution<T> baseDistribution = iid.getBaseDistribution();
+        ElementSampler sampler = baseDistribution == null ? null : samplers.get(baseDistribution.getClass());
+        final int size = iid.size();
+        if (sampler == null || size < 1) return null;
+
+        // all elements have the same parameters
+        Map<String, Object> rawValues = new HashMap<>();
+        baseDistribution.getParams().forEach((name, value) -> rawValues.put(name, rawValue(value)));
+        Params params = rawValues::get;
+
+        Object first = sampler.sample(params);
+        T[] values = newArray(first, size);
+        for (int i = 1; i < size; i++)
+            values[i] = (T) sampler.sample(params);
+        return new VectorizedRandomVariable<>(null, values, iid, List.of(baseDistribution));
+    }
+
+    private <T> RandomVariable<?> sampleVectorized(VectorizedDistribution<T> vectorized) {
+        List<GenerativeDistribution<T>> components = vectorized.getComponentDistributions();
+        if (components == null || components.isEmpty()) return null;
+        ElementSampler sampler = samplers.get(components.get(0).getClass());
+        if (sampler == null) return null;
+        final int size = components.size();
+
+        // the parameters are either vectors sliced by the index, or shared by all elements
+        Map<String, Object> rawValues = new HashMap<>();
+        Set<String> vectorizedParams = new HashSet<>();
+        for (Map.Entry<String, Value> entry : vectorized.getParams().entrySet()) {
+            Object raw = rawValue(entry.getValue());
+            rawValues.put(entry.getKey(), raw);
+            if (raw != null && vectorized.isVectorizedParameter(entry.getKey())) {
+                // let the vectorized distribution report the different lengths
+                if (Array.getLength(raw) != size) return null;
+                vectorizedParams.add(entry.getKey());
+            }
+        }
+        int[] index = new int[]{0};
+        Params params = name -> {
+            Object raw = rawValues.get(name);
+            return vectorizedParams.contains(name) ? Array.get(raw, index[0]) : raw;
+        };
+
+        Object first = sampler.sample(params);
+        T[] values = newArray(first, size);
+        for (index[0] = 1; index[0] < size; index[0]++)
+            values[index[0]] = (T) sampler.sample(params);
+        return new VectorizedRandomVariable<>(null, values, vectorized, components);
+    }
+
+    // the array has the component type of the first element, same as VectorizedRandomVariable
+    private static <T> T[] newArray(Object first, int size) {
+        T[] values = (T[]) Array.newInstance(first.getClass(), size);
+        values[0] = (T) first;
+        return values;
+    }
+
+    private static Object rawValue(Value value) {
+        return value == null ? null : value.value();
+    }
+
+    private static double doubleValue(Params params, String name) {
+        Object value = params.get(name);
+        if (value == null)
+            throw new IllegalArgumentException("The parameter " + name + " is required !");
+        return ((Number) value).doubleValue();
+    }
+
+    private static int intValue(Params params, String name, int defaultValue) {
+        Object value = params.get(name);
+        return value == null ? defaultValue : ((Number) value).intValue();
+    }
+
+}
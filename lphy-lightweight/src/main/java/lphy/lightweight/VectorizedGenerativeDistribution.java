@@ -1,69 +1,18 @@
-package lphy.base.lightweight;
+package lphy.lightweight;
 
-import lphy.base.lightweight.distributions.*;
-import lphy.core.model.component.Argument;
-import lphy.core.model.component.Generator;
+import lphy.core.parser.argument.Argument;
 
-import java.util.*;
-import java.util.stream.Collectors;
+import java.util.SortedMap;
 
+/**
+ * The vectorized version of a {@link LGenerativeDistribution}, where the arguments given as arrays
+ * are matched element-wise, and the sample is an array of the samples of base distribution.
+ * @param <T> the type of the sampled value of base distribution.
+ */
 public class VectorizedGenerativeDistribution<T> extends VectorizedGenerator<T> implements LGenerativeDistribution<T[]> {
 
-    // PARSER STATE
-    static Map<String, Set<Class<?>>> genDistDictionary;
-
-    static {
-        genDistDictionary = new TreeMap<>();
-
-        Class<?>[] genClasses = { Normal.class, LogNormal.class, Exp.class,
-                Dirichlet.class, Gamma.class, DiscretizedGamma.class, Beta.class, Poisson.class};
-
-        for (Class<?> genClass : genClasses) {
-            String name = Generator.getGeneratorName(genClass);
-
-            Set<Class<?>> genDistSet = genDistDictionary.computeIfAbsent(name, k -> new HashSet<>());
-            genDistSet.add(genClass);
-        }
-    }
-
     public VectorizedGenerativeDistribution(LGenerativeDistribution<T> baseDistribution, SortedMap<Argument, Object> argumentValues) {
         super(baseDistribution, argumentValues);
     }
 
-    public static VectorizedGenerativeDistribution createVectorizedGenerativeDistribution(String name, Map<String, Object> params) {
-
-        LGenerativeDistribution lwg = (LGenerativeDistribution)genDistDictionary.get(name);
-
-        if (lwg == null) throw new RuntimeException("Couldn't find generative distribution named: " + name);
-
-        SortedMap<Argument, Object> arguments =
-                params.entrySet().stream()
-                        .collect(Collectors.toMap(
-                                e -> lwg.getArgumentByName(e.getKey()),
-                                e -> e,
-                                (u, v) -> {
-                                    throw new RuntimeException("should not happen: " + u + " --- map: " + v);
-                                },
-                                TreeMap::new
-                        ));
-
-        return new VectorizedGenerativeDistribution(lwg,arguments);
-    }
-
-
-    public static void main(String[] args) {
-        Beta beta = new Beta(1.0, 2.0);
-
-        SortedMap<Argument, Object> arguments = new TreeMap<>();
-        arguments.put(beta.getArguments().get(0), new Double[]{200.0, 200.0, 200.0, 3.0, 3.0, 3.0});
-        arguments.put(beta.getArguments().get(1), 2.0);
-
-        VectorizedGenerativeDistribution<Double> v = new VectorizedGenerativeDistribution<>(beta, arguments);
-
-        Double[] rbeta = v.generateRaw();
-
-        System.out.println(Arrays.toString(rbeta));
-
-        System.out.println(Arrays.toString(beta.getClass().getConstructors()[0].getParameterTypes()));
-    }
 }
@@ -1,15 +1,19 @@
-package lphy.base.lightweight;
+package lphy.lightweight;
 
-import lphy.core.model.component.Argument;
+import lphy.core.parser.argument.Argument;
 
 import java.lang.reflect.Array;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.*;
 
+/**
+ * Apply a {@link LGenerator} element-wise, where the arguments given as arrays of the argument type
+ * are vectorized, and the other arguments are shared by all elements.
+ * @param <T> the return type of the base generator.
+ */
 public abstract class VectorizedGenerator<T> implements LGenerator<T[]> {
 
-    Class<? extends LGenerator> baseGeneratorClass;
     LGenerator<T> baseGenerator;
 
     private SortedMap<Argument, Object> argumentValues;
@@ -20,49 +24,18 @@ public abstract class VectorizedGenerator<T> implements LGenerator<T[]> {
 
     int dim;
 
-    public VectorizedGenerator(Class<? extends LGenerator> baseGeneratorClass, SortedMap<Argument, Object> argumentValues) {
-        this.baseGeneratorClass = baseGeneratorClass;
-        for (Argument arg : LGenerator.getArguments(baseGeneratorClass, 0)) {
-            argumentsByName.put(arg.name, arg);
-        }
-        if (argumentValues == null) {
-            this.argumentValues = new TreeMap<>();
-        }
-        setup();
-    }
-
     public VectorizedGenerator(LGenerator<T> baseGenerator, SortedMap<Argument, Object> argumentValues) {
-        baseGeneratorClass = baseGenerator.getClass();
         this.baseGenerator = baseGenerator;
-        this.argumentValues = argumentValues;
+        this.argumentValues = argumentValues == null ? new TreeMap<>() : argumentValues;
 
         for (Argument arg : baseGenerator.getArguments()) {
             argumentsByName.put(arg.name, arg);
         }
-
-        if (argumentValues == null) {
-            this.argumentValues = new TreeMap<>();
-        }
         setup();
     }
 
     void setup() {
 
-        // create first instance of lightweight generator if necessary
-        if (baseGenerator == null) {
-            List<Argument> args = LGenerator.getArguments(baseGeneratorClass, 0);
-            Object[] initArgs = new Object[args.size()];
-            for (int i = 0; i < initArgs.length; i++) {
-                Argument arg = args.get(i);
-                Object value = argumentValues.get(arg.name);
-                if (isArrayOfType(value, arg.type)) {
-                    initArgs[i] = Array.get(value, 0);
-                } else {
-                    initArgs[i] = value;
-                }
-            }
-        }
-
         vectorizedSetMethods.clear();
         vectorizedArgumentValues.clear();
 
@@ -93,11 +66,9 @@ public abstract class VectorizedGenerator<T> implements LGenerator<T[]> {
 
     public T[] generateRaw() {
 
-        T first = baseGenerator.generateRaw();
-
-        T[] result = (T[]) Array.newInstance(first.getClass(), dim);
-        result[0] = first;
-        for (int i = 1; i < result.length; i++) {
+        T[] result = null;
+        for (int i = 0; i < dim; i++) {
+            // the base generator keeps the inputs of the last element from the previous call
             for (int j = 0; j < vectorizedSetMethods.size(); j++) {
                 Object input = Array.get(vectorizedArgumentValues.get(j), i);
                 try {
@@ -107,8 +78,11 @@ public abstract class VectorizedGenerator<T> implements LGenerator<T[]> {
                 } catch (InvocationTargetException e) {
                     e.printStackTrace();
                 }
-                result[i] = baseGenerator.generateRaw();
             }
+            T element = baseGenerator.generateRaw();
+            if (result == null)
+                result = (T[]) Array.newInstance(element.getClass(), dim);
+            result[i] = element;
         }
         return result;
     }
@@ -131,9 +105,9 @@ public abstract class VectorizedGenerator<T> implements LGenerator<T[]> {
 
     static boolean isArrayOfType(Object maybeArray, Class ofType) {
 
-        if (maybeArray.getClass().isArray()) {
+        if (maybeArray != null && maybeArray.getClass().isArray() && Array.getLength(maybeArray) > 0) {
             Object firstElement = Array.get(maybeArray, 0);
-            return firstElement.getClass() == ofType;
+            return firstElement != null && ofType.isAssignableFrom(firstElement.getClass());
         }
         return false;
     }
@@ -1,9 +1,9 @@
-package lphy.base.lightweight.distributions;
+package lphy.lightweight.distributions;
 
-import lphy.base.lightweight.LGenerativeDistribution;
-import lphy.core.model.component.GeneratorInfo;
-import lphy.core.model.component.ParameterInfo;
-import lphy.core.util.RandomUtils;
+import lphy.lightweight.LGenerativeDistribution;
+import lphy.core.model.annotation.GeneratorInfo;
+import lphy.core.model.annotation.ParameterInfo;
+import lphy.core.simulator.RandomUtils;
 import org.apache.commons.math3.random.RandomGenerator;
 
 /**
@@ -21,7 +21,7 @@ public class Bernoulli implements LGenerativeDistribution<Boolean> {
 
     @GeneratorInfo(name="Bernoulli", description="The coin toss distribution. With true (heads) having probability p.")
     public Boolean sample() {
-        return randomGenerator.nextDouble() <= p;
+        return randomGenerator.nextDouble() < p;
     }
 
     public double density(Boolean i) {
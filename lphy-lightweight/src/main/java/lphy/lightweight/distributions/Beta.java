@@ -1,8 +1,9 @@
-package lphy.base.lightweight.distributions;
+package lphy.lightweight.distributions;
 
-import lphy.base.lightweight.LGenerativeDistribution;
-import lphy.core.model.component.GeneratorInfo;
-import lphy.core.model.component.ParameterInfo;
+import lphy.lightweight.LGenerativeDistribution;
+import lphy.core.model.annotation.GeneratorInfo;
+import lphy.core.model.annotation.ParameterInfo;
+import lphy.core.simulator.RandomUtils;
 import org.apache.commons.math3.distribution.BetaDistribution;
 
 /**
@@ -21,7 +22,10 @@ public class Beta implements LGenerativeDistribution<Double> {
         setup();
     }
 
-    void setup() { betaDistribution = new BetaDistribution(alpha.doubleValue(), beta.doubleValue()); }
+    void setup() {
+        betaDistribution = new BetaDistribution(RandomUtils.getRandom(), alpha.doubleValue(), beta.doubleValue(),
+                BetaDistribution.DEFAULT_INVERSE_ABSOLUTE_ACCURACY);
+    }
 
     public Number getAlpha() {
         return alpha;
@@ -30,8 +34,13 @@ public class Beta implements LGenerativeDistribution<Double> {
         return beta;
     }
 
-    public void setAlpha(Number alpha) { this.alpha = alpha; setup(); }
-    public void setBeta(Number beta) { this.beta = beta; setup(); }
+    // the distribution is only created again when the parameter is changed
+    public void setAlpha(Number alpha) {
+        if (this.alpha.doubleValue() != alpha.doubleValue()) { this.alpha = alpha; setup(); }
+    }
+    public void setBeta(Number beta) {
+        if (this.beta.doubleValue() != beta.doubleValue()) { this.beta = beta; setup(); }
+    }
 
     @GeneratorInfo(name="Beta", description="The beta probability distribution.")
     public Double sample() { return betaDistribution.sample(); }
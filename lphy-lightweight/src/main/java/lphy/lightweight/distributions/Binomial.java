@@ -1,8 +1,9 @@
-package lphy.base.lightweight.distributions;
+package lphy.lightweight.distributions;
 
-import lphy.base.lightweight.LGenerativeDistribution;
-import lphy.core.model.component.GeneratorInfo;
-import lphy.core.model.component.ParameterInfo;
+import lphy.lightweight.LGenerativeDistribution;
+import lphy.core.model.annotation.GeneratorInfo;
+import lphy.core.model.annotation.ParameterInfo;
+import lphy.core.simulator.RandomUtils;
 import org.apache.commons.math3.distribution.BinomialDistribution;
 
 public class Binomial implements LGenerativeDistribution<Integer> {
@@ -18,7 +19,7 @@ public class Binomial implements LGenerativeDistribution<Integer> {
         setup();
     }
 
-    private void setup() { binomial = new BinomialDistribution(n, p); }
+    private void setup() { binomial = new BinomialDistribution(RandomUtils.getRandom(), n, p); }
 
     @GeneratorInfo(name="Binomial", description="The binomial distribution of x successes in n trials given probability p of success of a single trial.")
     public Integer sample() {
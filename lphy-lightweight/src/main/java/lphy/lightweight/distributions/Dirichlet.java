@@ -1,19 +1,19 @@
-package lphy.base.lightweight.distributions;
+package lphy.lightweight.distributions;
 
-import lphy.base.lightweight.LGenerativeDistribution;
+import lphy.lightweight.LGenerativeDistribution;
 import lphy.base.math.MathUtils;
-import lphy.core.model.component.GeneratorInfo;
-import lphy.core.model.component.ParameterInfo;
-import lphy.core.util.RandomUtils;
+import lphy.core.model.annotation.GeneratorInfo;
+import lphy.core.model.annotation.ParameterInfo;
+import lphy.core.simulator.RandomUtils;
 
 /**
  * Created by Alexei Drummond on 18/12/19.
  */
 public class Dirichlet implements LGenerativeDistribution<Double[]> {
 
-    private Double[] concentration;
+    private Number[] concentration;
 
-    public Dirichlet(@ParameterInfo(name="conc", description="the concentration parameters of a Dirichlet distribution.") Double[] concentration) {
+    public Dirichlet(@ParameterInfo(name="conc", description="the concentration parameters of a Dirichlet distribution.") Number[] concentration) {
 
         this.concentration = concentration;
     }
@@ -24,7 +24,7 @@ public class Dirichlet implements LGenerativeDistribution<Double[]> {
         Double[] dirichlet = new Double[concentration.length];
         double sum = 0.0;
         for (int i = 0; i < dirichlet.length; i++) {
-            double val = MathUtils.randomGamma(concentration[i], 1.0, RandomUtils.getRandom());
+            double val = MathUtils.randomGamma(concentration[i].doubleValue(), 1.0, RandomUtils.getRandom());
             dirichlet[i] = val;
             sum += val;
         }
@@ -40,12 +40,12 @@ public class Dirichlet implements LGenerativeDistribution<Double[]> {
         return 0;
     }
 
-    public Double[] getConcentration() {
+    public Number[] getConcentration() {
 
         return concentration;
     }
 
-    public void setConcentration(Double[] concentration) {
+    public void setConcentration(Number[] concentration) {
         this.concentration = concentration;
     }
 
@@ -1,9 +1,9 @@
-package lphy.base.lightweight.distributions;
+package lphy.lightweight.distributions;
 
-import lphy.base.lightweight.LGenerativeDistribution;
-import lphy.core.model.component.GeneratorInfo;
-import lphy.core.model.component.ParameterInfo;
-import lphy.core.util.RandomUtils;
+import lphy.lightweight.LGenerativeDistribution;
+import lphy.core.model.annotation.GeneratorInfo;
+import lphy.core.model.annotation.ParameterInfo;
+import lphy.core.simulator.RandomUtils;
 import org.apache.commons.math3.distribution.GammaDistribution;
 
 /**
@@ -79,7 +79,7 @@ public class DiscretizedGamma implements LGenerativeDistribution<Double[]> {
         // in case the shape is type integer
         double sh = ((Number) shape).doubleValue();
 
-        gammaDistribution = new GammaDistribution(sh, 1.0/sh);
+        gammaDistribution = new GammaDistribution(RandomUtils.getRandom(), sh, 1.0/sh);
 
         rates = new double[ncat];
 
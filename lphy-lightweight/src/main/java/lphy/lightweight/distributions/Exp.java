@@ -1,41 +1,47 @@
-package lphy.base.lightweight.distributions;
+package lphy.lightweight.distributions;
 
-import lphy.base.lightweight.LGenerativeDistribution;
-import lphy.core.model.component.GeneratorInfo;
-import lphy.core.model.component.ParameterInfo;
-import lphy.core.util.RandomUtils;
-import org.apache.commons.math3.random.RandomGenerator;
+import lphy.lightweight.LGenerativeDistribution;
+import lphy.core.model.annotation.GeneratorInfo;
+import lphy.core.model.annotation.ParameterInfo;
+import lphy.core.simulator.RandomUtils;
+import org.apache.commons.math3.distribution.ExponentialDistribution;
 
 /**
  * Created by Alexei Drummond on 18/12/19.
  */
 public class Exp implements LGenerativeDistribution<Double> {
 
-    private Double rate;
+    private Double mean;
 
-    private RandomGenerator random;
+    ExponentialDistribution exp;
 
-    public Exp(@ParameterInfo(name="rate", description="the rate of an exponential distribution.") Double rate) {
-        this.rate = rate;
-        this.random = RandomUtils.getRandom();
+    public Exp(@ParameterInfo(name="mean", description="the mean of an exponential distribution.") Double mean) {
+        this.mean = mean;
+        constructDistribution();
+    }
+
+    private void constructDistribution() {
+        exp = new ExponentialDistribution(RandomUtils.getRandom(), mean, ExponentialDistribution.DEFAULT_INVERSE_ABSOLUTE_ACCURACY);
     }
 
     @GeneratorInfo(name="Exp", description="The exponential probability distribution.")
     public Double sample() {
-
-       return - Math.log(random.nextDouble()) / rate;
+        return exp.sample();
     }
 
-    public double density(Double aDouble) {
-        return 0;
+    public double density(Double x) {
+        return exp.density(x);
     }
 
-    public Double getRate() {
-        return rate;
+    public Double getMean() {
+        return mean;
     }
 
-    public void setRate(double rate) {
-        this.rate = rate;
+    public void setMean(Double mean) {
+        if (!this.mean.equals(mean)) {
+            this.mean = mean;
+            constructDistribution();
+        }
     }
 
     public String toString() {
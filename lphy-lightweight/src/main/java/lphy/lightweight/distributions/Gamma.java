@@ -1,8 +1,9 @@
-package lphy.base.lightweight.distributions;
+package lphy.lightweight.distributions;
 
-import lphy.base.lightweight.LGenerativeDistribution;
-import lphy.core.model.component.GeneratorInfo;
-import lphy.core.model.component.ParameterInfo;
+import lphy.lightweight.LGenerativeDistribution;
+import lphy.core.model.annotation.GeneratorInfo;
+import lphy.core.model.annotation.ParameterInfo;
+import lphy.core.simulator.RandomUtils;
 import org.apache.commons.math3.distribution.GammaDistribution;
 
 /**
@@ -28,7 +29,7 @@ public class Gamma implements LGenerativeDistribution<Double> {
 
     @GeneratorInfo(name = "Gamma", description = "The gamma probability distribution.")
     public Double sample() {
-        constructGammaDistribution();
+        // constructGammaDistribution() only required when the parameters are changed
         return gammaDistribution.sample();
     }
 
@@ -41,11 +42,17 @@ public class Gamma implements LGenerativeDistribution<Double> {
     }
 
     public void setShape(Double shape) {
-        this.shape = shape;
+        if (!this.shape.equals(shape)) {
+            this.shape = shape;
+            constructGammaDistribution();
+        }
     }
 
     public void setScale(Double scale) {
-        this.scale = scale;
+        if (!this.scale.equals(scale)) {
+            this.scale = scale;
+            constructGammaDistribution();
+        }
     }
 
     @Override
@@ -60,7 +67,8 @@ public class Gamma implements LGenerativeDistribution<Double> {
         // in case the scale is type integer
         double sc = ((Number) scale).doubleValue();
 
-        gammaDistribution = new GammaDistribution(sh, sc);
+        gammaDistribution = new GammaDistribution(RandomUtils.getRandom(), sh, sc,
+                GammaDistribution.DEFAULT_INVERSE_ABSOLUTE_ACCURACY);
     }
 
     public String toString() {
@@ -1,8 +1,9 @@
-package lphy.base.lightweight.distributions;
+package lphy.lightweight.distributions;
 
-import lphy.base.lightweight.LGenerativeDistribution;
-import lphy.core.model.component.GeneratorInfo;
-import lphy.core.model.component.ParameterInfo;
+import lphy.lightweight.LGenerativeDistribution;
+import lphy.core.model.annotation.GeneratorInfo;
+import lphy.core.model.annotation.ParameterInfo;
+import lphy.core.simulator.RandomUtils;
 import org.apache.commons.math3.distribution.GeometricDistribution;
 import org.apache.commons.math3.random.RandomGenerator;
 
@@ -22,12 +23,12 @@ public class Geometric implements LGenerativeDistribution<Integer> {
     @GeneratorInfo(name="Geometric", description="The probability distribution of the number of failures before the first success given a fixed probability of success p, supported on the set { 0, 1, 2, 3, ... }.")
     public Integer sample() {
 
-        GeometricDistribution geom = new GeometricDistribution(p);
+        GeometricDistribution geom = new GeometricDistribution(RandomUtils.getRandom(), p);
         return geom.sample();
     }
 
     public double density(Integer i) {
-        GeometricDistribution geom = new GeometricDistribution(p);
+        GeometricDistribution geom = new GeometricDistribution(RandomUtils.getRandom(), p);
         return geom.probability(i);
     }
 
@@ -1,9 +1,12 @@
-package lphy.base.lightweight.distributions;
+package lphy.lightweight.distributions;
 
-import lphy.base.lightweight.LGenerativeDistribution;
-import lphy.core.model.component.GeneratorInfo;
-import lphy.core.model.component.ParameterInfo;
+import lphy.lightweight.LGenerativeDistribution;
+import lphy.core.model.annotation.GeneratorInfo;
+import lphy.core.model.annotation.ParameterInfo;
+import lphy.core.simulator.RandomUtils;
 import org.apache.commons.math3.distribution.LogNormalDistribution;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.apache.commons.math3.util.FastMath;
 
 /**
  * Created by Alexei Drummond on 18/12/19.
@@ -13,24 +16,24 @@ public class LogNormal implements LGenerativeDistribution<Double> {
     private Double M;
     private Double S;
 
-    LogNormalDistribution logNormalDistribution;
+    private RandomGenerator random;
 
     public LogNormal(@ParameterInfo(name = "meanlog", description = "the mean of the distribution on the log scale.") Double M,
                      @ParameterInfo(name = "sdlog", description = "the standard deviation of the distribution on the log scale.") Double S) {
 
         this.M = M;
         this.S = S;
+        random = RandomUtils.getRandom();
     }
 
-    private void setup() { logNormalDistribution = new LogNormalDistribution(M, S); }
-
     @GeneratorInfo(name="LogNormal", description="The log-normal probability distribution.")
     public Double sample() {
-        return logNormalDistribution.sample();
+        // same as LogNormalDistribution#sample() without creating it
+        return FastMath.exp(M + S * random.nextGaussian());
     }
 
     public double logDensity(Double x) {
-        return logNormalDistribution.logDensity(x);
+        return new LogNormalDistribution(M, S).logDensity(x);
     }
 
     public Double getM() {
@@ -42,16 +45,10 @@ public class LogNormal implements LGenerativeDistribution<Double> {
     }
 
     public void setM(Double m) {
-        if (!M.equals(m)) {
-            M = m;
-            setup();
-        }
+        M = m;
     }
 
     public void setS(Double s) {
-        if (!S.equals(s)) {
-            S = s;
-            setup();
-        }
+        S = s;
     }
 }
\ No newline at end of file
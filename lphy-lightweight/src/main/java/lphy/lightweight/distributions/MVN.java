@@ -1,8 +1,9 @@
-package lphy.base.lightweight.distributions;
+package lphy.lightweight.distributions;
 
-import lphy.base.lightweight.LGenerativeDistribution;
-import lphy.core.model.component.GeneratorInfo;
-import lphy.core.model.component.ParameterInfo;
+import lphy.lightweight.LGenerativeDistribution;
+import lphy.core.model.annotation.GeneratorInfo;
+import lphy.core.model.annotation.ParameterInfo;
+import lphy.core.simulator.RandomUtils;
 import org.apache.commons.math3.distribution.MultivariateNormalDistribution;
 
 /**
@@ -58,7 +59,7 @@ public class MVN implements LGenerativeDistribution<Double[]> {
                 cv[i][j] = this.covariances[i][j];
             }
         }
-        multivariateNormalDistribution = new MultivariateNormalDistribution(means,cv);
+        multivariateNormalDistribution = new MultivariateNormalDistribution(RandomUtils.getRandom(), means, cv);
     }
 
     public void setMean(Double[] mean) {
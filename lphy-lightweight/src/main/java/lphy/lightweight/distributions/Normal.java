@@ -1,10 +1,9 @@
-package lphy.base.lightweight.distributions;
+package lphy.lightweight.distributions;
 
-import lphy.base.lightweight.LGenerativeDistribution;
-import lphy.core.model.component.GeneratorInfo;
-import lphy.core.model.component.ParameterInfo;
-import lphy.core.util.RandomUtils;
-import org.apache.commons.math3.distribution.NormalDistribution;
+import lphy.lightweight.LGenerativeDistribution;
+import lphy.core.model.annotation.GeneratorInfo;
+import lphy.core.model.annotation.ParameterInfo;
+import lphy.core.simulator.RandomUtils;
 import org.apache.commons.math3.random.RandomGenerator;
 
 /**
@@ -17,8 +16,6 @@ public class Normal implements LGenerativeDistribution<Double> {
 
     private RandomGenerator random;
 
-    NormalDistribution normalDistribution;
-
     public Normal(@ParameterInfo(name = "mean", description = "the mean of the distribution.") Double mean,
                   @ParameterInfo(name = "sd", description = "the standard deviation of the distribution.") Double sd) {
 
@@ -31,17 +28,14 @@ public class Normal implements LGenerativeDistribution<Double> {
 
     @GeneratorInfo(name="Normal", description="The normal probability distribution.")
     public Double sample() {
-
-        // in case the mean is type integer
-        double d =((Number)mean).doubleValue();
-
-        normalDistribution = new NormalDistribution(d, sd);
-        return normalDistribution.sample();
+        // same as NormalDistribution#sample() without creating it
+        return sd * random.nextGaussian() + mean;
     }
 
     @Override
     public double density(Double x) {
-        return normalDistribution.density(x);
+        double z = (x - mean) / sd;
+        return Math.exp(-0.5 * z * z) / (sd * Math.sqrt(2.0 * Math.PI));
     }
 
     public Double getMean() {
@@ -1,8 +1,9 @@
-package lphy.base.lightweight.distributions;
+package lphy.lightweight.distributions;
 
-import lphy.base.lightweight.LGenerativeDistribution;
-import lphy.core.model.component.GeneratorInfo;
-import lphy.core.model.component.ParameterInfo;
+import lphy.lightweight.LGenerativeDistribution;
+import lphy.core.model.annotation.GeneratorInfo;
+import lphy.core.model.annotation.ParameterInfo;
+import lphy.core.simulator.RandomUtils;
 import org.apache.commons.math3.distribution.PoissonDistribution;
 
 /**
@@ -10,7 +11,12 @@ import org.apache.commons.math3.distribution.PoissonDistribution;
  */
 public class Poisson implements LGenerativeDistribution<Integer> {
 
+    static final int MAX_TRIES = 10000;
+
     private Double lambda;
+    private int offset = 0;
+    private int min = 0;
+    private int max = Integer.MAX_VALUE;
 
     PoissonDistribution poissonDistribution;
 
@@ -20,18 +26,27 @@ public class Poisson implements LGenerativeDistribution<Integer> {
     }
 
     private void constructPoissonDistribution() {
-        poissonDistribution = new PoissonDistribution(lambda);
+        poissonDistribution = new PoissonDistribution(RandomUtils.getRandom(), lambda,
+                PoissonDistribution.DEFAULT_EPSILON, PoissonDistribution.DEFAULT_MAX_ITERATIONS);
     }
 
     @GeneratorInfo(name="Poisson", description="The probability distribution of the number of events when the expected number of events is lambda, supported on the set { 0, 1, 2, 3, ... }.")
     public Integer sample() {
-
-        return poissonDistribution.sample();
+        int val = -1;
+        int count = 0;
+        while (val < min || val > max) {
+            val = poissonDistribution.sample() + offset;
+            count += 1;
+            if (count > MAX_TRIES) {
+                throw new RuntimeException("Failed to draw conditional Poisson random variable after " + MAX_TRIES + " attempts.");
+            }
+        }
+        return val;
     }
 
     public double density(Integer i) {
-        PoissonDistribution poisson = new PoissonDistribution(lambda);
-        return poisson.probability(i);
+        if (i < min || i > max) return 0.0;
+        return poissonDistribution.probability(i - offset);
     }
 
     public Double getLambda() {
@@ -39,8 +54,43 @@ public class Poisson implements LGenerativeDistribution<Integer> {
     }
 
     public void setLambda(Double lambda) {
-        constructPoissonDistribution();
-        this.lambda = lambda;
+        if (!this.lambda.equals(lambda)) {
+            this.lambda = lambda;
+            constructPoissonDistribution();
+        }
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     * @param offset  the constant added to the number of events, default is 0.
+     */
+    public void setOffset(int offset) {
+        this.offset = offset;
+    }
+
+    public int getMin() {
+        return min;
+    }
+
+    /**
+     * @param min  the condition that the number of events must be greater than or equal to it, default is 0.
+     */
+    public void setMin(int min) {
+        this.min = min;
+    }
+
+    public int getMax() {
+        return max;
+    }
+
+    /**
+     * @param max  the condition that the number of events must be less than or equal to it.
+     */
+    public void setMax(int max) {
+        this.max = max;
     }
 
     public String toString() {
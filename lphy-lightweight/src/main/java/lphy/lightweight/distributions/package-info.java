@@ -1,7 +1,5 @@
 /**
- * A lightweight version that involves only raw values for input and output
- * and a beans style pattern for setting and getting.
- * @deprecated is this still in dev?
+ * The lightweight version of standard distributions, which sample raw values
+ * from the random number generator of {@link lphy.core.simulator.RandomUtils}.
  */
-@Deprecated
-package lphy.base.lightweight.distributions;
\ No newline at end of file
+package lphy.lightweight.distributions;
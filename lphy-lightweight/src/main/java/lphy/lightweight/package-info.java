@@ -1,3 +1,7 @@
-package lphy.base.lightweight;
-
-//TODO: not used
\ No newline at end of file
+/**
+ * The lightweight generators, which involve only raw values for input and output,
+ * and a beans style pattern for setting and getting.
+ * {@link lphy.lightweight.LightweightBackend} uses them to sample the standard distributions
+ * in {@link lphy.core.simulator.Sampler}.
+ */
+package lphy.lightweight;
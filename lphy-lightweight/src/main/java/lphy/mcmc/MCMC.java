@@ -1,4 +1,4 @@
-package lphy.io.mcmc;
+package lphy.mcmc;
 
 import lphy.core.model.RandomVariable;
 import lphy.core.model.Value;
@@ -1,8 +1,8 @@
-package lphy.io.mcmc.operators;
+package lphy.mcmc.operators;
 
-import lphy.base.math.RandomUtils;
+import lphy.core.simulator.RandomUtils;
 import lphy.core.model.RandomVariable;
-import lphy.io.mcmc.Operator;
+import lphy.mcmc.Operator;
 import org.apache.commons.math3.random.RandomGenerator;
 
 import java.util.Collections;
@@ -0,0 +1,16 @@
+import lphy.core.simulator.SamplingBackend;
+import lphy.lightweight.LightweightBackend;
+
+/**
+ * The lightweight generators sampling raw values, and the {@link SamplingBackend} using them.
+ */
+module lphy.lightweight {
+    requires transitive lphy.base;
+
+    exports lphy.lightweight;
+    exports lphy.lightweight.distributions;
+    exports lphy.mcmc;
+    exports lphy.mcmc.operators;
+
+    provides SamplingBackend with LightweightBackend;
+}
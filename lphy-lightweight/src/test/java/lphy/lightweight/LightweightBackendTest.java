@@ -0,0 +1,129 @@
+package lphy.lightweight;
+
+import lphy.core.model.Value;
+import lphy.core.model.ValueUtils;
+import lphy.core.simulator.Sampler;
+import lphy.core.simulator.SamplingBackend;
+import lphy.core.simulator.SamplingProfiler;
+import lphy.core.vectorization.VectorUtils;
+import lphy.core.vectorization.VectorizedRandomVariable;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LightweightBackendTest {
+
+    static final String SCRIPT = """
+            mu ~ Normal(mean=0.5, sd=1.0);
+            sigma ~ LogNormal(meanlog=-1.0, sdlog=0.5, offset=0.1);
+            x ~ Normal(mean=mu, sd=sigma, replicates=20);
+            r ~ Exp(mean=[1.0, 2.0, 3.0]);
+            g ~ Gamma(shape=2.0, scale=[0.5, 1.5]);
+            b ~ Beta(alpha=2.0, beta=3.0, replicates=5);
+            u ~ Uniform(lower=-1.0, upper=2.0);
+            freqs ~ Dirichlet(conc=[1.0, 2.0, 3.0]);
+            coin ~ Bernoulli(p=0.3, replicates=4);
+            k ~ Poisson(lambda=3.0, offset=1);
+            """;
+
+    static final long SEED = 777;
+
+    @Test
+    void testSameSamples() {
+        Sampler sampler = Sampler.createSampler(SCRIPT);
+        Map<String, Object> expected = getValues(sampler.sample(SEED));
+
+        sampler.setSamplingBackend(new LightweightBackend());
+        for (int rep = 0; rep < 3; rep++) {
+            // the cached distributions are reused after the first replicate
+            Map<String, Object> actual = getValues(sampler.sample(SEED));
+            assertEquals(expected.keySet(), actual.keySet());
+            for (Map.Entry<String, Object> entry : expected.entrySet())
+                assertTrue(Objects.deepEquals(entry.getValue(), actual.get(entry.getKey())),
+                        "Different samples of " + entry.getKey());
+        }
+    }
+
+    @Test
+    void testLazyComponents() {
+        Sampler sampler = Sampler.createSampler(SCRIPT);
+        sampler.setSamplingBackend(new LightweightBackend());
+        List<Value> values = sampler.sample(SEED);
+
+        Value<?> x = ValueUtils.getValueById(values, "x");
+        VectorizedRandomVariable<?> vrv = assertInstanceOf(VectorizedRandomVariable.class, x);
+        assertEquals(20, vrv.size());
+        assertEquals("x" + VectorUtils.INDEX_SEPARATOR + 3, vrv.getComponentValue(3).getId());
+        assertEquals(vrv.getComponent(3), vrv.getComponentValue(3).value());
+    }
+
+    @Test
+    void testServiceLoader() {
+        SamplingBackend backend = SamplingBackend.getBackend(LightweightBackend.NAME);
+        assertInstanceOf(LightweightBackend.class, backend);
+        assertThrows(IllegalArgumentException.class, () -> SamplingBackend.getBackend("unknown"));
+    }
+
+    /**
+     * Compare the bytes allocated per replicate by the generators with and without the lightweight backend,
+     * i.e. <code>slphy --backend lightweight</code>, in a large IID vector and a vectorized distribution.
+     * It is tagged by "dev", which is excluded from the gradle test task, so run it in the IDE.
+     */
+    @Test
+    @Tag("dev")
+    void benchmarkAllocation() {
+        final String script = """
+                x ~ Normal(mean=0.0, sd=1.0, replicates=100000);
+                y ~ Exp(mean=[1.0, 2.0, 3.0, 4.0, 5.0, 6.0, 7.0, 8.0, 9.0, 10.0]);
+                """;
+        final int reps = 20;
+        Sampler sampler = Sampler.createSampler(script);
+
+        SamplingProfiler defaultProfile = profile(sampler, reps);
+        sampler.setSamplingBackend(new LightweightBackend());
+        SamplingProfiler lightweightProfile = profile(sampler, reps);
+
+        long defaultBytes = getTotalBytes(defaultProfile) / reps;
+        long lightweightBytes = getTotalBytes(lightweightProfile) / reps;
+        assertTrue(defaultBytes > 0, "The allocated bytes are not supported by the JVM !");
+        assertTrue(lightweightBytes < defaultBytes, "Bytes per replicate : " + lightweightBytes +
+                " with the lightweight backend, but " + defaultBytes + " without it.\n" +
+                defaultProfile.toTable() + lightweightProfile.toTable());
+    }
+
+    // the cost of generators in the replicates after warming up
+    private SamplingProfiler profile(Sampler sampler, int reps) {
+        for (int i = 0; i < reps; i++)
+            sampler.sample(SEED);
+        try (SamplingProfiler profiler = new SamplingProfiler()) {
+            sampler.setProfiler(profiler);
+            for (int i = 0; i < reps; i++)
+                sampler.sample(SEED);
+            sampler.setProfiler(null);
+            return profiler;
+        }
+    }
+
+    private long getTotalBytes(SamplingProfiler profiler) {
+        long bytes = 0;
+        for (SamplingProfiler.Stats stats : profiler.getStatsByName())
+            bytes += stats.getBytes();
+        return bytes;
+    }
+
+    private Map<String, Object> getValues(List<Value> values) {
+        Map<String, Object> map = new TreeMap<>();
+        for (Value<?> value : values) {
+            if (!value.isAnonymous())
+                map.put(value.getId(), value.value());
+        }
+        return map;
+    }
+
+}
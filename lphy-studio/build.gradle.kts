@@ -15,6 +15,8 @@ dependencies {
 //    implementation(project(mapOf( "path" to ":lphy", "configuration" to "coreJars")))
     implementation(project(":lphy"))
     implementation(project(":lphy-base"))
+    // the sampling backend of slphy --backend lightweight, loaded by ServiceLoader from lib
+    runtimeOnly(project(":lphy-lightweight"))
 
     implementation("org.scilab.forge:jlatexmath:1.0.7")
 //    implementation("org.scilab.forge:jlatexmath-font-greek:1.0.7")
@@ -72,7 +74,7 @@ tasks.jar {
 }
 
 task("copyDependencies", Copy::class) {
-    from(configurations.compileClasspath.get().files).into("$buildDir/jmods")
+    from(configurations.runtimeClasspath.get().files).into("$buildDir/jmods")
     from(tasks.jar).into("$buildDir/jmods")
 }
 
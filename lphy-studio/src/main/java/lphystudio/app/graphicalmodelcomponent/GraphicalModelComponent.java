@@ -7,6 +7,7 @@ import lphy.core.model.Value;
 import lphy.core.parser.GraphicalLPhyParser;
 import lphy.core.parser.graphicalmodel.GraphicalModelChangeListener;
 import lphy.core.parser.graphicalmodel.GraphicalModelListener;
+import lphy.core.simulator.SamplingProfiler;
 import lphystudio.core.layeredgraph.*;
 import lphystudio.core.narrative.LaTeXNarrative;
 import lphystudio.core.theme.ThemeColours;
@@ -15,6 +16,7 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ComponentAdapter;
 import java.awt.event.ComponentEvent;
+import java.awt.geom.Ellipse2D;
 import java.awt.geom.Line2D;
 import java.util.ArrayList;
 import java.util.List;
@@ -48,6 +50,9 @@ public class GraphicalModelComponent extends JComponent implements GraphicalMode
 
     private static boolean showToolbar = preferences.getBoolean(SHOW_TOOLBAR, true);
 
+    // if not null, paint the heat map of the sampling time of generators
+    SamplingProfiler profiler = null;
+
     LayeredGraph layeredGraph = null;
     public ProperLayeredGraph properLayeredGraph = null;
     Layering layering = new Layering.LongestPathFromSinks();
@@ -163,6 +168,41 @@ public class GraphicalModelComponent extends JComponent implements GraphicalMode
 
             NodePaintUtils.paintNodeEdges(properNode,g2d,showArgumentLabels, useStraightEdges);
         }
+
+        if (profiler != null)
+            paintProfile(g2d);
+    }
+
+    // a halo around each generator, whose size and colour show its fraction of the sampling time
+    private void paintProfile(Graphics2D g2d) {
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        for (LayeredNode properNode : properLayeredGraph.getNodes()) {
+            if (!isWrappedParameterized(properNode))
+                continue;
+            Generator generator = (Generator) ((LayeredGNode) ((NodeWrapper) properNode).wrappedNode()).value();
+            double fraction = profiler.getTimeFraction(generator);
+            if (fraction <= 0)
+                continue;
+
+            double radius = LayeredGNode.FACTOR_SIZE * (1.5 + 3 * fraction);
+            // from yellow to red
+            Color colour = new Color(255, (int) (220 * (1 - fraction)), 0, 150);
+            g2d.setColor(colour);
+            g2d.fill(new Ellipse2D.Double(properNode.getX() - radius, properNode.getY() - radius,
+                    2 * radius, 2 * radius));
+            g2d.setColor(ThemeColours.getDefaultColor());
+            g2d.drawString(String.format("%.1f%%", 100 * fraction),
+                    (float) (properNode.getX() + radius + 2), (float) (properNode.getY() + radius));
+        }
+    }
+
+    /**
+     * @param profiler  the profiler of the last sampling, whose time of each generator is painted as a heat map,
+     *                  or null to hide the heat map.
+     */
+    public void setProfiler(SamplingProfiler profiler) {
+        this.profiler = profiler;
+        repaint();
     }
 
     public String toTikz(boolean inline) {
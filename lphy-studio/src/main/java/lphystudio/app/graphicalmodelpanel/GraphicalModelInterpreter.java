@@ -263,9 +263,19 @@ public class GraphicalModelInterpreter extends JPanel {
     }
 
     public void interpretInput(String input, LPhyMetaParser.Context context) {
+        interpretChangedInput(input, input, context);
+    }
+
+    /**
+     * Only parse the changed statements, but show the whole code in the console.
+     * @param input         the whole code of this context.
+     * @param changedInput  the statements to parse, which must be a subset of input.
+     * @param context       data or model
+     */
+    public void interpretChangedInput(String input, String changedInput, LPhyMetaParser.Context context) {
 
         try {
-            parser.parse(input, context);
+            parser.parse(changedInput, context);
 
             try {
                 LineCodeColorizer codeColorizer = new LineCodeColorizer(parser, context, textPane);
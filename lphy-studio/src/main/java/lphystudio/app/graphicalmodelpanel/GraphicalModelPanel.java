@@ -10,6 +10,7 @@ import lphy.core.parser.Script;
 import lphy.core.parser.graphicalmodel.GraphicalModel;
 import lphy.core.parser.graphicalmodel.GraphicalModelListener;
 import lphy.core.simulator.Sampler;
+import lphy.core.simulator.SamplingProfiler;
 import lphy.core.simulator.SimulatorListener;
 import lphy.core.vectorization.VectorizedFunction;
 import lphystudio.app.alignmentcomponent.AlignmentComponent;
@@ -19,6 +20,7 @@ import lphystudio.app.graphicalmodelcomponent.interactive.InteractiveGraphicalMo
 import lphystudio.app.treecomponent.TimeTreeComponent;
 import lphystudio.app.treecomponent.TimeTreeExtraPlotComponent;
 import lphystudio.core.codebuilder.CanonicalCodeBuilder;
+import lphystudio.core.codebuilder.CodeDiff;
 import lphystudio.core.codecolorizer.LineCodeColorizer;
 import lphystudio.core.editor.UndoManagerHelper;
 import lphystudio.core.layeredgraph.Layering;
@@ -65,6 +67,7 @@ public class GraphicalModelPanel extends JPanel {
     JTextField repsField = new TidyTextField("1", 4);
     JButton sampleButton = new JButton("Sample");
     JCheckBox showConstantNodes = new JCheckBox("Show constants");
+    JCheckBox profileSampling = new JCheckBox("Profile");
     JComboBox<Layering> layeringAlgorithm = new TidyComboBox<>(new Layering[]{
             new Layering.LongestPathFromSinks(), new Layering.LongestPathFromSources()
     });
@@ -80,6 +83,9 @@ public class GraphicalModelPanel extends JPanel {
 //    Sampler sampler;
 
     CanonicalCodeBuilder codeBuilder = new CanonicalCodeBuilder();
+    // the canonical statements parsed by the last sample, null to re-parse all
+    List<String> parsedDataStatements;
+    List<String> parsedModelStatements;
 
 
     public GraphicalModelPanel(GraphicalLPhyParser parser, UndoManagerHelper undoManagerHelper) {
@@ -106,6 +112,8 @@ public class GraphicalModelPanel extends JPanel {
         buttonPanel.add(new JLabel(" Layering:"));
         buttonPanel.add(layeringAlgorithm);
         buttonPanel.add(showConstantNodes);
+        profileSampling.setToolTipText("Show the sampling time of each generator as a heat map after sampling.");
+        buttonPanel.add(profileSampling);
 //        buttonPanel.add(editValues);
 
         sampleButton.addActionListener(e -> sample(getReps()));
@@ -296,17 +304,45 @@ public class GraphicalModelPanel extends JPanel {
 
         // These sync the consoles with GraphicalModelComponent containing the lphy code
         // the code may be changed by GUI, such as squared rectangles.
-        dataInterpreter.clear();
-        modelInterpreter.clear();
-        // refresh data and model lines
         String text = codeBuilder.getCode(component.getParser());
-        dataInterpreter.interpretInput(codeBuilder.getDataLines(), LPhyMetaParser.Context.data);
-        modelInterpreter.interpretInput(codeBuilder.getModelLines(), LPhyMetaParser.Context.model);
+        List<String> dataStatements = codeBuilder.getDataStatements();
+        List<String> modelStatements = codeBuilder.getModelStatements();
+        // only re-parse the changed statements and their dependents
+        CodeDiff codeDiff = CodeDiff.diff(parsedDataStatements, parsedModelStatements,
+                dataStatements, modelStatements);
+        if (codeDiff == null) {
+            dataInterpreter.clear();
+            modelInterpreter.clear();
+            // refresh data and model lines
+            dataInterpreter.interpretInput(codeBuilder.getDataLines(), LPhyMetaParser.Context.data);
+            modelInterpreter.interpretInput(codeBuilder.getModelLines(), LPhyMetaParser.Context.model);
+        } else if (!codeDiff.isEmpty()) {
+            LoggerUtils.log.fine("Re-parse the changed values : " + codeDiff.getChangedIds());
+            codeDiff.detachChangedValues(component.getParser());
+            dataInterpreter.clear();
+            modelInterpreter.clear();
+            dataInterpreter.interpretChangedInput(codeBuilder.getDataLines(),
+                    CodeDiff.toCode(codeDiff.getDataStatements()), LPhyMetaParser.Context.data);
+            modelInterpreter.interpretChangedInput(codeBuilder.getModelLines(),
+                    CodeDiff.toCode(codeDiff.getModelStatements()), LPhyMetaParser.Context.model);
+        }
+        parsedDataStatements = dataStatements;
+        parsedModelStatements = modelStatements;
 
         // Sample using the lphy code in component.getParser(), and output results to loggers
         Sampler sampler = new Sampler(component.getParser());
         // if null then use a random seed
-        valuesAllRepsMap = sampler.sampleAll(reps, loggers, null);
+        SamplingProfiler profiler = profileSampling.isSelected() ? new SamplingProfiler() : null;
+        sampler.setProfiler(profiler);
+        try {
+            valuesAllRepsMap = sampler.sampleAll(reps, loggers, null);
+        } finally {
+            if (profiler != null)
+                profiler.close();
+        }
+        component.setProfiler(profiler);
+        if (profiler != null)
+            LoggerUtils.log.info("Sampling profile of " + reps + " replicates :\n" + profiler.toTable());
 //        this.sampler = sampler;
 
         if (id != null) {
@@ -524,6 +560,8 @@ public class GraphicalModelPanel extends JPanel {
     public void clear() {
         dataInterpreter.clear();
         modelInterpreter.clear();
+        parsedDataStatements = null;
+        parsedModelStatements = null;
         component.clear();
         rightPane.clear();
     }
@@ -1,9 +1,11 @@
 package lphystudio.app.graphicalmodelpanel;
 
+import lphy.core.logger.LoggerUtils;
 import lphy.core.model.*;
 import lphy.core.parser.GraphicalLPhyParser;
 import lphy.core.parser.graphicalmodel.GraphicalModelListener;
 import lphystudio.app.graphicalmodelcomponent.GraphicalModelComponent;
+import lphystudio.core.layeredgraph.ProperLayeredGraph;
 import lphystudio.core.narrative.NarrativeLayeredGraph;
 import lphystudio.core.narrative.Section;
 
@@ -19,9 +21,14 @@ import java.awt.datatransfer.Transferable;
 import java.awt.datatransfer.UnsupportedFlavorException;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.event.HierarchyEvent;
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.prefs.BackingStoreException;
 import java.util.prefs.Preferences;
 
@@ -40,6 +47,13 @@ public class NarrativePanel extends JComponent {
 
     static Preferences preferences = Preferences.userNodeForPackage(NarrativePanel.class);
 
+    // the narrative of each node, which is only regenerated when the node or its inputs are changed,
+    // and it is only used in the event dispatch thread
+    final NarrativeCache narrativeCache = new NarrativeCache();
+    // the text is generated in the background only when this panel is showing
+    boolean textOutdated = true;
+    TextWorker textWorker;
+
     public NarrativePanel(GraphicalLPhyParser parser, NarrativeLayeredGraph narrative, GraphicalModelComponent component) {
         this(parser, narrative,  component,null);
     }
@@ -74,7 +88,11 @@ public class NarrativePanel extends JComponent {
 
         scrollPane = new JScrollPane(pane);
 
-        setText();
+        // generate the outdated text when the tab is selected
+        addHierarchyListener(e -> {
+            if ((e.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) != 0 && isShowing() && textOutdated)
+                updateText();
+        });
 
         narrativeInnerPanel = new JPanel();
 
@@ -85,13 +103,13 @@ public class NarrativePanel extends JComponent {
 
         include.getModel().addListDataListener(new ListDataListener() {
             @Override
-            public void intervalAdded(ListDataEvent e) { setText(); }
+            public void intervalAdded(ListDataEvent e) { updateText(); }
 
             @Override
-            public void intervalRemoved(ListDataEvent e) { setText(); }
+            public void intervalRemoved(ListDataEvent e) { updateText(); }
 
             @Override
-            public void contentsChanged(ListDataEvent e) { setText(); }
+            public void contentsChanged(ListDataEvent e) { updateText(); }
         });
 
         JList<String> exclude = createJListWithDragAndDrop();
@@ -106,7 +124,7 @@ public class NarrativePanel extends JComponent {
 
         add(scrollPane, BorderLayout.CENTER);
 
-        parser.addGraphicalModelChangeListener(this::setText);
+        parser.addGraphicalModelChangeListener(this::updateText);
 
         component.addGraphicalModelListener(new GraphicalModelListener() {
             @Override
@@ -126,7 +144,7 @@ public class NarrativePanel extends JComponent {
 
             @Override
             public void layout() {
-                setText();
+                updateText();
             }
         });
 
@@ -152,7 +170,9 @@ public class NarrativePanel extends JComponent {
                         @Override
                         public void actionPerformed(ActionEvent e) {
                             preferences.putBoolean(key, menuItem.getState());
-                            setText();
+                            cancelTextWorker();
+                            narrativeCache.clear();
+                            updateText();
                         }
                     });
                 }
@@ -333,16 +353,85 @@ public class NarrativePanel extends JComponent {
 //    }
 
 
-    private void setText() {
+    /**
+     * Mark the text outdated, and regenerate it if this panel is showing.
+     * Otherwise, the text will be regenerated when this panel becomes visible.
+     * The parts of the text reading the model are taken in the event dispatch thread,
+     * where the model is sampled, and they are mostly from the {@link NarrativeCache}.
+     * The slow rendering, e.g. the image of the posterior, is done in the background.
+     */
+    private void updateText() {
+        textOutdated = true;
+        if (!isShowing())
+            return;
+        // only one worker at a time, the outdated text will be regenerated when it is done
+        if (textWorker != null && !textWorker.isDone())
+            return;
+        textOutdated = false;
+
+        final TextSnapshot snapshot = createSnapshot(parser.getName(), getIncludedSections(),
+                graphicalModelComponent.properLayeredGraph);
+
+        textWorker = new TextWorker(snapshot);
+        textWorker.execute();
+    }
 
-        try {
-            pane.getDocument().remove(0, pane.getDocument().getLength());
-        } catch (BadLocationException e) {
-            e.printStackTrace();
+    // render the snapshot of text in the background, and show it in the event dispatch thread
+    private class TextWorker extends SwingWorker<String, Void> {
+        final TextSnapshot snapshot;
+        // counted down when doInBackground returns, even if the worker is cancelled
+        final CountDownLatch finished = new CountDownLatch(1);
+
+        TextWorker(TextSnapshot snapshot) {
+            this.snapshot = snapshot;
         }
 
-        String text = narrative.beginDocument(parser.getName());
+        @Override
+        protected String doInBackground() {
+            try {
+                return snapshot.render(narrative);
+            } finally {
+                finished.countDown();
+            }
+        }
+
+        @Override
+        protected void done() {
+            if (!isCancelled()) {
+                try {
+                    setText(get());
+                } catch (InterruptedException | ExecutionException e) {
+                    LoggerUtils.log.severe("Cannot create the narrative : " + e.getMessage());
+                    e.printStackTrace();
+                }
+            }
+            if (textOutdated)
+                updateText();
+        }
+
+        void join() throws InterruptedException {
+            // never started if it is cancelled before running
+            if (getState() != StateValue.PENDING)
+                finished.await();
+        }
+    }
 
+    /**
+     * Cancel the running worker, whose text is outdated, and wait for it to finish.
+     */
+    private void cancelTextWorker() {
+        if (textWorker == null)
+            return;
+        textWorker.cancel(false);
+        try {
+            textWorker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private List<Section> getIncludedSections() {
+        List<Section> sections = new ArrayList<>();
         for (int i = 0; i < include.getModel().getSize(); i++) {
             String item = include.getModel().getElementAt(i);
 
@@ -357,33 +446,73 @@ public class NarrativePanel extends JComponent {
                     }
                 }
             }
+            sections.add(section);
+        }
+        return sections;
+    }
+
+    /**
+     * The text of narrative, where only the posterior still needs to be rendered.
+     * @param parts          the parts of the text in order, which do not refer to the model.
+     * @param posteriorPart  the index of the part which is the source of the posterior, or -1.
+     */
+    private record TextSnapshot(List<String> parts, int posteriorPart) {
+
+        String render(NarrativeLayeredGraph narrative) {
+            StringBuilder builder = new StringBuilder();
+            for (int i = 0; i < parts.size(); i++)
+                builder.append(i == posteriorPart ? narrative.renderPosterior(parts.get(i)) : parts.get(i));
+            return builder.toString();
+        }
+    }
+
+    // take all parts from the model in the event dispatch thread
+    private TextSnapshot createSnapshot(String title, List<Section> sections, ProperLayeredGraph properLayeredGraph) {
+
+        narrativeCache.startPass();
 
+        List<String> parts = new ArrayList<>();
+        int posteriorPart = -1;
+        parts.add(narrative.beginDocument(title));
+
+        for (Section section : sections) {
             switch (section) {
                 case Data:
-                    text += NarrativeUtils.getNarrative(parser, narrative, true, false);
+                    parts.add(NarrativeUtils.getNarrative(parser, narrative, true, false, narrativeCache));
                     break;
                 case Model:
-                    text += NarrativeUtils.getNarrative(parser, narrative, false, true);
+                    parts.add(NarrativeUtils.getNarrative(parser, narrative, false, true, narrativeCache));
                     break;
                 case Code:
-                    text += narrative.section("Code");
-                    text += narrative.codeBlock(parser, 11);
+                    parts.add(narrative.section("Code"));
+                    parts.add(narrative.codeBlock(parser, 11));
                     break;
                 case Posterior:
-                    text += narrative.section("Posterior");
-                    text += narrative.posterior(parser);
+                    parts.add(narrative.section("Posterior"));
+                    posteriorPart = parts.size();
+                    parts.add(narrative.posteriorSource(parser));
                     break;
                 case References:
-                    text += narrative.referenceSection();
+                    parts.add(narrative.referenceSection());
                     break;
                 case GraphicalModel:
-                    text += narrative.section("Graphical Model");
-                    if (graphicalModelComponent.properLayeredGraph != null)
-                        text += narrative.graphicalModelBlock(parser, graphicalModelComponent.properLayeredGraph);
+                    parts.add(narrative.section("Graphical Model"));
+                    if (properLayeredGraph != null)
+                        parts.add(narrative.graphicalModelBlock(parser, properLayeredGraph));
                     break;
             }
         }
-        text += narrative.endDocument();
+        parts.add(narrative.endDocument());
+        return new TextSnapshot(List.copyOf(parts), posteriorPart);
+    }
+
+    private void setText(String text) {
+
+        try {
+            pane.getDocument().remove(0, pane.getDocument().getLength());
+        } catch (BadLocationException e) {
+            e.printStackTrace();
+        }
 
         pane.setText(text);
 
@@ -85,6 +85,20 @@ public class CanonicalCodeBuilder implements CodeBuilder {
         return builder.toString();
     }
 
+    /**
+     * @return  a copy of data statements after calling {@link #getCode(LPhyMetaParser)}
+     */
+    public List<String> getDataStatements() {
+        return new ArrayList<>(dataLines);
+    }
+
+    /**
+     * @return  a copy of model statements after calling {@link #getCode(LPhyMetaParser)}
+     */
+    public List<String> getModelStatements() {
+        return new ArrayList<>(modelLines);
+    }
+
     /**
      * @return  data lines after calling {@link #getCode(LPhyMetaParser)}
      */
@@ -0,0 +1,172 @@
+package lphystudio.core.codebuilder;
+
+import lphy.core.model.Generator;
+import lphy.core.model.Value;
+import lphy.core.parser.LPhyMetaParser;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The difference between the canonical code parsed previously and the current canonical code,
+ * given the statements from {@link CanonicalCodeBuilder}.
+ * The changed statements are the new statements and the statements depending on
+ * any value defined by a changed statement, so that only these statements require re-parsing.
+ * @see #diff(List, List, List, List)
+ */
+public class CodeDiff {
+
+    // the id defined by a statement, e.g. x ~ ..., 'D' ~ ..., or x[0] = ...
+    private static final Pattern DEFINED_ID = Pattern.compile("^\\s*'?([A-Za-z_]\\w*)'?\\s*(\\[[^\\]]*])?\\s*(~|=(?!=))");
+    private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z_]\\w*");
+    private static final Pattern STRING_LITERAL = Pattern.compile("\"[^\"]*\"");
+
+    private final List<String> dataStatements;
+    private final List<String> modelStatements;
+    private final Set<String> changedDataIds;
+    private final Set<String> changedModelIds;
+
+    private CodeDiff(List<String> dataStatements, List<String> modelStatements,
+                     Set<String> changedDataIds, Set<String> changedModelIds) {
+        this.dataStatements = dataStatements;
+        this.modelStatements = modelStatements;
+        this.changedDataIds = changedDataIds;
+        this.changedModelIds = changedModelIds;
+    }
+
+    /**
+     * @param oldDataLines   the data statements parsed previously, which can be null.
+     * @param oldModelLines  the model statements parsed previously, which can be null.
+     * @param dataLines      the current data statements, in the order of dependencies.
+     * @param modelLines     the current model statements, in the order of dependencies.
+     * @return  the changed statements to re-parse, or null if the whole code has to be re-parsed,
+     *          e.g. nothing was parsed before, or a value was removed from the code.
+     */
+    public static CodeDiff diff(List<String> oldDataLines, List<String> oldModelLines,
+                                List<String> dataLines, List<String> modelLines) {
+        if (oldDataLines == null || oldModelLines == null)
+            return null;
+
+        // removing a value requires to remove it from the parser
+        Set<String> definedIds = new HashSet<>();
+        for (String line : dataLines) definedIds.add(getDefinedId(line));
+        for (String line : modelLines) definedIds.add(getDefinedId(line));
+        for (String line : oldDataLines)
+            if (!definedIds.contains(getDefinedId(line))) return null;
+        for (String line : oldModelLines)
+            if (!definedIds.contains(getDefinedId(line))) return null;
+
+        // ids defined by the changed statements, which their dependents have to be re-parsed
+        Set<String> changedIds = new HashSet<>();
+        Set<String> changedDataIds = new LinkedHashSet<>();
+        Set<String> changedModelIds = new LinkedHashSet<>();
+        List<String> changedData = getChangedStatements(new HashSet<>(oldDataLines), dataLines,
+                changedIds, changedDataIds);
+        List<String> changedModel = getChangedStatements(new HashSet<>(oldModelLines), modelLines,
+                changedIds, changedModelIds);
+        return new CodeDiff(changedData, changedModel, changedDataIds, changedModelIds);
+    }
+
+    // the lines are in the order of dependencies, so that dependents are found in one pass
+    private static List<String> getChangedStatements(Set<String> oldLines, List<String> lines,
+                                                     Set<String> changedIds, Set<String> changedIdsInContext) {
+        List<String> changed = new ArrayList<>();
+        for (String line : lines) {
+            if (!oldLines.contains(line) || referencesAny(line, changedIds)) {
+                changed.add(line);
+                String id = getDefinedId(line);
+                if (id != null) {
+                    changedIds.add(id);
+                    changedIdsInContext.add(id);
+                }
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * @param statement  a lphy statement
+     * @return  the id of the value defined by this statement, or null if it is not an assignment.
+     */
+    public static String getDefinedId(String statement) {
+        Matcher matcher = DEFINED_ID.matcher(statement);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    // any identifier outside string literals, where a function name matching an id only causes extra re-parsing
+    private static boolean referencesAny(String statement, Set<String> ids) {
+        if (ids.isEmpty()) return false;
+        Matcher matcher = IDENTIFIER.matcher(STRING_LITERAL.matcher(statement).replaceAll(""));
+        while (matcher.find()) {
+            if (ids.contains(matcher.group()))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Remove the generators of the values to be replaced from the outputs of their inputs,
+     * otherwise the unchanged inputs still have the old generators as outputs,
+     * and would not become model sinks. This must be called before re-parsing.
+     * @param parser  the parser containing the values parsed previously.
+     */
+    public void detachChangedValues(LPhyMetaParser parser) {
+        for (String id : changedDataIds)
+            detach(parser.getDataDictionary().get(id));
+        for (String id : changedModelIds)
+            detach(parser.getModelDictionary().get(id));
+    }
+
+    private static void detach(Value<?> value) {
+        if (value == null) return;
+        Generator generator = value.getGenerator();
+        if (generator == null) return;
+        for (Object param : generator.getParams().values()) {
+            if (param instanceof Value<?> input) {
+                input.removeOutput(generator);
+                // anonymous inputs are created by the statement, e.g. mean=exp(x)
+                if (input.isAnonymous())
+                    detach(input);
+            }
+        }
+    }
+
+    /**
+     * @return  true if nothing requires re-parsing.
+     */
+    public boolean isEmpty() {
+        return dataStatements.isEmpty() && modelStatements.isEmpty();
+    }
+
+    public List<String> getDataStatements() {
+        return dataStatements;
+    }
+
+    public List<String> getModelStatements() {
+        return modelStatements;
+    }
+
+    /**
+     * @return  the ids defined by the changed statements in both data and model blocks.
+     */
+    public Set<String> getChangedIds() {
+        Set<String> ids = new LinkedHashSet<>(changedDataIds);
+        ids.addAll(changedModelIds);
+        return ids;
+    }
+
+    /**
+     * @param statements  the statements from {@link CanonicalCodeBuilder}.
+     * @return  the code in the same format of {@link CanonicalCodeBuilder#getDataLines()}.
+     */
+    public static String toCode(List<String> statements) {
+        StringBuilder builder = new StringBuilder();
+        for (String statement : statements) {
+            builder.append("  ");
+            builder.append(statement);
+            builder.append("\n");
+        }
+        return builder.toString();
+    }
+}
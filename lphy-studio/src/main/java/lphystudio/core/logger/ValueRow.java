@@ -1,14 +1,14 @@
 package lphystudio.core.logger;
 
-import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
+import lphy.core.logger.OnlineStatistics;
 
 public class ValueRow {
 
     public final String title;
-    public final DescriptiveStatistics stats;
+    public final OnlineStatistics stats;
     public final int row;
 
-    public ValueRow(String title, int row, DescriptiveStatistics stats) {
+    public ValueRow(String title, int row, OnlineStatistics stats) {
         this.title = title;
         this.stats = stats;
         this.row = row;
@@ -1,22 +1,35 @@
 package lphystudio.core.logger;
 
+import lphy.core.logger.OnlineStatistics;
 import lphy.core.logger.RandomNumberLoggerListener;
 import lphy.core.model.Value;
 import lphy.core.simulator.SimulatorListener;
-import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
-import org.apache.commons.math3.stat.descriptive.SynchronizedDescriptiveStatistics;
 
 import javax.swing.*;
 import javax.swing.table.AbstractTableModel;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+/**
+ * The summary of random numbers, which is updated by each replicate through {@link OnlineStatistics},
+ * without keeping the values. The table shows the snapshots of statistics taken by the simulation thread,
+ * which are posted to the EDT at most every {@link #UPDATE_INTERVAL_MILLIS} during the simulation.
+ */
 public class VariableSummaryLog extends JTable implements SimulatorListener {
 
 //    boolean logVariables;
 //    boolean logStatistics;
 
+    public static final long UPDATE_INTERVAL_MILLIS = 200;
+
+    // updated by the simulation thread
     List<ValueRow> valueRows = new ArrayList<>();
+    private long lastUpdateMillis = 0;
+    private final AtomicBoolean updatePending = new AtomicBoolean(false);
+
+    // the cells of rows shown in the table, only accessed on the EDT
+    private List<Object[]> rowSnapshots = new ArrayList<>();
 
     final RandomNumberLoggerListener randomNumberLogger;
 
@@ -26,17 +39,18 @@ public class VariableSummaryLog extends JTable implements SimulatorListener {
 
 //        this.logStatistics = logStatistics;
 //        this.logVariables = logVariables;
-        randomNumberLogger = new RandomNumberLoggerListener();//logVariables, logStatistics
+        // only keep the statistics
+        randomNumberLogger = new RandomNumberLoggerListener(false);//logVariables, logStatistics
 
         tableModel = new AbstractTableModel() {
             @Override
             public int getRowCount() {
-                return ((valueRows != null) ? valueRows.size() : 0);
+                return rowSnapshots.size();
             }
 
             @Override
             public int getColumnCount() {
-                return 6;
+                return 8;
             }
 
             @Override
@@ -54,6 +68,10 @@ public class VariableSummaryLog extends JTable implements SimulatorListener {
                         return "Min";
                     case 5:
                         return "Max";
+                    case 6:
+                        return "Median";
+                    case 7:
+                        return "ESS";
                 }
                 return "";
             }
@@ -68,6 +86,8 @@ public class VariableSummaryLog extends JTable implements SimulatorListener {
                     case 3:
                     case 4:
                     case 5:
+                    case 6:
+                    case 7:
                         return Double.class;
                 }
                 return Object.class;
@@ -80,50 +100,7 @@ public class VariableSummaryLog extends JTable implements SimulatorListener {
 
             @Override
             public Object getValueAt(int rowIndex, int columnIndex) {
-
-                ValueRow valueRow = null;
-                if (valueRows != null) {
-                    valueRow = valueRows.get(rowIndex);
-                }
-
-                switch (columnIndex) {
-                    case 0:
-                        if (valueRow != null) {
-                            return valueRow.title;
-                        } else return "";
-                    case 1:
-                        if (valueRow != null) {
-                            return valueRow.stats.getMean();
-                        } else {
-                            return Double.NaN;
-                        }
-                    case 2:
-                        if (valueRow != null) {
-                            return valueRow.stats.getStandardDeviation();
-                        } else {
-                            return Double.NaN;
-                        }
-                    case 3:
-                        if (valueRow != null) {
-                            // standard err of the mean
-                            return valueRow.stats.getStandardDeviation() / Math.sqrt(valueRow.stats.getN());
-                        } else {
-                            return Double.NaN;
-                        }
-                    case 4:
-                        if (valueRow != null) {
-                            return valueRow.stats.getMin();
-                        } else {
-                            return Double.NaN;
-                        }
-                    case 5:
-                        if (valueRow != null) {
-                            return valueRow.stats.getMax();
-                        } else {
-                            return Double.NaN;
-                        }
-                }
-                return "";
+                return rowSnapshots.get(rowIndex)[columnIndex];
             }
         };
 
@@ -140,31 +117,60 @@ public class VariableSummaryLog extends JTable implements SimulatorListener {
         if (index == 0) valueRows.clear();
 
         randomNumberLogger.replicate(index, values);
-    }
-
-    @Override
-    public void complete() {
 
-        List<String> headers = randomNumberLogger.getHeaders();
-        for (int i = 0; i < headers.size(); i++) {
-            String id = headers.get(i);
-            if (id == null) {
-                throw new RuntimeException("Not expecting null id in variable summary!");
+        // the rows share the statistics updated by later replicates
+        if (index == 0) {
+            List<String> headers = randomNumberLogger.getHeaders();
+            for (int i = 0; i < headers.size(); i++) {
+                String id = headers.get(i);
+                if (id == null) {
+                    throw new RuntimeException("Not expecting null id in variable summary!");
+                }
+                OnlineStatistics stats = randomNumberLogger.getStatisticsById().get(id);
+                valueRows.add(new ValueRow(id, i, stats));
             }
-            List<Double> randomNumbers = randomNumberLogger.getFormattedValuesById().get(id);
+        }
 
-            //TODO use Apache
-            DescriptiveStatistics stats = new SynchronizedDescriptiveStatistics();
-            // Add the data
-            for (int j = 0; j < randomNumbers.size(); j++) {
-                stats.addValue(randomNumbers.get(j));
-            }
+        // batch the updates, so the EDT is not flooded by the fast replicates
+        long now = System.currentTimeMillis();
+        if ((index == 0 || now - lastUpdateMillis >= UPDATE_INTERVAL_MILLIS) &&
+                updatePending.compareAndSet(false, true)) {
+            lastUpdateMillis = now;
+            List<Object[]> snapshots = createSnapshots();
+            SwingUtilities.invokeLater(() -> {
+                updatePending.set(false);
+                showSnapshots(snapshots);
+            });
+        }
+    }
 
-            valueRows.add(new ValueRow(id, i, stats));
+    @Override
+    public void complete() {
+        // always show the final statistics, which is queued after any pending update
+        List<Object[]> snapshots = createSnapshots();
+        SwingUtilities.invokeLater(() -> showSnapshots(snapshots));
+    }
 
+    // the cells of each row, in the order of columns
+    private List<Object[]> createSnapshots() {
+        List<Object[]> snapshots = new ArrayList<>(valueRows.size());
+        for (ValueRow valueRow : valueRows) {
+            OnlineStatistics stats = valueRow.stats;
+            snapshots.add(new Object[]{valueRow.title, stats.getMean(), stats.getStandardDeviation(),
+                    // standard err of the mean
+                    stats.getStandardError(), stats.getMin(), stats.getMax(),
+                    stats.getQuantile(0.5), stats.getESS()});
         }
+        return snapshots;
+    }
 
-        tableModel.fireTableDataChanged();
+    private void showSnapshots(List<Object[]> snapshots) {
+        boolean sameRows = snapshots.size() == rowSnapshots.size();
+        rowSnapshots = snapshots;
+        if (sameRows && !snapshots.isEmpty())
+            tableModel.fireTableRowsUpdated(0, snapshots.size() - 1);
+        else
+            tableModel.fireTableDataChanged();
     }
 
 
@@ -1,5 +1,6 @@
 package lphystudio.core.narrative;
 
+import lphy.core.logger.LoggerUtils;
 import lphy.core.model.NarrativeUtils;
 import lphy.core.model.Value;
 import lphy.core.model.annotation.Citation;
@@ -34,6 +35,10 @@ public class HTMLNarrative implements NarrativeLayeredGraph {
     List<Citation> references = new ArrayList<>();
     boolean mathModeInline = false;
 
+    // the latex of the last posterior and its rendered image
+    private String posteriorLatex;
+    private Path posteriorImage;
+
     static Preferences preferences = Preferences.userNodeForPackage(HTMLNarrative.class);
 
     public Preferences getPreferences() {
@@ -148,14 +153,29 @@ public class HTMLNarrative implements NarrativeLayeredGraph {
     }
 
     public String posterior(LPhyMetaParser parser) {
+        return renderPosterior(posteriorSource(parser));
+    }
 
+    @Override
+    public String posteriorSource(LPhyMetaParser parser) {
         String latex = NarrativeUtils.getInferenceStatement(parser, new LaTeXNarrative());
-
         // remove begin equation and end equation if they exist
-        latex = rmLatexEquation(latex);
+        return rmLatexEquation(latex);
+    }
+
+    // synchronized for the last rendered image, which may be used by the workers of a narrative panel
+    @Override
+    public synchronized String renderPosterior(String latex) {
         try {
-            Path tempFile = Files.createTempFile("temp-", ".png");
-            generateLatexImage(latex, tempFile.toFile());
+            // only render the image again if the posterior is changed
+            if (!latex.equals(posteriorLatex) || posteriorImage == null || !Files.exists(posteriorImage)) {
+                Path tempFile = Files.createTempFile("temp-", ".png");
+                tempFile.toFile().deleteOnExit();
+                generateLatexImage(latex, tempFile.toFile());
+                posteriorImage = tempFile;
+                posteriorLatex = latex;
+            }
+            Path tempFile = posteriorImage;
 
             StringBuilder builder = new StringBuilder();
             builder.append("<img src=\"");
@@ -165,8 +185,8 @@ public class HTMLNarrative implements NarrativeLayeredGraph {
             return builder.toString();
 
         } catch (IOException ex) {
-            String html = NarrativeUtils.getInferenceStatement(parser, this);
-            return html;
+            LoggerUtils.log.warning("Cannot render the posterior : " + ex.getMessage());
+            return "<p>" + latex + "</p>";
         }
     }
 
@@ -7,4 +7,23 @@ import lphystudio.core.layeredgraph.ProperLayeredGraph;
 public interface NarrativeLayeredGraph extends Narrative {
     String graphicalModelBlock(LPhyMetaParser parser, ProperLayeredGraph properLayeredGraph);
 
+    /**
+     * The part of {@link #posterior(LPhyMetaParser)} which reads the model,
+     * so that it can be called in the event dispatch thread, while the model is not changing.
+     * @return the source of the posterior, which is rendered by {@link #renderPosterior(String)}.
+     */
+    default String posteriorSource(LPhyMetaParser parser) {
+        return posterior(parser);
+    }
+
+    /**
+     * The part of {@link #posterior(LPhyMetaParser)} which does not read the model,
+     * e.g. rendering an image, so that it can be called in a background thread.
+     * @param source  the result of {@link #posteriorSource(LPhyMetaParser)}.
+     * @return the posterior in the narrative.
+     */
+    default String renderPosterior(String source) {
+        return source;
+    }
+
 }
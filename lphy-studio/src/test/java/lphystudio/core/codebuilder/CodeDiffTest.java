@@ -0,0 +1,60 @@
+package lphystudio.core.codebuilder;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CodeDiffTest {
+
+    final List<String> dataLines = List.of("L = 200;");
+    final List<String> modelLines = List.of("mu ~ LogNormal(meanlog=-1.0, sdlog=0.5);",
+            "x ~ Normal(mean=mu, sd=1.0);", "y ~ Normal(mean=0.0, sd=1.0);", "z = x + y;");
+
+    @Test
+    void testChangedAndDependents() {
+        List<String> newModelLines = List.of("mu ~ LogNormal(meanlog=-1.0, sdlog=0.6);",
+                "x ~ Normal(mean=mu, sd=1.0);", "y ~ Normal(mean=0.0, sd=1.0);", "z = x + y;");
+
+        CodeDiff codeDiff = CodeDiff.diff(dataLines, modelLines, dataLines, newModelLines);
+        assertNotNull(codeDiff);
+        assertTrue(codeDiff.getDataStatements().isEmpty());
+        assertEquals(List.of(newModelLines.get(0), newModelLines.get(1), newModelLines.get(3)),
+                codeDiff.getModelStatements());
+        assertEquals(Set.of("mu", "x", "z"), codeDiff.getChangedIds());
+    }
+
+    @Test
+    void testDataChangeAffectsModel() {
+        List<String> newModelLines = List.of("mu ~ LogNormal(meanlog=-1.0, sdlog=0.5);",
+                "D ~ PhyloCTMC(L=L, mu=mu);");
+        List<String> oldModelLines = List.of("mu ~ LogNormal(meanlog=-1.0, sdlog=0.5);",
+                "D ~ PhyloCTMC(L=L, mu=mu);");
+
+        CodeDiff codeDiff = CodeDiff.diff(dataLines, oldModelLines, List.of("L = 100;"), newModelLines);
+        assertNotNull(codeDiff);
+        assertEquals(List.of("L = 100;"), codeDiff.getDataStatements());
+        assertEquals(List.of("D ~ PhyloCTMC(L=L, mu=mu);"), codeDiff.getModelStatements());
+    }
+
+    @Test
+    void testUnchangedOrRemoved() {
+        CodeDiff codeDiff = CodeDiff.diff(dataLines, modelLines, dataLines, modelLines);
+        assertNotNull(codeDiff);
+        assertTrue(codeDiff.isEmpty());
+
+        // nothing parsed before
+        assertNull(CodeDiff.diff(null, null, dataLines, modelLines));
+        // y and z are removed
+        assertNull(CodeDiff.diff(dataLines, modelLines, dataLines, modelLines.subList(0, 2)));
+    }
+
+    @Test
+    void testGetDefinedId() {
+        assertEquals("D", CodeDiff.getDefinedId("'D' ~ PhyloCTMC(L=L);"));
+        assertEquals("x", CodeDiff.getDefinedId("x[0] = 1;"));
+        assertEquals("tree", CodeDiff.getDefinedId("  tree ~ Coalescent(theta=0.1, n=10);"));
+    }
+}
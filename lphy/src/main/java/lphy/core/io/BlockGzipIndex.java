@@ -0,0 +1,72 @@
+package lphy.core.io;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * The index of a block gzip file created by {@link BlockGzipOutputStream},
+ * which allows to decompress a single block given its index.
+ * For the simulation outputs, the 1st block is the header,
+ * and each replicate is in its own block in the order of replicates.
+ */
+public class BlockGzipIndex {
+
+    private final File gzFile;
+    // the compressed offsets of blocks, the last element is the file length
+    private final long[] offsets;
+
+    private BlockGzipIndex(File gzFile, long[] offsets) {
+        this.gzFile = gzFile;
+        this.offsets = offsets;
+    }
+
+    /**
+     * @param gzFile  the block gzip file, where the index file is in the same folder.
+     * @return  the index loaded from the index file.
+     * @throws IOException
+     */
+    public static BlockGzipIndex read(File gzFile) throws IOException {
+        File indexFile = BlockGzipOutputStream.getIndexFile(gzFile);
+        List<String> lines = Files.readAllLines(indexFile.toPath());
+        long[] offsets = lines.stream()
+                .filter(line -> !line.isBlank())
+                .mapToLong(line -> Long.parseLong(line.trim()))
+                .toArray();
+        if (offsets.length < 1)
+            throw new IOException("Invalid index file " + indexFile + " !");
+        return new BlockGzipIndex(gzFile, offsets);
+    }
+
+    public int getBlockCount() {
+        return offsets.length - 1;
+    }
+
+    /**
+     * @param block  the index of block, starting from 0.
+     * @return  the decompressed bytes of this block.
+     * @throws IOException
+     */
+    public byte[] readBlock(int block) throws IOException {
+        if (block < 0 || block >= getBlockCount())
+            throw new IndexOutOfBoundsException("Block " + block + " is not in [0, " + getBlockCount() + ") !");
+
+        int length = Math.toIntExact(offsets[block + 1] - offsets[block]);
+        ByteBuffer compressed = ByteBuffer.allocate(length);
+        try (FileChannel channel = FileChannel.open(gzFile.toPath(), StandardOpenOption.READ)) {
+            channel.position(offsets[block]);
+            while (compressed.hasRemaining()) {
+                if (channel.read(compressed) < 0)
+                    throw new EOFException("Unexpected end of file " + gzFile + " at block " + block + " !");
+            }
+        }
+
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed.array()))) {
+            return in.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package lphy.core.io;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Write a gzip file as a sequence of independent gzip members (blocks),
+ * which can still be decompressed by gzip or {@link java.util.zip.GZIPInputStream} as a whole.
+ * The compressed offset of every block is written into an index file,
+ * so that a block (e.g. one replicate) can be read without decompressing the blocks before it.
+ * @see BlockGzipIndex
+ */
+public class BlockGzipOutputStream extends OutputStream {
+
+    public static final String INDEX_EXTENSION = ".gzi";
+
+    private final File file;
+    private final CountingOutputStream fileOut;
+    private final List<Long> blockOffsets = new ArrayList<>();
+
+    private GzipBlock block;
+
+    public BlockGzipOutputStream(File file) throws FileNotFoundException {
+        this.file = file;
+        this.fileOut = new CountingOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+    }
+
+    /**
+     * Finish the current block, and start a new one from the next byte written.
+     * @throws IOException
+     */
+    public void startBlock() throws IOException {
+        if (block != null)
+            block.end();
+        blockOffsets.add(fileOut.count);
+        block = new GzipBlock(fileOut);
+    }
+
+    private GzipBlock getBlock() throws IOException {
+        if (block == null)
+            startBlock();
+        return block;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        getBlock().write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        getBlock().write(b, off, len);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (block != null)
+            block.flush();
+        fileOut.flush();
+    }
+
+    /**
+     * Finish the last block, close the file and write the index file.
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        if (block != null)
+            block.end();
+        fileOut.close();
+
+        File indexFile = getIndexFile(file);
+        try (PrintStream indexOut = new PrintStream(indexFile, StandardCharsets.UTF_8)) {
+            for (Long offset : blockOffsets)
+                indexOut.println(offset);
+            // the file length as the end of the last block
+            indexOut.println(fileOut.count);
+        }
+    }
+
+    public static File getIndexFile(File gzFile) {
+        return new File(gzFile.getParentFile(), gzFile.getName() + INDEX_EXTENSION);
+    }
+
+    // one gzip member
+    private static class GzipBlock extends GZIPOutputStream {
+        GzipBlock(OutputStream out) throws IOException {
+            super(out);
+        }
+
+        // finish this member and release the deflater, but not close the file
+        void end() throws IOException {
+            finish();
+            def.end();
+        }
+    }
+
+    // count the compressed bytes, and the blocks must not close the file
+    private static class CountingOutputStream extends FilterOutputStream {
+        long count = 0;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
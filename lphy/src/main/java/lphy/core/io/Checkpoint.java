@@ -0,0 +1,251 @@
+package lphy.core.io;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Objects;
+import java.util.Properties;
+
+/**
+ * The progress of a long simulation, which is saved after every segment of replicates,
+ * so that the simulation can be resumed from the last completed segment, e.g. on preemptible cluster nodes.
+ * The segments are simulated as the {@link Shard}s of all replicates, so their shared files
+ * (e.g. .log and .trees) are complete files written at the end of each segment,
+ * and they are merged by {@link ShardMerger} when all segments are completed.
+ * The merge is marked in the checkpoint before the files of segments are deleted,
+ * so a simulation interrupted after merging is resumed without merging again.
+ * The state of random number generator is not required to save,
+ * because the seed of each replicate only depends on the seed of simulation and the index of replicate.
+ * @see lphy.core.simulator.RandomUtils#getReplicateSeed(long, int)
+ */
+public class Checkpoint {
+
+    public static final String EXTENSION = ".checkpoint";
+
+    private static final String SEED = "seed";
+    private static final String REPLICATES = "replicates";
+    private static final String SEGMENTS = "segments";
+    private static final String COMPLETED = "completed";
+    private static final String FORMAT = "format";
+    private static final String SCRIPT_HASH = "script.sha256";
+    private static final String MERGED = "merged";
+
+    private final File file;
+    private final long seed;
+    private final int numReplicates;
+    private final int segmentCount;
+    private final OutputFormat outputFormat;
+    // to validate the lphy script is not changed before resuming
+    private final String scriptHash;
+    // the number of completed segments
+    private int completed;
+    // whether the files of all segments have been merged
+    private boolean merged;
+
+    /**
+     * @param file           the checkpoint file.
+     * @param seed           the seed of simulation, which is required to resume.
+     * @param numReplicates  the number of all replicates.
+     * @param segmentSize    the maximum number of replicates between two checkpoints.
+     * @param outputFormat   the format of output files.
+     * @param scriptHash     the hash of lphy script, see {@link #getScriptHash(File)}.
+     */
+    public Checkpoint(File file, long seed, int numReplicates, int segmentSize,
+                      OutputFormat outputFormat, String scriptHash) {
+        if (segmentSize < 1)
+            throw new IllegalArgumentException("The number of replicates between checkpoints must be positive, " +
+                    "but it is " + segmentSize + " !");
+        if (outputFormat == OutputFormat.BINARY)
+            throw new IllegalArgumentException("The columnar binary logs (.clog) cannot be checkpointed !");
+        this.file = file;
+        this.seed = seed;
+        this.numReplicates = numReplicates;
+        this.segmentCount = Math.max(1, (numReplicates + segmentSize - 1) / segmentSize);
+        this.outputFormat = outputFormat;
+        this.scriptHash = scriptHash;
+        this.completed = 0;
+        this.merged = false;
+    }
+
+    private Checkpoint(File file, Properties properties) {
+        this.file = file;
+        this.seed = Long.parseLong(properties.getProperty(SEED));
+        this.numReplicates = Integer.parseInt(properties.getProperty(REPLICATES));
+        this.segmentCount = Integer.parseInt(properties.getProperty(SEGMENTS));
+        this.completed = Integer.parseInt(properties.getProperty(COMPLETED));
+        this.outputFormat = OutputFormat.valueOf(properties.getProperty(FORMAT));
+        this.scriptHash = Objects.requireNonNull(properties.getProperty(SCRIPT_HASH));
+        // absent in the checkpoints saved before merging
+        this.merged = Boolean.parseBoolean(properties.getProperty(MERGED, "false"));
+    }
+
+    /**
+     * @param lphyFile  the lphy script file.
+     * @param outDir    the directory of output files.
+     * @return  the checkpoint file of this simulation.
+     * @throws IOException  if the lphy script file is invalid.
+     */
+    public static File getFile(File lphyFile, File outDir) throws IOException {
+        return new File(outDir, FileConfig.getLPhyFilePrefix(lphyFile) + EXTENSION);
+    }
+
+    /**
+     * @param lphyFile  the lphy script file.
+     * @return  the SHA-256 of the script in hex.
+     * @throws IOException  if the file cannot be read.
+     */
+    public static String getScriptHash(File lphyFile) throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(Files.readAllBytes(lphyFile.toPath())));
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * @param file  the checkpoint file.
+     * @return  the saved checkpoint.
+     * @throws IOException  if the file cannot be read or is incomplete.
+     */
+    public static Checkpoint load(File file) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = new FileReader(file)) {
+            properties.load(reader);
+        }
+        try {
+            return new Checkpoint(file, properties);
+        } catch (RuntimeException e) {
+            throw new IOException("The checkpoint " + file + " is invalid : " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Save the progress into a temporary file, then replace the checkpoint file by it,
+     * so that the checkpoint file is always complete even if the simulation is killed during saving.
+     * @throws IOException  if the file cannot be written.
+     */
+    public void save() throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty(SEED, String.valueOf(seed));
+        properties.setProperty(REPLICATES, String.valueOf(numReplicates));
+        properties.setProperty(SEGMENTS, String.valueOf(segmentCount));
+        properties.setProperty(COMPLETED, String.valueOf(completed));
+        properties.setProperty(FORMAT, outputFormat.name());
+        properties.setProperty(SCRIPT_HASH, scriptHash);
+        properties.setProperty(MERGED, String.valueOf(merged));
+
+        File tmpFile = new File(file.getPath() + ".tmp");
+        try (Writer writer = new FileWriter(tmpFile)) {
+            properties.store(writer, "LPhy simulation checkpoint");
+        }
+        Files.move(tmpFile.toPath(), file.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @param numReplicates  the number of replicates of the resumed simulation.
+     * @param outputFormat   the format of output files of the resumed simulation.
+     * @param scriptHash     the hash of lphy script of the resumed simulation.
+     * @throws IllegalArgumentException  if the resumed simulation is different to the checkpoint.
+     */
+    public void validate(int numReplicates, OutputFormat outputFormat, String scriptHash) {
+        if (this.numReplicates != numReplicates || this.outputFormat != outputFormat ||
+                !this.scriptHash.equals(scriptHash))
+            throw new IllegalArgumentException("Cannot resume from the checkpoint " + file.getName() +
+                    ", which has " + this.numReplicates + " replicates in " + this.outputFormat +
+                    ", or the lphy script has been changed !");
+    }
+
+    /**
+     * Delete the shared files of the segment, which are left by the interrupted simulation.
+     * @param outDir      the directory of output files.
+     * @param filePrefix  the prefix of output files.
+     * @param segment     the index of segment, starting from 1.
+     */
+    public void deleteSegmentFiles(File outDir, String filePrefix, int segment) {
+        String shardPrefix = getSegment(segment).getFilePrefix(filePrefix);
+        File[] files = outDir.listFiles((dir, name) -> name.startsWith(shardPrefix + ".") ||
+                name.startsWith(shardPrefix + "_"));
+        if (files != null) {
+            for (File f : files) {
+                if (!f.delete())
+                    throw new UncheckedIOException(new IOException("Cannot delete " + f + " !"));
+            }
+        }
+    }
+
+    /**
+     * Mark the next segment as completed, and save the checkpoint.
+     * @throws IOException  if the file cannot be written.
+     */
+    public void complete() throws IOException {
+        completed++;
+        save();
+    }
+
+    /**
+     * Mark the files of all segments as merged, and save the checkpoint,
+     * which must be done before the files of segments are deleted.
+     * @throws IOException  if the file cannot be written.
+     */
+    public void completeMerge() throws IOException {
+        if (completed < segmentCount)
+            throw new IllegalStateException("Cannot merge " + completed + " of " + segmentCount + " segments !");
+        merged = true;
+        save();
+    }
+
+    /**
+     * @return  true if the files of all segments have been merged.
+     */
+    public boolean isMerged() {
+        return merged;
+    }
+
+    /**
+     * @param segment  the index of segment, starting from 1.
+     * @return  the replicates of this segment, which are simulated as a {@link Shard}.
+     */
+    public Shard getSegment(int segment) {
+        return new Shard(segment, segmentCount);
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getNumReplicates() {
+        return numReplicates;
+    }
+
+    public int getSegmentCount() {
+        return segmentCount;
+    }
+
+    /**
+     * @return  the number of completed segments.
+     */
+    public int getCompleted() {
+        return completed;
+    }
+
+    /**
+     * @return  the index of the first replicate which is not completed.
+     */
+    public int getCompletedReplicates() {
+        return completed >= segmentCount ? numReplicates :
+                getSegment(completed + 1).getFirstReplicate(numReplicates);
+    }
+
+    public OutputFormat getOutputFormat() {
+        return outputFormat;
+    }
+}
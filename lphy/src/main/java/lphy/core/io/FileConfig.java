@@ -6,6 +6,7 @@ import lphy.core.simulator.RandomUtils;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Objects;
 
 public class FileConfig {
 
@@ -18,6 +19,15 @@ public class FileConfig {
 
     public final Long seed; // if null, then random
 
+    // plain text as default
+    private final OutputFormat outputFormat;
+
+    // null if all replicates are simulated in this run
+    private final Shard shard;
+
+    // null to use the output directory of OutputSystem
+    private final File outputDir;
+
     /**
      * Complex version to keep the input lphy script file.
      * @param numReplicates
@@ -26,10 +36,50 @@ public class FileConfig {
      * @throws IOException
      */
     public FileConfig(int numReplicates, File lphyInputFile, Long seed) throws IOException {
+        this(numReplicates, lphyInputFile, seed, OutputFormat.TEXT);
+    }
+
+    /**
+     * Complex version to keep the input lphy script file.
+     * @param numReplicates
+     * @param lphyInputFile
+     * @param seed
+     * @param outputFormat  the format of output files, e.g. compressed.
+     * @throws IOException
+     */
+    public FileConfig(int numReplicates, File lphyInputFile, Long seed, OutputFormat outputFormat) throws IOException {
+        this(numReplicates, lphyInputFile, seed, outputFormat, null);
+    }
+
+    /**
+     * Complex version to keep the input lphy script file.
+     * @param numReplicates  the number of replicates in all shards.
+     * @param lphyInputFile
+     * @param seed
+     * @param outputFormat  the format of output files, e.g. compressed.
+     * @param shard         the {@link Shard} of replicates simulated in this run, or null for all replicates.
+     * @throws IOException
+     */
+    public FileConfig(int numReplicates, File lphyInputFile, Long seed, OutputFormat outputFormat,
+                      Shard shard) throws IOException {
         this.lphyInputFile = lphyInputFile;
         this.numReplicates = numReplicates;
         this.seed = seed;
         this.filePrefix = getLPhyFilePrefix(lphyInputFile);
+        this.outputFormat = Objects.requireNonNull(outputFormat);
+        this.shard = shard;
+        this.outputDir = null;
+    }
+
+    // copy the config into another output directory
+    private FileConfig(FileConfig fileConfig, File outputDir) {
+        this.lphyInputFile = fileConfig.lphyInputFile;
+        this.numReplicates = fileConfig.numReplicates;
+        this.seed = fileConfig.seed;
+        this.filePrefix = fileConfig.filePrefix;
+        this.outputFormat = fileConfig.outputFormat;
+        this.shard = fileConfig.shard;
+        this.outputDir = Objects.requireNonNull(outputDir);
     }
 
     /**
@@ -42,6 +92,9 @@ public class FileConfig {
         this.lphyInputFile = null;
         this.numReplicates = numReplicates;
         this.seed = null;
+        this.outputFormat = OutputFormat.TEXT;
+        this.shard = null;
+        this.outputDir = null;
         if (filePrefix.endsWith(LPHY_EXTETION))
             filePrefix = filePrefix.substring(0, filePrefix.indexOf(LPHY_EXTETION));
         this.filePrefix = filePrefix;
@@ -79,6 +132,60 @@ public class FileConfig {
         return numReplicates;
     }
 
+    /**
+     * @param outputDir  the directory of output files of this run only, e.g. a point of a parameter sweep,
+     *                   without changing the output directory saved by {@link OutputSystem}.
+     * @return  the same config writing files into the given directory.
+     */
+    public FileConfig withOutputDirectory(File outputDir) {
+        return new FileConfig(this, outputDir);
+    }
+
+    /**
+     * @return  the directory of output files, which is {@link OutputSystem#getOutputDirectory()}
+     *          unless it is given by {@link #withOutputDirectory(File)}.
+     */
+    public File getOutputDirectory() {
+        if (outputDir == null)
+            return OutputSystem.getOutputDirectory();
+        if (!outputDir.exists())
+            outputDir.mkdirs();
+        return outputDir;
+    }
+
+    public OutputFormat getOutputFormat() {
+        return outputFormat;
+    }
+
+    /**
+     * @return  the {@link Shard} of replicates simulated in this run, or null for all replicates.
+     */
+    public Shard getShard() {
+        return shard;
+    }
+
+    /**
+     * @return  the index of the first replicate simulated in this run, starting from 0.
+     */
+    public int getFirstReplicate() {
+        return shard == null ? 0 : shard.getFirstReplicate(numReplicates);
+    }
+
+    /**
+     * @return  the index after the last replicate simulated in this run.
+     */
+    public int getLastReplicate() {
+        return shard == null ? numReplicates : shard.getLastReplicate(numReplicates);
+    }
+
+    /**
+     * @return  the prefix of files shared by all replicates in this run, e.g. .log and .trees,
+     *          which is appended with the shard if it is not null.
+     */
+    public String getSharedFilePrefix() {
+        return shard == null ? filePrefix : shard.getFilePrefix(filePrefix);
+    }
+
     //    public String getOutFileName(String valueId, int index, String fileExtension) {
 //        return getOutFileName(valueId, index, numReplicates, filePrefix, fileExtension);
 //    }
@@ -95,7 +202,7 @@ public class FileConfig {
 
     private static final String LPHY_EXTETION = ".lphy";
 
-    private static String getLPhyFilePrefix(File lphyFile) throws IOException {
+    static String getLPhyFilePrefix(File lphyFile) throws IOException {
         if (lphyFile == null || !lphyFile.exists())
             throw new IOException("Cannot find LPhy script file ! " +
                     (lphyFile != null ? lphyFile.getAbsolutePath() : null));
@@ -111,6 +218,20 @@ public class FileConfig {
 
         public static FileConfig createSimulationFileConfig(File lphyFile, File outDir, int numReplicates,
                                                              Long seed ) throws IOException {
+            return createSimulationFileConfig(lphyFile, outDir, numReplicates, seed, OutputFormat.TEXT);
+        }
+
+        public static FileConfig createSimulationFileConfig(File lphyFile, File outDir, int numReplicates,
+                                                             Long seed, OutputFormat outputFormat) throws IOException {
+            return createSimulationFileConfig(lphyFile, outDir, numReplicates, seed, outputFormat, null);
+        }
+
+        /**
+         * @param shard  the {@link Shard} of replicates simulated in this run, or null for all replicates.
+         */
+        public static FileConfig createSimulationFileConfig(File lphyFile, File outDir, int numReplicates,
+                                                             Long seed, OutputFormat outputFormat,
+                                                             Shard shard) throws IOException {
             // if user.dir is not the parent folder of lphyFile, then set to it
             if (! UserDir.getUserDir().toAbsolutePath().equals(lphyFile.getParentFile())) {
                 UserDir.setUserDir(lphyFile.getParentFile().getAbsolutePath());
@@ -124,9 +245,10 @@ public class FileConfig {
 
             LoggerUtils.log.info("Simulate data from LPhy script: " + lphyFile.getAbsolutePath() +
                     (seed != null ? " using seed " + seed : "") +
+                    (shard != null ? " in shard " + shard : "") +
                     ".\nOutput files to " + OutputSystem.getOutputDirectory().getAbsolutePath());
 
-            return new FileConfig( numReplicates, lphyFile, seed );
+            return new FileConfig( numReplicates, lphyFile, seed, outputFormat, shard );
         }
 
     }
@@ -0,0 +1,149 @@
+package lphy.core.io;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * The buffered writer of one output file, which is compressed if required by the {@link OutputFormat}.
+ * The content is copied and handed off to the {@link OutputQueue}, and then written in the background,
+ * so the caller can continue the simulation. Each file has its own writer, and several files
+ * can be written at the same time, e.g. the files of concurrent replicates.
+ * An error in the background is thrown to the caller at the next call,
+ * or by {@link OutputQueue#await()}.
+ */
+public class OutputFileWriter implements Closeable {
+
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    private final File file;
+    private final OutputFormat outputFormat;
+    private final OutputQueue queue;
+    private final OutputStream outputStream;
+    // only for OutputFormat.BGZIP, otherwise null
+    private final BlockGzipOutputStream blockOut;
+    private final Writer writer;
+
+    private volatile IOException failure;
+    private volatile boolean closed = false;
+
+    /**
+     * Create the file, which is written by the shared {@link OutputQueue#getInstance()}.
+     * @param file          the output file.
+     * @param outputFormat  {@link OutputFormat}
+     * @throws IOException  if the file cannot be created.
+     */
+    public OutputFileWriter(File file, OutputFormat outputFormat) throws IOException {
+        this(file, outputFormat, OutputQueue.getInstance());
+    }
+
+    public OutputFileWriter(File file, OutputFormat outputFormat, OutputQueue queue) throws IOException {
+        this.file = file;
+        this.outputFormat = outputFormat;
+        this.queue = queue;
+        // open the file here, so that the caller knows if it cannot be created
+        outputStream = OutputSystem.createOutputStream(file, outputFormat);
+        blockOut = outputStream instanceof BlockGzipOutputStream blockGzip ? blockGzip : null;
+        writer = new OutputStreamWriter(outputStream);
+    }
+
+    /**
+     * @param line  the line to write, which is copied before return.
+     */
+    public void println(CharSequence line) {
+        String s = String.valueOf(line);
+        submit(() -> {
+            writer.write(s);
+            writer.write(LINE_SEPARATOR);
+        });
+    }
+
+    /**
+     * Start a new block from the next content, if it is {@link OutputFormat#BGZIP},
+     * otherwise do nothing.
+     */
+    public void startBlock() {
+        if (blockOut == null)
+            return;
+        submit(() -> {
+            writer.flush();
+            blockOut.startBlock();
+        });
+    }
+
+    /**
+     * @return  the channel writing bytes into this file in the background.
+     *          Closing the channel does not close the file.
+     */
+    public WritableByteChannel getChannel() {
+        return new WritableByteChannel() {
+            private boolean open = true;
+
+            @Override
+            public int write(ByteBuffer src) throws IOException {
+                if (!open)
+                    throw new ClosedChannelException();
+                if (failure != null)
+                    throw failure;
+                // the caller can reuse the buffer after return
+                byte[] bytes = new byte[src.remaining()];
+                src.get(bytes);
+                submit(() -> {
+                    writer.flush();
+                    outputStream.write(bytes);
+                });
+                return bytes.length;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return open;
+            }
+
+            @Override
+            public void close() {
+                open = false;
+            }
+        };
+    }
+
+    /**
+     * Close the file after the content written before,
+     * which does not wait for it, use {@link OutputQueue#await()}.
+     */
+    @Override
+    public void close() {
+        if (closed)
+            return;
+        closed = true;
+        queue.submit(writer::close, file.getName());
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public OutputFormat getOutputFormat() {
+        return outputFormat;
+    }
+
+    private void submit(OutputQueue.Task task) {
+        if (closed)
+            throw new IllegalStateException("The output file " + file.getName() + " is closed !");
+        if (failure != null)
+            throw new UncheckedIOException(failure);
+        queue.submit(() -> {
+            // skip the rest of content after the first error
+            if (failure != null)
+                return;
+            try {
+                task.run();
+            } catch (IOException e) {
+                failure = e;
+                throw e;
+            }
+        }, file.getName());
+    }
+
+}
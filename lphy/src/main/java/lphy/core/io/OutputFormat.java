@@ -0,0 +1,33 @@
+package lphy.core.io;
+
+/**
+ * The format of output files created by simulations.
+ * @see FileConfig#getOutputFormat()
+ */
+public enum OutputFormat {
+    // plain text files, e.g. .nexus, .trees, .log
+    TEXT(""),
+    // compress each file on the fly through gzip, e.g. .trees.gz
+    GZIP(".gz"),
+    // gzip each replicate into a separate block, so that a replicate can be seeked through the index file
+    BGZIP(".gz"),
+    // compact binary alignments and trees, if their binary formatters are available, otherwise plain text
+    BINARY("");
+
+    private final String extension;
+
+    OutputFormat(String extension) {
+        this.extension = extension;
+    }
+
+    /**
+     * @return  the extension appended after the extension of the formatter, e.g. ".gz".
+     */
+    public String getExtension() {
+        return extension;
+    }
+
+    public boolean isCompressed() {
+        return this == GZIP || this == BGZIP;
+    }
+}
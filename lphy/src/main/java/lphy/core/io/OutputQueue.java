@@ -0,0 +1,126 @@
+package lphy.core.io;
+
+import lphy.core.logger.LoggerUtils;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * The background thread writing the output files, where the formatted content is handed off
+ * through a bounded queue, so that the simulation continues while the files are written.
+ * The tasks are written in the order they are submitted, so the content of each file stays in order.
+ * The caller is blocked while the queue is full, which limits the content held in memory.
+ * @see OutputFileWriter
+ */
+public class OutputQueue {
+
+    public static final int DEFAULT_CAPACITY = 64;
+
+    private static OutputQueue instance;
+
+    /**
+     * The writing task run in the background.
+     */
+    interface Task {
+        void run() throws IOException;
+    }
+
+    private final BlockingQueue<Runnable> tasks;
+    private final Thread thread;
+
+    // the first failure in the background, which is thrown by await()
+    private IOException failure;
+
+    /**
+     * @param capacity  the maximum number of tasks waiting to be written.
+     */
+    public OutputQueue(int capacity) {
+        tasks = new ArrayBlockingQueue<>(capacity);
+        thread = new Thread(this::run, "lphy-output");
+        // the content must be written by await() before exit
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * @return  the queue shared by all {@link OutputFileWriter}s by default.
+     */
+    public static synchronized OutputQueue getInstance() {
+        if (instance == null)
+            instance = new OutputQueue(DEFAULT_CAPACITY);
+        return instance;
+    }
+
+    private void run() {
+        while (true) {
+            try {
+                tasks.take().run();
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                LoggerUtils.log.severe("Output task failed : " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Add the task to the end of the queue, and wait if the queue is full.
+     * @param task    the writing task.
+     * @param target  the description of the output in error messages, e.g. the file name.
+     */
+    void submit(Task task, String target) {
+        Runnable runnable = () -> {
+            try {
+                task.run();
+            } catch (IOException e) {
+                LoggerUtils.log.severe("Cannot write " + target + " : " + e.getMessage());
+                setFailure(e);
+            }
+        };
+        // a task submitting more tasks would wait for itself
+        if (Thread.currentThread() == thread) {
+            runnable.run();
+            return;
+        }
+        try {
+            tasks.put(runnable);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new InterruptedIOException("Interrupted while writing " + target + " !"));
+        }
+    }
+
+    /**
+     * Wait until all tasks submitted before are written.
+     * @throws UncheckedIOException  if any task failed since the last call.
+     */
+    public void await() {
+        CountDownLatch done = new CountDownLatch(1);
+        submit(done::countDown, "the output queue");
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new InterruptedIOException("Interrupted while waiting for the output files !"));
+        }
+        IOException e = getAndClearFailure();
+        if (e != null)
+            throw new UncheckedIOException(e);
+    }
+
+    private synchronized void setFailure(IOException e) {
+        if (failure == null)
+            failure = e;
+    }
+
+    private synchronized IOException getAndClearFailure() {
+        IOException e = failure;
+        failure = null;
+        return e;
+    }
+
+}
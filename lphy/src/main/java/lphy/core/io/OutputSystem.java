@@ -1,23 +1,21 @@
 package lphy.core.io;
 
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.PrintStream;
+import java.io.*;
+import java.util.zip.GZIPOutputStream;
 import java.util.prefs.Preferences;
 
 public class OutputSystem {
     public static final String OUTPUT_FILE_NAME = "output.txt";
-    public static PrintStream out;
+    /**
+     * @deprecated  not thread-safe, use an {@link OutputFileWriter} per file.
+     */
+    @Deprecated
+    public static PrintStream out = System.out;
+    // only for OutputFormat.BGZIP, otherwise null
+    private static BlockGzipOutputStream blockOut;
     private static final Preferences preferences = Preferences.userNodeForPackage(OutputSystem.class);
     private static final String OUTPUT_DIRECTORY_KEY = "lphy_output_dir";
     // private static final String TO_CONSOLE_KEY = "print_to_console";
-    static {
-        try {
-            setOut(OUTPUT_FILE_NAME);
-        } catch (FileNotFoundException e) {
-            throw new RuntimeException(e);
-        }
-    }
 
     public static void setOutputDirectory(String directory) {
         preferences.put(OUTPUT_DIRECTORY_KEY, directory);
@@ -56,7 +54,9 @@ public class OutputSystem {
     /**
      * If outputFileName is not null, then set {@link OutputSystem#out} to PrintStream of
      * the output directory and output file name, otherwise to {@link System#out}.
+     * @deprecated  use {@link OutputFileWriter}.
      */
+    @Deprecated
     public static void setOut(String outputFileName) throws FileNotFoundException {
         File outputDirectory = getOutputDirectory();
 //        boolean useSystemOut = getUseSystemOut();
@@ -71,6 +71,56 @@ public class OutputSystem {
             out = System.out; // Return default System.out if output directory is not set
 //            setUseSystemOut(true);
         }
+        blockOut = null;
+    }
+
+    /**
+     * Same as {@link #setOut(String)}, but the file is compressed if required by the {@link OutputFormat}.
+     * @param outputFileName  the file name which should include the extension of the output format.
+     * @param outputFormat    {@link OutputFormat}
+     * @deprecated  use {@link OutputFileWriter}.
+     */
+    @Deprecated
+    public static void setOut(String outputFileName, OutputFormat outputFormat) throws IOException {
+        if (outputFileName == null || !outputFormat.isCompressed()) {
+            setOut(outputFileName);
+            return;
+        }
+        File outputFile = new File(getOutputDirectory(), outputFileName);
+        OutputStream outputStream = createOutputStream(outputFile, outputFormat);
+        blockOut = outputStream instanceof BlockGzipOutputStream blockGzip ? blockGzip : null;
+        out = new PrintStream(outputStream);
+    }
+
+    /**
+     * @param outputFile    the output file
+     * @param outputFormat  {@link OutputFormat}
+     * @return  the buffered stream to the file, which compresses the content if required.
+     * @throws IOException
+     */
+    public static OutputStream createOutputStream(File outputFile, OutputFormat outputFormat) throws IOException {
+        return switch (outputFormat) {
+            case GZIP -> new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(outputFile)));
+            case BGZIP -> new BlockGzipOutputStream(outputFile);
+            default -> new BufferedOutputStream(new FileOutputStream(outputFile));
+        };
+    }
+
+    /**
+     * Start a new block in the current output file, if it is {@link OutputFormat#BGZIP},
+     * otherwise do nothing.
+     * @deprecated  use {@link OutputFileWriter#startBlock()}.
+     */
+    @Deprecated
+    public static void startBlock() {
+        if (blockOut != null) {
+            out.flush();
+            try {
+                blockOut.startBlock();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
     }
 
 }
@@ -0,0 +1,67 @@
+package lphy.core.io;
+
+/**
+ * The k-th of N contiguous ranges of replicates, which are simulated in separate runs,
+ * e.g. on the nodes of a cluster. Given the same seed, each replicate is same as in a single run,
+ * since the seed of a replicate only depends on its index.
+ * The files of each replicate keep their names, but the files shared by replicates
+ * (e.g. .log and .trees) are named by the shard, and can be merged by {@link ShardMerger}.
+ * @param index  the index of this shard, starting from 1.
+ * @param count  the number of shards.
+ * @see lphy.core.simulator.RandomUtils#getReplicateSeed(long, int)
+ */
+public record Shard(int index, int count) {
+
+    public Shard {
+        if (count < 1 || index < 1 || index > count)
+            throw new IllegalArgumentException("The shard must be k/N where 1 <= k <= N, but it is " +
+                    index + "/" + count + " !");
+    }
+
+    /**
+     * @param shard  the shard in the form of k/N, e.g. 2/4.
+     * @return  the {@link Shard}.
+     */
+    public static Shard parse(String shard) {
+        String[] parts = shard.trim().split("/");
+        try {
+            if (parts.length == 2)
+                return new Shard(Integer.parseInt(parts[0].trim()), Integer.parseInt(parts[1].trim()));
+        } catch (NumberFormatException ignored) {
+        }
+        throw new IllegalArgumentException("The shard must be k/N, e.g. 2/4, but it is " + shard + " !");
+    }
+
+    /**
+     * @param numReplicates  the number of replicates in all shards.
+     * @return  the index of the first replicate in this shard, starting from 0.
+     */
+    public int getFirstReplicate(int numReplicates) {
+        return (int) ((long) (index - 1) * numReplicates / count);
+    }
+
+    /**
+     * @param numReplicates  the number of replicates in all shards.
+     * @return  the index after the last replicate in this shard, which is the first of the next shard.
+     */
+    public int getLastReplicate(int numReplicates) {
+        return (int) ((long) index * numReplicates / count);
+    }
+
+    /**
+     * @param filePrefix  the prefix of output files, e.g. the lphy script file name.
+     * @return  the prefix of files shared by the replicates in this shard.
+     */
+    public String getFilePrefix(String filePrefix) {
+        return getFilePrefix(filePrefix, index, count);
+    }
+
+    public static String getFilePrefix(String filePrefix, int index, int count) {
+        return filePrefix + "_shard" + index + "of" + count;
+    }
+
+    @Override
+    public String toString() {
+        return index + "/" + count;
+    }
+}
@@ -0,0 +1,148 @@
+package lphy.core.io;
+
+import lphy.core.logger.LoggerUtils;
+
+import java.io.*;
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Merge the files shared by replicates (.log and .trees), which are created by the {@link Shard}s of a simulation,
+ * into the files of a single run. The header and footer are taken from the first shard,
+ * and the rows (replicates) of all shards are concatenated in the order of shards.
+ * The files of each replicate, e.g. alignments, have the same names in the shards, so they are not merged.
+ * The columnar binary logs are not supported.
+ */
+public class ShardMerger {
+
+    /**
+     * The type of files shared by replicates, where one replicate is one row.
+     */
+    enum SharedFile {
+        // the 1st line is the column names, and the non-blank lines after are the rows
+        LOG(".log", 1, line -> !line.isBlank()),
+        // the header and footer are Nexus blocks, and the rows are trees
+        TREES(".trees", 0, line -> line.trim().toLowerCase().startsWith("tree "));
+
+        final String extension;
+        // the minimum number of lines in the header
+        final int headerLines;
+        final Predicate<String> isRow;
+
+        SharedFile(String extension, int headerLines, Predicate<String> isRow) {
+            this.extension = extension;
+            this.headerLines = headerLines;
+            this.isRow = isRow;
+        }
+    }
+
+    /**
+     * @param lphyFile      the lphy script file, whose name is the prefix of output files.
+     * @param outDir        the directory containing the files of shards, where the merged files are written.
+     * @param shardCount    the number of shards.
+     * @param outputFormat  the {@link OutputFormat} of files, which must be same in all shards.
+     * @return  the merged files.
+     * @throws IOException  if the files cannot be read or written, or the log files have different columns.
+     */
+    public static List<File> merge(File lphyFile, File outDir, int shardCount, OutputFormat outputFormat) throws IOException {
+        if (shardCount < 1)
+            throw new IllegalArgumentException("The number of shards must be positive, but it is " + shardCount + " !");
+        if (outputFormat == OutputFormat.BINARY)
+            LoggerUtils.log.warning("The columnar binary logs (.clog) of shards cannot be merged !");
+        String filePrefix = FileConfig.getLPhyFilePrefix(lphyFile);
+
+        // the postfix after the shard prefix, e.g. "_psi.trees", and the files in the order of shards
+        Map<String, List<File>> shardFilesByPostfix = new TreeMap<>();
+        for (int k = 1; k <= shardCount; k++) {
+            String shardPrefix = Shard.getFilePrefix(filePrefix, k, shardCount);
+            File[] files = outDir.listFiles((dir, name) -> name.startsWith(shardPrefix));
+            if (files == null)
+                throw new IOException("Cannot list the files in " + outDir + " !");
+            for (File file : files) {
+                String postfix = file.getName().substring(shardPrefix.length());
+                // exclude e.g. model_shard1of40 when it is model_shard1of4
+                if ((postfix.startsWith(".") || postfix.startsWith("_")) && getSharedFile(postfix, outputFormat) != null)
+                    shardFilesByPostfix.computeIfAbsent(postfix, p -> new ArrayList<>()).add(file);
+            }
+        }
+
+        List<File> mergedFiles = new ArrayList<>();
+        for (Map.Entry<String, List<File>> entry : shardFilesByPostfix.entrySet()) {
+            List<File> shardFiles = entry.getValue();
+            // a shard without replicates does not create files
+            if (shardFiles.size() < shardCount)
+                LoggerUtils.log.warning("Only " + shardFiles.size() + " of " + shardCount + " shards have the file " +
+                        filePrefix + entry.getKey() + ", which is merged from " + shardFiles);
+
+            File mergedFile = new File(outDir, filePrefix + entry.getKey());
+            merge(shardFiles, mergedFile, getSharedFile(entry.getKey(), outputFormat), outputFormat);
+            mergedFiles.add(mergedFile);
+        }
+        // wait for the files written in the background
+        OutputQueue.getInstance().await();
+        return mergedFiles;
+    }
+
+    private static SharedFile getSharedFile(String postfix, OutputFormat outputFormat) {
+        for (SharedFile sharedFile : SharedFile.values()) {
+            if (postfix.endsWith(sharedFile.extension + outputFormat.getExtension()))
+                return sharedFile;
+        }
+        return null;
+    }
+
+    /**
+     * The same layout as the files written by {@link lphy.core.logger.ValueFormatHandler},
+     * so the merged file is same as the file of a single run.
+     */
+    static void merge(List<File> shardFiles, File mergedFile, SharedFile sharedFile,
+                      OutputFormat outputFormat) throws IOException {
+        List<String> header = null;
+        List<String> footer = null;
+        try (OutputFileWriter writer = new OutputFileWriter(mergedFile, outputFormat)) {
+            for (File shardFile : shardFiles) {
+                List<String> lines = readLines(shardFile, outputFormat);
+                int firstRow = sharedFile.headerLines;
+                while (firstRow < lines.size() && !sharedFile.isRow.test(lines.get(firstRow)))
+                    firstRow++;
+                int lastRow = lines.size() - 1;
+                while (lastRow >= firstRow && !sharedFile.isRow.test(lines.get(lastRow)))
+                    lastRow--;
+
+                List<String> shardHeader = lines.subList(0, Math.min(firstRow, lines.size()));
+                if (header == null) {
+                    header = shardHeader;
+                    footer = lines.subList(lastRow + 1, lines.size());
+                    header.forEach(writer::println);
+                } else if (sharedFile == SharedFile.LOG && !header.equals(shardHeader)) {
+                    throw new IOException("The columns of " + shardFile.getName() + " are different to " +
+                            shardFiles.get(0).getName() + " !");
+                }
+
+                // one replicate per block
+                for (int i = firstRow; i <= lastRow; i++) {
+                    writer.startBlock();
+                    writer.println(lines.get(i));
+                }
+            }
+            if (footer != null && !footer.isEmpty()) {
+                writer.startBlock();
+                footer.forEach(writer::println);
+            }
+        }
+        System.out.println("Merge " + shardFiles.size() + " shards into " + mergedFile.getName() +
+                " in the directory " + mergedFile.getParent());
+    }
+
+    private static List<String> readLines(File file, OutputFormat outputFormat) throws IOException {
+        InputStream in = new BufferedInputStream(new FileInputStream(file));
+        // the gzip members of blocks are read as one stream
+        if (outputFormat.isCompressed())
+            in = new GZIPInputStream(in);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in))) {
+            return reader.lines().toList();
+        }
+    }
+
+}
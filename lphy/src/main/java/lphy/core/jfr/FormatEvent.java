@@ -0,0 +1,47 @@
+package lphy.core.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * The formatting of a value into a string by {@link lphy.core.logger.ValueFormatter#format(Object)},
+ * before it is written into the output file.
+ */
+@Name(FormatEvent.NAME)
+@Label("Format Value")
+@Category({"LPhy", "Output"})
+@Description("Format a value for the output files")
+@StackTrace(false)
+public class FormatEvent extends Event {
+
+    public static final String NAME = "lphy.Format";
+
+    @Label("Formatter")
+    public String formatterClass;
+
+    @Label("Value ID")
+    public String valueId;
+
+    @Label("Replicate")
+    @Description("The index of the replicate, or -1 if it is unknown")
+    public int replicate;
+
+    @Label("Taxa")
+    public int taxa;
+
+    @Label("Sites")
+    public int sites;
+
+    @Label("Length")
+    @Description("The number of characters of the formatted string")
+    public long length;
+
+    /**
+     * Set the taxa and sites of the formatted value.
+     * @param value  the formatted value, e.g. an alignment.
+     */
+    public void setSizes(Object value) {
+        taxa = ValueSizes.getTaxa(value);
+        sites = ValueSizes.getSites(value);
+    }
+
+}
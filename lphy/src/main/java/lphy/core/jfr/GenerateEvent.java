@@ -0,0 +1,48 @@
+package lphy.core.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * One call of a generator in {@link lphy.core.simulator.Sampler}, which only includes the generator itself,
+ * but not the sampling of its parameters.
+ * The sizes are -1 if they are not applicable to the generated value.
+ */
+@Name(GenerateEvent.NAME)
+@Label("Generate Value")
+@Category({"LPhy", "Sampler"})
+@Description("Generate a value by a generator during sampling")
+@StackTrace(false)
+public class GenerateEvent extends Event {
+
+    public static final String NAME = "lphy.Generate";
+
+    @Label("Generator")
+    public String generatorName;
+
+    @Label("Value ID")
+    public String valueId;
+
+    @Label("Replicate")
+    @Description("The index of the replicate, or -1 if it is not sampled as a replicate")
+    public int replicate;
+
+    @Label("Dimension")
+    public int dimension;
+
+    @Label("Taxa")
+    public int taxa;
+
+    @Label("Sites")
+    public int sites;
+
+    /**
+     * Set the dimension, taxa and sites of the generated value.
+     * @param value  the generated value, e.g. an alignment.
+     */
+    public void setSizes(Object value) {
+        dimension = ValueSizes.getDimension(value);
+        taxa = ValueSizes.getTaxa(value);
+        sites = ValueSizes.getSites(value);
+    }
+
+}
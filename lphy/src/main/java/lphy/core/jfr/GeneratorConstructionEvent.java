@@ -0,0 +1,28 @@
+package lphy.core.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * The construction of a generator by the parser, which matches the arguments to the constructor,
+ * and may wrap it into IID or vectorized generators.
+ */
+@Name(GeneratorConstructionEvent.NAME)
+@Label("Construct Generator")
+@Category({"LPhy", "Parser"})
+@Description("Construct a generator from the arguments in the LPhy script")
+@StackTrace(false)
+public class GeneratorConstructionEvent extends Event {
+
+    public static final String NAME = "lphy.GeneratorConstruction";
+
+    @Label("Generator")
+    public String generatorName;
+
+    @Label("Generator Class")
+    @Description("The class of the constructed generator, e.g. IID or a vectorized generator")
+    public String generatorClass;
+
+    @Label("Arguments")
+    public int arguments;
+
+}
@@ -0,0 +1,30 @@
+package lphy.core.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * The parsing of one LPhy statement, e.g. <code>D ~ PhyloCTMC(tree=ψ, Q=Q, L=L);</code>,
+ * including the construction of its generators.
+ * @see lphy.core.parser.REPL#parse(String, lphy.core.parser.LPhyMetaParser.Context)
+ */
+@Name(ParseEvent.NAME)
+@Label("Parse Statement")
+@Category({"LPhy", "Parser"})
+@Description("Parse one statement of the LPhy script")
+@StackTrace(false)
+public class ParseEvent extends Event {
+
+    public static final String NAME = "lphy.Parse";
+
+    @Label("Statement")
+    public String statement;
+
+    @Label("Value ID")
+    @Description("The id of the variable on the left side of the statement")
+    public String valueId;
+
+    @Label("Context")
+    @Description("The data or model block")
+    public String context;
+
+}
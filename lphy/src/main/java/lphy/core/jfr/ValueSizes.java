@@ -0,0 +1,105 @@
+package lphy.core.jfr;
+
+import lphy.core.model.MultiDimensional;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Optional;
+
+/**
+ * The sizes of a value for the events, which are -1 if they are not applicable.
+ * The taxa and sites are defined by the extensions, e.g. alignments and trees in lphy.base,
+ * so they are found by the methods <code>ntaxa()</code>, <code>getTaxa().ntaxa()</code>
+ * and <code>nchar()</code>, which are looked up once per class.
+ */
+final class ValueSizes {
+
+    private static final String NTAXA = "ntaxa";
+    private static final String GET_TAXA = "getTaxa";
+    private static final String NCHAR = "nchar";
+
+    private static final ClassValue<Optional<Method>> ntaxaMethods = methods(NTAXA);
+    private static final ClassValue<Optional<Method>> getTaxaMethods = methods(GET_TAXA);
+    private static final ClassValue<Optional<Method>> ncharMethods = methods(NCHAR);
+
+    private ValueSizes() { }
+
+    /**
+     * @return  the dimension of {@link MultiDimensional}, or the length of an array.
+     */
+    static int getDimension(Object value) {
+        if (value instanceof MultiDimensional multiDimensional)
+            return multiDimensional.getDimension();
+        if (value != null && value.getClass().isArray())
+            return Array.getLength(value);
+        return -1;
+    }
+
+    /**
+     * @return  the number of taxa of the value, e.g. an alignment or a tree.
+     */
+    static int getTaxa(Object value) {
+        int ntaxa = invoke(ntaxaMethods, value);
+        if (ntaxa < 0 && value != null) {
+            Optional<Method> getTaxa = getTaxaMethods.get(value.getClass());
+            if (getTaxa.isPresent()) {
+                try {
+                    ntaxa = invoke(ntaxaMethods, getTaxa.get().invoke(value));
+                } catch (ReflectiveOperationException | RuntimeException e) {
+                    return -1;
+                }
+            }
+        }
+        return ntaxa;
+    }
+
+    /**
+     * @return  the number of sites of the value, e.g. an alignment.
+     */
+    static int getSites(Object value) {
+        return invoke(ncharMethods, value);
+    }
+
+    private static int invoke(ClassValue<Optional<Method>> methods, Object value) {
+        if (value == null)
+            return -1;
+        Optional<Method> method = methods.get(value.getClass());
+        if (method.isEmpty())
+            return -1;
+        try {
+            return method.get().invoke(value) instanceof Number number ? number.intValue() : -1;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return -1;
+        }
+    }
+
+    private static ClassValue<Optional<Method>> methods(String name) {
+        return new ClassValue<>() {
+            @Override
+            protected Optional<Method> computeValue(Class<?> type) {
+                return Optional.ofNullable(findPublicMethod(type, name));
+            }
+        };
+    }
+
+    // the method declared by a public class or interface, e.g. not by an anonymous class of Taxa
+    private static Method findPublicMethod(Class<?> type, String name) {
+        if (type == null)
+            return null;
+        try {
+            Method method = type.getMethod(name);
+            if (Modifier.isPublic(type.getModifiers()) && method.getParameterCount() == 0)
+                return method;
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+        for (Class<?> anInterface : type.getInterfaces()) {
+            Method method = findPublicMethod(anInterface, name);
+            if (method != null)
+                return method;
+        }
+        return findPublicMethod(type.getSuperclass(), name);
+    }
+
+}
@@ -0,0 +1,34 @@
+package lphy.core.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * The writing of an output file by {@link lphy.core.logger.ValueFormatHandler}.
+ * The bytes are written in the background by {@link lphy.core.io.OutputFileWriter},
+ * so the duration is the time spent by the simulation thread, which includes
+ * the formatting of streamed values, and the waiting when the queue of writer is full.
+ */
+@Name(WriteEvent.NAME)
+@Label("Write File")
+@Category({"LPhy", "Output"})
+@Description("Write the formatted values into an output file")
+@StackTrace(false)
+public class WriteEvent extends Event {
+
+    public static final String NAME = "lphy.Write";
+
+    @Label("File Name")
+    public String fileName;
+
+    @Label("Value ID")
+    @Description("The id of the value, or null if the file contains many values, e.g. the log file")
+    public String valueId;
+
+    @Label("Replicate")
+    @Description("The index of the replicate, or -1 if the file contains all replicates")
+    public int replicate;
+
+    @Label("Output Format")
+    public String outputFormat;
+
+}
@@ -3,6 +3,8 @@ package lphy.core.logger;
 import lphy.core.model.Symbols;
 import lphy.core.vectorization.VectorUtils;
 
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
 import java.util.Objects;
 
 /**
@@ -81,6 +83,16 @@ public class Array2DElementFormatter<T> implements ValueFormatter<T[][]> {
         return valueFormatter.format(value[rowIndex][colIndex]);
     }
 
+    @Override
+    public boolean isStreamable() {
+        return valueFormatter.isStreamable();
+    }
+
+    @Override
+    public void write(T[][] value, WritableByteChannel channel) throws IOException {
+        valueFormatter.write(value[rowIndex][colIndex], channel);
+    }
+
     @Override
     public String footer() {
         return valueFormatter.footer();
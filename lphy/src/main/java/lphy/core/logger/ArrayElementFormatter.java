@@ -3,6 +3,9 @@ package lphy.core.logger;
 import lphy.core.model.Symbols;
 import lphy.core.vectorization.VectorUtils;
 
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+
 /**
  * The 1d array case for the implementation of ValueFormatter.
  *
@@ -75,6 +78,16 @@ public class ArrayElementFormatter<T> implements ValueFormatter<T[]> {
         return valueFormatter.format(value[arrayIndex]);
     }
 
+    @Override
+    public boolean isStreamable() {
+        return valueFormatter.isStreamable();
+    }
+
+    @Override
+    public void write(T[] value, WritableByteChannel channel) throws IOException {
+        valueFormatter.write(value[arrayIndex], channel);
+    }
+
     @Override
     public String footer() {
         return valueFormatter.footer();
@@ -0,0 +1,55 @@
+package lphy.core.logger;
+
+import lphy.core.io.OutputFormat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.util.Base64;
+
+/**
+ * The formatter to write a value in a compact binary format, instead of text,
+ * which is only selected when the {@link OutputFormat#BINARY} is required.
+ * Each value is written into its own file through {@link #write(Object, java.nio.channels.WritableByteChannel)}.
+ * @see ValueFormatResolver#getFormatter(lphy.core.model.Value, OutputFormat)
+ * @param <T>  the type that is same as T in {@link lphy.core.model.Value<T>}.
+ */
+public interface BinaryValueFormatter<T> extends ValueFormatter<T> {
+
+    @Override
+    default Mode getMode() {
+        return Mode.VALUE_PER_FILE;
+    }
+
+    @Override
+    default boolean isStreamable() {
+        return true;
+    }
+
+    /**
+     * The binary content cannot be a text, so it is encoded in Base64,
+     * e.g. for the text output of {@link lphy.core.simulator.SimulationServer}.
+     * @return  the Base64 of the bytes written by {@link #write(Object, java.nio.channels.WritableByteChannel)}.
+     */
+    @Override
+    default String format(T value) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            write(value, Channels.newChannel(out));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return Base64.getEncoder().encodeToString(out.toByteArray());
+    }
+
+    @Override
+    default String header() {
+        return "";
+    }
+
+    @Override
+    default String getRowName(int rowId) {
+        return "";
+    }
+}
@@ -0,0 +1,67 @@
+package lphy.core.logger;
+
+/**
+ * The shared definitions of the columnar binary log, which stores the values logged
+ * in {@link ValueFormatter.Mode#VALUE_PER_CELL} as typed primitive columns.
+ * <p>
+ * The file starts from the magic number and the version, followed by row groups,
+ * where each row group contains one chunk per column in the order of columns.
+ * The footer stores the column names and types, and the offset, length and statistics
+ * of every column chunk, and the file ends with the offset of the footer and the magic number.
+ * So that the reader can load the requested columns only.
+ * @see ColumnarLogWriter
+ * @see ColumnarLogReader
+ */
+public final class ColumnarLog {
+
+    public static final int MAGIC = 0x4C504843; // "LPHC"
+    public static final short VERSION = 1;
+
+    public static final String EXTENSION = ".clog";
+
+    // the trailer contains the footer offset and the magic number
+    static final int TRAILER_SIZE = Long.BYTES + Integer.BYTES;
+
+    private ColumnarLog() { }
+
+    public enum ColumnType {
+        DOUBLE(Double.BYTES),
+        INT(Integer.BYTES),
+        // 1 byte per value, 1 for true
+        BOOLEAN(1),
+        // variable length, the formatted value
+        STRING(-1);
+
+        final int bytes;
+
+        ColumnType(int bytes) {
+            this.bytes = bytes;
+        }
+
+        /**
+         * @param value  the value of a cell
+         * @return  the column type to store this value.
+         */
+        public static ColumnType of(Object value) {
+            if (value instanceof Integer || value instanceof Short || value instanceof Byte)
+                return INT;
+            if (value instanceof Number)
+                return DOUBLE;
+            if (value instanceof Boolean)
+                return BOOLEAN;
+            return STRING;
+        }
+
+        public boolean isNumeric() {
+            return this != STRING;
+        }
+    }
+
+    /**
+     * The statistics of a column in a row group, where booleans are 0 or 1.
+     * For string columns, min, max and mean are NaN.
+     */
+    public record Statistics(int rowCount, double min, double max, double mean) {
+    }
+
+}
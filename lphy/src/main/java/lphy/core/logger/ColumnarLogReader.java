@@ -0,0 +1,272 @@
+package lphy.core.logger;
+
+import lphy.core.logger.ColumnarLog.ColumnType;
+import lphy.core.logger.ColumnarLog.Statistics;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Read a columnar binary log written by {@link ColumnarLogWriter}.
+ * Only the footer is read when opening the file, and the column chunks
+ * are read on request, so that loading a few columns from a log
+ * containing many parameters does not read the whole file.
+ * @see ColumnarLog
+ */
+public class ColumnarLogReader implements Closeable {
+
+    private final FileChannel channel;
+
+    private final String[] columnNames;
+    private final ColumnType[] columnTypes;
+    private final Map<String, Integer> columnIndex = new LinkedHashMap<>();
+
+    private final int[] groupRowCounts;
+    private final long[][] chunkOffsets; // [group][column]
+    private final long[][] chunkLengths;
+    private final Statistics[][] statistics;
+    private final int rowCount;
+
+    public ColumnarLogReader(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = readFully(0, Integer.BYTES + Short.BYTES);
+            if (header.getInt() != ColumnarLog.MAGIC)
+                throw new IOException("Not a columnar log file : " + path);
+            short version = header.getShort();
+            if (version != ColumnarLog.VERSION)
+                throw new IOException("Unsupported columnar log version " + version + " in " + path);
+
+            final long size = channel.size();
+            ByteBuffer trailer = readFully(size - ColumnarLog.TRAILER_SIZE, ColumnarLog.TRAILER_SIZE);
+            long footerOffset = trailer.getLong();
+            if (trailer.getInt() != ColumnarLog.MAGIC)
+                throw new IOException("Columnar log is incomplete, the footer is missing : " + path);
+
+            ByteBuffer footer = readFully(footerOffset, (int) (size - ColumnarLog.TRAILER_SIZE - footerOffset));
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(
+                    footer.array(), footer.position(), footer.remaining()));
+
+            final int n = in.readInt();
+            columnNames = new String[n];
+            columnTypes = new ColumnType[n];
+            for (int c = 0; c < n; c++) {
+                columnNames[c] = in.readUTF();
+                columnTypes[c] = ColumnType.values()[in.readByte()];
+                columnIndex.put(columnNames[c], c);
+            }
+
+            final int groups = in.readInt();
+            groupRowCounts = new int[groups];
+            chunkOffsets = new long[groups][n];
+            chunkLengths = new long[groups][n];
+            statistics = new Statistics[groups][n];
+            int rows = 0;
+            for (int g = 0; g < groups; g++) {
+                groupRowCounts[g] = in.readInt();
+                rows += groupRowCounts[g];
+                for (int c = 0; c < n; c++) {
+                    chunkOffsets[g][c] = in.readLong();
+                    chunkLengths[g][c] = in.readLong();
+                    statistics[g][c] = new Statistics(groupRowCounts[g],
+                            in.readDouble(), in.readDouble(), in.readDouble());
+                }
+            }
+            rowCount = rows;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return  the column names in the order of the log.
+     */
+    public List<String> getColumnNames() {
+        return List.of(columnNames);
+    }
+
+    public ColumnType getColumnType(String name) {
+        return columnTypes[getColumnIndex(name)];
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getRowGroupCount() {
+        return groupRowCounts.length;
+    }
+
+    /**
+     * @param name  column name
+     * @return  the statistics of this column in every row group,
+     *          which are read from the footer without reading the column.
+     */
+    public List<Statistics> getStatistics(String name) {
+        final int c = getColumnIndex(name);
+        List<Statistics> list = new ArrayList<>(statistics.length);
+        for (Statistics[] groupStatistics : statistics)
+            list.add(groupStatistics[c]);
+        return list;
+    }
+
+    /**
+     * @param names  the requested column names.
+     * @return  the map of column name to its values, where the value is
+     *          a double[], int[], boolean[] or String[] depending on the column type.
+     * @throws IOException
+     */
+    public Map<String, Object> readColumns(String... names) throws IOException {
+        Map<String, Object> columns = new LinkedHashMap<>();
+        for (String name : names) {
+            ColumnType type = getColumnType(name);
+            columns.put(name, switch (type) {
+                case DOUBLE -> readDoubleColumn(name);
+                case INT -> readIntColumn(name);
+                case BOOLEAN -> readBooleanColumn(name);
+                case STRING -> readStringColumn(name);
+            });
+        }
+        return columns;
+    }
+
+    /**
+     * @param name  column name, which can be any numeric column.
+     * @return  the values as doubles, where booleans are 0 or 1.
+     * @throws IOException
+     */
+    public double[] readDoubleColumn(String name) throws IOException {
+        final int c = getColumnIndex(name);
+        ColumnType type = columnTypes[c];
+        if (!type.isNumeric())
+            throw new IllegalArgumentException("Column " + name + " is not numeric : " + type);
+        double[] values = new double[rowCount];
+        int row = 0;
+        for (int g = 0; g < groupRowCounts.length; g++) {
+            ByteBuffer chunk = readChunk(g, c);
+            final int rows = groupRowCounts[g];
+            switch (type) {
+                case DOUBLE -> chunk.asDoubleBuffer().get(values, row, rows);
+                case INT -> {
+                    for (int r = 0; r < rows; r++)
+                        values[row + r] = chunk.getInt();
+                }
+                default -> {
+                    for (int r = 0; r < rows; r++)
+                        values[row + r] = chunk.get();
+                }
+            }
+            row += rows;
+        }
+        return values;
+    }
+
+    public int[] readIntColumn(String name) throws IOException {
+        final int c = getColumnIndex(name, ColumnType.INT);
+        int[] values = new int[rowCount];
+        int row = 0;
+        for (int g = 0; g < groupRowCounts.length; g++) {
+            readChunk(g, c).asIntBuffer().get(values, row, groupRowCounts[g]);
+            row += groupRowCounts[g];
+        }
+        return values;
+    }
+
+    public boolean[] readBooleanColumn(String name) throws IOException {
+        final int c = getColumnIndex(name, ColumnType.BOOLEAN);
+        boolean[] values = new boolean[rowCount];
+        int row = 0;
+        for (int g = 0; g < groupRowCounts.length; g++) {
+            ByteBuffer chunk = readChunk(g, c);
+            for (int r = 0; r < groupRowCounts[g]; r++)
+                values[row++] = chunk.get() != 0;
+        }
+        return values;
+    }
+
+    /**
+     * @param name  column name, which can be any column.
+     * @return  the values as strings.
+     * @throws IOException
+     */
+    public String[] readStringColumn(String name) throws IOException {
+        final int c = getColumnIndex(name);
+        if (columnTypes[c] != ColumnType.STRING) {
+            String[] values = new String[rowCount];
+            switch (columnTypes[c]) {
+                case INT -> {
+                    int[] ints = readIntColumn(name);
+                    for (int r = 0; r < rowCount; r++)
+                        values[r] = String.valueOf(ints[r]);
+                }
+                case BOOLEAN -> {
+                    boolean[] booleans = readBooleanColumn(name);
+                    for (int r = 0; r < rowCount; r++)
+                        values[r] = String.valueOf(booleans[r]);
+                }
+                default -> {
+                    double[] doubles = readDoubleColumn(name);
+                    for (int r = 0; r < rowCount; r++)
+                        values[r] = String.valueOf(doubles[r]);
+                }
+            }
+            return values;
+        }
+
+        String[] values = new String[rowCount];
+        int row = 0;
+        for (int g = 0; g < groupRowCounts.length; g++) {
+            ByteBuffer chunk = readChunk(g, c);
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(
+                    chunk.array(), chunk.position(), chunk.remaining()));
+            for (int r = 0; r < groupRowCounts[g]; r++)
+                values[row++] = in.readUTF();
+        }
+        return values;
+    }
+
+    private int getColumnIndex(String name) {
+        Integer c = columnIndex.get(name);
+        if (c == null)
+            throw new IllegalArgumentException("Cannot find column " + name + " in the log !");
+        return c;
+    }
+
+    private int getColumnIndex(String name, ColumnType type) {
+        final int c = getColumnIndex(name);
+        if (columnTypes[c] != type)
+            throw new IllegalArgumentException("Column " + name + " is " + columnTypes[c] +
+                    ", not " + type + " !");
+        return c;
+    }
+
+    private ByteBuffer readChunk(int group, int column) throws IOException {
+        return readFully(chunkOffsets[group][column], (int) chunkLengths[group][column]);
+    }
+
+    private ByteBuffer readFully(long position, int length) throws IOException {
+        if (position < 0 || length < 0)
+            throw new IOException("Invalid position " + position + " or length " + length + " in columnar log !");
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0)
+                throw new IOException("Unexpected end of columnar log at " + (position + buffer.position()));
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
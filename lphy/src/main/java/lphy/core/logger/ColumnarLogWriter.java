@@ -0,0 +1,227 @@
+package lphy.core.logger;
+
+import lphy.core.logger.ColumnarLog.ColumnType;
+import lphy.core.logger.ColumnarLog.Statistics;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Write rows into a columnar binary log. Values are buffered in primitive arrays per column,
+ * and written as a row group once the row group is full, so that memory is bounded by the row group size.
+ * The columns are defined by the first row.
+ * @see ColumnarLog
+ */
+public class ColumnarLogWriter implements Closeable {
+
+    public static final int DEFAULT_ROW_GROUP_SIZE = 4096;
+
+    private final FileChannel channel;
+    private final int rowGroupSize;
+
+    private String[] columnNames;
+    private ColumnType[] columnTypes;
+    // one of double[], int[], byte[], String[] per column
+    private Object[] columnBuffers;
+    private int rowsInGroup = 0;
+
+    // footer
+    private final List<Integer> groupRowCounts = new ArrayList<>();
+    private final List<long[]> groupChunkOffsets = new ArrayList<>();
+    private final List<long[]> groupChunkLengths = new ArrayList<>();
+    private final List<Statistics[]> groupStatistics = new ArrayList<>();
+
+    public ColumnarLogWriter(Path path) throws IOException {
+        this(path, DEFAULT_ROW_GROUP_SIZE);
+    }
+
+    public ColumnarLogWriter(Path path, int rowGroupSize) throws IOException {
+        if (rowGroupSize < 1)
+            throw new IllegalArgumentException("Row group size must > 0 ! rowGroupSize = " + rowGroupSize);
+        this.rowGroupSize = rowGroupSize;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+
+        ByteBuffer header = ByteBuffer.allocate(Integer.BYTES + Short.BYTES);
+        header.putInt(ColumnarLog.MAGIC).putShort(ColumnarLog.VERSION).flip();
+        writeFully(header);
+    }
+
+    /**
+     * @param names   the column names, which must be same for every row.
+     * @param values  the values of cells in this row, where the 1st row defines the column types.
+     * @throws IOException
+     */
+    public void writeRow(List<String> names, List<Object> values) throws IOException {
+        if (names.size() != values.size())
+            throw new IllegalArgumentException("The number of column names " + names.size() +
+                    " != the number of values " + values.size() + " !");
+        if (columnNames == null)
+            initColumns(names, values);
+        else if (names.size() != columnNames.length)
+            throw new IllegalArgumentException("The number of columns cannot be changed : " +
+                    columnNames.length + " != " + names.size());
+
+        for (int c = 0; c < columnNames.length; c++)
+            setCell(c, values.get(c));
+        rowsInGroup++;
+
+        if (rowsInGroup >= rowGroupSize)
+            writeRowGroup();
+    }
+
+    private void initColumns(List<String> names, List<Object> values) {
+        final int n = names.size();
+        columnNames = names.toArray(String[]::new);
+        columnTypes = new ColumnType[n];
+        columnBuffers = new Object[n];
+        for (int c = 0; c < n; c++) {
+            columnTypes[c] = ColumnType.of(values.get(c));
+            columnBuffers[c] = switch (columnTypes[c]) {
+                case DOUBLE -> new double[rowGroupSize];
+                case INT -> new int[rowGroupSize];
+                case BOOLEAN -> new byte[rowGroupSize];
+                case STRING -> new String[rowGroupSize];
+            };
+        }
+    }
+
+    private void setCell(int c, Object value) {
+        final int r = rowsInGroup;
+        switch (columnTypes[c]) {
+            case DOUBLE -> ((double[]) columnBuffers[c])[r] = value instanceof Number number ?
+                    number.doubleValue() : Double.NaN;
+            case INT -> {
+                if (!(value instanceof Integer || value instanceof Short || value instanceof Byte))
+                    throw new IllegalArgumentException("Column " + columnNames[c] +
+                            " requires integers, but the value is " + value);
+                ((int[]) columnBuffers[c])[r] = ((Number) value).intValue();
+            }
+            case BOOLEAN -> ((byte[]) columnBuffers[c])[r] = (byte) (Boolean.TRUE.equals(value) ? 1 : 0);
+            case STRING -> ((String[]) columnBuffers[c])[r] = String.valueOf(value);
+        }
+    }
+
+    private void writeRowGroup() throws IOException {
+        if (rowsInGroup < 1)
+            return;
+        final int n = columnNames.length;
+        long[] offsets = new long[n];
+        long[] lengths = new long[n];
+        Statistics[] statistics = new Statistics[n];
+
+        for (int c = 0; c < n; c++) {
+            ByteBuffer chunk = encodeChunk(c);
+            offsets[c] = channel.position();
+            lengths[c] = chunk.remaining();
+            writeFully(chunk);
+            statistics[c] = computeStatistics(c);
+        }
+
+        groupRowCounts.add(rowsInGroup);
+        groupChunkOffsets.add(offsets);
+        groupChunkLengths.add(lengths);
+        groupStatistics.add(statistics);
+        rowsInGroup = 0;
+    }
+
+    private ByteBuffer encodeChunk(int c) throws IOException {
+        final int rows = rowsInGroup;
+        ColumnType type = columnTypes[c];
+        if (type == ColumnType.STRING) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            String[] buffer = (String[]) columnBuffers[c];
+            for (int r = 0; r < rows; r++)
+                out.writeUTF(buffer[r]);
+            out.flush();
+            return ByteBuffer.wrap(bytes.toByteArray());
+        }
+
+        ByteBuffer chunk = ByteBuffer.allocate(rows * type.bytes);
+        switch (type) {
+            case DOUBLE -> chunk.asDoubleBuffer().put((double[]) columnBuffers[c], 0, rows);
+            case INT -> chunk.asIntBuffer().put((int[]) columnBuffers[c], 0, rows);
+            case BOOLEAN -> chunk.put((byte[]) columnBuffers[c], 0, rows);
+        }
+        // views do not move the position of chunk, but put(byte[]) does
+        chunk.position(0).limit(rows * type.bytes);
+        return chunk;
+    }
+
+    private Statistics computeStatistics(int c) {
+        final int rows = rowsInGroup;
+        if (!columnTypes[c].isNumeric())
+            return new Statistics(rows, Double.NaN, Double.NaN, Double.NaN);
+
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        double sum = 0;
+        for (int r = 0; r < rows; r++) {
+            double v = switch (columnTypes[c]) {
+                case DOUBLE -> ((double[]) columnBuffers[c])[r];
+                case INT -> ((int[]) columnBuffers[c])[r];
+                default -> ((byte[]) columnBuffers[c])[r];
+            };
+            if (v < min) min = v;
+            if (v > max) max = v;
+            sum += v;
+        }
+        return new Statistics(rows, min, max, sum / rows);
+    }
+
+    private void writeFooter() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        final int n = columnNames == null ? 0 : columnNames.length;
+        out.writeInt(n);
+        for (int c = 0; c < n; c++) {
+            out.writeUTF(columnNames[c]);
+            out.writeByte(columnTypes[c].ordinal());
+        }
+        out.writeInt(groupRowCounts.size());
+        for (int g = 0; g < groupRowCounts.size(); g++) {
+            out.writeInt(groupRowCounts.get(g));
+            for (int c = 0; c < n; c++) {
+                out.writeLong(groupChunkOffsets.get(g)[c]);
+                out.writeLong(groupChunkLengths.get(g)[c]);
+                Statistics statistics = groupStatistics.get(g)[c];
+                out.writeDouble(statistics.min());
+                out.writeDouble(statistics.max());
+                out.writeDouble(statistics.mean());
+            }
+        }
+        long footerOffset = channel.position();
+        out.writeLong(footerOffset);
+        out.writeInt(ColumnarLog.MAGIC);
+        out.flush();
+        writeFully(ByteBuffer.wrap(bytes.toByteArray()));
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+    }
+
+    /**
+     * Write the last row group and the footer, and then close the file.
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            writeRowGroup();
+            writeFooter();
+        } finally {
+            channel.close();
+        }
+    }
+}
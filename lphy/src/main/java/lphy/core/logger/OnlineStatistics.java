@@ -0,0 +1,250 @@
+package lphy.core.logger;
+
+import java.util.Arrays;
+
+/**
+ * The summary statistics of a stream of numbers, which are updated by each value
+ * in constant memory without keeping the values:
+ * the mean and variance by Welford's algorithm, the quantiles by the P<sup>2</sup> algorithm
+ * (Jain and Chlamtac 1985), and the effective sample size (ESS) by batch means.
+ * It is not thread-safe.
+ */
+public class OnlineStatistics {
+
+    public static final double[] DEFAULT_PROBABILITIES = new double[]{0.025, 0.5, 0.975};
+
+    // must be even, the batches are merged in pairs when they are full
+    private static final int MAX_BATCHES = 128;
+
+    private long n = 0;
+    private double mean = 0.0;
+    // the sum of squared differences from the mean
+    private double m2 = 0.0;
+    private double min = Double.NaN;
+    private double max = Double.NaN;
+
+    private final double[] probabilities;
+    private final P2Quantile[] quantiles;
+
+    // the means of batches, where each batch has batchSize values
+    private final double[] batchMeans = new double[MAX_BATCHES];
+    private int batchCount = 0;
+    private long batchSize = 1;
+    private double currentBatchSum = 0.0;
+    private long currentBatchSize = 0;
+
+    public OnlineStatistics() {
+        this(DEFAULT_PROBABILITIES);
+    }
+
+    /**
+     * @param probabilities  the probabilities of the quantiles to estimate, e.g. 0.5 for the median.
+     */
+    public OnlineStatistics(double... probabilities) {
+        this.probabilities = probabilities.clone();
+        quantiles = new P2Quantile[probabilities.length];
+        for (int i = 0; i < probabilities.length; i++) {
+            if (probabilities[i] <= 0.0 || probabilities[i] >= 1.0)
+                throw new IllegalArgumentException("The probability of a quantile must be in (0, 1), but it is " +
+                        probabilities[i] + " !");
+            quantiles[i] = new P2Quantile(probabilities[i]);
+        }
+    }
+
+    public void addValue(double x) {
+        n++;
+        double delta = x - mean;
+        mean += delta / n;
+        m2 += delta * (x - mean);
+        if (n == 1 || x < min) min = x;
+        if (n == 1 || x > max) max = x;
+
+        for (P2Quantile quantile : quantiles)
+            quantile.add(x);
+
+        addToBatch(x);
+    }
+
+    private void addToBatch(double x) {
+        currentBatchSum += x;
+        currentBatchSize++;
+        if (currentBatchSize < batchSize)
+            return;
+        batchMeans[batchCount++] = currentBatchSum / batchSize;
+        currentBatchSum = 0.0;
+        currentBatchSize = 0;
+        if (batchCount == MAX_BATCHES) {
+            // merge pairs, so the batches are twice as long
+            for (int i = 0; i < MAX_BATCHES / 2; i++)
+                batchMeans[i] = (batchMeans[2 * i] + batchMeans[2 * i + 1]) / 2.0;
+            batchCount = MAX_BATCHES / 2;
+            batchSize *= 2;
+        }
+    }
+
+    public long getN() {
+        return n;
+    }
+
+    public double getMean() {
+        return n > 0 ? mean : Double.NaN;
+    }
+
+    /**
+     * @return  the sample variance with n - 1 denominator, same as Apache's DescriptiveStatistics.
+     */
+    public double getVariance() {
+        if (n == 0) return Double.NaN;
+        if (n == 1) return 0.0;
+        return m2 / (n - 1);
+    }
+
+    public double getStandardDeviation() {
+        return Math.sqrt(getVariance());
+    }
+
+    /**
+     * @return  the standard error of the mean, assuming the values are independent.
+     */
+    public double getStandardError() {
+        return getStandardDeviation() / Math.sqrt(n);
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    public double[] getProbabilities() {
+        return probabilities.clone();
+    }
+
+    /**
+     * @param probability  one of the probabilities given to the constructor.
+     * @return  the estimated quantile, which is exact for less than 6 values.
+     */
+    public double getQuantile(double probability) {
+        for (int i = 0; i < probabilities.length; i++) {
+            if (probabilities[i] == probability)
+                return quantiles[i].getQuantile();
+        }
+        throw new IllegalArgumentException("The quantile at " + probability + " is not estimated, " +
+                "available probabilities are " + Arrays.toString(probabilities) + " !");
+    }
+
+    /**
+     * The ESS is n * variance / (batch size * variance of batch means), which is about n
+     * for independent values (e.g. replicates of a simulation), and smaller for autocorrelated values.
+     * @return  the effective sample size, or NaN if there are less than 2 batches.
+     */
+    public double getESS() {
+        if (batchCount < 2) return Double.NaN;
+        double batchMean = 0.0;
+        for (int i = 0; i < batchCount; i++)
+            batchMean += batchMeans[i];
+        batchMean /= batchCount;
+        double batchVariance = 0.0;
+        for (int i = 0; i < batchCount; i++)
+            batchVariance += (batchMeans[i] - batchMean) * (batchMeans[i] - batchMean);
+        batchVariance /= batchCount - 1;
+        if (batchVariance == 0.0)
+            return getVariance() == 0.0 ? n : Double.POSITIVE_INFINITY;
+        return n * getVariance() / (batchSize * batchVariance);
+    }
+
+    /**
+     * The P<sup>2</sup> estimate of one quantile by 5 markers, whose heights are adjusted
+     * by the piecewise parabolic prediction.
+     */
+    private static class P2Quantile {
+        private final double p;
+        // the heights of markers
+        private final double[] q = new double[5];
+        // the actual positions of markers, from 1
+        private final double[] pos = new double[5];
+        // the desired positions of markers
+        private final double[] desired = new double[5];
+        private final double[] increments;
+        private int count = 0;
+
+        P2Quantile(double p) {
+            this.p = p;
+            increments = new double[]{0.0, p / 2.0, p, (1.0 + p) / 2.0, 1.0};
+        }
+
+        void add(double x) {
+            if (count < 5) {
+                // keep the first 5 values sorted
+                int i = count++;
+                while (i > 0 && q[i - 1] > x) {
+                    q[i] = q[i - 1];
+                    i--;
+                }
+                q[i] = x;
+                if (count == 5) {
+                    for (int j = 0; j < 5; j++)
+                        pos[j] = j + 1;
+                    desired[0] = 1.0;
+                    desired[1] = 1.0 + 2.0 * p;
+                    desired[2] = 1.0 + 4.0 * p;
+                    desired[3] = 3.0 + 2.0 * p;
+                    desired[4] = 5.0;
+                }
+                return;
+            }
+            count++;
+
+            // the cell containing x
+            int k;
+            if (x < q[0]) {
+                q[0] = x;
+                k = 0;
+            } else if (x >= q[4]) {
+                q[4] = x;
+                k = 3;
+            } else {
+                k = 0;
+                while (x >= q[k + 1])
+                    k++;
+            }
+            for (int i = k + 1; i < 5; i++)
+                pos[i]++;
+            for (int i = 0; i < 5; i++)
+                desired[i] += increments[i];
+
+            // adjust the heights of 3 middle markers
+            for (int i = 1; i < 4; i++) {
+                double d = desired[i] - pos[i];
+                if ((d >= 1.0 && pos[i + 1] - pos[i] > 1.0) || (d <= -1.0 && pos[i - 1] - pos[i] < -1.0)) {
+                    int sign = d > 0 ? 1 : -1;
+                    double parabolic = parabolic(i, sign);
+                    if (q[i - 1] < parabolic && parabolic < q[i + 1])
+                        q[i] = parabolic;
+                    else
+                        q[i] += sign * (q[i + sign] - q[i]) / (pos[i + sign] - pos[i]);
+                    pos[i] += sign;
+                }
+            }
+        }
+
+        private double parabolic(int i, int d) {
+            return q[i] + d / (pos[i + 1] - pos[i - 1]) *
+                    ((pos[i] - pos[i - 1] + d) * (q[i + 1] - q[i]) / (pos[i + 1] - pos[i]) +
+                            (pos[i + 1] - pos[i] - d) * (q[i] - q[i - 1]) / (pos[i] - pos[i - 1]));
+        }
+
+        double getQuantile() {
+            if (count == 0) return Double.NaN;
+            if (count > 5) return q[2];
+            // interpolate the sorted values
+            double h = p * (count - 1);
+            int lower = (int) Math.floor(h);
+            int upper = Math.min(lower + 1, count - 1);
+            return q[lower] + (h - lower) * (q[upper] - q[lower]);
+        }
+    }
+
+}
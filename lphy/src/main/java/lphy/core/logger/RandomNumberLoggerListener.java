@@ -14,6 +14,8 @@ import java.util.Map;
 /**
  * Particularly used to log the number values of a named random variable,
  * boolean is converted to 1.0 or 0.0.
+ * Each number is added to the {@link OnlineStatistics} of its id, so the summaries are available
+ * during the simulation, and the values are only kept if required.
  */
 public class RandomNumberLoggerListener implements SimulatorListener {
 
@@ -27,19 +29,35 @@ public class RandomNumberLoggerListener implements SimulatorListener {
      */
     private Map<String, List<Double>> formattedValuesById = new HashMap<>();
 
+    /**
+     * The key is same as formattedValuesById, the value is the summary of all numbers at that id.
+     */
+    private Map<String, OnlineStatistics> statisticsById = new HashMap<>();
+
+    // if false, formattedValuesById is empty
+    private final boolean keepValues;
+
     private List<String> headers = new ArrayList<>();
     //TODO no footer?
 //    public List<String> footers = new ArrayList<>();
 
     /**
-     * the list of row names, size = sampleCount.
+     * the list of row names, size = sampleCount, which is empty if the values are not kept.
      */
     private List<String> rowNames = new ArrayList<>();
 
     int sampleCount;
 
     public RandomNumberLoggerListener() {
+        this(true);
+    }
 
+    /**
+     * @param keepValues  if false, only the {@link OnlineStatistics} are kept,
+     *                    but not the values of every replicate.
+     */
+    public RandomNumberLoggerListener(boolean keepValues) {
+        this.keepValues = keepValues;
     }
 
     @Override
@@ -54,6 +72,7 @@ public class RandomNumberLoggerListener implements SimulatorListener {
             rowNames.clear();
             headers.clear();
             formattedValuesById.clear();
+            statisticsById.clear();
         }
 
         boolean isFirstValue = true;
@@ -79,31 +98,16 @@ public class RandomNumberLoggerListener implements SimulatorListener {
                         // row names
                         String rowName = formatter.getRowName(index);
                         if (isFirstValue) {
-                            rowNames.add(rowName);
+                            if (keepValues)
+                                rowNames.add(rowName);
                             isFirstValue = false;
                         }
 
-                        // formatted value in string
-                        List<Double> formattedValues = formattedValuesById
-                                .computeIfAbsent(id, k -> new ArrayList<>());
-                        // here require the original value if value is array,
-                        // but return the formatted string at ith element
-                        String body = formatter.format(value.value());
-
-                        // TODO not sure if this can be improved
-                        Double num;
-                        try {
-                            num = Double.valueOf(body);
-                        } catch(NumberFormatException e) {
-                            //not a double
-                           if ("true".equalsIgnoreCase(body))
-                               num = 1.0;
-                           else if ("false".equalsIgnoreCase(body))
-                               num = 0.0;
-                           else
-                               throw new RuntimeException("Number is required, but " + body);
-                        }
-                        formattedValues.add(num);
+                        double num = getNumber(value, formatter);
+
+                        statisticsById.computeIfAbsent(id, k -> new OnlineStatistics()).addValue(num);
+                        if (keepValues)
+                            formattedValuesById.computeIfAbsent(id, k -> new ArrayList<>()).add(num);
 
                     } // end if
                 } // end for j
@@ -111,7 +115,7 @@ public class RandomNumberLoggerListener implements SimulatorListener {
             } // end if isNamedRandomNumber
         }
         sampleCount = index + 1;
-        if (sampleCount != rowNames.size())
+        if (keepValues && sampleCount != rowNames.size())
             throw new IllegalArgumentException("Row names " + rowNames.size() +
                     " must be same to the sample count " + sampleCount + " !");
     }
@@ -121,6 +125,31 @@ public class RandomNumberLoggerListener implements SimulatorListener {
 
     }
 
+    // the number at the element of formatter, where boolean is 1.0 or 0.0
+    private double getNumber(Value value, ValueFormatter formatter) {
+        // here require the original value if value is array,
+        // but return the ith element
+        Object cell = ValueFormatHandler.ValuePerCell.getCellValue(value.value(), formatter);
+        if (cell instanceof Number number)
+            return number.doubleValue();
+        if (cell instanceof Boolean bool)
+            return bool ? 1.0 : 0.0;
+
+        // otherwise parse the formatted string
+        String body = formatter.format(value.value());
+        try {
+            return Double.parseDouble(body);
+        } catch(NumberFormatException e) {
+            //not a double
+            if ("true".equalsIgnoreCase(body))
+                return 1.0;
+            else if ("false".equalsIgnoreCase(body))
+                return 0.0;
+            else
+                throw new RuntimeException("Number is required, but " + body);
+        }
+    }
+
     public boolean isNamedRandomNumber(Value randomValue) {
         boolean random = NamedRandomValueSimulator.isNamedRandomValue(randomValue);
         boolean number = ValueUtils.isNumberOrNumberArray(randomValue) ||
@@ -139,10 +168,24 @@ public class RandomNumberLoggerListener implements SimulatorListener {
         return sampleCount;
     }
 
+    /**
+     * @return  the numbers of every replicate by id, which is empty if the values are not kept.
+     */
     public Map<String, List<Double>> getFormattedValuesById() {
         return formattedValuesById;
     }
 
+    /**
+     * @return  the summary statistics by id, which are updated by every replicate.
+     */
+    public Map<String, OnlineStatistics> getStatisticsById() {
+        return statisticsById;
+    }
+
+    public boolean isKeepValues() {
+        return keepValues;
+    }
+
     public List<String> getHeaders() {
         return headers;
     }
@@ -1,6 +1,9 @@
 package lphy.core.logger;
 
 import lphy.core.io.FileConfig;
+import lphy.core.io.OutputFileWriter;
+import lphy.core.io.OutputFormat;
+import lphy.core.io.OutputQueue;
 import lphy.core.io.OutputSystem;
 import lphy.core.model.Value;
 import lphy.core.simulator.SimulatorListener;
@@ -8,6 +11,8 @@ import lphy.core.spi.LoaderManager;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
@@ -21,7 +26,8 @@ public class  ValueFileLoggerListener implements SimulatorListener {
 
     /**
      * For ValuePerFile, the logging is processed in {@link #replicate(int, List)} in runtime,
-     * so no values are required to store.
+     * so no values are required to store. The files are written by {@link OutputQueue} in the background,
+     * and {@link #complete()} waits for them.
      */
 
     /**
@@ -42,6 +48,12 @@ public class  ValueFileLoggerListener implements SimulatorListener {
     StringBuilder valuesByRepColNamesBuilder;
     StringBuilder valuesByRepBuilder;
 
+    /**
+     * For ValuePerCell in {@link OutputFormat#BINARY}, each replicate is written as a row
+     * of typed columns into {@link ColumnarLogWriter}, instead of the tab-delimited text.
+     */
+    ColumnarLogWriter columnarLogWriter;
+
     // numReplicates, filePrefix
     FileConfig fileConfig;
 
@@ -51,7 +63,12 @@ public class  ValueFileLoggerListener implements SimulatorListener {
         OutputSystem.setOutputDirectory(dir);
     }
 
+    /**
+     * @return  the output directory of the current run, see {@link FileConfig#getOutputDirectory()}.
+     */
     public String getOutputDir() {
+        if (fileConfig != null)
+            return fileConfig.getOutputDirectory().getAbsolutePath();
         return OutputSystem.getOutputDirectory().getAbsolutePath();
     }
 
@@ -95,30 +112,38 @@ public class  ValueFileLoggerListener implements SimulatorListener {
      */
     @Override
     public void replicate(int index, List<Value> values) {
+        // index starts from 0, or from the first replicate in the shard
+        final boolean first = index <= fileConfig.getFirstReplicate();
         if (metadataById == null)
             metadataById = new TreeMap<>(); // sort by value id
-        else if (index < 1) // index starts from 0
+        else if (first)
             metadataById.clear();
 
         if (linesById == null)
             linesById = new TreeMap<>(); // sort by index
-        else if (index < 1) // index starts from 0
+        else if (first)
             linesById.clear();
 
-        if (index < 1) {
+        if (first) {
             valuesByRepBuilder = new StringBuilder();
             valuesByRepColNamesBuilder = new StringBuilder();
+            closeColumnarLog();
         }
 
         validate(index, fileConfig.numReplicates);
 
         // for Mode.VALUE_PER_CELL
         boolean firstColValuePerCell = true;
+        // compressed or binary
+        OutputFormat outputFormat = fileConfig.getOutputFormat();
+        boolean columnar = outputFormat == OutputFormat.BINARY;
+        List<String> columnNames = new ArrayList<>();
+        List<Object> cells = new ArrayList<>();
 
         for (int i = 0; i < values.size(); i++) {
 
             Value value = values.get(i);
-            List<ValueFormatter> formatters = valueFormatResolver.getFormatter(value);
+            List<ValueFormatter> formatters = valueFormatResolver.getFormatter(value, outputFormat);
 
             // if it is array, then one ValueFormatter for one element
             for (int j = 0; j < formatters.size(); j++) {
@@ -130,24 +155,32 @@ public class  ValueFileLoggerListener implements SimulatorListener {
 
                 } else if (formatter.getMode() == ValueFormatter.Mode.VALUE_PER_FILE) {
                     // e.g. Alignment
-                    ValueFormatHandler.ValuePerFile.createFile(index, formatter,
-                            fileConfig.getFilePrefix(), fileConfig.getNumReplicates());
+                    if (formatter.isStreamable()) {
+                        ValueFormatHandler.ValuePerFile.writeValuePerFile(fileConfig.getOutputDirectory(), index, value, formatter,
+                                fileConfig.getFilePrefix(), fileConfig.getNumReplicates(), outputFormat);
+                    } else {
+                        OutputFileWriter writer = ValueFormatHandler.ValuePerFile.createFile(fileConfig.getOutputDirectory(), index, formatter,
+                                fileConfig.getFilePrefix(), fileConfig.getNumReplicates(), outputFormat);
 
-                    ValueFormatHandler.ValuePerFile
-                            .exportValuePerFile(index, value, formatter);
+                        ValueFormatHandler.ValuePerFile
+                                .exportValuePerFile(writer, index, value, formatter);
+                    }
 
                 } else if (formatter.getMode() == ValueFormatter.Mode.VALUE_PER_LINE) {
                     // process meta data given 1st value
-                    if (index == 0)
+                    if (first)
                         ValueFormatHandler.ValuePerLine.processHeaderFooter(formatter,
-                                metadataById, fileConfig.getFilePrefix());
+                                metadataById, fileConfig.getSharedFilePrefix(), outputFormat);
 
                     // e.g. Trees
                     ValueFormatHandler.ValuePerLine.populateValues(index, value, formatter, linesById);
 
+                } else if (formatter.getMode() == ValueFormatter.Mode.VALUE_PER_CELL && columnar) {
+                    ValueFormatHandler.ValuePerCell.addColumnNameAndCell(value, formatter, columnNames, cells);
+
                 } else if (formatter.getMode() == ValueFormatter.Mode.VALUE_PER_CELL) {
                     // add col names and parameters values
-                    ValueFormatHandler.ValuePerCell.addColumnNamesAndLines(index, firstColValuePerCell,
+                    ValueFormatHandler.ValuePerCell.addColumnNamesAndLines(index, first, firstColValuePerCell,
                             value, formatter, valuesByRepColNamesBuilder, valuesByRepBuilder);
                     firstColValuePerCell = false;
 
@@ -156,20 +189,56 @@ public class  ValueFileLoggerListener implements SimulatorListener {
             } // end for j
         } // end for i
         // ValuePerCell each line finish here
-        valuesByRepBuilder.append("\n");
+        if (columnar)
+            writeColumnarRow(columnNames, cells);
+        else
+            valuesByRepBuilder.append("\n");
+    }
+
+    private void writeColumnarRow(List<String> columnNames, List<Object> cells) {
+        if (cells.isEmpty())
+            return;
+        try {
+            if (columnarLogWriter == null)
+                columnarLogWriter = ValueFormatHandler.ValuePerCell
+                        .createColumnarLog(fileConfig.getOutputDirectory(), ".log", fileConfig.getSharedFilePrefix());
+            columnarLogWriter.writeRow(columnNames, cells);
+        } catch (IOException e) {
+            LoggerUtils.log.severe("Cannot write columnar log : " + e.getMessage());
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void closeColumnarLog() {
+        if (columnarLogWriter == null)
+            return;
+        try {
+            columnarLogWriter.close();
+        } catch (IOException e) {
+            LoggerUtils.log.severe("Cannot close columnar log : " + e.getMessage());
+            throw new UncheckedIOException(e);
+        } finally {
+            columnarLogWriter = null;
+        }
     }
 
     @Override
     public void complete() {
 
         if (linesById != null)
-            ValueFormatHandler.ValuePerLine.exportValuePerLine(linesById, metadataById);
+            ValueFormatHandler.ValuePerLine.exportValuePerLine(fileConfig.getOutputDirectory(), linesById, metadataById,
+                    fileConfig.getOutputFormat());
 
         if (! isStringBuilderEmpty(valuesByRepBuilder))
             // e.g. .log
-            ValueFormatHandler.ValuePerCell.export(valuesByRepColNamesBuilder, valuesByRepBuilder,
-                    ".log", fileConfig.getFilePrefix());
+            ValueFormatHandler.ValuePerCell.export(fileConfig.getOutputDirectory(), valuesByRepColNamesBuilder, valuesByRepBuilder,
+                    ".log", fileConfig.getSharedFilePrefix(), fileConfig.getOutputFormat());
+
+        // e.g. .log.clog
+        closeColumnarLog();
 
+        // wait for the files written in the background
+        OutputQueue.getInstance().await();
     }
 
     public static boolean isStringBuilderEmpty(StringBuilder stringBuilder) {
@@ -1,10 +1,16 @@
 package lphy.core.logger;
 
 import lphy.core.io.FileConfig;
+import lphy.core.io.OutputFileWriter;
+import lphy.core.io.OutputFormat;
 import lphy.core.io.OutputSystem;
+import lphy.core.jfr.FormatEvent;
+import lphy.core.jfr.WriteEvent;
 import lphy.core.model.Value;
 
-import java.io.FileNotFoundException;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -15,18 +21,81 @@ public class ValueFormatHandler {
     public static final CharSequence DELIMITER = "\t";
 
 
-    public static void createFile(String fileName) {
+    public static OutputFileWriter createFile(String fileName) {
+        return createFile(fileName, OutputFormat.TEXT);
+    }
+
+    /**
+     * Same as {@link #createFile(String)}, but the file is compressed if required.
+     * @param fileName      the file name including the extension of the output format.
+     * @param outputFormat  {@link OutputFormat}
+     * @return  the writer of this file, whose content is written in the background.
+     */
+    public static OutputFileWriter createFile(String fileName, OutputFormat outputFormat) {
+        return createFile(OutputSystem.getOutputDirectory(), fileName, outputFormat);
+    }
+
+    /**
+     * Same as {@link #createFile(String, OutputFormat)}, but in the given directory,
+     * e.g. {@link FileConfig#getOutputDirectory()}.
+     */
+    public static OutputFileWriter createFile(File outputDir, String fileName, OutputFormat outputFormat) {
+        File outputFile = new File(outputDir, fileName);
+        OutputFileWriter writer;
         try {
-            OutputSystem.setOut(fileName);
-        } catch (FileNotFoundException e) {
-            LoggerUtils.log.severe("Cannot find file " + fileName + " !");
-            e.printStackTrace();
+            writer = new OutputFileWriter(outputFile, outputFormat);
+        } catch (IOException e) {
+            LoggerUtils.log.severe("Cannot create file " + fileName + " !");
+            throw new UncheckedIOException(e);
         }
 
         System.out.println("Create file : " + fileName +
-                " in the directory " + OutputSystem.getOutputDirectory());
+                " in the directory " + outputDir);
+        return writer;
+    }
+
+
+    /**
+     * Format the value, which is recorded by a {@link FormatEvent}.
+     * @param index      the index of the replicate, or -1 if it is unknown.
+     * @param value      the value, or the array if the formatter is for an element.
+     * @param formatter  the formatter of the value.
+     * @return  the formatted string.
+     */
+    static String format(int index, Value value, ValueFormatter formatter) {
+        FormatEvent event = new FormatEvent();
+        event.begin();
+        String formatted = formatter.format(value.value());
+        event.end();
+        if (event.shouldCommit()) {
+            event.formatterClass = formatter.getClass().getName();
+            event.valueId = formatter.getValueID();
+            event.replicate = index;
+            event.setSizes(value.value());
+            event.length = formatted == null ? 0 : formatted.length();
+            event.commit();
+        }
+        return formatted;
+    }
+
+    // the event is committed after the writer is closed
+    private static WriteEvent beginWrite() {
+        WriteEvent event = new WriteEvent();
+        event.begin();
+        return event;
     }
 
+    private static void commitWrite(WriteEvent event, String fileName, String valueId,
+                                    int index, OutputFormat outputFormat) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.fileName = fileName;
+            event.valueId = valueId;
+            event.replicate = index;
+            event.outputFormat = outputFormat.name();
+            event.commit();
+        }
+    }
 
     final static int HEADER_ID = 0;
     final static int FOOTER_ID = 1;
@@ -34,41 +103,96 @@ public class ValueFormatHandler {
 
     public static class ValuePerFile {
 
-        public static void createFile(int index, ValueFormatter formatter,
-                                      String filePrefix, int numReplicates) {
+        public static OutputFileWriter createFile(int index, ValueFormatter formatter,
+                                                  String filePrefix, int numReplicates) {
+            return createFile(index, formatter, filePrefix, numReplicates, OutputFormat.TEXT);
+        }
+
+        public static OutputFileWriter createFile(int index, ValueFormatter formatter,
+                                                  String filePrefix, int numReplicates, OutputFormat outputFormat) {
+            return createFile(OutputSystem.getOutputDirectory(), index, formatter, filePrefix, numReplicates, outputFormat);
+        }
 
-            String fileExtension = formatter.getExtension();
+        public static OutputFileWriter createFile(File outputDir, int index, ValueFormatter formatter,
+                                                  String filePrefix, int numReplicates, OutputFormat outputFormat) {
+            String fileName = getFileName(index, formatter, filePrefix, numReplicates, outputFormat);
+            return ValueFormatHandler.createFile(outputDir, fileName, outputFormat);
+        }
+
+        private static String getFileName(int index, ValueFormatter formatter,
+                                          String filePrefix, int numReplicates, OutputFormat outputFormat) {
+            // e.g. .nexus.gz
+            String fileExtension = formatter.getExtension() + outputFormat.getExtension();
             // If value is array, the id will be appended with index
             String id = formatter.getValueID();
             // e.g. 1 alignment per file
             // if maxId > 0, add postfix, e.g. _0.nexus
-            String fileName = FileConfig
-                    .getOutFileName(id, index, numReplicates, filePrefix, fileExtension);
+            return FileConfig.getOutFileName(id, index, numReplicates, filePrefix, fileExtension);
+        }
 
-            ValueFormatHandler.createFile(fileName);
+        /**
+         * Stream the value into its own file through the channel of {@link OutputFileWriter},
+         * if {@link ValueFormatter#isStreamable()}.
+         */
+        public static void writeValuePerFile(int index, Value value, ValueFormatter formatter,
+                                             String filePrefix, int numReplicates) {
+            writeValuePerFile(index, value, formatter, filePrefix, numReplicates, OutputFormat.TEXT);
+        }
+
+        /**
+         * Stream the value into its own file, which is compressed if required by {@link OutputFormat}.
+         * The bytes are written in the background, while the formatter continues to produce them.
+         */
+        public static void writeValuePerFile(int index, Value value, ValueFormatter formatter,
+                                             String filePrefix, int numReplicates, OutputFormat outputFormat) {
+            writeValuePerFile(OutputSystem.getOutputDirectory(), index, value, formatter,
+                    filePrefix, numReplicates, outputFormat);
+        }
+
+        /**
+         * Same as {@link #writeValuePerFile(int, Value, ValueFormatter, String, int, OutputFormat)},
+         * but in the given directory.
+         */
+        public static void writeValuePerFile(File outputDir, int index, Value value, ValueFormatter formatter,
+                                             String filePrefix, int numReplicates, OutputFormat outputFormat) {
+            String fileName = getFileName(index, formatter, filePrefix, numReplicates, outputFormat);
+
+            WriteEvent event = beginWrite();
+            try (OutputFileWriter writer = ValueFormatHandler.createFile(outputDir, fileName, outputFormat)) {
+                // here require the original value if value is array,
+                // but write the ith element
+                formatter.write(value.value(), writer.getChannel());
+            } catch (IOException e) {
+                LoggerUtils.log.severe("Cannot write file " + fileName + " !");
+                e.printStackTrace();
+            }
+            commitWrite(event, fileName, formatter.getValueID(), index, outputFormat);
         }
 
 
-        public static void exportValuePerFile(int index, Value value, ValueFormatter formatter) {
+        public static void exportValuePerFile(OutputFileWriter writer, int index, Value value,
+                                              ValueFormatter formatter) {
+            WriteEvent event = beginWrite();
 
             // here require the original id if value is array
             String header = formatter.header();
             // in case 1 header for multiple bodies
             if (header != null || !header.trim().isEmpty())
-                OutputSystem.out.println(header);
+                writer.println(header);
 
             // overwrite to get indents
             String indent = formatter.getRowName(index);
             // here require the original value if value is array,
             // but return the formatted string at ith element
-            String body = formatter.format(value.value());
-            OutputSystem.out.println(indent + body);
+            String body = format(index, value, formatter);
+            writer.println(indent + body);
 
             String footer = formatter.footer();
             if (footer != null || !footer.trim().isEmpty())
-                OutputSystem.out.println(footer);
+                writer.println(footer);
 
-            OutputSystem.out.close();
+            writer.close();
+            commitWrite(event, writer.getFile().getName(), formatter.getValueID(), index, writer.getOutputFormat());
 
         }
 
@@ -79,6 +203,11 @@ public class ValueFormatHandler {
         // suppose call once per file
         public static void processHeaderFooter( ValueFormatter formatter,
                                           Map<String, String[]> metadataByValueID, String filePrefix) {
+            processHeaderFooter(formatter, metadataByValueID, filePrefix, OutputFormat.TEXT);
+        }
+
+        public static void processHeaderFooter( ValueFormatter formatter, Map<String, String[]> metadataByValueID,
+                                                String filePrefix, OutputFormat outputFormat) {
             // here require the original id if value is array
             String header = formatter.header();
             // If value is array, the id will be appended with index
@@ -91,7 +220,7 @@ public class ValueFormatHandler {
             // print footers once per file
             metadata[FOOTER_ID] = formatter.footer();
 
-            String fileExtension = formatter.getExtension();
+            String fileExtension = formatter.getExtension() + outputFormat.getExtension();
             // file name, e.g. _psi.trees
             metadata[FILE_NAME_ID] = FileConfig
                     .getOutFileName(id, filePrefix, fileExtension);
@@ -105,7 +234,7 @@ public class ValueFormatHandler {
 
             // here require the original value if value is array,
             // but return the formatted string at ith element
-            String body = formatter.format(value.value());
+            String body = format(index, value, formatter);
             // overwrite for trees
             String rowName = formatter.getRowName(index);
 
@@ -120,30 +249,50 @@ public class ValueFormatHandler {
 
         public static void exportValuePerLine(Map<String, List<String>> formattedLinesByValueID,
                                               Map<String, String[]> metadataByValueID) {
+            exportValuePerLine(formattedLinesByValueID, metadataByValueID, OutputFormat.TEXT);
+        }
+
+        /**
+         * If {@link OutputFormat#BGZIP}, the header is the 1st block,
+         * each line (replicate) is in its own block, and the footer is the last block.
+         */
+        public static void exportValuePerLine(Map<String, List<String>> formattedLinesByValueID,
+                                              Map<String, String[]> metadataByValueID, OutputFormat outputFormat) {
+            exportValuePerLine(OutputSystem.getOutputDirectory(), formattedLinesByValueID, metadataByValueID, outputFormat);
+        }
+
+        public static void exportValuePerLine(File outputDir, Map<String, List<String>> formattedLinesByValueID,
+                                              Map<String, String[]> metadataByValueID, OutputFormat outputFormat) {
             Objects.requireNonNull(formattedLinesByValueID).forEach((formattedValueId, formattedLines) -> {
 
                 String[] metadata = metadataByValueID.get(formattedValueId);
                 // e.g. _psi.trees
                 String fileName = metadata[FILE_NAME_ID];
 
-                createFile(fileName);
+                WriteEvent event = beginWrite();
+                OutputFileWriter writer = createFile(outputDir, fileName, outputFormat);
 
                 // use same header per value
                 String header = metadata[HEADER_ID];
                 if (header != null || !header.trim().isEmpty())
-                    OutputSystem.out.println(header);
+                    writer.println(header);
 
                 // paste rowName and body in one line
                 formattedLines.stream()
                         .filter(line -> line != null && !line.isEmpty())
-                        .forEach(line -> OutputSystem.out.println(line));
+                        .forEach(line -> {
+                            writer.startBlock();
+                            writer.println(line);
+                        });
 
                 // use same footer per value
+                writer.startBlock();
                 String footer = metadata[FOOTER_ID];
                 if (footer != null || !footer.trim().isEmpty())
-                    OutputSystem.out.println(footer);
+                    writer.println(footer);
 
-                OutputSystem.out.close();
+                writer.close();
+                commitWrite(event, fileName, formattedValueId, -1, outputFormat);
 
             });
 
@@ -156,8 +305,18 @@ public class ValueFormatHandler {
         public static void addColumnNamesAndLines(int repId, boolean firstColValuePerCell, Value value,
                                     ValueFormatter formatter, StringBuilder valuesByRepColNamesBuilder,
                                     StringBuilder valuesByRepBuilder) {
+            addColumnNamesAndLines(repId, repId == 0, firstColValuePerCell, value, formatter,
+                    valuesByRepColNamesBuilder, valuesByRepBuilder);
+        }
+
+        /**
+         * @param firstRow  if true, add the column names, e.g. the first replicate in a shard.
+         */
+        public static void addColumnNamesAndLines(int repId, boolean firstRow, boolean firstColValuePerCell,
+                                    Value value, ValueFormatter formatter, StringBuilder valuesByRepColNamesBuilder,
+                                    StringBuilder valuesByRepBuilder) {
             // add col names
-            if (repId == 0) {
+            if (firstRow) {
                 if (firstColValuePerCell)
                     valuesByRepColNamesBuilder.append("Sample");
                 // here require the original id if value is array
@@ -175,23 +334,85 @@ public class ValueFormatHandler {
 
             // here require the original value if value is array,
             // but return the formatted string at ith element
-            String body = formatter.format(value.value());
+            String body = format(repId, value, formatter);
             valuesByRepBuilder.append(DELIMITER).append(body);
         }
 
 
+        /**
+         * Add the column name and the typed cell value of one element for {@link ColumnarLogWriter}.
+         * Numbers and booleans are kept as they are, otherwise the formatted string is used.
+         */
+        public static void addColumnNameAndCell(Value value, ValueFormatter formatter,
+                                                List<String> columnNames, List<Object> cells) {
+            columnNames.add(formatter.header());
+            Object cell = getCellValue(value.value(), formatter);
+            if (ColumnarLog.ColumnType.of(cell) == ColumnarLog.ColumnType.STRING)
+                cell = format(-1, value, formatter);
+            cells.add(cell);
+        }
+
+        // the element of an array if the formatter is for an element, otherwise the value itself
+        static Object getCellValue(Object value, ValueFormatter formatter) {
+            if (formatter instanceof ArrayElementFormatter<?> elementFormatter &&
+                    value instanceof Object[] array && elementFormatter.arrayIndex < array.length)
+                return array[elementFormatter.arrayIndex];
+            if (formatter instanceof Array2DElementFormatter<?> elementFormatter &&
+                    value instanceof Object[][] array2D && elementFormatter.rowIndex < array2D.length &&
+                    elementFormatter.colIndex < array2D[elementFormatter.rowIndex].length)
+                return array2D[elementFormatter.rowIndex][elementFormatter.colIndex];
+            return value;
+        }
+
+        /**
+         * @return  the writer of the columnar log, named by the file prefix and {@link ColumnarLog#EXTENSION}.
+         */
+        public static ColumnarLogWriter createColumnarLog(String fileExtension, String filePrefix) throws IOException {
+            return createColumnarLog(OutputSystem.getOutputDirectory(), fileExtension, filePrefix);
+        }
+
+        public static ColumnarLogWriter createColumnarLog(File outputDir, String fileExtension,
+                                                          String filePrefix) throws IOException {
+            String fileName = FileConfig.getOutFileName(filePrefix, fileExtension + ColumnarLog.EXTENSION);
+            File outputFile = new File(outputDir, fileName);
+            return new ColumnarLogWriter(outputFile.toPath());
+        }
+
         public static void export(StringBuilder valuesByRepColNamesBuilder, StringBuilder valuesByRepBuilder,
                                   String fileExtension, String filePrefix ) {
+            export(valuesByRepColNamesBuilder, valuesByRepBuilder, fileExtension, filePrefix, OutputFormat.TEXT);
+        }
 
-//            String fileExtension = formatter.getExtension();
-            String fileName = FileConfig.getOutFileName(filePrefix, fileExtension);
-            ValueFormatHandler.createFile(fileName);
+        /**
+         * If {@link OutputFormat#BGZIP}, the column names are the 1st block,
+         * and each row (replicate) is in its own block.
+         */
+        public static void export(StringBuilder valuesByRepColNamesBuilder, StringBuilder valuesByRepBuilder,
+                                  String fileExtension, String filePrefix, OutputFormat outputFormat) {
+            export(OutputSystem.getOutputDirectory(), valuesByRepColNamesBuilder, valuesByRepBuilder,
+                    fileExtension, filePrefix, outputFormat);
+        }
 
-            OutputSystem.out.println(valuesByRepColNamesBuilder);
-            OutputSystem.out.println(valuesByRepBuilder);
+        public static void export(File outputDir, StringBuilder valuesByRepColNamesBuilder, StringBuilder valuesByRepBuilder,
+                                  String fileExtension, String filePrefix, OutputFormat outputFormat) {
+
+//            String fileExtension = formatter.getExtension();
+            String fileName = FileConfig.getOutFileName(filePrefix, fileExtension + outputFormat.getExtension());
+            WriteEvent event = beginWrite();
+            OutputFileWriter writer = ValueFormatHandler.createFile(outputDir, fileName, outputFormat);
+
+            writer.println(valuesByRepColNamesBuilder);
+            if (outputFormat == OutputFormat.BGZIP) {
+                valuesByRepBuilder.toString().lines().forEach(line -> {
+                    writer.startBlock();
+                    writer.println(line);
+                });
+            } else
+                writer.println(valuesByRepBuilder);
 //TODO ignore footer at the moment
 
-            OutputSystem.out.close();
+            writer.close();
+            commitWrite(event, fileName, null, -1, outputFormat);
 
         }
 
@@ -1,5 +1,6 @@
 package lphy.core.logger;
 
+import lphy.core.io.OutputFormat;
 import lphy.core.model.Value;
 
 import java.lang.reflect.Array;
@@ -15,6 +16,8 @@ public class ValueFormatResolver {
 
     // after newInstance
     private static Map<Class<?>, Class<? extends ValueFormatter>> resolvedFormatterClasses;
+    // only used for OutputFormat.BINARY
+    private static Map<Class<?>, Class<? extends ValueFormatter>> resolvedBinaryFormatterClasses;
     private static final int DEFAULT_FORMATTER = 0; // 1st formatter
 
     public ValueFormatResolver(Map<Class<?>, Set<Class<? extends ValueFormatter>>> valueFormatterClasses) {
@@ -44,6 +47,35 @@ public class ValueFormatResolver {
      * @see #createInstanceFrom(Class, Object...)
      */
     public List<ValueFormatter> getFormatter(Value value) {
+        return getFormatter(value, resolvedFormatterClasses);
+    }
+
+    /**
+     * @param value         {@link Value}
+     * @param outputFormat  if {@link OutputFormat#BINARY}, the {@link BinaryValueFormatter} registered
+     *                      for this data type is preferred, otherwise same as {@link #getFormatter(Value)}.
+     * @return  The list of ValueFormatters.
+     */
+    public List<ValueFormatter> getFormatter(Value value, OutputFormat outputFormat) {
+        if (outputFormat == OutputFormat.BINARY && hasFormatterClass(value, resolvedBinaryFormatterClasses))
+            return getFormatter(value, resolvedBinaryFormatterClasses);
+        return getFormatter(value);
+    }
+
+    private boolean hasFormatterClass(Value value, Map<Class<?>, Class<? extends ValueFormatter>> formatterClasses) {
+        if (formatterClasses.isEmpty())
+            return false;
+        if (getFormatterClass(value.getType(), formatterClasses) != null)
+            return true;
+        if (value.value() instanceof Object[][] arr)
+            return arr.length > 0 && arr[0].length > 0 && formatterClasses.containsKey(arr[0][0].getClass());
+        if (value.value() instanceof Object[] arr)
+            return arr.length > 0 && formatterClasses.containsKey(arr[0].getClass());
+        return false;
+    }
+
+    private List<ValueFormatter> getFormatter(Value value,
+                                              Map<Class<?>, Class<? extends ValueFormatter>> resolvedFormatterClasses) {
         Class valType = value.getType();
         // if data type is registered in SPI, including special ValueFormatter for T[] or T[][]
 
@@ -245,6 +277,7 @@ public class ValueFormatResolver {
 
     private void init() {
         resolvedFormatterClasses = new HashMap<>();
+        resolvedBinaryFormatterClasses = new HashMap<>();
 
         // add primary data types first
         resolvedFormatterClasses.put(Integer.class, ValueFormatter.Base.class);
@@ -261,7 +294,20 @@ public class ValueFormatResolver {
 
         for (Map.Entry<Class<?>, Set<Class<? extends ValueFormatter>>> entry : valueFormatterClasses.entrySet()) {
             Class<?> cls = entry.getKey();
-            Set<Class<? extends ValueFormatter>> fmClsSet = entry.getValue();
+            Set<Class<? extends ValueFormatter>> fmClsSet = new HashSet<>(entry.getValue());
+
+            // binary formatters are only used when the binary output is required
+            Set<Class<? extends ValueFormatter>> binaryFmClsSet = new HashSet<>();
+            for (Class<? extends ValueFormatter> fmCls : entry.getValue()) {
+                if (BinaryValueFormatter.class.isAssignableFrom(fmCls))
+                    binaryFmClsSet.add(fmCls);
+            }
+            if (!binaryFmClsSet.isEmpty()) {
+                resolvedBinaryFormatterClasses.put(cls, resolveFormatter(cls, binaryFmClsSet));
+                fmClsSet.removeAll(binaryFmClsSet);
+                if (fmClsSet.isEmpty())
+                    continue;
+            }
 
             // TODO
             Class<? extends ValueFormatter> f = null;
@@ -3,6 +3,11 @@ package lphy.core.logger;
 import lphy.core.model.Symbols;
 import lphy.core.model.Value;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
 /**
  * The formatter to parse the {@link Value#value()} into String.
  * It aims to process single element only.
@@ -49,6 +54,30 @@ public interface ValueFormatter<T> {
         return "";
     }
 
+    /**
+     * @return true, if the value can be written straight into a file by
+     *         {@link #write(Object, WritableByteChannel)}, which is preferred in
+     *         {@link Mode#VALUE_PER_FILE} for large values (e.g. alignments).
+     */
+    default boolean isStreamable() {
+        return false;
+    }
+
+    /**
+     * Write the header, the formatted value and the footer into the channel,
+     * without building the whole content into a String in memory.
+     * Override it if {@link #isStreamable()}, otherwise the content is formatted into a String first.
+     * @param value    It is from {@link lphy.core.model.Value#value()}
+     * @param channel  the channel of the output file, which is closed by the caller.
+     * @throws IOException
+     */
+    default void write(T value, WritableByteChannel channel) throws IOException {
+        String content = String.join("\n", header(), format(value), footer()) + "\n";
+        ByteBuffer buffer = ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+    }
+
     // overwrite to return "", if no row name.
     default String getRowName(int rowId) {
         return String.valueOf(rowId);
@@ -0,0 +1,129 @@
+package lphy.core.model;
+
+import lphy.core.model.annotation.Citation;
+import lphy.core.model.annotation.CitationUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Cache the narrative fragment of each value, keyed by the identity of its generator,
+ * so that the narrative of unchanged nodes is not regenerated after each sample.
+ * A fragment is regenerated if the generator is re-created by the parser, or if the value,
+ * the inputs of the generator or their values are changed, e.g. by sampling or by setting a constant,
+ * which keep the generator.
+ * The cache keeps the fragments used in the current and the previous pass only,
+ * so the fragments of removed nodes are dropped after one pass.
+ * One cache is used for one {@link Narrative}, and it is not thread-safe.
+ * @see NarrativeUtils#getNarrative(lphy.core.parser.graphicalmodel.GraphicalModel, Narrative, boolean, boolean, NarrativeCache)
+ */
+public class NarrativeCache {
+
+    private Map<Key, Fragment> current = new HashMap<>();
+    private Map<Key, Fragment> previous = new HashMap<>();
+
+    /**
+     * Start a pass of the narrative generation,
+     * where the fragments not used since the previous pass will be dropped.
+     */
+    public void startPass() {
+        previous = current;
+        current = new HashMap<>();
+    }
+
+    /**
+     * Clear all fragments, e.g. when the preferences of the narrative are changed.
+     */
+    public void clear() {
+        current.clear();
+        previous.clear();
+    }
+
+    /**
+     * @return the narrative of the value from its generator, which is cached.
+     *         The citation of the generator is cited again to the narrative when the cache is hit,
+     *         and the fragment is regenerated if the citation text has been changed.
+     */
+    public String getInferenceNarrative(Value value, boolean unique, Narrative narrative) {
+        Generator generator = Objects.requireNonNull(value.getGenerator());
+        Key key = new Key(generator, value.isAnonymous() ? null : value.getId(), unique);
+
+        Citation citation = CitationUtils.getCitation(generator.getClass());
+        String citationString = citation != null ? narrative.cite(citation) : null;
+
+        Object[] state = getState(value, generator);
+
+        Fragment fragment = current.get(key);
+        if (fragment == null)
+            fragment = previous.remove(key);
+
+        if (fragment == null || !Objects.equals(fragment.citationString, citationString) ||
+                !sameIdentities(fragment.state, state)) {
+            String text = generator.getInferenceNarrative(value, unique, narrative);
+            fragment = new Fragment(text, citationString, state);
+        }
+        current.put(key, fragment);
+        return fragment.text;
+    }
+
+    public int size() {
+        return current.size();
+    }
+
+    // the value, and the inputs of generator with their values in the order of parameter names
+    private static Object[] getState(Value value, Generator generator) {
+        Map<String, Value> params = new TreeMap<>(generator.getParams());
+        Object[] state = new Object[2 + 2 * params.size()];
+        int i = 0;
+        state[i++] = value;
+        state[i++] = value.value();
+        for (Value param : params.values()) {
+            state[i++] = param;
+            state[i++] = param == null ? null : param.value();
+        }
+        return state;
+    }
+
+    // compared by identity, since the values may be changed in place
+    private static boolean sameIdentities(Object[] state1, Object[] state2) {
+        if (state1.length != state2.length)
+            return false;
+        for (int i = 0; i < state1.length; i++) {
+            if (state1[i] != state2[i])
+                return false;
+        }
+        return true;
+    }
+
+    private record Fragment(String text, String citationString, Object[] state) {
+    }
+
+    // generator is compared by identity
+    private static final class Key {
+        final Generator generator;
+        final String valueId;
+        final boolean unique;
+
+        Key(Generator generator, String valueId, boolean unique) {
+            this.generator = generator;
+            this.valueId = valueId;
+            this.unique = unique;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key key)) return false;
+            return generator == key.generator && unique == key.unique &&
+                    Objects.equals(valueId, key.valueId);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * System.identityHashCode(generator) + Objects.hashCode(valueId)) +
+                    Boolean.hashCode(unique);
+        }
+    }
+}
@@ -131,6 +131,16 @@ public class NarrativeUtils {
     }
 
     public static String getNarrative(GraphicalModel model, Narrative narrative, boolean data, boolean includeModelBlock) {
+        return getNarrative(model, narrative, data, includeModelBlock, null);
+    }
+
+    /**
+     * @param cache  if not null, the narrative of each value is taken from the cache
+     *               unless its generator is changed.
+     * @see NarrativeCache
+     */
+    public static String getNarrative(GraphicalModel model, Narrative narrative, boolean data,
+                                      boolean includeModelBlock, NarrativeCache cache) {
 
         Map<String, Integer> nameCounts = new HashMap<>();
 
@@ -174,7 +184,7 @@ public class NarrativeUtils {
                 String name = getName(dataValue);
                 Integer count = nameCounts.get(name);
                 if (count != null) {
-                    String valueNarrative = getValueNarrative(dataValue, narrative, count == 1);
+                    String valueNarrative = getValueNarrative(dataValue, narrative, count == 1, cache);
                     builder.append(valueNarrative);
                     if (valueNarrative.length() > 0) builder.append("\n");
                 } else {
@@ -194,7 +204,7 @@ public class NarrativeUtils {
                 Integer count = nameCounts.get(name);
 
                 if (count != null) {
-                    String valueNarrative = getValueNarrative(modelValue, narrative, count == 1);
+                    String valueNarrative = getValueNarrative(modelValue, narrative, count == 1, cache);
                     builder.append(valueNarrative);
                     if (valueNarrative.length() > 0) builder.append("\n");
                 } else {
@@ -208,8 +218,10 @@ public class NarrativeUtils {
     }
 
     // it was String getNarrative(boolean unique, Narrative narrative) in Value
-    private static String getValueNarrative(Value value, Narrative narrative, boolean unique) {
+    private static String getValueNarrative(Value value, Narrative narrative, boolean unique, NarrativeCache cache) {
         if (value.getGenerator() != null) {
+            if (cache != null)
+                return cache.getInferenceNarrative(value, unique, narrative);
             return value.getGenerator().getInferenceNarrative(value, unique, narrative);
         } else {
             if (!value.isAnonymous()) return value.toString();
@@ -0,0 +1,19 @@
+package lphy.core.model;
+
+/**
+ * A {@link GenerativeDistribution} whose sample can be deferred, when its value is a sink of the model,
+ * and then simulated block by block straight into the output file by a streamable
+ * {@link lphy.core.logger.ValueFormatter}, instead of being held in memory.
+ * @param <T>  the type of the sampled value.
+ * @see lphy.core.simulator.Sampler#setStreamSinks(boolean)
+ */
+public interface SinkStreamable<T> {
+
+    /**
+     * Sample given the current inputs, but only keep what is required to simulate the value later.
+     * @return  the random variable whose value is simulated while being written,
+     *          or null if this sample cannot be streamed.
+     */
+    RandomVariable<T> sampleStreamed();
+
+}
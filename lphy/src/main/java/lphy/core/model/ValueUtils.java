@@ -59,6 +59,20 @@ public class ValueUtils {
         return values;
     }
 
+    /**
+     * @param values  the values, e.g. sampled by {@link lphy.core.simulator.Sampler#sample(Long)}.
+     * @param id      the id of a named value.
+     * @return  the value having the id.
+     * @throws IllegalArgumentException  if no value has the id.
+     */
+    public static Value<?> getValueById(List<Value> values, String id) {
+        for (Value<?> value : values) {
+            if (id.equals(value.getId()))
+                return value;
+        }
+        throw new IllegalArgumentException("Cannot find the value " + id + " !");
+    }
+
     public static String valueToString(Object value) {
 
         if (value.getClass().isArray()) {
@@ -1,6 +1,7 @@
 package lphy.core.parser;
 
 import lphy.core.exception.SimulatorParsingException;
+import lphy.core.jfr.ParseEvent;
 import lphy.core.logger.LoggerUtils;
 import lphy.core.model.*;
 import lphy.core.model.datatype.*;
@@ -19,6 +20,7 @@ import lphy.core.vectorization.array.*;
 import lphy.core.vectorization.operation.Range;
 import lphy.core.vectorization.operation.RangeList;
 import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.misc.Interval;
 import org.antlr.v4.runtime.tree.ParseTree;
 
 import java.io.BufferedReader;
@@ -171,6 +173,34 @@ public class LPhyListenerImpl extends LPhyBaseListener implements LPhyParserActi
             } else throw new RuntimeException("Attempted to strip quotes, but the string was not quoted.");
         }
 
+        @Override
+        public Object visitDeterm_relation_line(Determ_relation_lineContext ctx) {
+            return visitStatement(ctx);
+        }
+
+        @Override
+        public Object visitRelation(RelationContext ctx) {
+            return visitStatement(ctx);
+        }
+
+        // visit one statement, which is recorded by a ParseEvent
+        private Object visitStatement(ParserRuleContext ctx) {
+            ParseEvent event = new ParseEvent();
+            event.begin();
+            Object result = visitChildren(ctx);
+            event.end();
+            if (event.shouldCommit()) {
+                // the original text including whitespace
+                event.statement = ctx.stop == null ? ctx.getText() : ctx.start.getInputStream().getText(
+                        Interval.of(ctx.start.getStartIndex(), ctx.stop.getStopIndex()));
+                // determ_relation or stoch_relation, whose 1st child is the var
+                event.valueId = ctx.getChild(0).getChild(0).getText();
+                event.context = context.name();
+                event.commit();
+            }
+            return result;
+        }
+
         @Override
         public Value visitDeterm_relation(Determ_relationContext ctx) {
             // TODO: why not Func -- Func has no apply()?
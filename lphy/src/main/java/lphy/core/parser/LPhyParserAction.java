@@ -2,10 +2,14 @@ package lphy.core.parser;
 
 import lphy.core.parser.antlr.LPhyLexer;
 import lphy.core.parser.antlr.LPhyParser;
+import org.antlr.v4.runtime.BailErrorStrategy;
 import org.antlr.v4.runtime.BaseErrorListener;
 import org.antlr.v4.runtime.CharStreams;
 import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.DefaultErrorStrategy;
 import org.antlr.v4.runtime.Lexer;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
 import org.antlr.v4.runtime.tree.AbstractParseTreeVisitor;
 import org.antlr.v4.runtime.tree.ParseTree;
 
@@ -28,6 +32,7 @@ public interface LPhyParserAction {
      * Sanitise the line, create the error listener,
      * then get tokens, and determine which parser to apply to tokens,
      * finally visit the parse tree returned from the parser.
+     * The whole code is parsed in one pass, see {@link #parseInput(LPhyParser, BaseErrorListener)}.
      * @param CASentence                lphy code
      * @param visitor      the visitor for a parse tree
      * @return  a user-defined result of the operation.
@@ -49,10 +54,7 @@ public interface LPhyParserAction {
         CommonTokenStream tokens = new CommonTokenStream(lexer);
 
         LPhyParser parser = new LPhyParser(tokens);
-        parser.removeErrorListeners();
-        parser.addErrorListener(errorListener);
-
-        ParseTree parseTree = parser.input();
+        ParseTree parseTree = parseInput(parser, errorListener);
 
 //	    // Specify our entry point
 //	    CasentenceContext CASentenceContext = parser.casentence();
@@ -66,4 +68,30 @@ public interface LPhyParserAction {
         // Traverse parse tree, constructing tree along the way
         return visitor.visit(parseTree);
     }
+
+    /**
+     * Two-stage parsing: try the faster SLL prediction first, which is enough for almost all scripts,
+     * and only if it fails, rewind and parse again with the full LL prediction,
+     * which also reports the syntax errors. Both stages share the DFA cache of {@link LPhyParser},
+     * which is static, so the predictions learned from previous scripts are reused.
+     * @param parser         the parser of all tokens.
+     * @param errorListener  the listener of syntax errors in the LL stage.
+     * @return  the parse tree of {@link LPhyParser#input()}.
+     */
+    static ParseTree parseInput(LPhyParser parser, BaseErrorListener errorListener) {
+        parser.removeErrorListeners();
+        parser.setErrorHandler(new BailErrorStrategy());
+        parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+        try {
+            return parser.input();
+        } catch (ParseCancellationException e) {
+            // rewind, and parse again with LL
+            parser.getTokenStream().seek(0);
+            parser.reset();
+            parser.addErrorListener(errorListener);
+            parser.setErrorHandler(new DefaultErrorStrategy());
+            parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+            return parser.input();
+        }
+    }
 }
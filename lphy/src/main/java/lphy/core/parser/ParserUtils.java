@@ -1,5 +1,6 @@
 package lphy.core.parser;
 
+import lphy.core.jfr.GeneratorConstructionEvent;
 import lphy.core.logger.LoggerUtils;
 import lphy.core.model.DeterministicFunction;
 import lphy.core.model.Generator;
@@ -150,6 +151,21 @@ public class ParserUtils {
      * @return
      */
     private static Generator constructGenerator(String name, Constructor constructor, List<Argument> arguments, Object[] initargs, Map<String, Value> params, boolean lightweight) {
+        GeneratorConstructionEvent event = new GeneratorConstructionEvent();
+        event.begin();
+        Generator generator = matchAndConstruct(name, constructor, arguments, initargs, params, lightweight);
+        event.end();
+        if (event.shouldCommit()) {
+            event.generatorName = name;
+            event.generatorClass = generator == null ? null : generator.getClass().getName();
+            event.arguments = initargs.length;
+            event.commit();
+        }
+        return generator;
+    }
+
+    // construct the generator by the matched constructor, IID or vector match
+    private static Generator matchAndConstruct(String name, Constructor constructor, List<Argument> arguments, Object[] initargs, Map<String, Value> params, boolean lightweight) {
         try {
             if (ArgumentUtils.matchingParameterTypes(arguments, initargs, params, lightweight)) {
                 return (Generator) constructor.newInstance(initargs);
@@ -133,10 +133,10 @@ public class REPL implements LPhyMetaParser {
     //*** to identify data{} and model{} ***//
 
     /**
-     * TODO multiple CMDs in 1 line
-     * parse string line by line.
+     * Split the script into data and model blocks, and parse each block
+     * in one lexer and parser pass, where the ExpressionNodes are wrapped once per block.
      *
-     * @param reader assume 1 cmd each line
+     * @param reader the lphy script
      * @throws IOException
      */
     @Override
@@ -2,9 +2,15 @@ package lphy.core.parser;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.util.regex.Pattern;
 
 public class Script {
 
+    // compiled once rather than by String#matches for every line
+    private static final Pattern DATA_BLOCK = Pattern.compile("[ \\t]*data[ \\t]*\\{[ \\t]*");
+    private static final Pattern MODEL_BLOCK = Pattern.compile("[ \\t]*model[ \\t]*\\{[ \\t]*");
+    private static final Pattern CLOSING_BRACE = Pattern.compile("[ \\t]*}[ \\t]*");
+
     public String dataLines;
     public String modelLines;
 
@@ -28,13 +34,13 @@ public class Script {
         LPhyMetaParser.Context context = LPhyMetaParser.Context.model;
         while (line != null) {
             skip = false;
-            if (line.matches("[ \\t]*data[ \\t]*\\{[ \\t]*")) {
+            if (DATA_BLOCK.matcher(line).matches()) {
                 context = LPhyMetaParser.Context.data;
                 skip = true;
-            } else if (line.matches("[ \\t]*model[ \\t]*\\{[ \\t]*")) {
+            } else if (MODEL_BLOCK.matcher(line).matches()) {
                 context = LPhyMetaParser.Context.model;
                 skip = true;
-            } else if (line.matches("[ \\t]*}[ \\t]*")) {
+            } else if (CLOSING_BRACE.matcher(line).matches()) {
                 // this line is just closing a data or model block.
                 skip = true;
             }
@@ -0,0 +1,200 @@
+package lphy.core.parser.function;
+
+import lphy.core.model.ExpressionNode;
+import lphy.core.model.GraphicalModelNode;
+import lphy.core.model.Value;
+import lphy.core.model.datatype.*;
+
+/**
+ * The subtree of {@link ExpressionNode}s wrapped by {@link ExpressionNodeWrapper}, compiled once
+ * into evaluators of primitive values. The scalars and 1d arrays of Integer or Double are evaluated
+ * in double (int) loops without boxing every element, and the boxed {@link Value} is only created
+ * for the result. The result is same as {@link ElementWise2Args} and {@link ElementWise1Arg},
+ * e.g. the arithmetic of two integers is an integer.
+ * If the values at the leaves cannot be evaluated here, e.g. 2d arrays or different lengths of arrays,
+ * {@link #apply()} returns null, and the expression should be evaluated by the {@link ExpressionNode}s.
+ */
+final class CompiledExpression {
+
+    // the shape of a scalar
+    private static final int SCALAR = -1;
+
+    /**
+     * The evaluated values of a node, where array is null for a scalar.
+     */
+    private record Result(boolean isInteger, double scalar, double[] array) {
+        int length() {
+            return array == null ? SCALAR : array.length;
+        }
+
+        double get(int i) {
+            return array == null ? scalar : array[i];
+        }
+    }
+
+    private interface Evaluator {
+        // null if it cannot be evaluated
+        Result evaluate();
+    }
+
+    private final Evaluator root;
+    // ElementWise1Arg uses the id "" for a scalar, but ElementWise2Args uses null
+    private final String scalarId;
+    private final ExpressionNode2Args.ComparisonOperator rootComparison;
+    private final Evaluator[] comparisonArgs;
+
+    private CompiledExpression(Evaluator root, String scalarId, ExpressionNode2Args.ComparisonOperator rootComparison,
+                               Evaluator[] comparisonArgs) {
+        this.root = root;
+        this.scalarId = scalarId;
+        this.rootComparison = rootComparison;
+        this.comparisonArgs = comparisonArgs;
+    }
+
+    /**
+     * @param expressionNode  the root of the subtree.
+     * @return  the compiled expression, or null if any operator cannot be compiled,
+     *          or any intermediate value has an id, which must be updated by
+     *          {@link ExpressionNodeWrapper#applyRecursively()}.
+     */
+    static CompiledExpression compile(ExpressionNode expressionNode) {
+        // the comparison is only allowed at the root, since its boolean result is not a number
+        if (expressionNode instanceof ExpressionNode2Args<?> node2Args &&
+                node2Args.getFunction() instanceof ExpressionNode2Args.ComparisonOperator comparison) {
+            Evaluator left = compileInput(node2Args, 0);
+            Evaluator right = compileInput(node2Args, 1);
+            if (left == null || right == null) return null;
+            return new CompiledExpression(null, null, comparison, new Evaluator[]{left, right});
+        }
+        Evaluator root = compileNode(expressionNode);
+        String scalarId = expressionNode instanceof ExpressionNode1Arg<?> ? "" : null;
+        return root == null ? null : new CompiledExpression(root, scalarId, null, null);
+    }
+
+    private static Evaluator compileNode(ExpressionNode expressionNode) {
+        if (expressionNode instanceof ExpressionNode2Args<?> node2Args &&
+                node2Args.getFunction() instanceof ExpressionNode2Args.ArithmeticOperator operator) {
+            Evaluator left = compileInput(node2Args, 0);
+            Evaluator right = compileInput(node2Args, 1);
+            if (left == null || right == null) return null;
+            return () -> arithmetic(operator, left.evaluate(), right.evaluate());
+        } else if (expressionNode instanceof ExpressionNode1Arg<?> node1Arg &&
+                node1Arg.getFunction() instanceof ExpressionNode1Arg.MathFunction function) {
+            Evaluator arg = compileInput(node1Arg, 0);
+            if (arg == null) return null;
+            return () -> math(function, arg.evaluate());
+        }
+        return null;
+    }
+
+    private static Evaluator compileInput(ExpressionNode expressionNode, int index) {
+        GraphicalModelNode[] inputValues = expressionNode.getInputValues();
+        if (inputValues.length <= index || !(inputValues[index] instanceof Value<?> value))
+            return null;
+        if (value.getGenerator() instanceof ExpressionNode childNode) {
+            if (!value.isAnonymous()) return null;
+            return compileNode(childNode);
+        }
+        // read the leaf when evaluating, since it can be replaced by setParam
+        return () -> leaf(expressionNode.getInputValues()[index]);
+    }
+
+    /**
+     * @return  the boxed value of the result, or null if it cannot be evaluated here.
+     */
+    Value apply() {
+        if (rootComparison != null)
+            return comparison(rootComparison, comparisonArgs[0].evaluate(), comparisonArgs[1].evaluate());
+
+        Result result = root.evaluate();
+        if (result == null) return null;
+        if (result.array == null) {
+            if (result.isInteger) return new IntegerValue(null, (int) result.scalar);
+            return new DoubleValue(scalarId, result.scalar);
+        }
+        final int length = result.array.length;
+        if (result.isInteger) {
+            Integer[] r = new Integer[length];
+            for (int i = 0; i < length; i++)
+                r[i] = (int) result.array[i];
+            return new IntegerArrayValue(null, r);
+        }
+        Double[] r = new Double[length];
+        for (int i = 0; i < length; i++)
+            r[i] = result.array[i];
+        return new DoubleArrayValue("", r);
+    }
+
+    //*** evaluators ***//
+
+    private static Result leaf(GraphicalModelNode node) {
+        Object value = node.value();
+        if (value instanceof Integer i) {
+            return new Result(true, i, null);
+        } else if (value instanceof Double d) {
+            return new Result(false, d, null);
+        } else if (value instanceof Integer[] array && array.length > 0) {
+            double[] r = new double[array.length];
+            for (int i = 0; i < r.length; i++)
+                r[i] = array[i];
+            return new Result(true, 0, r);
+        } else if (value instanceof Double[] array && array.length > 0) {
+            double[] r = new double[array.length];
+            for (int i = 0; i < r.length; i++)
+                r[i] = array[i];
+            return new Result(false, 0, r);
+        }
+        // e.g. 2d arrays or booleans
+        return null;
+    }
+
+    // the shape of a[] vs b, a vs b[], or a[] vs b[], otherwise null
+    private static Integer getLength(Result a, Result b) {
+        if (a.length() == SCALAR) return b.length();
+        if (b.length() == SCALAR || b.length() == a.length()) return a.length();
+        // let ElementWise2Args throw the exception for different lengths
+        return null;
+    }
+
+    private static Result arithmetic(ExpressionNode2Args.ArithmeticOperator operator, Result a, Result b) {
+        if (a == null || b == null) return null;
+        Integer length = getLength(a, b);
+        if (length == null) return null;
+        // the arithmetic of two integers is truncated to an integer
+        final boolean isInteger = a.isInteger && b.isInteger;
+        if (length == SCALAR) {
+            double r = operator.applyAsDouble(a.scalar, b.scalar);
+            return new Result(isInteger, isInteger ? (int) r : r, null);
+        }
+        double[] r = new double[length];
+        for (int i = 0; i < length; i++) {
+            r[i] = operator.applyAsDouble(a.get(i), b.get(i));
+            if (isInteger) r[i] = (int) r[i];
+        }
+        return new Result(isInteger, 0, r);
+    }
+
+    private static Result math(ExpressionNode1Arg.MathFunction function, Result a) {
+        // ElementWise1Arg returns a generic Value for an integer
+        if (a == null || a.isInteger) return null;
+        if (a.array == null)
+            return new Result(false, function.applyAsDouble(a.scalar), null);
+        double[] r = new double[a.array.length];
+        for (int i = 0; i < r.length; i++)
+            r[i] = function.applyAsDouble(a.array[i]);
+        return new Result(false, 0, r);
+    }
+
+    private static Value comparison(ExpressionNode2Args.ComparisonOperator operator, Result a, Result b) {
+        if (a == null || b == null) return null;
+        Integer length = getLength(a, b);
+        if (length == null) return null;
+        if (length == SCALAR)
+            return new BooleanValue(null, operator.test(a.scalar, b.scalar));
+        Boolean[] r = new Boolean[length];
+        for (int i = 0; i < length; i++)
+            r[i] = operator.test(a.get(i), b.get(i));
+        return new BooleanArrayValue("", r);
+    }
+
+}
@@ -61,6 +61,10 @@ public class ExpressionNode2Args<T> extends ExpressionNode {
     }
 
 
+    public BiFunction getFunction() {
+        return func;
+    }
+
     public Value<T> apply() {
 
         Value value = elementWise.apply(inputValues[0], inputValues[1], func);
@@ -68,29 +72,57 @@ public class ExpressionNode2Args<T> extends ExpressionNode {
         return value;
     }
 
+    /**
+     * The arithmetic operator on the double values of two numbers,
+     * which can be evaluated without boxing by {@link CompiledExpression}.
+     */
+    @FunctionalInterface
+    public interface ArithmeticOperator extends BiFunction<Number, Number, Number> {
+        double applyAsDouble(double a, double b);
+
+        @Override
+        default Number apply(Number a, Number b) {
+            return applyAsDouble(a.doubleValue(), b.doubleValue());
+        }
+    }
+
+    /**
+     * The comparison of the double values of two numbers,
+     * which can be evaluated without boxing by {@link CompiledExpression}.
+     */
+    @FunctionalInterface
+    public interface ComparisonOperator extends BiFunction<Number, Number, Boolean> {
+        boolean test(double a, double b);
+
+        @Override
+        default Boolean apply(Number a, Number b) {
+            return test(a.doubleValue(), b.doubleValue());
+        }
+    }
+
     // binary operators
-    public static BiFunction<Number, Number, Number> plus() {
-        return (a, b) -> a.doubleValue() + b.doubleValue();
+    public static ArithmeticOperator plus() {
+        return (a, b) -> a + b;
     }
 
-    public static BiFunction<Number, Number, Number> minus() {
-        return (a, b) -> a.doubleValue() - b.doubleValue();
+    public static ArithmeticOperator minus() {
+        return (a, b) -> a - b;
     }
 
-    public static BiFunction<Number, Number, Number> times() {
-        return (a, b) -> a.doubleValue() * b.doubleValue();
+    public static ArithmeticOperator times() {
+        return (a, b) -> a * b;
     }
 
-    public static BiFunction<Number, Number, Number> divide() {
-        return (a, b) -> a.doubleValue() / b.doubleValue();
+    public static ArithmeticOperator divide() {
+        return (a, b) -> a / b;
     }
 
-    public static BiFunction<Number, Number, Number> pow() {
-        return (a, b) -> Math.pow(a.doubleValue(), b.doubleValue());
+    public static ArithmeticOperator pow() {
+        return (a, b) -> Math.pow(a, b);
     }
 
-    public static BiFunction<Number, Number, Number> mod() {
-        return (a, b) -> a.doubleValue() % b.doubleValue();
+    public static ArithmeticOperator mod() {
+        return (a, b) -> a % b;
     }
 
     //*** logical ***//
@@ -128,20 +160,20 @@ public class ExpressionNode2Args<T> extends ExpressionNode {
         };
     }
 
-    public static BiFunction<Number, Number, Boolean> le() {
-        return (a, b) -> a.doubleValue() <= b.doubleValue() ;
+    public static ComparisonOperator le() {
+        return (a, b) -> a <= b;
     }
 
-    public static BiFunction<Number, Number, Boolean> less() {
-        return (a, b) -> a.doubleValue() < b.doubleValue() ;
+    public static ComparisonOperator less() {
+        return (a, b) -> a < b;
     }
 
-    public static BiFunction<Number, Number, Boolean> ge() {
-        return (a, b) -> a.doubleValue() >= b.doubleValue() ;
+    public static ComparisonOperator ge() {
+        return (a, b) -> a >= b;
     }
 
-    public static BiFunction<Number, Number, Boolean> greater() {
-        return (a, b) -> a.doubleValue() > b.doubleValue() ;
+    public static ComparisonOperator greater() {
+        return (a, b) -> a > b;
     }
 
 //TODO check
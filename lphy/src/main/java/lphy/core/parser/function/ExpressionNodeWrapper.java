@@ -8,6 +8,8 @@ import java.util.Map;
 public class ExpressionNodeWrapper extends DeterministicFunction {
 
     ExpressionNode nodeToWrap;
+    // null if the subtree cannot be compiled
+    private final CompiledExpression compiledExpression;
 
     public ExpressionNodeWrapper(ExpressionNode nodeToWrap) {
         this.nodeToWrap = nodeToWrap;
@@ -15,6 +17,8 @@ public class ExpressionNodeWrapper extends DeterministicFunction {
         extractAllParams(nodeToWrap);
 
         rewireAllOutputs(nodeToWrap, false);
+
+        compiledExpression = CompiledExpression.compile(nodeToWrap);
     }
 
     /**
@@ -98,8 +102,19 @@ public class ExpressionNodeWrapper extends DeterministicFunction {
         }
     }
 
+    /**
+     * Evaluate the compiled expression if possible, otherwise apply the subtree of ExpressionNodes.
+     * @return  the value of this expression.
+     */
     @Override
     public Value apply() {
+        if (compiledExpression != null) {
+            Value v = compiledExpression.apply();
+            if (v != null) {
+                v.setFunction(this);
+                return v;
+            }
+        }
         return applyRecursively();
     }
 
@@ -1,15 +1,21 @@
 package lphy.core.simulator;
 
+import lphy.core.io.Checkpoint;
 import lphy.core.io.FileConfig;
+import lphy.core.io.ShardMerger;
+import lphy.core.logger.LoggerUtils;
 import lphy.core.logger.ValueFileLoggerListener;
 import lphy.core.model.RandomVariable;
 import lphy.core.model.Value;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 
 /**
  * Simulate lphy file, and return a list of named random Value.
@@ -20,36 +26,161 @@ public class NamedRandomValueSimulator {
 
     Sampler sampler;
 
+    // simulate the large sinks while writing them, see Sampler#setStreamSinks
+    boolean streamSinks = false;
+
+    // sample the standard distributions by the backend, see Sampler#setSamplingBackend
+    SamplingBackend samplingBackend = null;
+
+    // the ids of values sampled once and fixed in all replicates, see Sampler#fixValues
+    List<String> fixedIds = new ArrayList<>();
+
+    // record the cost of each generator, see Sampler#setProfiler
+    SamplingProfiler profiler = null;
+
     public NamedRandomValueSimulator() {
         simulatorListener = new ValueFileLoggerListener();
     }
 
     public Map<Integer, List<Value>> simulateAndSaveResults(File lphyFile, int numReplicates, Long seed) throws IOException {
         simulatorListener.start(numReplicates, lphyFile);
-        return simulate(lphyFile, numReplicates, seed);
+        return simulate(lphyFile, SimulatorListener.REPLICATES_START_INDEX, numReplicates, seed);
     }
 
     public Map<Integer, List<Value>> simulateAndSaveResults(FileConfig fileConfig) throws IOException {
         simulatorListener.start(fileConfig);
 
         File lphyFile = fileConfig.lphyInputFile;
-        int numReplicates = fileConfig.numReplicates;
         Long seed = fileConfig.seed;
 
-        return simulate(lphyFile, numReplicates, seed);
+        // all replicates, or the replicates in the shard
+        return simulate(lphyFile, fileConfig.getFirstReplicate(), fileConfig.getLastReplicate(), seed);
+    }
+
+    /**
+     * Simulate the replicates at each point of the parameter sweep, where the model is parsed only once,
+     * and the constants are set to the values of each point. The files of each point are written into
+     * its own subdirectory of the output directory, and the points are listed in a .tsv file.
+     * The replicates of all points use the same seeds.
+     * @param fileConfig  the config of replicates and output files.
+     * @param sweep       the points of the parameter sweep.
+     * @throws IOException  if the script or the files cannot be read or written.
+     */
+    public void simulateSweep(FileConfig fileConfig, ParameterSweep sweep) throws IOException {
+        File lphyFile = fileConfig.lphyInputFile;
+        File outDir = fileConfig.getOutputDirectory();
+        sampler = createSampler(lphyFile);
+
+        File indexFile = new File(outDir, fileConfig.getFilePrefix() + ParameterSweep.INDEX_FILE_POSTFIX);
+        sweep.writeIndex(indexFile, fileConfig.getFilePrefix());
+        for (int k = 0; k < sweep.size(); k++) {
+            sampler.releaseFixedValues();
+            sampler.setConstants(sweep.getConstants(k, sampler));
+
+            // the directory of this point only, without changing the saved output directory
+            File pointDir = new File(outDir, sweep.getPointName(fileConfig.getFilePrefix(), k));
+            System.out.println("Simulate the point " + (k + 1) + " of " + sweep.size() + " : " + sweep.getPoint(k));
+
+            simulatorListener.start(fileConfig.withOutputDirectory(pointDir));
+            simulate(sampler, lphyFile, fileConfig.getFirstReplicate(), fileConfig.getLastReplicate(), fileConfig.seed);
+        }
+        System.out.println("List " + sweep.size() + " points of the parameter sweep in " + indexFile);
+    }
+
+    /**
+     * Simulate the replicates segment by segment, and save a {@link Checkpoint} after each segment,
+     * so that an interrupted simulation can be resumed from the last completed segment.
+     * The final output files are same as {@link #simulateAndSaveResults(FileConfig)} given the same seed.
+     * @param fileConfig         the config of replicates and output files, which must not have a shard.
+     * @param checkpointInterval the number of replicates between two checkpoints,
+     *                           which can be null if it is resumed from the checkpoint file.
+     * @param resume             if true, continue from the checkpoint file if it exists.
+     * @throws IOException  if the script or the files cannot be read or written.
+     */
+    public void simulateWithCheckpoints(FileConfig fileConfig, Integer checkpointInterval,
+                                        boolean resume) throws IOException {
+        File lphyFile = fileConfig.lphyInputFile;
+        File outDir = fileConfig.getOutputDirectory();
+        String filePrefix = fileConfig.getFilePrefix();
+        File checkpointFile = Checkpoint.getFile(lphyFile, outDir);
+        String scriptHash = Checkpoint.getScriptHash(lphyFile);
+
+        Checkpoint checkpoint;
+        if (resume && checkpointFile.exists()) {
+            checkpoint = Checkpoint.load(checkpointFile);
+            checkpoint.validate(fileConfig.numReplicates, fileConfig.getOutputFormat(), scriptHash);
+            if (fileConfig.seed != null && fileConfig.seed != checkpoint.getSeed())
+                throw new IllegalArgumentException("The seed " + fileConfig.seed + " is different to the seed " +
+                        checkpoint.getSeed() + " in the checkpoint " + checkpointFile.getName() + " !");
+            System.out.println("Resume from the replicate " + checkpoint.getCompletedReplicates() +
+                    " saved in " + checkpointFile);
+        } else {
+            if (checkpointInterval == null)
+                throw new IllegalArgumentException("Cannot find the checkpoint " + checkpointFile + " to resume !");
+            if (resume)
+                LoggerUtils.log.warning("Cannot find the checkpoint " + checkpointFile + ", so start from the beginning.");
+            // the seed is required to resume
+            long seed = fileConfig.seed != null ? fileConfig.seed : new Random().nextLong();
+            checkpoint = new Checkpoint(checkpointFile, seed, fileConfig.numReplicates, checkpointInterval,
+                    fileConfig.getOutputFormat(), scriptHash);
+            checkpoint.save();
+        }
+
+        sampler = createSampler(lphyFile);
+        for (int k = checkpoint.getCompleted() + 1; k <= checkpoint.getSegmentCount(); k++) {
+            // the shared files of the interrupted segment
+            checkpoint.deleteSegmentFiles(outDir, filePrefix, k);
+            FileConfig segmentConfig = new FileConfig(fileConfig.numReplicates, lphyFile, checkpoint.getSeed(),
+                    fileConfig.getOutputFormat(), checkpoint.getSegment(k)).withOutputDirectory(outDir);
+
+            sampler.releaseFixedValues();
+            simulatorListener.start(segmentConfig);
+            simulate(sampler, lphyFile, segmentConfig.getFirstReplicate(), segmentConfig.getLastReplicate(),
+                    checkpoint.getSeed());
+            checkpoint.complete();
+        }
+
+        // the files of segments may be partly deleted after merging, so they must not be merged again
+        if (!checkpoint.isMerged()) {
+            ShardMerger.merge(lphyFile, outDir, checkpoint.getSegmentCount(), fileConfig.getOutputFormat());
+            checkpoint.completeMerge();
+        }
+        for (int k = 1; k <= checkpoint.getSegmentCount(); k++)
+            checkpoint.deleteSegmentFiles(outDir, filePrefix, k);
+        Files.deleteIfExists(checkpointFile.toPath());
     }
 
-    private Map<Integer, List<Value>> simulate(File lphyFile, int numReplicates, Long seed) throws IOException {
+    // create Sampler given a lphy script file
+    private Sampler createSampler(File lphyFile) throws IOException {
+        Sampler sampler = Sampler.createSampler(lphyFile);
+        sampler.setStreamSinks(streamSinks);
+        sampler.setSamplingBackend(samplingBackend);
+        sampler.setProfiler(profiler);
+        return sampler;
+    }
+
+    // simulate the replicates from first (inclusive) to last (exclusive)
+    private Map<Integer, List<Value>> simulate(File lphyFile, int first, int last, Long seed) throws IOException {
+        sampler = createSampler(lphyFile);
+        return simulate(sampler, lphyFile, first, last, seed);
+    }
+
+    private Map<Integer, List<Value>> simulate(Sampler sampler, File lphyFile, int first, int last, Long seed) {
         // TODO duplicate to maps in ValueFileLoggerListener
         Map<Integer, List<Value>> simResMap = new HashMap<>();
 
-        // create Sampler given a lphy script file
-        sampler = Sampler.createSampler(lphyFile);
-
         long start = System.currentTimeMillis();
 
-        for (int i = SimulatorListener.REPLICATES_START_INDEX; i < numReplicates; i++) {
-            List<Value> values = sampler.sample(seed);
+        // the fixed values are always from the 1st replicate, so they are same in all shards
+        if (!fixedIds.isEmpty() && first > 0) {
+            sampler.sampleReplicate(SimulatorListener.REPLICATES_START_INDEX, seed);
+            sampler.fixValues(fixedIds);
+        }
+
+        for (int i = first; i < last; i++) {
+            List<Value> values = sampler.sampleReplicate(i, seed);
+            if (!fixedIds.isEmpty() && i == first && first == SimulatorListener.REPLICATES_START_INDEX)
+                sampler.fixValues(fixedIds);
             // filter to RandomValue
             List<Value> namedRandomValueList = getNamedRandomValues(values);
 
@@ -60,6 +191,7 @@ public class NamedRandomValueSimulator {
         simulatorListener.complete();
 
         long end = System.currentTimeMillis();
+        final int numReplicates = last - first;
         System.out.println("Sampled " + lphyFile + " at " + numReplicates + (numReplicates >1?" times":" time") +
                 " which takes " + (end - start) + " ms.");
 
@@ -67,6 +199,40 @@ public class NamedRandomValueSimulator {
     }
 
 
+    /**
+     * @param streamSinks  if true, the sinks such as alignments are simulated
+     *                     block by block straight into their files.
+     * @see Sampler#setStreamSinks(boolean)
+     */
+    public void setStreamSinks(boolean streamSinks) {
+        this.streamSinks = streamSinks;
+    }
+
+    /**
+     * @param samplingBackend  the backend to sample the distributions it supports, or null.
+     * @see Sampler#setSamplingBackend(SamplingBackend)
+     */
+    public void setSamplingBackend(SamplingBackend samplingBackend) {
+        this.samplingBackend = samplingBackend;
+    }
+
+    /**
+     * @param fixedIds  the ids of values which are sampled in the first replicate,
+     *                  and then fixed in the other replicates, so only their descendants are resampled.
+     * @see Sampler#fixValues(java.util.Collection)
+     */
+    public void setFixedValues(List<String> fixedIds) {
+        this.fixedIds = new ArrayList<>(fixedIds);
+    }
+
+    /**
+     * @param profiler  the profiler to record the cost of each generator, or null.
+     * @see Sampler#setProfiler(SamplingProfiler)
+     */
+    public void setProfiler(SamplingProfiler profiler) {
+        this.profiler = profiler;
+    }
+
     public static boolean isNamedRandomValue(Value value) {
         return value instanceof RandomVariable ||
                 // random value but no anonymous
@@ -0,0 +1,199 @@
+package lphy.core.simulator;
+
+import lphy.core.model.Value;
+import lphy.core.parser.ParserSingleton;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.util.*;
+
+/**
+ * The points of a parameter sweep, where each point overrides some named constants of the model,
+ * e.g. in the data block. The values are LPhy expressions, e.g. <code>100</code> or <code>[0.25,0.75]</code>.
+ * The points are created either by the grid of all combinations of the values of each constant,
+ * or by the rows of a CSV file whose header is the ids of constants.
+ * @see Sampler#setConstants(Map)
+ */
+public class ParameterSweep {
+
+    public static final String INDEX_FILE_POSTFIX = "_sweep.tsv";
+
+    private static final String POINT_POSTFIX = "_point";
+
+    // the ids of constants in the order of columns
+    private final List<String> ids;
+    // the expressions of each point in the order of ids
+    private final List<List<String>> points;
+
+    /**
+     * @param ids     the ids of constants.
+     * @param points  the expressions of values of each point, in the same order of ids.
+     */
+    public ParameterSweep(List<String> ids, List<List<String>> points) {
+        for (List<String> point : points) {
+            if (point.size() != ids.size())
+                throw new IllegalArgumentException("The point " + point + " must have " + ids.size() +
+                        " values of " + ids + " !");
+        }
+        this.ids = List.copyOf(ids);
+        this.points = List.copyOf(points);
+    }
+
+    /**
+     * @param axes  the values of each constant, e.g. <code>birthRate=0.5,1.0,2.0</code> and <code>L=100,200</code>,
+     *              where the commas inside brackets do not split the values, e.g. <code>π=[0.1,0.9],[0.5,0.5]</code>.
+     * @return  the grid of all combinations, where the values of the last constant change the fastest.
+     */
+    public static ParameterSweep fromGrid(List<String> axes) {
+        List<String> ids = new ArrayList<>();
+        List<List<String>> points = new ArrayList<>();
+        points.add(List.of());
+        for (String axis : axes) {
+            int eq = axis.indexOf('=');
+            if (eq < 1 || eq == axis.length() - 1)
+                throw new IllegalArgumentException("The grid must be id=value1,value2,..., but it is " + axis + " !");
+            ids.add(axis.substring(0, eq).trim());
+            List<String> values = split(axis.substring(eq + 1));
+
+            List<List<String>> product = new ArrayList<>();
+            for (List<String> point : points) {
+                for (String value : values) {
+                    List<String> newPoint = new ArrayList<>(point);
+                    newPoint.add(value);
+                    product.add(newPoint);
+                }
+            }
+            points = product;
+        }
+        return new ParameterSweep(ids, points);
+    }
+
+    /**
+     * @param csvFile  the CSV file, whose header is the ids of constants, and each row is a point.
+     * @return  the points in the order of rows.
+     * @throws IOException  if the file cannot be read.
+     */
+    public static ParameterSweep fromCSV(File csvFile) throws IOException {
+        List<String> lines = Files.readAllLines(csvFile.toPath()).stream()
+                .filter(line -> !line.isBlank()).toList();
+        if (lines.isEmpty())
+            throw new IOException("Cannot find the header of constants in " + csvFile + " !");
+        List<String> ids = split(lines.get(0));
+        List<List<String>> points = new ArrayList<>();
+        for (String line : lines.subList(1, lines.size()))
+            points.add(split(line));
+        return new ParameterSweep(ids, points);
+    }
+
+    // split by the commas outside brackets
+    static List<String> split(String values) {
+        List<String> list = new ArrayList<>();
+        int depth = 0;
+        int start = 0;
+        for (int i = 0; i < values.length(); i++) {
+            char c = values.charAt(i);
+            if (c == '[' || c == '(' || c == '{') depth++;
+            else if (c == ']' || c == ')' || c == '}') depth--;
+            else if (c == ',' && depth == 0) {
+                list.add(values.substring(start, i).trim());
+                start = i + 1;
+            }
+        }
+        list.add(values.substring(start).trim());
+        return list;
+    }
+
+    /**
+     * @param index    the index of the point, starting from 0.
+     * @param sampler  the sampler whose model contains the constants.
+     * @return  the map of the id of constant to its value at this point, which can be set by
+     *          {@link Sampler#setConstants(Map)}.
+     */
+    public Map<String, Object> getConstants(int index, Sampler sampler) {
+        Map<String, Object> constants = new LinkedHashMap<>();
+        List<String> point = points.get(index);
+        for (int i = 0; i < ids.size(); i++) {
+            String id = ids.get(i);
+            constants.put(id, parseValue(id, point.get(i), sampler.getConstant(id)));
+        }
+        return constants;
+    }
+
+    /**
+     * @param id          the id of the value.
+     * @param expression  the LPhy expression of the value, e.g. <code>[0.25,0.75]</code>.
+     * @param oldValue    the current value in the model, whose type is kept,
+     *                    where the integers are converted to doubles if it is a double (array).
+     * @return  the parsed value.
+     * @throws IllegalArgumentException  if the expression cannot be parsed,
+     *                                   or its type is different to the current value, e.g. 1.5 for an integer.
+     */
+    static Object parseValue(String id, String expression, Value<?> oldValue) {
+        Object parsed = ParserSingleton.parse(id + " = " + expression + ";");
+        if (!(parsed instanceof Value<?> value) || value.value() == null)
+            throw new IllegalArgumentException("Cannot parse the value of " + id + " : " + expression + " !");
+        Object oldObj = oldValue.value();
+        Object newObj = value.value();
+        // e.g. 1 is parsed into Integer
+        if (oldObj instanceof Double && newObj instanceof Number number)
+            return number.doubleValue();
+        if (oldObj instanceof Double[] && newObj instanceof Number[] numbers) {
+            Double[] doubles = new Double[numbers.length];
+            for (int i = 0; i < numbers.length; i++)
+                doubles[i] = numbers[i].doubleValue();
+            return doubles;
+        }
+        if (oldObj != null && !oldObj.getClass().isInstance(newObj))
+            throw new IllegalArgumentException("The value of " + id + " must be " + oldObj.getClass().getSimpleName() +
+                    ", but " + expression + " is " + newObj.getClass().getSimpleName() + " !");
+        return newObj;
+    }
+
+    /**
+     * Write the points into a tab-delimited file, whose 1st column is the name of point.
+     * @param file        the output file.
+     * @param filePrefix  the prefix of output files, e.g. the lphy script file name.
+     * @throws IOException  if the file cannot be written.
+     */
+    public void writeIndex(File file, String filePrefix) throws IOException {
+        try (PrintWriter writer = new PrintWriter(file)) {
+            writer.println("point\t" + String.join("\t", ids));
+            for (int k = 0; k < points.size(); k++)
+                writer.println(getPointName(filePrefix, k) + "\t" + String.join("\t", points.get(k)));
+        }
+    }
+
+    /**
+     * @param filePrefix  the prefix of output files, e.g. the lphy script file name.
+     * @param index       the index of the point, starting from 0.
+     * @return  the name of the point, which is also its output subdirectory, e.g. model_point1.
+     */
+    public String getPointName(String filePrefix, int index) {
+        return filePrefix + POINT_POSTFIX + (index + 1);
+    }
+
+    /**
+     * @param index  the index of the point, starting from 0.
+     * @return  the map of the id of constant to the expression of its value at this point.
+     */
+    public Map<String, String> getPoint(int index) {
+        Map<String, String> point = new LinkedHashMap<>();
+        for (int i = 0; i < ids.size(); i++)
+            point.put(ids.get(i), points.get(index).get(i));
+        return point;
+    }
+
+    public List<String> getIds() {
+        return ids;
+    }
+
+    /**
+     * @return  the number of points.
+     */
+    public int size() {
+        return points.size();
+    }
+
+}
@@ -52,5 +52,22 @@ public class RandomUtils {
         LoggerUtils.log.info("Set seed " + seed + " to LPhy random number generator.");
     }
 
+    /**
+     * The seed of a replicate only depends on the seed of the simulation and the index of the replicate,
+     * but not on the previous replicates, so that any range of replicates can be simulated separately.
+     * The replicate 0 uses the given seed, so a single replicate is same as {@link #setSeed(long)}.
+     * @param seed       the seed of the simulation.
+     * @param replicate  the index of the replicate, starting from 0.
+     * @return  the seed of the replicate, which is mixed by the SplitMix64 finalizer.
+     */
+    public static long getReplicateSeed(long seed, int replicate) {
+        if (replicate == 0)
+            return seed;
+        long z = seed + 0x9E3779B97F4A7C15L * replicate;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
 
 }
@@ -1,14 +1,21 @@
 package lphy.core.simulator;
 
 import lphy.core.io.FileConfig;
+import lphy.core.io.OutputFormat;
 import lphy.core.io.OutputSystem;
+import lphy.core.io.Shard;
+import lphy.core.io.ShardMerger;
 import lphy.core.logger.LoggerUtils;
 import picocli.CommandLine;
 import picocli.CommandLine.PicocliException;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
 import java.nio.file.Path;
+import java.util.List;
 import java.util.concurrent.Callable;
 
 import static picocli.CommandLine.Help.Visibility.ALWAYS;
@@ -26,9 +33,9 @@ public class SLPhy implements Callable<Integer> {
 
     public static final String VERSION = "0.1.0";
 
-    @CommandLine.Parameters(paramLabel = "LPhy_scripts",
+    @CommandLine.Parameters(paramLabel = "LPhy_scripts", arity = "0..1",
             description = "The file path of the LPhy model specification (e.g., /My/Path/my-model.lphy), " +
-                    "where the file name must have the extension '.lphy'.")
+                    "where the file name must have the extension '.lphy'. It is not required by --serve.")
     Path infile;
 
     @CommandLine.Option(names = {"-V", "--version"}, versionHelp = true, description = "display version info")
@@ -40,6 +47,71 @@ public class SLPhy implements Callable<Integer> {
             description = "the number of simulations to run given one LPhy script, " +
             "usually to create data for well-calibrated study.") int numReps = 1;
     @CommandLine.Option(names = {"-seed", "--seed"}, description = "the seed.") Long seed;
+    @CommandLine.Option(names = {"-f", "--format"}, defaultValue = "TEXT", showDefaultValue = ALWAYS,
+            description = "the format of output files: ${COMPLETION-CANDIDATES}. " +
+                    "GZIP compresses each file, BGZIP compresses each replicate into a block indexed by a .gzi file, " +
+                    "BINARY writes alignments and trees in the compact binary format.")
+    OutputFormat outputFormat = OutputFormat.TEXT;
+    @CommandLine.Option(names = {"--stream"},
+            description = "simulate the alignments, which are not used by other values, block by block " +
+                    "straight into their Nexus files, so that the whole alignment is never held in memory.")
+    boolean streamSinks = false;
+    @CommandLine.Option(names = {"--threads"}, paramLabel = "N",
+            description = "the number of threads to simulate a large value concurrently, e.g. the sites of PhyloCTMC " +
+                    "in chunks of 1024 having their own seeds. Given the same seed, the alignments are same " +
+                    "for any number of threads including 1, but different to the default sequential simulation " +
+                    "without this option.")
+    Integer threads;
+    @CommandLine.Option(names = {"--backend"},
+            description = "the name of the backend to sample the standard distributions, " +
+                    "e.g. 'lightweight' from the module lphy-lightweight, which is in the lib folder " +
+                    "of the LPhyStudio distribution, otherwise its jar must be on the module path. " +
+                    "The samples are same given the same seed, but created with less memory allocation.")
+    String backend;
+    @CommandLine.Option(names = {"--shard"}, paramLabel = "k/N",
+            description = "simulate only the k-th of N shards of the replicates (k starts from 1), e.g. on cluster nodes, " +
+                    "which requires --seed. Each replicate is same as in a single run given the same seed. " +
+                    "The files of each replicate keep their names, but the .log and .trees files are named by " +
+                    "_shard<k>of<N>, which can be merged by --merge N.")
+    String shard;
+    @CommandLine.Option(names = {"--merge"}, paramLabel = "N",
+            description = "merge the .log and .trees files of N shards created by --shard into the files of a single run, " +
+                    "instead of simulating. The format (-f) must be same as the shards.")
+    Integer mergeShards;
+    @CommandLine.Option(names = {"--fix"}, split = ",", paramLabel = "ID",
+            description = "the ids of random variables (e.g. --fix ψ,κ) sampled in the first replicate " +
+                    "and fixed in the other replicates, where only their descendants are resampled, " +
+                    "e.g. to simulate many alignments on one tree.")
+    List<String> fixedIds;
+    @CommandLine.Option(names = {"--grid"}, paramLabel = "ID=VALUES",
+            description = "sweep the named constant (e.g. in the data block) over the comma-separated values, " +
+                    "e.g. --grid birthRate=0.5,1.0 --grid L=100,200 for all 4 combinations. The model is parsed once, " +
+                    "and the replicates of each point are written into its own subdirectory.")
+    List<String> sweepGrid;
+    @CommandLine.Option(names = {"--sweep"}, paramLabel = "CSV",
+            description = "sweep the named constants over the rows of the CSV file, whose header is their ids, " +
+                    "instead of --grid.")
+    File sweepFile;
+    @CommandLine.Option(names = {"--checkpoint"}, paramLabel = "N",
+            description = "save a checkpoint after every N replicates, so that an interrupted simulation " +
+                    "can be continued by --resume with the same final output.")
+    Integer checkpointInterval;
+    @CommandLine.Option(names = {"--resume"},
+            description = "continue the simulation from its checkpoint file, if it exists, " +
+                    "otherwise start a new simulation with --checkpoint.")
+    boolean resume = false;
+    @CommandLine.Option(names = {"--profile"},
+            description = "print the time, the number of calls and the allocated memory of each generator " +
+                    "(e.g. PhyloCTMC) summed over all replicates.")
+    boolean profile = false;
+    @CommandLine.Option(names = {"--serve"},
+            description = "run as a server reading the requests from stdin and writing the values to stdout " +
+                    "line by line, which keeps the parsed scripts in memory, " +
+                    "e.g. 'model.lphy seed=7 replicates=10 κ=2.5'. See SimulationServer for the protocol.")
+    boolean serve = false;
+    @CommandLine.Option(names = {"--cache-size"}, defaultValue = "16", showDefaultValue = ALWAYS,
+            description = "the maximum number of parsed scripts kept in memory by --serve.")
+    int cacheSize = 16;
 
 //    enum SPI { loggers } //TODO  functions, gendists
 //    // arity = "0" not working
@@ -54,15 +126,60 @@ public class SLPhy implements Callable<Integer> {
 
     @Override
     public Integer call() throws PicocliException {
+        if (serve)
+            return serve();
+        if (infile == null)
+            throw new PicocliException("The LPhy script is required !");
         // must use absolute path, otherwise parent could be null for relative path
         File outDir = infile.toAbsolutePath().getParent().toFile();
         try {
+            if (mergeShards != null) {
+                ShardMerger.merge(infile.toFile(), outDir, mergeShards, outputFormat);
+                return 0;
+            }
+            Shard replicateShard = null;
+            if (shard != null) {
+                // otherwise the replicates in each shard are not reproducible
+                if (seed == null)
+                    throw new PicocliException("The seed is required to simulate a shard of replicates !");
+                replicateShard = Shard.parse(shard);
+            }
+
             // If outDir = null, use preference, otherwise assign to the input file directory by default.
             FileConfig fileConfig = FileConfig.Utils
-                    .createSimulationFileConfig(infile.toFile(), outDir, numReps, seed);
+                    .createSimulationFileConfig(infile.toFile(), outDir, numReps, seed, outputFormat, replicateShard);
 
+            setThreads();
             simulator = new NamedRandomValueSimulator();
-            simulator.simulateAndSaveResults(fileConfig);
+            simulator.setStreamSinks(streamSinks);
+            if (backend != null)
+                simulator.setSamplingBackend(SamplingBackend.getBackend(backend));
+            if (fixedIds != null)
+                simulator.setFixedValues(fixedIds);
+            SamplingProfiler profiler = profile ? new SamplingProfiler() : null;
+            simulator.setProfiler(profiler);
+            boolean checkpoint = checkpointInterval != null || resume;
+            if (checkpoint && (replicateShard != null || sweepGrid != null || sweepFile != null))
+                throw new PicocliException("The checkpoint cannot be used with --shard, --grid or --sweep !");
+
+            try {
+                if (checkpoint)
+                    simulator.simulateWithCheckpoints(fileConfig, checkpointInterval, resume);
+                else if (sweepGrid != null && sweepFile != null)
+                    throw new PicocliException("Please use either --grid or --sweep !");
+                else if (sweepGrid != null)
+                    simulator.simulateSweep(fileConfig, ParameterSweep.fromGrid(sweepGrid));
+                else if (sweepFile != null)
+                    simulator.simulateSweep(fileConfig, ParameterSweep.fromCSV(sweepFile));
+                else
+                    simulator.simulateAndSaveResults(fileConfig);
+            } finally {
+                if (profiler != null)
+                    profiler.close();
+            }
+
+            if (profiler != null)
+                System.out.println("\nSampling profile :\n" + profiler.toTable());
 
         } catch (IOException e) {
             throw new PicocliException(e.getMessage(), e);
@@ -72,6 +189,32 @@ public class SLPhy implements Callable<Integer> {
         return 0;
     }
 
+    // chunked only if --threads is given, otherwise sequential as the previous versions
+    private void setThreads() {
+        if (threads != null)
+            SimulationThreads.setThreads(threads);
+        else
+            SimulationThreads.setSequential();
+    }
+
+    private Integer serve() throws PicocliException {
+        setThreads();
+        SimulationServer server = new SimulationServer(cacheSize);
+        if (backend != null)
+            server.setSamplingBackend(SamplingBackend.getBackend(backend));
+        // stdout is only for the responses, so any other output goes to stderr
+        PrintStream out = System.out;
+        System.setOut(System.err);
+        try {
+            server.serve(new BufferedReader(new InputStreamReader(System.in)), out);
+        } catch (IOException e) {
+            throw new PicocliException(e.getMessage(), e);
+        } finally {
+            System.setOut(out);
+        }
+        return 0;
+    }
+
     public static void main(String[] args) {
 
         // must set -Dpicocli.disable.closures=true using picocli:4.7.0
@@ -1,8 +1,12 @@
 package lphy.core.simulator;
 
+import lphy.core.jfr.GenerateEvent;
 import lphy.core.logger.LoggerUtils;
+import lphy.core.model.DeterministicFunction;
+import lphy.core.model.GenerativeDistribution;
 import lphy.core.model.Generator;
 import lphy.core.model.RandomVariable;
+import lphy.core.model.SinkStreamable;
 import lphy.core.model.Value;
 import lphy.core.parser.LPhyMetaParser;
 import lphy.core.parser.REPL;
@@ -20,6 +24,21 @@ public class Sampler {
 
     LPhyMetaParser parser;
 
+    // if true, the sinks created by SinkStreamable are simulated while they are written
+    private boolean streamSinks = false;
+
+    // if not null, it samples the distributions it supports instead of GenerativeDistribution#sample()
+    private SamplingBackend samplingBackend = null;
+
+    // the ids of values kept in the model dictionary, which are not resampled
+    private final Set<String> fixedIds = new TreeSet<>();
+
+    // if not null, record the cost of each generator
+    private SamplingProfiler profiler = null;
+
+    // the index of the replicate being sampled for GenerateEvent, or -1 if it is not a replicate
+    private int replicate = -1;
+
     public Sampler() {
 
     }
@@ -68,17 +87,19 @@ public class Sampler {
         if (seed != null)
             RandomUtils.setSeed(seed);
 
-        Set<String> sampled = new TreeSet<>();
+        // the fixed values are used as if they had been sampled, so only their descendants are resampled
+        Set<String> sampled = new TreeSet<>(fixedIds);
         List<Value<?>> sinks = getParser().getModelSinks();
         for (RandomVariable<?> var : getParser().getAllVariablesFromSinks()) {
-            getParser().getModelDictionary().remove(var.getId());
+            if (!fixedIds.contains(var.getId()))
+                getParser().getModelDictionary().remove(var.getId());
         }
 
         for (Value<?> value : sinks) {
-            if (value.isRandom()) {
+            if (value.isRandom() && !fixedIds.contains(value.getId())) {
                 Value randomValue;
                 if (value.getGenerator() != null) {
-                    randomValue = sample(value, value.getGenerator(), sampled);
+                    randomValue = sample(value, value.getGenerator(), sampled, streamSinks);
                 } else throw new RuntimeException();
                 randomValue.setId(value.getId());
 
@@ -90,6 +111,23 @@ public class Sampler {
     }
 
 
+    /**
+     * Sample one replicate, whose random numbers only depend on the seed and the index of the replicate,
+     * so a replicate is same whether it is sampled alone or after other replicates.
+     * @param index  the index of the replicate, starting from 0.
+     * @param seed   the seed value of all replicates, if null then use a random number.
+     * @return the list {@link Value} from this replicate.
+     * @see RandomUtils#getReplicateSeed(long, int)
+     */
+    public List<Value> sampleReplicate(int index, Long seed) {
+        replicate = index;
+        try {
+            return sample(seed == null ? null : RandomUtils.getReplicateSeed(seed, index));
+        } finally {
+            replicate = -1;
+        }
+    }
+
     /**
      * Sample add replicates, and call the given listeners.
      * Such as, it can be used by GUI with GUI log listeners.
@@ -111,8 +149,8 @@ public class Sampler {
 
         for (int i = SimulatorListener.REPLICATES_START_INDEX; i < numReplicates; i++) {
 
-            // sampling at seed
-            List<Value> values = sample(seed);
+            // sampling at the seed of replicate
+            List<Value> values = sampleReplicate(i, seed);
             // store result
             valuesAllRepsMap.put(i, values);
 
@@ -132,13 +170,44 @@ public class Sampler {
 
     // sample all from the generator, but keep the id from old values.
     private Value sample(Value oldValue, Generator generator, Set<String> sampled) {
+        return sample(oldValue, generator, sampled, false);
+    }
+
+    // if streamed, the value of a SinkStreamable is simulated later while it is written
+    private Value sample(Value oldValue, Generator generator, Set<String> sampled, boolean streamed) {
 
         for (Map.Entry<String, Value> e : getNewlySampledParams(generator, sampled).entrySet()) {
             generator.setInput(e.getKey(), e.getValue());
             if (!e.getValue().isAnonymous()) sampled.add(e.getValue().getId());
         }
 
-        Value newVal = generator.generate();
+        GenerateEvent event = new GenerateEvent();
+        event.begin();
+        long startNanos = 0;
+        long startBytes = 0;
+        if (profiler != null) {
+            startNanos = System.nanoTime();
+            startBytes = profiler.getAllocatedBytes();
+        }
+
+        Value newVal = null;
+        if (streamed && generator instanceof SinkStreamable<?> streamable)
+            newVal = streamable.sampleStreamed();
+        if (newVal == null && samplingBackend != null && generator instanceof GenerativeDistribution<?> distribution)
+            newVal = samplingBackend.sample(distribution);
+        if (newVal == null)
+            newVal = generator.generate();
+
+        if (profiler != null)
+            profiler.record(generator, startNanos, startBytes);
+        event.end();
+        if (event.shouldCommit()) {
+            event.generatorName = generator.getName();
+            event.valueId = oldValue.getId();
+            event.replicate = replicate;
+            event.setSizes(newVal.value());
+            event.commit();
+        }
         newVal.setId(oldValue.getId());
 
         //TODO merge to vect class
@@ -194,6 +263,159 @@ public class Sampler {
         }
     }
 
+    /**
+     * @param streamSinks  if true, the sinks sampled from a {@link SinkStreamable}
+     *                     (e.g. large alignments) are not held in memory,
+     *                     but simulated block by block when they are written into files.
+     *                     Only use it if the values are logged by a streamable formatter.
+     */
+    public void setStreamSinks(boolean streamSinks) {
+        this.streamSinks = streamSinks;
+    }
+
+    public boolean isStreamSinks() {
+        return streamSinks;
+    }
+
+    /**
+     * @param samplingBackend  the {@link SamplingBackend} to sample the distributions it supports,
+     *                         or null to sample all distributions by themselves.
+     */
+    public void setSamplingBackend(SamplingBackend samplingBackend) {
+        this.samplingBackend = samplingBackend;
+    }
+
+    public SamplingBackend getSamplingBackend() {
+        return samplingBackend;
+    }
+
+    /**
+     * @param profiler  if not null, record the wall time, calls and allocated bytes of each generator,
+     *                  excluding the sampling of its parameters.
+     *                  The sinks simulated while they are written (see {@link #setStreamSinks(boolean)})
+     *                  are not included.
+     */
+    public void setProfiler(SamplingProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    public SamplingProfiler getProfiler() {
+        return profiler;
+    }
+
+    /**
+     * Fix the values at their current values in the model, e.g. the values from the last {@link #sample(Long)},
+     * so that they are not resampled, but their descendants are resampled given them.
+     * E.g., fix the tree to simulate many alignments on it.
+     * @param ids  the ids of the named values, usually random variables.
+     * @throws IllegalArgumentException  if any value is not in the model.
+     */
+    public void fixValues(Collection<String> ids) {
+        for (String id : ids) {
+            if (!getParser().getModelDictionary().containsKey(id))
+                throw new IllegalArgumentException("Cannot find the value " + id + " in the model to fix !");
+        }
+        fixedIds.addAll(ids);
+    }
+
+    /**
+     * Fix (clamp) the named random variable at the given value, which replaces its value in the model.
+     * It keeps its generative distribution, so that it is resampled again after {@link #releaseFixedValues()}.
+     * The constants are set by {@link #setConstants(Map)} instead, since their dependents are not resampled.
+     * @param id     the id of the named random variable.
+     * @param value  the value to clamp to.
+     * @throws IllegalArgumentException  if the id is not a random variable in the model.
+     * @see #fixValues(Collection)
+     */
+    public <T> void fixValue(String id, T value) {
+        Value<?> oldValue = getParser().getModelDictionary().get(id);
+        if (oldValue == null)
+            throw new IllegalArgumentException("Cannot find the value " + id + " in the model to fix !");
+        if (!(oldValue instanceof RandomVariable<?> randomVariable))
+            throw new IllegalArgumentException("Only the random variable can be fixed at a value, but " + id +
+                    " is not a random variable in the model, use setConstants for a constant !");
+
+        Value<T> clampedValue = new RandomVariable<>(id, value,
+                (GenerativeDistribution<T>) randomVariable.getGenerativeDistribution());
+        getParser().getModelDictionary().put(id, clampedValue);
+        fixValues(List.of(id));
+    }
+
+    /**
+     * Set the named constants (e.g. in the data block) to the given values in place,
+     * and recompute the deterministic values depending on them but not on any random variable,
+     * so the model does not need to be parsed again, e.g. for each point of a parameter sweep.
+     * @param constants  the map of the id of a named constant to its new value.
+     * @throws IllegalArgumentException  if any id is not a constant in the model.
+     */
+    public void setConstants(Map<String, ?> constants) {
+        Set<Value<?>> changed = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Map.Entry<String, ?> entry : constants.entrySet()) {
+            Value value = getConstant(entry.getKey());
+            value.setValue(entry.getValue());
+            changed.add(value);
+        }
+
+        Set<Value<?>> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Value<?> sink : getParser().getModelSinks())
+            updateDeterministicValues(sink, changed, visited);
+    }
+
+    /**
+     * @param id  the id of a named constant.
+     * @return    the constant in the data block, or in the model block if not in the data block.
+     * @throws IllegalArgumentException  if the id is not a constant in the model.
+     */
+    public Value<?> getConstant(String id) {
+        Value<?> value = getParser().getDataDictionary().get(id);
+        if (value == null)
+            value = getParser().getModelDictionary().get(id);
+        if (value == null || !value.isConstant())
+            throw new IllegalArgumentException("Cannot find the constant " + id + " in the model !");
+        return value;
+    }
+
+    // post-order, and return true if the value is changed
+    private boolean updateDeterministicValues(Value<?> value, Set<Value<?>> changed, Set<Value<?>> visited) {
+        if (!visited.add(value))
+            return changed.contains(value);
+
+        Generator generator = value.getGenerator();
+        if (generator == null)
+            return changed.contains(value);
+
+        boolean inputChanged = false;
+        for (Map.Entry<String, Value> entry : new ArrayList<>(((Map<String, Value>) generator.getParams()).entrySet())) {
+            Value<?> input = entry.getValue();
+            if (input != null && updateDeterministicValues(input, changed, visited)) {
+                // set it again, since the generator may cache the values of its parameters
+                generator.setInput(entry.getKey(), input);
+                inputChanged = true;
+            }
+        }
+        // the random values are resampled anyway
+        if (inputChanged && !value.isRandom() && generator instanceof DeterministicFunction function) {
+            ((Value) value).setValue(function.apply().value());
+            changed.add(value);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Resample all values again.
+     */
+    public void releaseFixedValues() {
+        fixedIds.clear();
+    }
+
+    /**
+     * @return  the ids of values which are not resampled.
+     */
+    public Set<String> getFixedIds() {
+        return Collections.unmodifiableSet(fixedIds);
+    }
+
     public LPhyMetaParser getParser() {
         return parser;
     }
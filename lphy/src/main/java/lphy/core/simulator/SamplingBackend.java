@@ -0,0 +1,47 @@
+package lphy.core.simulator;
+
+import lphy.core.model.GenerativeDistribution;
+import lphy.core.model.RandomVariable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ServiceLoader;
+
+/**
+ * The alternative implementation of sampling the generative distributions in {@link Sampler},
+ * e.g. the unboxed samplers of the standard distributions, which is loaded by {@link ServiceLoader}.
+ * The model is still parsed and held by the graphical model as usual,
+ * only the sampling of the supported distributions is replaced.
+ * The samples must be same as {@link GenerativeDistribution#sample()} given the same seed.
+ */
+public interface SamplingBackend {
+
+    /**
+     * @return  the name to select this backend, e.g. in the command line.
+     */
+    String getName();
+
+    /**
+     * @param distribution  the distribution whose parameters have been sampled.
+     * @return  the random variable sampled from the distribution,
+     *          or null if it is not supported, so it is sampled by {@link GenerativeDistribution#sample()}.
+     */
+    RandomVariable<?> sample(GenerativeDistribution<?> distribution);
+
+    /**
+     * @param name  the name of backend, case-insensitive.
+     * @return  a new instance of the backend registered by {@link ServiceLoader}.
+     * @throws IllegalArgumentException  if the backend cannot be found.
+     */
+    static SamplingBackend getBackend(String name) {
+        List<String> names = new ArrayList<>();
+        for (SamplingBackend backend : ServiceLoader.load(SamplingBackend.class)) {
+            if (backend.getName().equalsIgnoreCase(name))
+                return backend;
+            names.add(backend.getName());
+        }
+        throw new IllegalArgumentException("Cannot find the sampling backend " + name +
+                ", available backends are " + names + " !");
+    }
+
+}
@@ -0,0 +1,189 @@
+package lphy.core.simulator;
+
+import lphy.core.model.Generator;
+
+import java.lang.management.ManagementFactory;
+import java.util.*;
+
+/**
+ * Record the wall time, the number of calls and the allocated bytes of each generator in {@link Sampler},
+ * which only includes the generator itself, but not the sampling of its parameters.
+ * The records are kept per generator node, and can be aggregated by the name of generator,
+ * e.g. to find that PhyloCTMC takes 95% of the sampling time.
+ * The allocated bytes are measured by {@link com.sun.management.ThreadMXBean} in the current thread
+ * and the threads of {@link SimulationThreads}, which simulate the values in chunks,
+ * and they are 0 if it is not supported by the JVM.
+ * The measurement is a JVM-wide setting, which is enabled by the constructor,
+ * and restored by {@link #close()} when the profiling is finished.
+ * @see Sampler#setProfiler(SamplingProfiler)
+ */
+public class SamplingProfiler implements AutoCloseable {
+
+    /**
+     * The accumulated cost of a generator node, or of all nodes with the same generator name.
+     */
+    public static class Stats {
+        private final String name;
+        private long calls = 0;
+        private long nanos = 0;
+        private long bytes = 0;
+
+        Stats(String name) {
+            this.name = name;
+        }
+
+        void add(long calls, long nanos, long bytes) {
+            this.calls += calls;
+            this.nanos += nanos;
+            this.bytes += bytes;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getCalls() {
+            return calls;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+    }
+
+    // the generator nodes are distinct objects
+    private final Map<Generator, Stats> statsByNode = new IdentityHashMap<>();
+
+    // null if the allocated bytes are not supported
+    private final com.sun.management.ThreadMXBean threadMXBean;
+    // the setting of JVM before profiling, which is restored by close()
+    private final boolean allocatedMemoryEnabled;
+    private boolean closed = false;
+
+    public SamplingProfiler() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean sunBean && sunBean.isThreadAllocatedMemorySupported()) {
+            allocatedMemoryEnabled = sunBean.isThreadAllocatedMemoryEnabled();
+            sunBean.setThreadAllocatedMemoryEnabled(true);
+            threadMXBean = sunBean;
+        } else {
+            allocatedMemoryEnabled = false;
+            threadMXBean = null;
+        }
+    }
+
+    /**
+     * @return  the bytes allocated so far by the current thread and the threads of {@link SimulationThreads},
+     *          or 0 if it is not supported or the profiler is closed.
+     */
+    public long getAllocatedBytes() {
+        if (threadMXBean == null || closed)
+            return 0;
+        long bytes = threadMXBean.getCurrentThreadAllocatedBytes();
+        List<Thread> workerThreads = SimulationThreads.getWorkerThreads();
+        if (!workerThreads.isEmpty()) {
+            long[] ids = new long[workerThreads.size()];
+            for (int i = 0; i < ids.length; i++)
+                ids[i] = workerThreads.get(i).getId();
+            // -1 if the thread has terminated
+            for (long workerBytes : threadMXBean.getThreadAllocatedBytes(ids))
+                bytes += Math.max(0, workerBytes);
+        }
+        return bytes;
+    }
+
+    /**
+     * Record one call of the generator, which starts at the given time and allocated bytes.
+     * @param generator   the generator node.
+     * @param startNanos  {@link System#nanoTime()} before the call.
+     * @param startBytes  {@link #getAllocatedBytes()} before the call.
+     */
+    public void record(Generator generator, long startNanos, long startBytes) {
+        long nanos = System.nanoTime() - startNanos;
+        // a worker thread terminated during the call would make it negative
+        long bytes = Math.max(0, getAllocatedBytes() - startBytes);
+        statsByNode.computeIfAbsent(generator, g -> new Stats(g.getName())).add(1, nanos, bytes);
+    }
+
+    /**
+     * @return  the cost of each generator node.
+     */
+    public Map<Generator, Stats> getStatsByNode() {
+        return Collections.unmodifiableMap(statsByNode);
+    }
+
+    /**
+     * @return  the cost aggregated by the name of generator, sorted by the time in descending order.
+     */
+    public List<Stats> getStatsByName() {
+        Map<String, Stats> statsByName = new HashMap<>();
+        for (Stats stats : statsByNode.values())
+            statsByName.computeIfAbsent(stats.getName(), Stats::new).add(stats.calls, stats.nanos, stats.bytes);
+        List<Stats> list = new ArrayList<>(statsByName.values());
+        list.sort(Comparator.comparingLong(Stats::getNanos).reversed());
+        return list;
+    }
+
+    /**
+     * @return  the total time of all generators in nanoseconds.
+     */
+    public long getTotalNanos() {
+        long total = 0;
+        for (Stats stats : statsByNode.values())
+            total += stats.nanos;
+        return total;
+    }
+
+    /**
+     * @param generator  the generator node.
+     * @return  the fraction of the total time taken by this node, between 0 and 1.
+     */
+    public double getTimeFraction(Generator generator) {
+        Stats stats = statsByNode.get(generator);
+        long total = getTotalNanos();
+        return stats == null || total == 0 ? 0 : (double) stats.nanos / total;
+    }
+
+    public void clear() {
+        statsByNode.clear();
+    }
+
+    /**
+     * Restore the JVM-wide setting of measuring the allocated bytes, which is changed by the constructor.
+     * The recorded cost can still be read, but the bytes of further calls are not measured.
+     */
+    @Override
+    public void close() {
+        if (threadMXBean != null && !closed)
+            threadMXBean.setThreadAllocatedMemoryEnabled(allocatedMemoryEnabled);
+        closed = true;
+    }
+
+    /**
+     * @return  the table of the cost aggregated by the name of generator.
+     */
+    public String toTable() {
+        List<Stats> list = getStatsByName();
+        int width = "Generator".length();
+        for (Stats stats : list)
+            width = Math.max(width, stats.getName().length());
+
+        long total = getTotalNanos();
+        String format = "%-" + width + "s %10s %12s %8s %16s%n";
+        StringBuilder builder = new StringBuilder();
+        builder.append(String.format(format, "Generator", "Calls", "Time (ms)", "Time %",
+                threadMXBean == null ? "Allocated (N/A)" : "Allocated (MB)"));
+        for (Stats stats : list) {
+            builder.append(String.format(format, stats.getName(), stats.calls,
+                    String.format("%.3f", stats.nanos / 1e6),
+                    String.format("%.1f%%", total == 0 ? 0 : 100.0 * stats.nanos / total),
+                    String.format("%.3f", stats.bytes / 1048576.0)));
+        }
+        return builder.toString();
+    }
+
+}
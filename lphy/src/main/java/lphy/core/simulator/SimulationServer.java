@@ -0,0 +1,217 @@
+package lphy.core.simulator;
+
+import lphy.core.logger.LoggerUtils;
+import lphy.core.logger.ValueFormatResolver;
+import lphy.core.logger.ValueFormatter;
+import lphy.core.model.RandomVariable;
+import lphy.core.model.Value;
+import lphy.core.spi.LoaderManager;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * A long-running simulation server on a stdin/stdout line protocol, started by <code>slphy --serve</code>,
+ * so that many small simulations do not pay the JVM startup, the SPI loading and the parsing of scripts.
+ * The parsed {@link Sampler}s are kept in a LRU cache keyed by the directory and the hash of the script,
+ * because the relative paths inside the script (e.g. of the data files) are resolved against its directory.
+ * <p>
+ * Each request is one line of whitespace separated fields:
+ * <pre>
+ * &lt;lphy file&gt; [seed=&lt;long&gt;] [replicates=&lt;n&gt;] [&lt;id&gt;=&lt;expression&gt;]...
+ * </pre>
+ * where <code>id=expression</code> overrides (clamps) a random variable for this request only,
+ * e.g. <code>model.lphy seed=7 replicates=10 κ=2.5 π=[0.1,0.2,0.3,0.4]</code>.
+ * The expression is parsed by LPhy, and cannot contain whitespace.
+ * Blank lines and lines starting with # are ignored, and <code>quit</code> stops the server.
+ * <p>
+ * The response of a request is one line per formatted value of each named random variable,
+ * <code>&lt;replicate&gt;\t&lt;name&gt;\t&lt;value&gt;</code>, where the tabs and line breaks inside
+ * the value (e.g. an alignment) are escaped as <code>\t</code> and <code>\n</code>.
+ * It ends with <code>done\t&lt;replicates&gt;\t&lt;ms&gt;</code>,
+ * or <code>error\t&lt;message&gt;</code> if the request fails.
+ * The replicates are same as <code>slphy</code> given the same seed.
+ */
+public class SimulationServer {
+
+    public static final String QUIT = "quit";
+    public static final String DONE = "done";
+    public static final String ERROR = "error";
+
+    public static final String SEED = "seed";
+    public static final String REPLICATES = "replicates";
+
+    private static final ValueFormatResolver valueFormatResolver = LoaderManager.valueFormatResolver;
+
+    // the parsed samplers keyed by the directory and the hash of scripts, in the access order
+    private final Map<String, Sampler> samplerCache;
+
+    // sample the standard distributions by the backend, see Sampler#setSamplingBackend
+    private SamplingBackend samplingBackend = null;
+
+    /**
+     * @param cacheSize  the maximum number of parsed scripts kept in memory.
+     */
+    public SimulationServer(int cacheSize) {
+        if (cacheSize < 1)
+            throw new IllegalArgumentException("The cache size must be positive, but it is " + cacheSize + " !");
+        samplerCache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Sampler> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Process the requests line by line until <code>quit</code> or the end of input.
+     * The response is flushed after each request.
+     * @param in   the requests.
+     * @param out  the responses.
+     * @throws IOException  if the requests cannot be read.
+     */
+    public void serve(BufferedReader in, PrintStream out) throws IOException {
+        String line;
+        while ((line = in.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#"))
+                continue;
+            if (QUIT.equalsIgnoreCase(line))
+                break;
+            try {
+                long start = System.currentTimeMillis();
+                int numReplicates = process(line, out);
+                out.println(DONE + "\t" + numReplicates + "\t" + (System.currentTimeMillis() - start));
+            } catch (Exception e) {
+                LoggerUtils.log.warning("Request '" + line + "' fails : " + e);
+                out.println(ERROR + "\t" + escape(String.valueOf(e.getMessage())));
+            }
+            out.flush();
+        }
+    }
+
+    // parse one request, and write the values of replicates
+    private int process(String request, PrintStream out) throws IOException {
+        String[] fields = request.split("\\s+");
+        Sampler sampler = getSampler(Path.of(fields[0]));
+
+        Long seed = null;
+        int numReplicates = 1;
+        Map<String, String> overrides = new LinkedHashMap<>();
+        for (int i = 1; i < fields.length; i++) {
+            int eq = fields[i].indexOf('=');
+            if (eq < 1)
+                throw new IllegalArgumentException("The field must be key=value, but it is " + fields[i] + " !");
+            String key = fields[i].substring(0, eq);
+            String val = fields[i].substring(eq + 1);
+            switch (key) {
+                case SEED -> seed = Long.parseLong(val);
+                case REPLICATES -> numReplicates = Integer.parseInt(val);
+                default -> overrides.put(key, val);
+            }
+        }
+
+        try {
+            for (Map.Entry<String, String> entry : overrides.entrySet())
+                sampler.fixValue(entry.getKey(), parseOverride(sampler, entry.getKey(), entry.getValue()));
+
+            for (int i = SimulatorListener.REPLICATES_START_INDEX; i < numReplicates; i++) {
+                List<Value> values = sampler.sampleReplicate(i, seed);
+                writeReplicate(i, NamedRandomValueSimulator.getNamedRandomValues(values), out);
+            }
+        } finally {
+            // the overrides only apply to this request
+            sampler.releaseFixedValues();
+        }
+        return numReplicates;
+    }
+
+    /**
+     * @param lphyFile  the lphy script file.
+     * @return  the cached {@link Sampler} of this script, or the newly parsed one.
+     * @throws IOException  if the file cannot be read.
+     */
+    Sampler getSampler(Path lphyFile) throws IOException {
+        String script = Files.readString(lphyFile);
+        Path dir = lphyFile.toAbsolutePath().normalize().getParent();
+        String key = dir + File.pathSeparator + hash(script);
+        Sampler sampler = samplerCache.get(key);
+        if (sampler == null) {
+            sampler = Sampler.createSampler(lphyFile.toFile());
+            sampler.setSamplingBackend(samplingBackend);
+            samplerCache.put(key, sampler);
+        }
+        return sampler;
+    }
+
+    // only the random variables can be overridden, since the constants are not resampled
+    private Object parseOverride(Sampler sampler, String id, String expression) {
+        Value<?> oldValue = sampler.getParser().getModelDictionary().get(id);
+        if (!(oldValue instanceof RandomVariable<?>))
+            throw new IllegalArgumentException("Only the random variable can be overridden, but " + id +
+                    " is not a random variable in the model !");
+        return ParameterSweep.parseValue(id, expression, oldValue);
+    }
+
+    private void writeReplicate(int index, List<Value> values, PrintStream out) throws IOException {
+        for (Value value : values) {
+            List<ValueFormatter> formatters = valueFormatResolver.getFormatter(value);
+            for (ValueFormatter formatter : formatters) {
+                if (formatter == null) {
+                    LoggerUtils.log.warning("Cannot find formatter for " + value.getId() +
+                            ", type is " + value.getType());
+                    continue;
+                }
+                String formatted = formatter.getMode() == ValueFormatter.Mode.VALUE_PER_FILE ?
+                        formatFile(index, value, formatter) : formatter.format(value.value());
+                out.println(index + "\t" + formatter.getValueID() + "\t" + escape(formatted));
+            }
+        }
+    }
+
+    // the same content as the file of this value, e.g. a Nexus alignment
+    private String formatFile(int index, Value value, ValueFormatter formatter) throws IOException {
+        if (formatter.isStreamable()) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            formatter.write(value.value(), Channels.newChannel(bytes));
+            return bytes.toString();
+        }
+        return String.join("\n", formatter.header(),
+                formatter.getRowName(index) + formatter.format(value.value()), formatter.footer());
+    }
+
+    private static String escape(String s) {
+        return s.replace("\\", "\\\\").replace("\t", "\\t")
+                .replace("\r", "").replace("\n", "\\n");
+    }
+
+    private static String hash(String script) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(script.getBytes()));
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * @param samplingBackend  the backend to sample the distributions it supports, or null.
+     * @see Sampler#setSamplingBackend(SamplingBackend)
+     */
+    public void setSamplingBackend(SamplingBackend samplingBackend) {
+        this.samplingBackend = samplingBackend;
+    }
+
+    /**
+     * @return  the number of parsed scripts in the cache.
+     */
+    public int getCacheSize() {
+        return samplerCache.size();
+    }
+
+}
@@ -0,0 +1,97 @@
+package lphy.core.simulator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+/**
+ * The thread pool which the generators may use to simulate a value concurrently,
+ * e.g. the sites of PhyloCTMC in chunks, set by <code>slphy --threads N</code>.
+ * By default, the simulation is not chunked, and the generators simulate sequentially,
+ * so that the values simulated from a seed are same as the previous versions.
+ * Once the number of threads is set, even if it is 1, the generators simulate in chunks
+ * having their own seeds, so that the values simulated from a seed are same for any number of threads.
+ * The pool is owned by LPhy instead of the common pool,
+ * so it is not shared with the other work in the same JVM.
+ */
+public final class SimulationThreads {
+
+    // false for the sequential simulation as the previous versions
+    private static boolean chunked = false;
+    // null if the chunks are simulated one after another
+    private static ForkJoinPool pool = null;
+    // the threads of the pool, e.g. to measure their allocated memory
+    private static final Set<Thread> workerThreads = ConcurrentHashMap.newKeySet();
+
+    private SimulationThreads() { }
+
+    /**
+     * Simulate in chunks, which have their own seeds.
+     * @param threads  the number of threads to simulate the chunks concurrently,
+     *                 where 1 means the chunks are simulated one after another without a pool.
+     */
+    public static synchronized void setThreads(int threads) {
+        if (threads < 1)
+            throw new IllegalArgumentException("The number of threads must be positive, but it is " + threads + " !");
+        chunked = true;
+        if (pool != null) {
+            if (pool.getParallelism() == threads)
+                return;
+            pool.shutdown();
+            pool = null;
+        }
+        if (threads > 1) {
+            pool = new ForkJoinPool(threads, p -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+                thread.setName("lphy-simulation-" + thread.getPoolIndex());
+                workerThreads.add(thread);
+                return thread;
+            }, null, false);
+        }
+    }
+
+    /**
+     * Simulate sequentially as the previous versions, which is the default.
+     */
+    public static synchronized void setSequential() {
+        chunked = false;
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
+    }
+
+    /**
+     * @return  true if the values are simulated in chunks having their own seeds,
+     *          which is set by {@link #setThreads(int)}.
+     */
+    public static synchronized boolean isChunked() {
+        return chunked;
+    }
+
+    /**
+     * @return  the pool to simulate the chunks concurrently, or null if there is only one thread.
+     */
+    public static synchronized ForkJoinPool getPool() {
+        return pool;
+    }
+
+    /**
+     * @return  the number of threads, which is 1 if the simulation is sequential or has no pool.
+     */
+    public static synchronized int getThreads() {
+        return pool == null ? 1 : pool.getParallelism();
+    }
+
+    /**
+     * @return  the alive threads of the pool.
+     */
+    public static List<Thread> getWorkerThreads() {
+        workerThreads.removeIf(thread -> !thread.isAlive());
+        return new ArrayList<>(workerThreads);
+    }
+
+}
@@ -11,14 +11,20 @@ public class VectorizedRandomVariable<T> extends RandomVariable<T[]> implements
 
     List<RandomVariable<T>> componentVariables = new ArrayList<>();
 
-//    public VectorizedRandomVariable(String id, T[] value, GenerativeDistribution<T[]> generativeDistribution, List<GenerativeDistribution<T>> componentGenerators) {
-//        super(id, value, generativeDistribution);
-//
-//        for (int i = 0; i < value.length; i++) {
-//            RandomVariable<T> randomVariable = new RandomVariable<>(id + "." + i, value[i], componentGenerators != null ? componentGenerators.get(i) : null);
-//            componentVariables.add(randomVariable);
-//        }
-//    }
+    // the generators of lazily created component variables, null if the components are given
+    private List<? extends GenerativeDistribution<T>> componentGenerators = null;
+
+    /**
+     * The component variables are only created when {@link #getComponentValue(int)} is called,
+     * e.g. if the value is sampled without the components by a {@link lphy.core.simulator.SamplingBackend}.
+     * @param value                the sampled array.
+     * @param componentGenerators  the generator of each component, or one generator shared by all components.
+     */
+    public VectorizedRandomVariable(String id, T[] value, GenerativeDistribution<T[]> generativeDistribution,
+                                    List<? extends GenerativeDistribution<T>> componentGenerators) {
+        super(id, value, generativeDistribution);
+        this.componentGenerators = componentGenerators;
+    }
 
     public VectorizedRandomVariable(String id, List<RandomVariable> componentVariables, GenerativeDistribution<T[]> generativeDistribution) {
         super(id, (T[])unwrapValues(componentVariables), generativeDistribution);
@@ -43,6 +49,7 @@ public class VectorizedRandomVariable<T> extends RandomVariable<T[]> implements
 
     public void setId(String id) {
         super.setId(id);
+        // the lazy components take the id when they are created
         for (int i = 0; i < componentVariables.size(); i++) {
             componentVariables.get(i).setId(id + VectorUtils.INDEX_SEPARATOR + i);
         }
@@ -67,6 +74,14 @@ public class VectorizedRandomVariable<T> extends RandomVariable<T[]> implements
     public RandomVariable<T> getComponentValue(int i) {
 //        if (componentVariables.size() == 0)
 //            return null;// new RandomVariable
+        if (componentGenerators != null) {
+            // create the lazy components in order
+            for (int j = componentVariables.size(); j <= i; j++) {
+                GenerativeDistribution<T> generator = componentGenerators.get(componentGenerators.size() > 1 ? j : 0);
+                String componentId = getId() == null ? null : getId() + VectorUtils.INDEX_SEPARATOR + j;
+                componentVariables.add(new RandomVariable<>(componentId, value()[j], generator));
+            }
+        }
         return componentVariables.get(i);
     }
 }
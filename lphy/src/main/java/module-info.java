@@ -15,6 +15,10 @@ module lphy.core {
     requires transitive commons.math3;
 
     requires info.picocli;
+    // the allocated bytes of threads
+    requires jdk.management;
+    // the custom events of Java Flight Recorder
+    requires transitive jdk.jfr;
 
     exports lphy.core.logger;
 
@@ -40,6 +44,7 @@ module lphy.core {
 //    exports lphy.core.narrative;
     exports lphy.core.exception;
     exports lphy.core.io;
+    exports lphy.core.jfr;
 
     // declare service provider interface (SPI)
     exports lphy.core.spi;
@@ -51,6 +56,8 @@ module lphy.core {
     // declare what service interface the provider intends to use
     provides lphy.core.spi.LPhyExtension with LPhyCoreImpl;
 
+    uses lphy.core.simulator.SamplingBackend;
+
     uses LPhyValueFormatter;
     provides LPhyValueFormatter with LPhyCoreValueFormatterImpl;
 }
\ No newline at end of file
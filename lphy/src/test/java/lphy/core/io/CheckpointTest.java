@@ -0,0 +1,69 @@
+package lphy.core.io;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CheckpointTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testSaveAndLoad() throws IOException {
+        File lphyFile = Files.writeString(tempDir.resolve("model.lphy"), "x ~ Normal(mean=0, sd=1);").toFile();
+        File file = Checkpoint.getFile(lphyFile, tempDir.toFile());
+        assertEquals("model" + Checkpoint.EXTENSION, file.getName());
+        String scriptHash = Checkpoint.getScriptHash(lphyFile);
+
+        Checkpoint checkpoint = new Checkpoint(file, 777, 10, 4, OutputFormat.GZIP, scriptHash);
+        assertEquals(3, checkpoint.getSegmentCount());
+        checkpoint.save();
+        checkpoint.complete();
+
+        Checkpoint loaded = Checkpoint.load(file);
+        assertEquals(777, loaded.getSeed());
+        assertEquals(1, loaded.getCompleted());
+        assertEquals(checkpoint.getSegment(2), loaded.getSegment(2));
+        assertEquals(loaded.getSegment(2).getFirstReplicate(10), loaded.getCompletedReplicates());
+        assertFalse(new File(file.getPath() + ".tmp").exists());
+
+        loaded.validate(10, OutputFormat.GZIP, scriptHash);
+        assertThrows(IllegalArgumentException.class, () -> loaded.validate(20, OutputFormat.GZIP, scriptHash));
+        Files.writeString(lphyFile.toPath(), "x ~ Normal(mean=1, sd=1);");
+        assertThrows(IllegalArgumentException.class, () ->
+                loaded.validate(10, OutputFormat.GZIP, Checkpoint.getScriptHash(lphyFile)));
+
+        assertThrows(IllegalStateException.class, loaded::completeMerge);
+        loaded.complete();
+        loaded.complete();
+        assertEquals(10, Checkpoint.load(file).getCompletedReplicates());
+        assertFalse(Checkpoint.load(file).isMerged());
+        loaded.completeMerge();
+        assertTrue(Checkpoint.load(file).isMerged());
+    }
+
+    @Test
+    void testDeleteSegmentFiles() throws IOException {
+        File file = tempDir.resolve("model" + Checkpoint.EXTENSION).toFile();
+        Checkpoint checkpoint = new Checkpoint(file, 1, 10, 5, OutputFormat.TEXT, "");
+        File segmentLog = Files.writeString(tempDir.resolve("model_shard1of2.log"), "Sample").toFile();
+        File segmentTrees = Files.writeString(tempDir.resolve("model_shard1of2_psi.trees"), "#NEXUS").toFile();
+        // the files of replicates keep their names
+        File alignment = Files.writeString(tempDir.resolve("model_r0_D.nexus"), "#NEXUS").toFile();
+        File otherSegment = Files.writeString(tempDir.resolve("model_shard2of2.log"), "Sample").toFile();
+
+        checkpoint.deleteSegmentFiles(tempDir.toFile(), "model", 1);
+        assertFalse(segmentLog.exists());
+        assertFalse(segmentTrees.exists());
+        assertTrue(alignment.exists());
+        assertTrue(otherSegment.exists());
+    }
+
+}
@@ -0,0 +1,84 @@
+package lphy.core.io;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class OutputFileWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    // replicates are written into their own files concurrently through a small queue
+    @Test
+    void testConcurrentFiles() throws IOException {
+        final int nFiles = 8;
+        final int nLines = 500;
+        OutputQueue queue = new OutputQueue(4);
+
+        IntStream.range(0, nFiles).parallel().forEach(i -> {
+            OutputFormat format = i % 2 == 0 ? OutputFormat.TEXT : OutputFormat.BGZIP;
+            try (OutputFileWriter writer = new OutputFileWriter(tempDir.resolve("rep_" + i).toFile(), format, queue)) {
+                for (int j = 0; j < nLines; j++) {
+                    writer.startBlock();
+                    writer.println(i + "\t" + j);
+                }
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        queue.await();
+
+        for (int i = 0; i < nFiles; i++) {
+            List<String> expected = new ArrayList<>();
+            for (int j = 0; j < nLines; j++)
+                expected.add(i + "\t" + j);
+            Path file = tempDir.resolve("rep_" + i);
+            List<String> lines;
+            if (i % 2 == 0) {
+                lines = Files.readAllLines(file);
+            } else {
+                try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+                    lines = new String(in.readAllBytes()).lines().toList();
+                }
+                // one block per line
+                assertEquals(nLines + 1, Files.readAllLines(BlockGzipOutputStream.getIndexFile(file.toFile()).toPath()).size());
+            }
+            assertEquals(expected, lines, "rep_" + i);
+        }
+    }
+
+    // the buffer of channel can be reused after write
+    @Test
+    void testChannel() throws IOException {
+        OutputQueue queue = new OutputQueue(2);
+        Path file = tempDir.resolve("channel.txt");
+        try (OutputFileWriter writer = new OutputFileWriter(file.toFile(), OutputFormat.TEXT, queue)) {
+            writer.println("header");
+            WritableByteChannel channel = writer.getChannel();
+            ByteBuffer buffer = ByteBuffer.allocate(4);
+            for (String s : new String[]{"abcd", "efgh", "ijkl"}) {
+                buffer.clear();
+                buffer.put(s.getBytes(StandardCharsets.US_ASCII)).flip();
+                channel.write(buffer);
+            }
+        }
+        queue.await();
+
+        assertEquals("header" + System.lineSeparator() + "abcdefghijkl", Files.readString(file));
+    }
+
+}
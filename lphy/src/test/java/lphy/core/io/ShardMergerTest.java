@@ -0,0 +1,71 @@
+package lphy.core.io;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardMergerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testShardRanges() {
+        final int numReplicates = 10;
+        final int count = 3;
+        int next = 0;
+        for (int k = 1; k <= count; k++) {
+            Shard shard = Shard.parse(k + "/" + count);
+            // contiguous and covering all replicates
+            assertEquals(next, shard.getFirstReplicate(numReplicates));
+            next = shard.getLastReplicate(numReplicates);
+        }
+        assertEquals(numReplicates, next);
+        assertThrows(IllegalArgumentException.class, () -> Shard.parse("0/3"));
+        assertThrows(IllegalArgumentException.class, () -> Shard.parse("4/3"));
+        assertThrows(IllegalArgumentException.class, () -> Shard.parse("1-3"));
+    }
+
+    @Test
+    void testMerge() throws IOException {
+        File lphyFile = write("model.lphy", "x ~ Normal(mean=0, sd=1);");
+        String ls = System.lineSeparator();
+        write("model_shard1of2.log", "Sample\tx" + ls + "0\t0.1" + ls + "1\t0.2" + ls + ls);
+        write("model_shard2of2.log", "Sample\tx" + ls + "2\t0.3" + ls + ls);
+        write("model_shard1of2_psi.trees", "#NEXUS" + ls + "Begin trees;" + ls +
+                "\ttree TREE_0= [&R] (A:1,B:1);" + ls + "End;" + ls);
+        write("model_shard2of2_psi.trees", "#NEXUS" + ls + "Begin trees;" + ls +
+                "\ttree TREE_1= [&R] (A:2,B:2);" + ls + "\ttree TREE_2= [&R] (A:3,B:3);" + ls + "End;" + ls);
+        // not the shards of 2
+        write("model_shard1of20.log", "Sample\tx" + ls + "9\t9.9" + ls);
+
+        List<File> merged = ShardMerger.merge(lphyFile, tempDir.toFile(), 2, OutputFormat.TEXT);
+        assertEquals(2, merged.size());
+
+        assertEquals("Sample\tx" + ls + "0\t0.1" + ls + "1\t0.2" + ls + "2\t0.3" + ls + ls,
+                Files.readString(tempDir.resolve("model.log")));
+        assertEquals("#NEXUS" + ls + "Begin trees;" + ls + "\ttree TREE_0= [&R] (A:1,B:1);" + ls +
+                        "\ttree TREE_1= [&R] (A:2,B:2);" + ls + "\ttree TREE_2= [&R] (A:3,B:3);" + ls + "End;" + ls,
+                Files.readString(tempDir.resolve("model_psi.trees")));
+    }
+
+    @Test
+    void testDifferentColumns() throws IOException {
+        File lphyFile = write("model.lphy", "x ~ Normal(mean=0, sd=1);");
+        write("model_shard1of2.log", "Sample\tx\n0\t0.1\n");
+        write("model_shard2of2.log", "Sample\ty\n1\t0.2\n");
+        assertThrows(IOException.class, () -> ShardMerger.merge(lphyFile, tempDir.toFile(), 2, OutputFormat.TEXT));
+    }
+
+    private File write(String fileName, String content) throws IOException {
+        return Files.writeString(tempDir.resolve(fileName), content).toFile();
+    }
+
+}
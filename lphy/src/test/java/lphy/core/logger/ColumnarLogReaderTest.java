@@ -0,0 +1,50 @@
+package lphy.core.logger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ColumnarLogReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testReadColumns() throws IOException {
+        Path logFile = tempDir.resolve("test.log" + ColumnarLog.EXTENSION);
+        // 7 rows in 3 row groups
+        try (ColumnarLogWriter writer = new ColumnarLogWriter(logFile, 3)) {
+            for (int i = 0; i < 7; i++)
+                writer.writeRow(List.of("mu", "n", "flag", "model"),
+                        List.of(i * 0.5, i, i % 2 == 0, "m" + i));
+        }
+
+        try (ColumnarLogReader reader = new ColumnarLogReader(logFile)) {
+            assertEquals(List.of("mu", "n", "flag", "model"), reader.getColumnNames());
+            assertEquals(7, reader.getRowCount());
+            assertEquals(3, reader.getRowGroupCount());
+            assertEquals(ColumnarLog.ColumnType.INT, reader.getColumnType("n"));
+
+            Map<String, Object> columns = reader.readColumns("mu", "model");
+            assertEquals(2, columns.size());
+            assertArrayEquals(new double[]{0, 0.5, 1, 1.5, 2, 2.5, 3}, (double[]) columns.get("mu"));
+            assertArrayEquals(new String[]{"m0", "m1", "m2", "m3", "m4", "m5", "m6"},
+                    (String[]) columns.get("model"));
+            assertArrayEquals(new int[]{0, 1, 2, 3, 4, 5, 6}, reader.readIntColumn("n"));
+            assertArrayEquals(new boolean[]{true, false, true, false, true, false, true},
+                    reader.readBooleanColumn("flag"));
+
+            List<ColumnarLog.Statistics> statistics = reader.getStatistics("mu");
+            assertEquals(new ColumnarLog.Statistics(3, 1.5, 2.5, 2.0), statistics.get(1));
+            assertEquals(new ColumnarLog.Statistics(1, 3.0, 3.0, 3.0), statistics.get(2));
+        }
+    }
+
+}
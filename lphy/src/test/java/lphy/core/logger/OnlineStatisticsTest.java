@@ -0,0 +1,70 @@
+package lphy.core.logger;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OnlineStatisticsTest {
+
+    @Test
+    void testIndependentValues() {
+        final int n = 100000;
+        Random random = new Random(777);
+        double[] values = new double[n];
+        OnlineStatistics stats = new OnlineStatistics();
+        for (int i = 0; i < n; i++) {
+            values[i] = random.nextGaussian() * 2.0 + 10.0;
+            stats.addValue(values[i]);
+        }
+
+        double mean = Arrays.stream(values).average().orElseThrow();
+        double variance = Arrays.stream(values).map(x -> (x - mean) * (x - mean)).sum() / (n - 1);
+        assertEquals(n, stats.getN());
+        assertEquals(mean, stats.getMean(), 1e-10);
+        assertEquals(variance, stats.getVariance(), 1e-8);
+        assertEquals(Arrays.stream(values).min().orElseThrow(), stats.getMin());
+        assertEquals(Arrays.stream(values).max().orElseThrow(), stats.getMax());
+
+        Arrays.sort(values);
+        assertEquals(values[n / 2], stats.getQuantile(0.5), 0.02);
+        assertEquals(values[(int) (0.025 * n)], stats.getQuantile(0.025), 0.05);
+        assertEquals(values[(int) (0.975 * n)], stats.getQuantile(0.975), 0.05);
+
+        // about n for independent values
+        double ess = stats.getESS();
+        assertTrue(ess > 0.6 * n && ess < 1.4 * n, "ESS = " + ess);
+    }
+
+    @Test
+    void testAutocorrelatedValues() {
+        final int n = 100000;
+        final double rho = 0.9;
+        Random random = new Random(777);
+        OnlineStatistics stats = new OnlineStatistics();
+        double x = 0.0;
+        for (int i = 0; i < n; i++) {
+            x = rho * x + random.nextGaussian();
+            stats.addValue(x);
+        }
+        // n (1 - rho) / (1 + rho) for AR(1)
+        double expected = n * (1 - rho) / (1 + rho);
+        double ess = stats.getESS();
+        assertTrue(ess > 0.6 * expected && ess < 1.4 * expected, "ESS = " + ess);
+    }
+
+    @Test
+    void testFewValues() {
+        OnlineStatistics stats = new OnlineStatistics(0.5);
+        stats.addValue(3.0);
+        stats.addValue(1.0);
+        stats.addValue(2.0);
+        assertEquals(2.0, stats.getQuantile(0.5));
+        assertEquals(1.0, stats.getVariance());
+        assertEquals(3, stats.getN());
+    }
+
+}
@@ -1,8 +1,10 @@
 package lphy.core.parser;
 
+import lphy.core.exception.SimulatorParsingException;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.fail;
 
 public class ParserTest {
@@ -22,6 +24,20 @@ public class ParserTest {
         parse("a=2;b=a");
     }
 
+    // the syntax error is still reported after SLL prediction fails
+    @Test
+    public void testSyntaxError() {
+        assertThrows(SimulatorParsingException.class, () -> ParserSingleton.parse("a=3;b=*a;"));
+    }
+
+    @Test
+    public void testManyLines() {
+        StringBuilder builder = new StringBuilder("a0=1.0;\n");
+        for (int i = 1; i < 500; i++)
+            builder.append("a").append(i).append("=2.0*a").append(i - 1).append(";\n");
+        parse(builder.toString());
+    }
+
     /**
      * Helper method
      * @param cmd
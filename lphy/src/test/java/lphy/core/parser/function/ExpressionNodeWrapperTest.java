@@ -0,0 +1,72 @@
+package lphy.core.parser.function;
+
+import lphy.core.model.ExpressionNode;
+import lphy.core.model.Value;
+import lphy.core.model.datatype.DoubleArrayValue;
+import lphy.core.model.datatype.DoubleValue;
+import lphy.core.model.datatype.IntegerArrayValue;
+import lphy.core.model.datatype.IntegerValue;
+import org.junit.jupiter.api.Test;
+
+import java.util.function.BiFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExpressionNodeWrapperTest {
+
+    private Value binary(String expression, BiFunction func, Value a, Value b) {
+        return new ExpressionNode2Args(expression, func, a, b).apply();
+    }
+
+    // the compiled expression must give the same value as applying the ExpressionNodes
+    private void assertSameAsExpressionNodes(Value value) {
+        ExpressionNodeWrapper wrapper = new ExpressionNodeWrapper((ExpressionNode) value.getGenerator());
+        Value compiled = wrapper.apply();
+        Value expected = wrapper.applyRecursively();
+        assertEquals(expected.getClass(), compiled.getClass(), wrapper.codeString());
+        assertEquals(expected.value().getClass(), compiled.value().getClass(), wrapper.codeString());
+        if (expected.value() instanceof Object[] expectedArray)
+            assertArrayEquals(expectedArray, (Object[]) compiled.value(), wrapper.codeString());
+        else
+            assertEquals(expected.value(), compiled.value(), wrapper.codeString());
+        assertSame(wrapper, compiled.getGenerator());
+    }
+
+    @Test
+    void testIntegerArithmetic() {
+        Value a = new IntegerValue("a", 3);
+        // a*2+7/2 = 9
+        Value x = binary("a*2+7/2", ExpressionNode2Args.plus(),
+                binary("a*2", ExpressionNode2Args.times(), a, new IntegerValue(null, 2)),
+                binary("7/2", ExpressionNode2Args.divide(), new IntegerValue(null, 7), new IntegerValue(null, 2)));
+        assertSameAsExpressionNodes(x);
+        assertEquals(9, new ExpressionNodeWrapper((ExpressionNode) x.getGenerator()).apply().value());
+    }
+
+    @Test
+    void testArrays() {
+        Value b = new DoubleValue("b", 2.0);
+        Value c = new DoubleArrayValue("c", new Double[]{1.0, 2.0, 3.0});
+        Value d = new IntegerArrayValue("d", new Integer[]{1, 2, 3});
+
+        assertSameAsExpressionNodes(binary("(c*b+d)/2", ExpressionNode2Args.divide(),
+                binary("c*b+d", ExpressionNode2Args.plus(), binary("c*b", ExpressionNode2Args.times(), c, b), d),
+                new IntegerValue(null, 2)));
+        assertSameAsExpressionNodes(binary("d%2+d", ExpressionNode2Args.plus(),
+                binary("d%2", ExpressionNode2Args.mod(), d, new IntegerValue(null, 2)), d));
+        assertSameAsExpressionNodes(binary("exp(c)>2.5", ExpressionNode2Args.greater(),
+                new ExpressionNode1Arg("exp(c)", ExpressionNode1Arg.exp(), c).apply(), new DoubleValue(null, 2.5)));
+    }
+
+    @Test
+    void testSetParam() {
+        Value c = new DoubleArrayValue("c", new Double[]{1.0, 2.0, 3.0});
+        Value y = binary("c*b*2", ExpressionNode2Args.times(),
+                binary("c*b", ExpressionNode2Args.times(), c, new DoubleValue("b", 2.0)), new IntegerValue(null, 2));
+        ExpressionNodeWrapper wrapper = new ExpressionNodeWrapper((ExpressionNode) y.getGenerator());
+
+        wrapper.setParam("b", new DoubleValue("b", 10.0));
+        assertArrayEquals(new Double[]{20.0, 40.0, 60.0}, (Double[]) wrapper.apply().value());
+    }
+
+}
@@ -0,0 +1,67 @@
+package lphy.core.simulator;
+
+import lphy.core.model.Value;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParameterSweepTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testGrid() {
+        ParameterSweep sweep = ParameterSweep.fromGrid(List.of("birthRate=0.5,1.0", "π=[0.1,0.9],[0.5,0.5],[0.9,0.1]"));
+        assertEquals(List.of("birthRate", "π"), sweep.getIds());
+        assertEquals(6, sweep.size());
+        // the last changes the fastest
+        assertEquals(Map.of("birthRate", "0.5", "π", "[0.1,0.9]"), sweep.getPoint(0));
+        assertEquals(Map.of("birthRate", "0.5", "π", "[0.5,0.5]"), sweep.getPoint(1));
+        assertEquals(Map.of("birthRate", "1.0", "π", "[0.9,0.1]"), sweep.getPoint(5));
+
+        assertThrows(IllegalArgumentException.class, () -> ParameterSweep.fromGrid(List.of("L")));
+    }
+
+    @Test
+    void testCSV() throws IOException {
+        File csvFile = Files.writeString(tempDir.resolve("points.csv"),
+                "L, freqs\n100, [0.25,0.75]\n\n200, [0.5,0.5]\n").toFile();
+        ParameterSweep sweep = ParameterSweep.fromCSV(csvFile);
+        assertEquals(List.of("L", "freqs"), sweep.getIds());
+        assertEquals(2, sweep.size());
+        assertEquals(Map.of("L", "200", "freqs", "[0.5,0.5]"), sweep.getPoint(1));
+
+        File indexFile = tempDir.resolve("model" + ParameterSweep.INDEX_FILE_POSTFIX).toFile();
+        sweep.writeIndex(indexFile, "model");
+        assertEquals(List.of("point\tL\tfreqs", "model_point1\t100\t[0.25,0.75]", "model_point2\t200\t[0.5,0.5]"),
+                Files.readAllLines(indexFile.toPath()));
+
+        Files.writeString(csvFile.toPath(), "L,freqs\n100\n");
+        assertThrows(IllegalArgumentException.class, () -> ParameterSweep.fromCSV(csvFile));
+    }
+
+    // the type of constant is kept
+    @Test
+    void testParseValue() {
+        assertEquals(2.0, ParameterSweep.parseValue("mu", "2", new Value<>("mu", 1.0)));
+        assertArrayEquals(new Double[]{1.0, 3.0},
+                (Double[]) ParameterSweep.parseValue("freqs", "[1,3]", new Value<>("freqs", new Double[]{0.5, 0.5})));
+        assertEquals(5, ParameterSweep.parseValue("L", "5", new Value<>("L", 100)));
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> ParameterSweep.parseValue("L", "1.5", new Value<>("L", 100)));
+        assertTrue(e.getMessage().contains("L"));
+        assertThrows(IllegalArgumentException.class,
+                () -> ParameterSweep.parseValue("L", "\"a\"", new Value<>("L", 100)));
+    }
+
+}
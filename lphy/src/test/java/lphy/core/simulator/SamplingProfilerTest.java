@@ -0,0 +1,56 @@
+package lphy.core.simulator;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class SamplingProfilerTest {
+
+    @AfterEach
+    void sequential() {
+        SimulationThreads.setSequential();
+    }
+
+    // the bytes allocated by the threads of the simulation pool are included
+    @Test
+    void testWorkerThreadBytes() throws ExecutionException, InterruptedException {
+        SamplingProfiler profiler = new SamplingProfiler();
+        assumeTrue(getThreadMXBean().isThreadAllocatedMemorySupported());
+        SimulationThreads.setThreads(2);
+        final int size = 10_000_000;
+
+        long startBytes = profiler.getAllocatedBytes();
+        int length = SimulationThreads.getPool().submit(() -> new byte[size]).get().length;
+        assertEquals(size, length);
+        assertTrue(profiler.getAllocatedBytes() - startBytes >= size);
+        profiler.close();
+        assertEquals(0, profiler.getAllocatedBytes());
+    }
+
+    // the JVM-wide setting is restored when the profiling is finished
+    @Test
+    void testRestoreAllocatedMemorySetting() {
+        com.sun.management.ThreadMXBean bean = getThreadMXBean();
+        assumeTrue(bean.isThreadAllocatedMemorySupported());
+        boolean enabled = bean.isThreadAllocatedMemoryEnabled();
+        try {
+            bean.setThreadAllocatedMemoryEnabled(false);
+            SamplingProfiler profiler = new SamplingProfiler();
+            assertTrue(bean.isThreadAllocatedMemoryEnabled());
+            profiler.close();
+            assertFalse(bean.isThreadAllocatedMemoryEnabled());
+        } finally {
+            bean.setThreadAllocatedMemoryEnabled(enabled);
+        }
+    }
+
+    private com.sun.management.ThreadMXBean getThreadMXBean() {
+        return (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    }
+
+}
@@ -8,7 +8,7 @@ rootProject.name = "LinguaPhylo"
 include("lphy")
 include("lphy-base")
 include("lphy-studio")
-//include("lphy-lightweight")
+include("lphy-lightweight")
 
 pluginManagement {
     // the repos to load Gradle plugins